@@ -0,0 +1,249 @@
+/*
+ * This file is a part of ANTLR.
+ *
+ * Copyright (c) 2012-2025 The ANTLR Project. All rights reserved.
+ * Copyright (c) 2025-2026 Valery Maximov <maximovvalery@gmail.com> and contributors
+ *
+ * Use of this file is governed by the BSD-3-Clause license that
+ * can be found in the LICENSE.txt file in the project root.
+ */
+package org.antlr.v4;
+
+import org.antlr.v4.tool.ANTLRMessage;
+import org.antlr.v4.tool.ANTLRToolListener;
+import org.antlr.v4.tool.ErrorType;
+import org.antlr.v4.tool.Grammar;
+import org.antlr.v4.tool.ast.GrammarRootAST;
+import org.jspecify.annotations.NullMarked;
+import org.stringtemplate.v4.ST;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compiles grammars in a long-running JVM.
+ * <p>
+ * A fresh {@link Tool} is created for every request, so options, imported grammars and the {@code ErrorManager}
+ * state never leak from one request to the next. What is kept between requests is everything that is expensive to
+ * build and safe to share: loaded classes, the Unicode property tables and the code generation templates, which
+ * are loaded once per language and shared by all requests. Template errors are reported to the tool of the request
+ * that hit them. Requests run on a fixed set of compiler threads, and {@link #warmUp()} compiles a grammar on each
+ * of them up front.
+ * <p>
+ * {@link #main} runs the service as a local daemon. A client connects to the loopback port, sends one line with the
+ * tool arguments separated by tabs and receives the messages of the run followed by a line {@code exit <code>}.
+ * Relative paths are resolved against the working directory of the daemon.
+ */
+@NullMarked
+public class CompilerService implements AutoCloseable {
+  private static final String WARM_UP_GRAMMAR = """
+    grammar WarmUp;
+    start : ID (',' ID)* EOF ;
+    ID : [\\p{L}_] [\\p{L}\\p{Nd}_]* ;
+    WS : [ \\t\\r\\n]+ -> skip ;
+    """;
+
+  /**
+   * Outcome of one compilation.
+   *
+   * @param errors   number of errors reported
+   * @param warnings number of warnings reported
+   * @param messages rendered messages in the order they were reported
+   */
+  public record Result(int errors, int warnings, List<String> messages) {
+    public int exitCode() {
+      return errors > 0 ? 1 : 0;
+    }
+  }
+
+  private final int threads;
+  private final ExecutorService executor;
+
+  public CompilerService() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  public CompilerService(int threads) {
+    this.threads = threads;
+    this.executor = Executors.newFixedThreadPool(threads, r -> {
+      Thread thread = new Thread(r, "antlr-compiler");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Compile a small grammar on every compiler thread so that the first real request does not pay for class
+   * loading, Unicode tables, template parsing and a cold JIT.
+   */
+  public void warmUp() throws InterruptedException {
+    CountDownLatch started = new CountDownLatch(threads);
+    List<Future<?>> futures = new ArrayList<>(threads);
+    for (int i = 0; i < threads; i++) {
+      futures.add(executor.submit(() -> {
+        // hold each thread until all have a task, so every thread warms up once
+        started.countDown();
+        started.await();
+        warmUpThread();
+        return null;
+      }));
+    }
+    for (Future<?> future : futures) {
+      await(future);
+    }
+  }
+
+  protected void warmUpThread() {
+    Tool tool = new Tool(null, new MessageCollector());
+    tool.outputDirectory = null; // keep the generated code in memory
+    GrammarRootAST ast = tool.parseGrammarFromString(WARM_UP_GRAMMAR);
+    if (ast != null) {
+      Grammar g = tool.createGrammar(ast);
+      g.fileName = "WarmUp.g4";
+      tool.process(g, true);
+    }
+  }
+
+  public Future<Result> submit(String... args) {
+    String[] copy = args.clone();
+    return executor.submit(() -> run(copy));
+  }
+
+  public Result compile(String... args) throws InterruptedException {
+    return await(submit(args));
+  }
+
+  protected Result run(String[] args) {
+    MessageCollector collector = new MessageCollector();
+    Tool tool = new Tool(args, collector);
+    tool.return_dont_exit = true;
+    tool.processGrammarsOnCommandLine();
+    if (tool.log) {
+      try {
+        collector.info("wrote " + tool.logMgr.save());
+      } catch (IOException ioe) {
+        tool.errMgr.toolError(ErrorType.INTERNAL_ERROR, ioe);
+      }
+    }
+    return new Result(tool.getNumErrors(), tool.errMgr.warnings, collector.render(tool));
+  }
+
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+
+  private static <T> T await(Future<T> future) throws InterruptedException {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      if (cause instanceof Error error) {
+        throw error;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  /**
+   * Keeps messages as reported; they are rendered once the tool, and so the message format, is known.
+   */
+  private static class MessageCollector implements ANTLRToolListener {
+    private final List<Object> messages = new ArrayList<>();
+
+    @Override
+    public void info(String msg) {
+      messages.add(msg);
+    }
+
+    @Override
+    public void error(ANTLRMessage msg) {
+      messages.add(msg);
+    }
+
+    @Override
+    public void warning(ANTLRMessage msg) {
+      messages.add(msg);
+    }
+
+    List<String> render(Tool tool) {
+      boolean singleLine = tool.errMgr.formatWantsSingleLineMessage();
+      List<String> result = new ArrayList<>(messages.size());
+      for (Object message : messages) {
+        String text;
+        if (message instanceof ANTLRMessage antlrMessage) {
+          ST msgST = tool.errMgr.getMessageTemplate(antlrMessage);
+          text = msgST.render();
+        } else {
+          text = (String) message;
+        }
+        result.add(singleLine ? text.replace('\n', ' ') : text);
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Run the daemon: {@code CompilerService <port> [threads]}.
+   */
+  public static void main(String[] args) throws IOException, InterruptedException {
+    if (args.length == 0) {
+      System.err.println("usage: CompilerService <port> [threads]");
+      System.exit(1);
+    }
+
+    int port = Integer.parseInt(args[0]);
+    int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+    try (CompilerService service = new CompilerService(threads);
+         ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+         ExecutorService connections = Executors.newVirtualThreadPerTaskExecutor()) {
+      service.warmUp();
+      System.out.println("ANTLR compiler service listening on " + server.getLocalSocketAddress());
+      while (!server.isClosed()) {
+        Socket socket = server.accept();
+        connections.execute(() -> serve(service, socket));
+      }
+    }
+  }
+
+  private static void serve(CompilerService service, Socket socket) {
+    try (socket;
+         BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+         Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+      String request = in.readLine();
+      if (request == null) {
+        return;
+      }
+
+      String[] toolArgs = request.isEmpty() ? new String[0] : request.split("\t");
+      Result result = service.compile(toolArgs);
+      for (String message : result.messages()) {
+        out.write(message);
+        out.write('\n');
+      }
+      out.write("exit " + result.exitCode() + "\n");
+    } catch (IOException e) {
+      System.err.println("compiler service: " + e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
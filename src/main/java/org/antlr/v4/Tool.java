@@ -21,6 +21,7 @@ import org.antlr.v4.automata.ATNFactory;
 import org.antlr.v4.automata.LexerATNFactory;
 import org.antlr.v4.automata.ParserATNFactory;
 import org.antlr.v4.codegen.CodeGenPipeline;
+import org.antlr.v4.codegen.Target;
 import org.antlr.v4.misc.Graph;
 import org.antlr.v4.parse.ANTLRParser;
 import org.antlr.v4.parse.GrammarASTAdaptor;
@@ -34,6 +35,8 @@ import org.antlr.v4.runtime.misc.LogManager;
 import org.antlr.v4.semantics.SemanticPipeline;
 import org.antlr.v4.tool.ANTLRMessage;
 import org.antlr.v4.tool.ANTLRToolListener;
+import org.antlr.v4.tool.BufferedToolListener;
+import org.antlr.v4.tool.BuildCache;
 import org.antlr.v4.tool.BuildDependencyGenerator;
 import org.antlr.v4.tool.DOTGenerator;
 import org.antlr.v4.tool.DefaultToolListener;
@@ -67,6 +70,11 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
 
 @NullMarked
 public class Tool {
@@ -122,6 +130,8 @@ public class Tool {
   public boolean warnings_are_errors = false;
   public boolean longMessages = false;
   public boolean exact_output_dir = false;
+  public boolean parallel = false;
+  public @Nullable String cacheDirectory = null;
 
   public static Option[] optionDefs = {
     new Option("outputDirectory", "-o", OptionArgType.STRING, "specify output directory where all output is generated"),
@@ -144,6 +154,8 @@ public class Tool {
     new Option("force_atn", "-Xforce-atn", "use the ATN simulator for all predictions"),
     new Option("log", "-Xlog", "dump lots of logging info to antlr-timestamp.log"),
     new Option("exact_output_dir", "-Xexact-output-dir", "all output goes into -o dir regardless of paths/package"),
+    new Option("parallel", "-Xparallel", "process independent grammars, decisions and output files concurrently"),
+    new Option("cacheDirectory", "-Xcache", OptionArgType.STRING, "reuse output cached in this directory for unchanged grammars"),
   };
 
   // helper vars for option management
@@ -161,6 +173,22 @@ public class Tool {
   public ErrorManager errMgr;
   public LogManager logMgr = new LogManager();
 
+  /**
+   * Cache of generated files, set up by {@code -Xcache}.
+   */
+  public @Nullable BuildCache buildCache;
+
+  /**
+   * Names of the files written by {@link #getOutputFileWriter} while a grammar is processed for the build cache.
+   */
+  protected @Nullable List<String> writtenFiles;
+
+  /**
+   * Set on the workers of {@link #processGrammarsInParallel}. It waits for the grammars before this one in the wave
+   * and tells whether all of them finished without errors; see {@link #awaitOutputGate()}.
+   */
+  private @Nullable BooleanSupplier outputGate;
+
   @Getter
   List<ANTLRToolListener> listeners = new CopyOnWriteArrayList<>();
 
@@ -201,7 +229,15 @@ public class Tool {
   }
 
   public Tool(String @Nullable [] args) {
+    this(args, null);
+  }
+
+  /**
+   * Create a tool reporting to {@code listener} from the start, including problems with the command line itself.
+   */
+  public Tool(String @Nullable [] args, @Nullable ANTLRToolListener listener) {
     this.args = args;
+    addListener(listener);
     errMgr = new ErrorManager(this);
     // We have to use the default message format until we have
     // parsed the -message-format command line option.
@@ -275,6 +311,9 @@ public class Tool {
     } else {
       libDirectory = ".";
     }
+    if (cacheDirectory != null) {
+      buildCache = new BuildCache(new File(cacheDirectory));
+    }
     if (launch_ST_inspector) {
       STGroup.trackCreationEvents = true;
       return_dont_exit = true;
@@ -310,17 +349,225 @@ public class Tool {
   public void processGrammarsOnCommandLine() {
     List<GrammarRootAST> sortedGrammars = sortGrammarByTokenVocab(grammarFiles);
 
-    for (GrammarRootAST t : sortedGrammars) {
-      final Grammar g = createGrammar(t);
-      g.fileName = t.fileName;
-      if (gen_dependencies) {
-        BuildDependencyGenerator dep =
-          new BuildDependencyGenerator(this, g);
-        System.out.println(dep.getDependencies().render());
+    if (parallel && !gen_dependencies && !launch_ST_inspector && sortedGrammars.size() > 1) {
+      processGrammarsInParallel(sortedGrammars);
+    } else {
+      for (GrammarRootAST t : sortedGrammars) {
+        final Grammar g = createGrammar(t);
+        g.fileName = t.fileName;
+        if (gen_dependencies) {
+          BuildDependencyGenerator dep =
+            new BuildDependencyGenerator(this, g);
+          Target.reportTemplateErrorsTo(this, () -> System.out.println(dep.getDependencies().render()));
+
+        } else if (errMgr.getNumErrors() == 0) {
+          processCached(g);
+        }
+      }
+    }
+
+    if (buildCache != null && !gen_dependencies) {
+      info(buildCache.toString());
+    }
+  }
+
+  /**
+   * Process {@code g} and generate code, reusing the output of a previous run from the build cache when the grammar
+   * and everything it depends on is unchanged.
+   */
+  public void processCached(Grammar g) {
+    if (buildCache == null || outputDirectory == null) {
+      process(g, true);
+      return;
+    }
+    if (buildCache.restore(this, g)) {
+      return;
+    }
 
-      } else if (errMgr.getNumErrors() == 0) {
-        process(g, true);
+    int prevErrors = errMgr.getNumErrors();
+    int prevWarnings = errMgr.warnings;
+    writtenFiles = new ArrayList<>();
+    try {
+      process(g, true);
+      if (errMgr.getNumErrors() == prevErrors && errMgr.warnings == prevWarnings) {
+        buildCache.store(this, g, writtenFiles);
       }
+    } finally {
+      writtenFiles = null;
+    }
+  }
+
+  /**
+   * Process grammars that do not depend on each other concurrently. Grammars are grouped into waves by their
+   * tokenVocab dependencies: a grammar runs only after every grammar whose .tokens file it reads has been written.
+   * Each grammar of a wave is processed by its own worker tool, so no grammar, import cache or error state is shared
+   * between threads. Worker messages are replayed into this tool in command line order after the wave completes,
+   * which keeps the output identical to the sequential mode.
+   * <p>
+   * The sequential mode does not process any grammar after the first error. Here the later grammars of a wave are
+   * already running by then, so a worker writes no output until the grammars before it in the wave have finished
+   * without errors, and the messages of the grammars after the first failing one are dropped.
+   */
+  protected void processGrammarsInParallel(List<GrammarRootAST> sortedGrammars) {
+    List<List<GrammarRootAST>> waves = groupGrammarsByTokenVocabLevel(sortedGrammars);
+    int threads = Math.min(Runtime.getRuntime().availableProcessors(), sortedGrammars.size());
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      for (List<GrammarRootAST> wave : waves) {
+        if (errMgr.getNumErrors() > 0) {
+          break;
+        }
+
+        List<Tool> workers = new ArrayList<>(wave.size());
+        List<BufferedToolListener> buffers = new ArrayList<>(wave.size());
+        List<Future<?>> futures = new ArrayList<>(wave.size());
+        for (GrammarRootAST t : wave) {
+          Tool worker = createWorker();
+          BufferedToolListener buffer = new BufferedToolListener();
+          worker.addListener(buffer);
+          List<Tool> earlierWorkers = List.copyOf(workers);
+          List<Future<?>> earlierFutures = List.copyOf(futures);
+          worker.outputGate = () -> finishedWithoutErrors(earlierWorkers, earlierFutures);
+          workers.add(worker);
+          buffers.add(buffer);
+          // the pool runs tasks in submission order, so the grammars a worker waits for are already running
+          futures.add(executor.submit(() -> {
+            try {
+              Grammar g = worker.createGrammar(t);
+              g.fileName = t.fileName;
+              worker.processCached(g);
+            } catch (OutputGateClosedException e) {
+              // an earlier grammar of the wave failed, so the sequential mode would not process this one
+            }
+          }));
+        }
+
+        for (Future<?> future : futures) {
+          awaitWorker(future);
+        }
+
+        for (int i = 0; i < workers.size() && errMgr.getNumErrors() == 0; i++) {
+          Tool worker = workers.get(i);
+          buffers.get(i).replay(this);
+          logMgr.append(worker.logMgr);
+          if (buildCache != null && worker.buildCache != null) {
+            buildCache.merge(worker.buildCache);
+          }
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static boolean finishedWithoutErrors(List<Tool> workers, List<Future<?>> futures) {
+    for (int i = 0; i < workers.size(); i++) {
+      try {
+        futures.get(i).get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      } catch (ExecutionException e) {
+        return false;
+      }
+      if (workers.get(i).getNumErrors() > 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Wait until this tool may write output. Only the workers of {@code -Xparallel} wait: they write after the grammars
+   * before them in their wave have finished. If one of those failed, an unchecked exception stops the worker, which
+   * then writes nothing at all.
+   */
+  public void awaitOutputGate() {
+    BooleanSupplier gate = outputGate;
+    if (gate == null) {
+      return;
+    }
+    if (!gate.getAsBoolean()) {
+      throw new OutputGateClosedException();
+    }
+    outputGate = null;
+  }
+
+  /**
+   * Stops a worker whose output would not be written by the sequential mode.
+   */
+  private static class OutputGateClosedException extends RuntimeException {
+    OutputGateClosedException() {
+      super(null, null, false, false);
+    }
+  }
+
+  /**
+   * Split topologically sorted grammars into waves; a grammar lands in the wave after the one holding its tokenVocab.
+   */
+  protected List<List<GrammarRootAST>> groupGrammarsByTokenVocabLevel(List<GrammarRootAST> sortedGrammars) {
+    Map<String, Integer> levels = new HashMap<>();
+    List<List<GrammarRootAST>> waves = new ArrayList<>();
+    for (GrammarRootAST root : sortedGrammars) {
+      int level = 0;
+      var tokenVocabNode = findOptionValueAST(root, "tokenVocab");
+      if (tokenVocabNode != null) {
+        Integer vocabLevel = levels.get(getVocabName(tokenVocabNode));
+        if (vocabLevel != null) {
+          level = vocabLevel + 1;
+        }
+      }
+      levels.put(root.getGrammarName(), level);
+      while (waves.size() <= level) {
+        waves.add(new ArrayList<>());
+      }
+      waves.get(level).add(root);
+    }
+    return waves;
+  }
+
+  /**
+   * Create a tool with the same options as this one but with its own error and log state.
+   */
+  protected Tool createWorker() {
+    Tool worker = new Tool();
+    worker.inputDirectory = inputDirectory;
+    worker.outputDirectory = outputDirectory;
+    worker.libDirectory = libDirectory;
+    worker.generate_ATN_dot = generate_ATN_dot;
+    worker.grammarEncoding = grammarEncoding;
+    worker.msgFormat = msgFormat;
+    worker.force_atn = force_atn;
+    worker.log = log;
+    worker.gen_listener = gen_listener;
+    worker.gen_visitor = gen_visitor;
+    worker.genPackage = genPackage;
+    worker.grammarOptions = grammarOptions;
+    worker.warnings_are_errors = warnings_are_errors;
+    worker.longMessages = longMessages;
+    worker.exact_output_dir = exact_output_dir;
+    worker.parallel = parallel;
+    worker.cacheDirectory = cacheDirectory;
+    worker.buildCache = buildCache != null ? buildCache.forWorker() : null;
+    worker.errMgr.setFormat(msgFormat);
+    return worker;
+  }
+
+  private static void awaitWorker(Future<?> future) {
+    try {
+      future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      if (cause instanceof Error error) {
+        throw error;
+      }
+      throw new IllegalStateException(cause);
     }
   }
 
@@ -330,6 +577,10 @@ public class Tool {
    * lexer. Once all this is done, we process the lexer first, if present, and then the parser grammar
    */
   public void process(Grammar g, boolean gencode) {
+    Target.reportTemplateErrorsTo(this, () -> processGrammar(g, gencode));
+  }
+
+  private void processGrammar(Grammar g, boolean gencode) {
     g.loadImportedGrammars();
 
     GrammarTransformPipeline transform = new GrammarTransformPipeline(g, this);
@@ -763,6 +1014,7 @@ public class Tool {
    * If outputDirectory==null then write a String.
    */
   public Writer getOutputFileWriter(Grammar g, String fileName) throws IOException {
+    awaitOutputGate();
     if (outputDirectory == null) {
       return new StringWriter();
     }
@@ -770,6 +1022,11 @@ public class Tool {
     // for subdir/T.g4, you get subdir here.  Well, depends on -o etc...
     File outputDir = getOutputDirectory(g.fileName);
     File outputFile = new File(outputDir, fileName);
+    if (writtenFiles != null) {
+      synchronized (writtenFiles) {
+        writtenFiles.add(fileName);
+      }
+    }
 
     if (!outputDir.exists()) {
       outputDir.mkdirs();
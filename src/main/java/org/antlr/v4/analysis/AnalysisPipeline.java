@@ -11,9 +11,12 @@ package org.antlr.v4.analysis;
 
 import org.antlr.v4.misc.Utils;
 import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.atn.ATN;
 import org.antlr.v4.runtime.atn.DecisionState;
 import org.antlr.v4.runtime.atn.LL1Analyzer;
 import org.antlr.v4.runtime.atn.PredictionContext;
+import org.antlr.v4.runtime.atn.StarLoopEntryState;
+import org.antlr.v4.runtime.misc.IntegerList;
 import org.antlr.v4.runtime.misc.IntervalSet;
 import org.antlr.v4.tool.ErrorType;
 import org.antlr.v4.tool.Grammar;
@@ -22,6 +25,8 @@ import org.antlr.v4.tool.ast.GrammarAST;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
 
 public class AnalysisPipeline {
   public Grammar g;
@@ -64,14 +69,11 @@ public class AnalysisPipeline {
 
   protected void processParser() {
     g.decisionLOOK = new ArrayList<>(g.atn.getNumberOfDecisions() + 1);
+    IntervalSet[][] decisionLook = computeDecisionLookahead();
     for (DecisionState s : g.atn.decisionToState) {
       g.tool.log("LL1", "\nDECISION " + s.decision + " in rule " + g.getRule(s.ruleIndex).name);
-      IntervalSet[] look;
-      if (s.nonGreedy) { // nongreedy decisions can't be LL(1)
-        look = new IntervalSet[s.getNumberOfTransitions() + 1];
-      } else {
-        LL1Analyzer anal = new LL1Analyzer(g.atn);
-        look = anal.getDecisionLookahead(s);
+      IntervalSet[] look = decisionLook[s.decision];
+      if (!s.nonGreedy) {
         g.tool.log("LL1", "look=" + Arrays.toString(look));
       }
 
@@ -82,6 +84,79 @@ public class AnalysisPipeline {
     }
   }
 
+  /**
+   * Compute the LL(1) lookahead of every decision. The analysis of one decision only reads the ATN, so with
+   * {@code -Xparallel} the decisions are analyzed concurrently; results are indexed by decision number and
+   * logged afterwards in order.
+   */
+  protected IntervalSet[][] computeDecisionLookahead() {
+    List<DecisionState> decisions = g.atn.decisionToState;
+    IntervalSet[][] result = new IntervalSet[decisions.size()][];
+    IntStream indexes = IntStream.range(0, decisions.size());
+    if (g.tool.parallel) {
+      indexes = indexes.parallel();
+    }
+
+    indexes.forEach(i -> {
+      DecisionState s = decisions.get(i);
+      if (s.nonGreedy) { // nongreedy decisions can't be LL(1)
+        result[s.decision] = new IntervalSet[s.getNumberOfTransitions() + 1];
+      } else {
+        result[s.decision] = new LL1Analyzer(g.atn).getDecisionLookahead(s);
+      }
+    });
+    return result;
+  }
+
+  /**
+   * Collect the predictions of the decisions whose lookahead is LL(1), in the form stored by
+   * {@link org.antlr.v4.runtime.atn.ATNSerializer#serializeOptimized}. A decision qualifies if its alternatives
+   * have disjoint lookahead which neither depends on a predicate nor reaches the end of the rule; these are the
+   * predictions the runtime would otherwise add to its LL(1) table on the first parse. Precedence decisions are
+   * skipped since the runtime never predicts them with the table.
+   *
+   * @param atn the deserialized runtime ATN of {@code g}, with the precedence decisions marked
+   */
+  public static IntegerList getLL1Predictions(Grammar g, ATN atn) {
+    IntegerList predictions = new IntegerList();
+    if (g.decisionLOOK == null) {
+      return predictions;
+    }
+
+    for (int decision = 0; decision < g.decisionLOOK.size() && decision < atn.getNumberOfDecisions(); decision++) {
+      IntervalSet[] look = g.decisionLOOK.get(decision);
+      if (!disjoint(look)
+        || atn.decisionToState.get(decision) instanceof StarLoopEntryState entry && entry.precedenceRuleDecision) {
+        continue;
+      }
+
+      boolean contextDependent = false;
+      for (IntervalSet alt : look) {
+        // the end of a rule that no other rule invokes shows up as EOF rather than epsilon
+        contextDependent |= alt.contains(Token.EPSILON) || alt.contains(Token.EOF);
+      }
+      if (contextDependent) {
+        continue;
+      }
+
+      for (int alt = 0; alt < look.length; alt++) {
+        for (int i = 0; i < look[alt].getIntervalCount(); i++) {
+          // EOF is never predicted from the table
+          int a = Math.max(look[alt].getIntervalStart(i), 0);
+          int b = Math.min(look[alt].getIntervalEnd(i), Short.MAX_VALUE);
+          if (a <= b) {
+            predictions.add(decision);
+            predictions.add(alt + 1);
+            predictions.add(a);
+            predictions.add(b);
+          }
+        }
+      }
+    }
+
+    return predictions;
+  }
+
   /**
    * Return whether lookahead sets are disjoint; no lookahead ⇒ not disjoint
    */
@@ -91,7 +166,7 @@ public class AnalysisPipeline {
     if (altLook == null) return false;
     for (IntervalSet look : altLook) {
       if (look == null) return false; // lookahead must've computation failed
-      if (!look.and(combined).isNil()) {
+      if (look.intersects(combined)) {
         collision = true;
         break;
       }
@@ -86,8 +86,8 @@ public class ATNOptimizer {
       }
 
       // due to min alt resolution policies, can only collapse sequential alts
-      for (int i = setTransitions.getIntervals().size() - 1; i >= 0; i--) {
-        Interval interval = setTransitions.getIntervals().get(i);
+      for (int i = setTransitions.getIntervalCount() - 1; i >= 0; i--) {
+        Interval interval = Interval.of(setTransitions.getIntervalStart(i), setTransitions.getIntervalEnd(i));
         if (interval.length() <= 1) {
           continue;
         }
@@ -100,11 +100,9 @@ public class ATNOptimizer {
             throw new UnsupportedOperationException("Not yet implemented.");
           }
           IntervalSet set = matchTransition.label();
-          List<Interval> intervals = set.getIntervals();
-          int n = intervals.size();
-          for (Interval setInterval : intervals) {
-            int a = setInterval.a;
-            int b = setInterval.b;
+          for (int k = 0; k < set.getIntervalCount(); k++) {
+            int a = set.getIntervalStart(k);
+            int b = set.getIntervalEnd(k);
             if (a != -1 && b != -1) {
               for (int v = a; v <= b; v++) {
                 if (matchSet.contains(v)) {
@@ -122,14 +120,13 @@ public class ATNOptimizer {
         }
 
         Transition newTransition;
-        if (matchSet.getIntervals().size() == 1) {
+        if (matchSet.getIntervalCount() == 1) {
           if (matchSet.size() == 1) {
             newTransition = CodePointTransitions.createWithCodePoint(blockEndState, matchSet.getMinElement());
           } else {
-            Interval matchInterval = matchSet.getIntervals().get(0);
             newTransition = CodePointTransitions.createWithCodePointRange(blockEndState,
-              matchInterval.a,
-              matchInterval.b);
+              matchSet.getIntervalStart(0),
+              matchSet.getIntervalEnd(0));
           }
         } else {
           newTransition = new SetTransition(blockEndState, matchSet);
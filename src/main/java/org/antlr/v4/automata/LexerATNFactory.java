@@ -38,7 +38,6 @@ import org.antlr.v4.runtime.atn.RuleStartState;
 import org.antlr.v4.runtime.atn.SetTransition;
 import org.antlr.v4.runtime.atn.TokensStartState;
 import org.antlr.v4.runtime.atn.Transition;
-import org.antlr.v4.runtime.misc.Interval;
 import org.antlr.v4.runtime.misc.IntervalSet;
 import org.antlr.v4.runtime.misc.MurmurHash;
 import org.antlr.v4.runtime.misc.Utils;
@@ -293,9 +292,8 @@ public class LexerATNFactory extends ParserATNFactory {
       left.addTransition(new NotSetTransition(right, set));
     } else {
       Transition transition;
-      if (set.getIntervals().size() == 1) {
-        Interval interval = set.getIntervals().get(0);
-        transition = CodePointTransitions.createWithCodePointRange(right, interval.a, interval.b);
+      if (set.getIntervalCount() == 1) {
+        transition = CodePointTransitions.createWithCodePointRange(right, set.getIntervalStart(0), set.getIntervalEnd(0));
       } else {
         transition = new SetTransition(right, set);
       }
@@ -17,10 +17,13 @@ import org.antlr.v4.tool.ast.GrammarAST;
 import org.stringtemplate.v4.ST;
 import org.stringtemplate.v4.gui.STViz;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.IntStream;
 
 public class CodeGenPipeline {
   Grammar g;
+  private final List<Runnable> scheduledWrites = new ArrayList<>();
 
   public CodeGenPipeline(Grammar g) {
     this.g = g;
@@ -55,47 +58,47 @@ public class CodeGenPipeline {
       if (target.needsHeader()) {
         ST lexer = gen.generateLexer(true); // Header file if needed.
         if (g.tool.errMgr.getNumErrors() == errorCount) {
-          writeRecognizer(lexer, gen, true);
+          schedule(() -> writeRecognizer(lexer, gen, true));
         }
       }
       ST lexer = gen.generateLexer(false);
       if (g.tool.errMgr.getNumErrors() == errorCount) {
-        writeRecognizer(lexer, gen, false);
+        schedule(() -> writeRecognizer(lexer, gen, false));
       }
     } else {
       if (target.needsHeader()) {
         ST parser = gen.generateParser(true);
         if (g.tool.errMgr.getNumErrors() == errorCount) {
-          writeRecognizer(parser, gen, true);
+          schedule(() -> writeRecognizer(parser, gen, true));
         }
       }
       ST parser = gen.generateParser(false);
       if (g.tool.errMgr.getNumErrors() == errorCount) {
-        writeRecognizer(parser, gen, false);
+        schedule(() -> writeRecognizer(parser, gen, false));
       }
 
       if (g.tool.gen_listener) {
         if (target.needsHeader()) {
           ST listener = gen.generateListener(true);
           if (g.tool.errMgr.getNumErrors() == errorCount) {
-            gen.writeListener(listener, true);
+            schedule(() -> gen.writeListener(listener, true));
           }
         }
         ST listener = gen.generateListener(false);
         if (g.tool.errMgr.getNumErrors() == errorCount) {
-          gen.writeListener(listener, false);
+          schedule(() -> gen.writeListener(listener, false));
         }
 
         if (target.needsHeader()) {
           ST baseListener = gen.generateBaseListener(true);
           if (g.tool.errMgr.getNumErrors() == errorCount) {
-            gen.writeBaseListener(baseListener, true);
+            schedule(() -> gen.writeBaseListener(baseListener, true));
           }
         }
         if (target.wantsBaseListener()) {
           ST baseListener = gen.generateBaseListener(false);
           if (g.tool.errMgr.getNumErrors() == errorCount) {
-            gen.writeBaseListener(baseListener, false);
+            schedule(() -> gen.writeBaseListener(baseListener, false));
           }
         }
       }
@@ -103,29 +106,62 @@ public class CodeGenPipeline {
         if (target.needsHeader()) {
           ST visitor = gen.generateVisitor(true);
           if (g.tool.errMgr.getNumErrors() == errorCount) {
-            gen.writeVisitor(visitor, true);
+            schedule(() -> gen.writeVisitor(visitor, true));
           }
         }
         ST visitor = gen.generateVisitor(false);
         if (g.tool.errMgr.getNumErrors() == errorCount) {
-          gen.writeVisitor(visitor, false);
+          schedule(() -> gen.writeVisitor(visitor, false));
         }
 
         if (target.needsHeader()) {
           ST baseVisitor = gen.generateBaseVisitor(true);
           if (g.tool.errMgr.getNumErrors() == errorCount) {
-            gen.writeBaseVisitor(baseVisitor, true);
+            schedule(() -> gen.writeBaseVisitor(baseVisitor, true));
           }
         }
         if (target.wantsBaseVisitor()) {
           ST baseVisitor = gen.generateBaseVisitor(false);
           if (g.tool.errMgr.getNumErrors() == errorCount) {
-            gen.writeBaseVisitor(baseVisitor, false);
+            schedule(() -> gen.writeBaseVisitor(baseVisitor, false));
           }
         }
       }
     }
-    gen.writeVocabFile();
+    schedule(gen::writeVocabFile);
+    flushScheduledWrites(gen);
+  }
+
+  /**
+   * Run the rendering and writing of one output file. With {@code -Xparallel} files are only collected here
+   * and written by {@link #flushScheduledWrites} once all templates are built, so template construction and its
+   * error reporting still happen in a fixed order.
+   */
+  protected void schedule(Runnable write) {
+    if (g.tool.parallel && !g.tool.launch_ST_inspector) {
+      scheduledWrites.add(write);
+    } else {
+      write.run();
+    }
+  }
+
+  /**
+   * Render the scheduled files concurrently, then write them one by one in the order they were scheduled, so write
+   * failures are reported in the same order as without {@code -Xparallel}.
+   */
+  protected void flushScheduledWrites(CodeGenerator gen) {
+    if (scheduledWrites.isEmpty()) {
+      return;
+    }
+
+    List<CodeGenerator.OutputFile> files = gen.collectWrites(() -> scheduledWrites.forEach(Runnable::run));
+    scheduledWrites.clear();
+    String[] texts = new String[files.size()];
+    IntStream.range(0, files.size()).parallel().forEach(i ->
+      Target.reportTemplateErrorsTo(g.tool, () -> texts[i] = gen.render(files.get(i).code())));
+    for (int i = 0; i < files.size(); i++) {
+      gen.writeRendered(files.get(i).fileName(), texts[i]);
+    }
   }
 
   protected void writeRecognizer(ST template, CodeGenerator gen, boolean header) {
@@ -22,10 +22,14 @@ import org.stringtemplate.v4.STGroup;
 import org.stringtemplate.v4.STWriter;
 
 import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.io.Writer;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -50,6 +54,18 @@ public class CodeGenerator {
 
   private Target target;
 
+  /**
+   * Files of {@link #collectWrites} in progress.
+   */
+  @Nullable
+  private List<OutputFile> collectedFiles;
+
+  /**
+   * A file {@link #write} was asked to write.
+   */
+  public record OutputFile(String fileName, ST code) {
+  }
+
   public int lineWidth = 72;
 
   public CodeGenerator(@NotNull Grammar g) {
@@ -256,6 +272,11 @@ public class CodeGenerator {
   }
 
   public void write(ST code, String fileName) {
+    if (collectedFiles != null) {
+      collectedFiles.add(new OutputFile(fileName, code));
+      return;
+    }
+
     try {
       @SuppressWarnings("unused")
       long start = System.currentTimeMillis();
@@ -273,6 +294,46 @@ public class CodeGenerator {
     }
   }
 
+  /**
+   * Run {@code writes} and return the files it would have written, in order, instead of writing them. The files
+   * can then be rendered with {@link #render} and written with {@link #writeRendered}.
+   */
+  public List<OutputFile> collectWrites(Runnable writes) {
+    List<OutputFile> files = new ArrayList<>();
+    collectedFiles = files;
+    try {
+      writes.run();
+    } finally {
+      collectedFiles = null;
+    }
+    return files;
+  }
+
+  /**
+   * Render {@code code} into the text {@link #write} would write.
+   */
+  public String render(ST code) {
+    StringWriter w = new StringWriter();
+    STWriter wr = new AutoIndentWriter(w);
+    wr.setLineWidth(lineWidth);
+    try {
+      code.write(wr);
+    } catch (IOException ioe) {
+      throw new UncheckedIOException(ioe); // a StringWriter does not fail
+    }
+    return w.toString();
+  }
+
+  public void writeRendered(String fileName, String text) {
+    try (Writer w = tool.getOutputFileWriter(g, fileName)) {
+      w.write(text);
+    } catch (IOException ioe) {
+      tool.errMgr.toolError(ErrorType.CANNOT_WRITE_FILE,
+        ioe,
+        fileName);
+    }
+  }
+
   public String getRecognizerFileName() {
     return getRecognizerFileName(false);
   }
@@ -10,12 +10,14 @@
 package org.antlr.v4.codegen;
 
 import lombok.Getter;
+import org.antlr.v4.Tool;
 import org.antlr.v4.codegen.model.RuleFunction;
 import org.antlr.v4.codegen.model.SerializedATN;
 import org.antlr.v4.misc.Utils;
 import org.antlr.v4.parse.ANTLRParser;
 import org.antlr.v4.runtime.Token;
 import org.antlr.v4.runtime.misc.NotNull;
+import org.antlr.v4.tool.ErrorManager;
 import org.antlr.v4.tool.ErrorType;
 import org.antlr.v4.tool.Grammar;
 import org.antlr.v4.tool.Rule;
@@ -28,6 +30,9 @@ import org.stringtemplate.v4.STGroupFile;
 import org.stringtemplate.v4.StringRenderer;
 import org.stringtemplate.v4.misc.STMessage;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 /**
  *
  */
@@ -51,6 +56,17 @@ public abstract class Target {
   private final String language;
   private STGroup templates;
 
+  /**
+   * Template groups shared by the targets of one language, so each group file is parsed once per JVM. A group
+   * outlives the tool that loaded it, so its errors go to the tool set by {@link #reportTemplateErrorsTo}.
+   */
+  private static final ConcurrentMap<String, STGroup> languageTemplates = new ConcurrentHashMap<>();
+
+  /**
+   * The tool using the shared template groups on this thread.
+   */
+  private static final ThreadLocal<Tool> templateErrorTool = new ThreadLocal<>();
+
   protected Target(CodeGenerator gen, String language) {
     targetCharValueEscape['\n'] = "\\n";
     targetCharValueEscape['\r'] = "\\r";
@@ -71,12 +87,30 @@ public abstract class Target {
   @NotNull
   public STGroup getTemplates() {
     if (templates == null) {
-      templates = loadTemplates();
+      templates = languageTemplates.computeIfAbsent(getLanguage(), key -> loadTemplates());
     }
 
     return templates;
   }
 
+  /**
+   * Run {@code action} with errors of the shared template groups reported to {@code tool} while the action runs on
+   * this thread.
+   */
+  public static void reportTemplateErrorsTo(Tool tool, Runnable action) {
+    Tool previous = templateErrorTool.get();
+    templateErrorTool.set(tool);
+    try {
+      action.run();
+    } finally {
+      if (previous != null) {
+        templateErrorTool.set(previous);
+      } else {
+        templateErrorTool.remove();
+      }
+    }
+  }
+
   protected void genFile(Grammar g, ST outputFileST, String fileName) {
     getCodeGenerator().write(outputFileST, fileName);
   }
@@ -393,32 +427,7 @@ public abstract class Target {
     STGroup result = new STGroupFile(CodeGenerator.TEMPLATE_ROOT + "/" + getLanguage() + "/" + getLanguage() + STGroup.GROUP_FILE_EXTENSION);
     result.registerRenderer(Integer.class, new NumberRenderer());
     result.registerRenderer(String.class, new StringRenderer());
-    result.setListener(new STErrorListener() {
-      @Override
-      public void compileTimeError(STMessage msg) {
-        reportError(msg);
-      }
-
-      @Override
-      public void runTimeError(STMessage msg) {
-        reportError(msg);
-      }
-
-      @Override
-      public void IOError(STMessage msg) {
-        reportError(msg);
-      }
-
-      @Override
-      public void internalError(STMessage msg) {
-        reportError(msg);
-      }
-
-      private void reportError(STMessage msg) {
-        getCodeGenerator().tool.errMgr.toolError(ErrorType.STRING_TEMPLATE_WARNING, msg.cause, msg.toString());
-      }
-    });
-
+    result.setListener(new TemplateErrorListener());
     return result;
   }
 
@@ -451,4 +460,40 @@ public abstract class Target {
   }
 
   // Override in targets that need header files.
+
+  /**
+   * Reports template errors to the tool of the current thread. It holds no reference to a target, so the shared
+   * template groups do not keep a finished tool reachable.
+   */
+  private static class TemplateErrorListener implements STErrorListener {
+    @Override
+    public void compileTimeError(STMessage msg) {
+      reportError(msg);
+    }
+
+    @Override
+    public void runTimeError(STMessage msg) {
+      reportError(msg);
+    }
+
+    @Override
+    public void IOError(STMessage msg) {
+      reportError(msg);
+    }
+
+    @Override
+    public void internalError(STMessage msg) {
+      reportError(msg);
+    }
+
+    private static void reportError(STMessage msg) {
+      Tool tool = templateErrorTool.get();
+      if (tool == null) {
+        ErrorManager.internalError("template error outside of a tool run: " + msg);
+        return;
+      }
+
+      tool.errMgr.toolError(ErrorType.STRING_TEMPLATE_WARNING, msg.cause, msg.toString());
+    }
+  }
 }
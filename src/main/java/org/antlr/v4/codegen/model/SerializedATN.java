@@ -9,10 +9,14 @@
  */
 package org.antlr.v4.codegen.model;
 
+import org.antlr.v4.analysis.AnalysisPipeline;
 import org.antlr.v4.codegen.OutputModelFactory;
 import org.antlr.v4.runtime.atn.ATN;
+import org.antlr.v4.runtime.atn.ATNDeserializer;
 import org.antlr.v4.runtime.atn.ATNSerializer;
+import org.antlr.v4.runtime.atn.ATNType;
 import org.antlr.v4.runtime.misc.IntegerList;
+import org.antlr.v4.tool.Grammar;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -24,7 +28,7 @@ public class SerializedATN extends OutputModelObject {
 
   public SerializedATN(OutputModelFactory factory, ATN atn, List<String> ruleNames) {
     super(factory);
-    IntegerList data = ATNSerializer.getSerialized(atn, ruleNames);
+    IntegerList data = getOptimizedSerialization(factory.getGrammar(), atn, ruleNames);
     serialized = new ArrayList<>(data.size());
     for (int c : data.toArray()) {
       String encoded = factory.getTarget().encodeIntAsCharEscape(c == -1 ? Character.MAX_VALUE : c);
@@ -32,6 +36,20 @@ public class SerializedATN extends OutputModelObject {
     }
   }
 
+  /**
+   * Serialize the ATN in its runtime-optimized form, so the static initializer of the recognizer skips the
+   * verification and optimization passes of {@link ATNDeserializer}. LL(1) decisions are compiled to a switch on
+   * {@code LA(1)} unless {@code -Xforce-atn} is given, so only then the LL(1) predictions known here are included.
+   */
+  public static IntegerList getOptimizedSerialization(Grammar g, ATN atn, List<String> ruleNames) {
+    char[] serialized = ATNSerializer.getSerializedAsChars(atn, ruleNames);
+    ATN optimized = new ATNDeserializer().deserialize(serialized);
+    IntegerList ll1Predictions = atn.grammarType == ATNType.PARSER && g.tool.force_atn
+      ? AnalysisPipeline.getLL1Predictions(g, optimized)
+      : new IntegerList();
+    return new ATNSerializer(optimized, ruleNames).serializeOptimized(ll1Predictions);
+  }
+
   public String[][] getSegments() {
     List<String[]> segments = new ArrayList<>();
     int segmentLimit = factory.getTarget().getSerializedATNSegmentLimit();
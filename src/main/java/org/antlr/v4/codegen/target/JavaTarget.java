@@ -28,11 +28,6 @@ import java.util.Set;
  */
 public class JavaTarget extends Target {
 
-  /**
-   * The Java target can cache the code generation templates.
-   */
-  private static final ThreadLocal<STGroup> targetTemplates = new ThreadLocal<>();
-
   protected static final String[] javaKeywords = {
     "abstract", "assert", "boolean", "break", "byte", "case", "catch",
     "char", "class", "const", "continue", "default", "do", "double", "else",
@@ -191,13 +186,8 @@ public class JavaTarget extends Target {
 
   @Override
   protected STGroup loadTemplates() {
-    STGroup result = targetTemplates.get();
-    if (result == null) {
-      result = super.loadTemplates();
-      result.registerRenderer(String.class, new JavaStringRenderer(), true);
-      targetTemplates.set(result);
-    }
-
+    STGroup result = super.loadTemplates();
+    result.registerRenderer(String.class, new JavaStringRenderer(), true);
     return result;
   }
 
@@ -10,11 +10,8 @@
 package org.antlr.v4.misc;
 
 import org.antlr.v4.runtime.Lexer;
-import org.antlr.v4.runtime.misc.Interval;
 import org.antlr.v4.runtime.misc.IntervalSet;
 
-import java.util.Iterator;
-
 /**
  *
  */
@@ -191,13 +188,11 @@ public class CharSupport {
 
   public static String getIntervalSetEscapedString(IntervalSet intervalSet) {
     StringBuilder buf = new StringBuilder();
-    Iterator<Interval> iter = intervalSet.getIntervals().iterator();
-    while (iter.hasNext()) {
-      Interval interval = iter.next();
-      buf.append(getRangeEscapedString(interval.a, interval.b));
-      if (iter.hasNext()) {
+    for (int i = 0; i < intervalSet.getIntervalCount(); i++) {
+      if (i > 0) {
         buf.append(" | ");
       }
+      buf.append(getRangeEscapedString(intervalSet.getIntervalStart(i), intervalSet.getIntervalEnd(i)));
     }
     return buf.toString();
   }
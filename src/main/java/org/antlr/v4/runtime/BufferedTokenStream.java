@@ -10,11 +10,13 @@
 package org.antlr.v4.runtime;
 
 import lombok.Getter;
+import org.antlr.v4.runtime.misc.IntegerList;
 import org.antlr.v4.runtime.misc.Interval;
 import org.jspecify.annotations.NullMarked;
 import org.jspecify.annotations.Nullable;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.List;
 
@@ -67,6 +69,26 @@ public class BufferedTokenStream implements TokenStream {
    */
   protected boolean fetchedEOF;
 
+  /**
+   * The channels up to this one are indexed in {@link #channelIndexes}.
+   */
+  private static final int MAX_INDEXED_CHANNEL = 255;
+
+  /**
+   * The number of tokens checked one by one before the channel navigation methods look the next token on the channel
+   * up in {@link #channelIndexes}. Most tokens are close to the next token on their channel.
+   */
+  private static final int LINEAR_SCAN_LIMIT = 8;
+
+  private static final IntegerList EMPTY_INDEXES = new IntegerList(0);
+
+  /**
+   * The indexes into {@link #tokens} of the fetched tokens on each channel, in increasing order, or {@code null} for a
+   * channel without tokens. The {@link Token#EOF} token is not included since it is treated as though it were on every
+   * channel. The channel of a token is taken when it is fetched, later changes to it are not seen here.
+   */
+  private @Nullable IntegerList[] channelIndexes = new IntegerList[Lexer.HIDDEN + 1];
+
   public BufferedTokenStream(TokenSource tokenSource) {
     this.tokenSource = tokenSource;
   }
@@ -161,11 +183,55 @@ public class BufferedTokenStream implements TokenStream {
         fetchedEOF = true;
         return i + 1;
       }
+
+      indexChannel(t.getChannel(), tokens.size() - 1);
     }
 
     return n;
   }
 
+  private void indexChannel(int channel, int index) {
+    if (channel < 0 || channel > MAX_INDEXED_CHANNEL) {
+      return;
+    }
+
+    if (channel >= channelIndexes.length) {
+      channelIndexes = Arrays.copyOf(channelIndexes, channel + 1);
+    }
+
+    IntegerList indexes = channelIndexes[channel];
+    if (indexes == null) {
+      indexes = new IntegerList();
+      channelIndexes[channel] = indexes;
+    }
+
+    indexes.add(index);
+  }
+
+  /**
+   * Returns the indexes of the fetched tokens on {@code channel}, or {@code null} if the channel is not indexed.
+   */
+  @Nullable
+  private IntegerList getChannelIndexes(int channel) {
+    if (channel < 0 || channel > MAX_INDEXED_CHANNEL) {
+      return null;
+    }
+
+    if (channel >= channelIndexes.length || channelIndexes[channel] == null) {
+      return EMPTY_INDEXES;
+    }
+
+    return channelIndexes[channel];
+  }
+
+  /**
+   * Returns the position in {@code indexes} of the first index not less than {@code tokenIndex}.
+   */
+  private static int ceiling(IntegerList indexes, int tokenIndex) {
+    int position = indexes.binarySearch(tokenIndex);
+    return position >= 0 ? position : -position - 1;
+  }
+
   @Override
   public Token get(int i) {
     if (i < 0 || i >= tokens.size()) {
@@ -259,6 +325,12 @@ public class BufferedTokenStream implements TokenStream {
   public void setTokenSource(TokenSource tokenSource) {
     this.tokenSource = tokenSource;
     tokens.clear();
+    for (IntegerList indexes : channelIndexes) {
+      if (indexes != null) {
+        indexes.clear();
+      }
+    }
+
     p = -1;
     fetchedEOF = false;
   }
@@ -314,12 +386,26 @@ public class BufferedTokenStream implements TokenStream {
     }
 
     Token token = tokens.get(i);
+    int scanLimit = i + LINEAR_SCAN_LIMIT;
     while (token.getChannel() != channel) {
       if (token.getType() == Token.EOF) {
         return i;
       }
 
       i++;
+      if (i == scanLimit && i < tokens.size()) {
+        // skip the rest of a long run of off-channel tokens which were already fetched
+        IntegerList indexes = getChannelIndexes(channel);
+        if (indexes != null) {
+          int position = ceiling(indexes, i);
+          if (position < indexes.size()) {
+            return indexes.get(position);
+          }
+
+          i = fetchedEOF ? tokens.size() - 1 : tokens.size();
+        }
+      }
+
       sync(i);
       token = tokens.get(i);
     }
@@ -342,6 +428,7 @@ public class BufferedTokenStream implements TokenStream {
       return size() - 1;
     }
 
+    int scanLimit = i - LINEAR_SCAN_LIMIT;
     while (i >= 0) {
       Token token = tokens.get(i);
       if (token.getType() == Token.EOF || token.getChannel() == channel) {
@@ -349,11 +436,110 @@ public class BufferedTokenStream implements TokenStream {
       }
 
       i--;
+      if (i == scanLimit) {
+        // skip the rest of a long run of off-channel tokens, there is no EOF token before i
+        IntegerList indexes = getChannelIndexes(channel);
+        if (indexes != null) {
+          int position = ceiling(indexes, i + 1) - 1;
+          return position >= 0 ? indexes.get(position) : -1;
+        }
+      }
     }
 
     return i;
   }
 
+  /**
+   * Returns the index of the first token on {@code channel} to the right of {@code tokenIndex} which is not separated
+   * from it by a token on {@link Lexer#DEFAULT_TOKEN_CHANNEL} or EOF, or -1 if there is none. If {@code channel} is
+   * {@code -1}, finds any non default channel token.
+   *
+   * <p>
+   * Unlike {@link #getHiddenTokensToRight(int, int)}, this method does not allocate. Starting from the index of a
+   * token, it iterates the tokens following it:</p>
+   *
+   * <pre>
+   * for (int i = tokens.nextHiddenToken(index, Token.HIDDEN_CHANNEL); i != -1;
+   *      i = tokens.nextHiddenToken(i, Token.HIDDEN_CHANNEL)) {
+   *   Token comment = tokens.get(i);
+   * }
+   * </pre>
+   */
+  public int nextHiddenToken(int tokenIndex, int channel) {
+    lazyInit();
+    if (tokenIndex < 0 || tokenIndex >= tokens.size()) {
+      throw new IndexOutOfBoundsException(tokenIndex + " not in 0.." + (tokens.size() - 1));
+    }
+
+    // the tokens before the next one on the default channel are all off the default channel
+    int bound = nextTokenOnChannel(tokenIndex + 1, Lexer.DEFAULT_TOKEN_CHANNEL);
+    if (bound <= tokenIndex + 1) {
+      return -1;
+    }
+
+    if (channel == -1) {
+      return tokenIndex + 1;
+    }
+
+    IntegerList indexes = getChannelIndexes(channel);
+    if (indexes == null) {
+      for (int i = tokenIndex + 1; i < bound; i++) {
+        if (tokens.get(i).getChannel() == channel) {
+          return i;
+        }
+      }
+
+      return -1;
+    }
+
+    int position = ceiling(indexes, tokenIndex + 1);
+    return position < indexes.size() && indexes.get(position) < bound ? indexes.get(position) : -1;
+  }
+
+  /**
+   * Returns the index of the last token on {@code channel} to the left of {@code tokenIndex} which is not separated
+   * from it by a token on {@link Lexer#DEFAULT_TOKEN_CHANNEL}, or -1 if there is none. If {@code channel} is
+   * {@code -1}, finds any non default channel token.
+   *
+   * <p>
+   * Unlike {@link #getHiddenTokensToLeft(int, int)}, this method does not allocate. Starting from the index of a token,
+   * it iterates the tokens preceding it from the nearest one, see {@link #nextHiddenToken}.</p>
+   */
+  public int previousHiddenToken(int tokenIndex, int channel) {
+    lazyInit();
+    if (tokenIndex < 0 || tokenIndex >= tokens.size()) {
+      throw new IndexOutOfBoundsException(tokenIndex + " not in 0.." + (tokens.size() - 1));
+    }
+
+    if (tokenIndex == 0) {
+      return -1;
+    }
+
+    // the tokens after the previous one on the default channel are all off the default channel
+    int bound = previousTokenOnChannel(tokenIndex - 1, Lexer.DEFAULT_TOKEN_CHANNEL);
+    if (bound == tokenIndex - 1) {
+      return -1;
+    }
+
+    if (channel == -1) {
+      return tokenIndex - 1;
+    }
+
+    IntegerList indexes = getChannelIndexes(channel);
+    if (indexes == null) {
+      for (int i = tokenIndex - 1; i > bound; i--) {
+        if (tokens.get(i).getChannel() == channel) {
+          return i;
+        }
+      }
+
+      return -1;
+    }
+
+    int position = ceiling(indexes, tokenIndex) - 1;
+    return position >= 0 && indexes.get(position) > bound ? indexes.get(position) : -1;
+  }
+
   /**
    * Collect all tokens on specified channel to the right of the current token up until we see a token on
    * {@link Lexer#DEFAULT_TOKEN_CHANNEL} or EOF. If {@code channel} is {@code -1}, find any non default channel token.
@@ -422,6 +608,28 @@ public class BufferedTokenStream implements TokenStream {
 
   @Nullable
   protected List<Token> filterForChannel(int from, int to, int channel) {
+    IntegerList indexes = getChannelIndexes(channel);
+    if (indexes != null) {
+      List<Token> hidden = null;
+      for (int position = ceiling(indexes, from); position < indexes.size() && indexes.get(position) <= to; position++) {
+        if (hidden == null) {
+          hidden = new ArrayList<>();
+        }
+        hidden.add(tokens.get(indexes.get(position)));
+      }
+
+      // the EOF token is not indexed
+      Token last = to >= from ? tokens.get(to) : null;
+      if (last != null && last.getType() == Token.EOF && last.getChannel() == channel) {
+        if (hidden == null) {
+          hidden = new ArrayList<>();
+        }
+        hidden.add(last);
+      }
+
+      return hidden;
+    }
+
     List<Token> hidden = new ArrayList<>();
     for (int i = from; i <= to; i++) {
       Token t = tokens.get(i);
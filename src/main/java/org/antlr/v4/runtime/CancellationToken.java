@@ -0,0 +1,95 @@
+/*
+ * This file is a part of ANTLR.
+ *
+ * Copyright (c) 2012-2025 The ANTLR Project. All rights reserved.
+ * Copyright (c) 2025-2026 Valery Maximov <maximovvalery@gmail.com> and contributors
+ *
+ * Use of this file is governed by the BSD-3-Clause license that
+ * can be found in the LICENSE.txt file in the project root.
+ */
+package org.antlr.v4.runtime;
+
+import org.antlr.v4.runtime.atn.ParserATNSimulator;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.jspecify.annotations.NullMarked;
+
+import java.time.Duration;
+
+/**
+ * Cooperative cancellation of a running lex or parse.
+ *
+ * <p>
+ * A token installed with {@link Recognizer#setCancellationToken} is checked by
+ * {@link Lexer#nextToken}, {@link Parser#consume} and the prediction loops of
+ * {@link ParserATNSimulator}. Once {@link #cancel()} was called from any thread,
+ * or the deadline of the token has passed, the next check throws
+ * {@link ParseCancellationException}. Without a token the checks cost a single
+ * field read.</p>
+ *
+ * <p>
+ * A token is meant for one parse: it cannot be reset, and the deadline is only
+ * compared with {@link System#nanoTime()} on every
+ * {@value #DEADLINE_CHECK_INTERVAL}th check.</p>
+ */
+@NullMarked
+public final class CancellationToken {
+  static final int DEADLINE_CHECK_INTERVAL = 64;
+
+  private volatile boolean canceled;
+  private final boolean hasDeadline;
+  private final long deadline;
+
+  /**
+   * Checks left until the deadline is compared with the clock again. Races
+   * between threads only shift the moment of the next comparison.
+   */
+  private int countdown;
+
+  /**
+   * Creates a token without a deadline, which is canceled by {@link #cancel()} only.
+   */
+  public CancellationToken() {
+    this.hasDeadline = false;
+    this.deadline = 0;
+  }
+
+  private CancellationToken(long deadline) {
+    this.hasDeadline = true;
+    this.deadline = deadline;
+  }
+
+  /**
+   * Creates a token which is canceled once {@code timeout} has elapsed, or by {@link #cancel()}.
+   */
+  public static CancellationToken withTimeout(Duration timeout) {
+    return new CancellationToken(System.nanoTime() + timeout.toNanos());
+  }
+
+  public void cancel() {
+    canceled = true;
+  }
+
+  public boolean isCancellationRequested() {
+    if (!canceled && hasDeadline && System.nanoTime() - deadline >= 0) {
+      canceled = true;
+    }
+    return canceled;
+  }
+
+  /**
+   * @throws ParseCancellationException if the token was canceled or its deadline has passed
+   */
+  public void throwIfCancellationRequested() {
+    if (canceled) {
+      throw new ParseCancellationException("parse canceled");
+    }
+
+    if (hasDeadline && --countdown <= 0) {
+      countdown = DEADLINE_CHECK_INTERVAL;
+      if (System.nanoTime() - deadline >= 0) {
+        canceled = true;
+        throw new ParseCancellationException("parse deadline exceeded");
+      }
+    }
+  }
+}
@@ -202,6 +202,30 @@ public class CharStreams {
     return CodePointCharStream.fromBuffer(codePointBufferBuilder.build(), sourceName);
   }
 
+  /**
+   * Creates a {@link CharStream} given a {@link CharSequence}.
+   */
+  public CodePointCharStream fromCharSequence(CharSequence s) {
+    return fromCharSequence(s, IntStream.UNKNOWN_SOURCE_NAME);
+  }
+
+  /**
+   * Creates a {@link CharStream} given a {@link CharSequence} and the {@code sourceName} from which it came.
+   * <p>
+   * If the sequence has no surrogate characters, which is the case for nearly all source code, the stream reads the
+   * sequence directly instead of copying it into a {@link CodePointBuffer}, and the sequence must not change while the
+   * stream is used. Otherwise, this is the same as {@link #fromString(String, String)}.
+   */
+  public CodePointCharStream fromCharSequence(CharSequence s, String sourceName) {
+    for (int i = 0; i < s.length(); i++) {
+      if (Character.isSurrogate(s.charAt(i))) {
+        return fromString(s.toString(), sourceName);
+      }
+    }
+
+    return CodePointCharStream.fromBmpSequence(s, sourceName);
+  }
+
   /**
    * Creates a {@link CharStream} given an opened {@link ReadableByteChannel} containing UTF-8 bytes.
    * <p>
@@ -39,6 +39,40 @@ public abstract class CodePointCharStream implements UnicodeCharStream, CharStre
   // Visible for testing.
   abstract Object getInternalStorage();
 
+  /**
+   * Return the text from {@code start} to {@code stop} like {@link #getText}, shared through {@code pool}.
+   */
+  abstract String getText(int start, int stop, TokenTextPool pool);
+
+  /**
+   * Return the hash code of the text from {@code start} to {@code stop}, equal to the {@link String#hashCode()} of
+   * {@link #getText} without creating the text.
+   */
+  abstract int textHashCode(int start, int stop);
+
+  /**
+   * Return the code point at {@code index}.
+   */
+  abstract int codePointAt(int index);
+
+  /**
+   * Determine if the {@code length} code points of {@code a} starting at {@code aStart} are the same as those of
+   * {@code b} starting at {@code bStart}.
+   */
+  static boolean regionMatches(CodePointCharStream a, int aStart, CodePointCharStream b, int bStart, int length) {
+    if (length < 0 || aStart + length > a.size || bStart + length > b.size) {
+      return false;
+    }
+
+    for (int i = 0; i < length; i++) {
+      if (a.codePointAt(aStart + i) != b.codePointAt(bStart + i)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
   /**
    * Constructs a {@link CodePointCharStream} which provides access
    * to the Unicode code points stored in {@code codePointBuffer}.
@@ -84,6 +118,14 @@ public abstract class CodePointCharStream implements UnicodeCharStream, CharStre
     };
   }
 
+  /**
+   * Constructs a named {@link CodePointCharStream} which reads the characters of {@code text} directly, one code point
+   * for each character. The sequence must not contain surrogates and must not change while the stream is used.
+   */
+  static CodePointCharStream fromBmpSequence(CharSequence text, String name) {
+    return new CharSequenceCharStream(name, text);
+  }
+
   @Override
   public final void consume() {
     if (size - position == 0) {
@@ -189,6 +231,29 @@ public abstract class CodePointCharStream implements UnicodeCharStream, CharStre
       };
     }
 
+    @Override
+    String getText(int start, int stop, TokenTextPool pool) {
+      int startIdx = Math.min(start, size);
+      int len = Math.max(0, Math.min(stop - start + 1, size - startIdx));
+      return pool.get(byteArray, startIdx, len);
+    }
+
+    @Override
+    int textHashCode(int start, int stop) {
+      int startIdx = Math.min(start, size);
+      int endIdx = startIdx + Math.max(0, Math.min(stop - start + 1, size - startIdx));
+      int hash = 0;
+      for (int i = startIdx; i < endIdx; i++) {
+        hash = 31 * hash + (byteArray[i] & 0xFF);
+      }
+      return hash;
+    }
+
+    @Override
+    int codePointAt(int index) {
+      return byteArray[index] & 0xFF;
+    }
+
     @Override
     Object getInternalStorage() {
       return byteArray;
@@ -248,6 +313,29 @@ public abstract class CodePointCharStream implements UnicodeCharStream, CharStre
       };
     }
 
+    @Override
+    String getText(int start, int stop, TokenTextPool pool) {
+      int startIdx = Math.min(start, size);
+      int len = Math.max(0, Math.min(stop - start + 1, size - startIdx));
+      return pool.get(charArray, startIdx, len);
+    }
+
+    @Override
+    int textHashCode(int start, int stop) {
+      int startIdx = Math.min(start, size);
+      int endIdx = startIdx + Math.max(0, Math.min(stop - start + 1, size - startIdx));
+      int hash = 0;
+      for (int i = startIdx; i < endIdx; i++) {
+        hash = 31 * hash + charArray[i];
+      }
+      return hash;
+    }
+
+    @Override
+    int codePointAt(int index) {
+      return charArray[index];
+    }
+
     @Override
     Object getInternalStorage() {
       return charArray;
@@ -303,9 +391,112 @@ public abstract class CodePointCharStream implements UnicodeCharStream, CharStre
       };
     }
 
+    @Override
+    String getText(int start, int stop, TokenTextPool pool) {
+      int startIdx = Math.min(start, size);
+      int len = Math.max(0, Math.min(stop - start + 1, size - startIdx));
+      return pool.get(intArray, startIdx, len);
+    }
+
+    @Override
+    int textHashCode(int start, int stop) {
+      int startIdx = Math.min(start, size);
+      int endIdx = startIdx + Math.max(0, Math.min(stop - start + 1, size - startIdx));
+      int hash = 0;
+      for (int i = startIdx; i < endIdx; i++) {
+        int codePoint = intArray[i];
+        if (Character.isBmpCodePoint(codePoint)) {
+          hash = 31 * hash + codePoint;
+        } else {
+          hash = 31 * (31 * hash + Character.highSurrogate(codePoint)) + Character.lowSurrogate(codePoint);
+        }
+      }
+      return hash;
+    }
+
+    @Override
+    int codePointAt(int index) {
+      return intArray[index];
+    }
+
     @Override
     Object getInternalStorage() {
       return intArray;
     }
   }
+
+  // No storage of its own: code points below U+D800 or between U+E000 and U+FFFF read from a CharSequence.
+  private static final class CharSequenceCharStream extends CodePointCharStream {
+    private final CharSequence text;
+
+    private CharSequenceCharStream(String name, CharSequence text) {
+      super(0, text.length(), name);
+      this.text = text;
+    }
+
+    /**
+     * Return the UTF-16 encoded string for the given interval
+     */
+    @Override
+    public String getText(Interval interval) {
+      int startIdx = Math.min(interval.a, size);
+      int len = Math.min(interval.b - interval.a + 1, size - startIdx);
+
+      // The sequence has no surrogates, so its characters are the code points.
+      return text.subSequence(startIdx, startIdx + len).toString();
+    }
+
+    @Override
+    public int LA(int i) {
+      int offset;
+      return switch (Integer.signum(i)) {
+        case -1 -> {
+          offset = position + i;
+          if (offset < 0) {
+            yield IntStream.EOF;
+          }
+          yield text.charAt(offset);
+        }
+        case 0 ->
+          // Undefined
+          0;
+        case 1 -> {
+          offset = position + i - 1;
+          if (offset >= size) {
+            yield IntStream.EOF;
+          }
+          yield text.charAt(offset);
+        }
+        default -> throw new UnsupportedOperationException("Not reached");
+      };
+    }
+
+    @Override
+    String getText(int start, int stop, TokenTextPool pool) {
+      int startIdx = Math.min(start, size);
+      int len = Math.max(0, Math.min(stop - start + 1, size - startIdx));
+      return pool.get(text, startIdx, len);
+    }
+
+    @Override
+    int textHashCode(int start, int stop) {
+      int startIdx = Math.min(start, size);
+      int endIdx = startIdx + Math.max(0, Math.min(stop - start + 1, size - startIdx));
+      int hash = 0;
+      for (int i = startIdx; i < endIdx; i++) {
+        hash = 31 * hash + text.charAt(i);
+      }
+      return hash;
+    }
+
+    @Override
+    int codePointAt(int index) {
+      return text.charAt(index);
+    }
+
+    @Override
+    Object getInternalStorage() {
+      return text;
+    }
+  }
 }
@@ -88,6 +88,17 @@ public class CommonToken implements WritableToken, Serializable {
    */
   protected int stop;
 
+  /**
+   * This is the backing field for {@link #getContentHash}, or {@code 0} if it was not computed for the current text.
+   */
+  protected int contentHash;
+
+  /**
+   * Indicates that the content hash of the current text was computed and is {@code 0}. Like {@link String#hashCode},
+   * each field only ever moves from its reset value to the final one, so a token can be hashed from any thread.
+   */
+  protected boolean contentHashIsZero;
+
   /**
    * Constructs a new {@link CommonToken} with the specified token type.
    *
@@ -150,6 +161,8 @@ public class CommonToken implements WritableToken, Serializable {
     if (oldToken instanceof CommonToken commonToken) {
       text = commonToken.text;
       source = commonToken.source;
+      contentHash = commonToken.contentHash;
+      contentHashIsZero = commonToken.contentHashIsZero;
     } else {
       text = oldToken.getText();
       source = Tuple.create(oldToken.getTokenSource(), oldToken.getInputStream());
@@ -182,6 +195,70 @@ public class CommonToken implements WritableToken, Serializable {
   @Override
   public void setText(String text) {
     this.text = text;
+    resetContentHash();
+  }
+
+  /**
+   * Gets the hash code of the text of this token, equal to {@code getText().hashCode()}. When the text comes from a
+   * {@link CodePointCharStream}, the hash is computed from its code points without creating the text. It is computed
+   * on first use, so tokens which are never compared do not pay for it.
+   *
+   * @return The hash code of {@link #getText}
+   */
+  public int getContentHash() {
+    int hash = contentHash;
+    if (hash == 0 && !contentHashIsZero) {
+      hash = hashContent();
+      if (hash == 0) {
+        contentHashIsZero = true;
+      } else {
+        contentHash = hash;
+      }
+    }
+    return hash;
+  }
+
+  /**
+   * Determine if this token has the same text as {@code other}, comparing the code points of their input streams
+   * instead of creating the texts when possible.
+   *
+   * @param other The token to compare with.
+   *
+   * @return {@code true} if {@code getText().equals(other.getText())}
+   */
+  public boolean contentEquals(CommonToken other) {
+    if (getContentHash() != other.getContentHash()) {
+      return false;
+    }
+
+    if (text == null && other.text == null
+      && getInputStream() instanceof CodePointCharStream input
+      && other.getInputStream() instanceof CodePointCharStream otherInput
+      && start < input.size() && stop < input.size()
+      && other.start < otherInput.size() && other.stop < otherInput.size()) {
+      int length = stop - start + 1;
+      return length == other.stop - other.start + 1
+        && CodePointCharStream.regionMatches(input, start, otherInput, other.start, length);
+    }
+
+    return getText().equals(other.getText());
+  }
+
+  /**
+   * Compute the content hash of the current text.
+   */
+  private int hashContent() {
+    if (text == null && getInputStream() instanceof CodePointCharStream input
+      && start < input.size() && stop < input.size()) {
+      return input.textHashCode(start, stop);
+    }
+
+    return getText().hashCode();
+  }
+
+  private void resetContentHash() {
+    contentHash = 0;
+    contentHashIsZero = false;
   }
 
   @Override
@@ -206,6 +283,7 @@ public class CommonToken implements WritableToken, Serializable {
 
   public void setStartIndex(int start) {
     this.start = start;
+    resetContentHash();
   }
 
   @Override
@@ -215,6 +293,7 @@ public class CommonToken implements WritableToken, Serializable {
 
   public void setStopIndex(int stop) {
     this.stop = stop;
+    resetContentHash();
   }
 
   @Override
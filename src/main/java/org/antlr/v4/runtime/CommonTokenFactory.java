@@ -43,6 +43,17 @@ public class CommonTokenFactory implements TokenFactory {
    */
   protected final boolean copyText;
 
+  /**
+   * The pool which provides the text of the created tokens, or {@code null} if
+   * the text is not set explicitly or copied from the input.
+   *
+   * <p>
+   * Like {@link #copyText}, the text is set when a token is created, so later
+   * calls to {@link Token#getText} return it without allocating. Tokens with
+   * the same text share the {@link String} instance held by the pool.</p>
+   */
+  protected final TokenTextPool textPool;
+
   /**
    * Constructs a {@link CommonTokenFactory} with the specified value for
    * {@link #copyText}.
@@ -55,6 +66,19 @@ public class CommonTokenFactory implements TokenFactory {
    */
   public CommonTokenFactory(boolean copyText) {
     this.copyText = copyText;
+    this.textPool = null;
+  }
+
+  /**
+   * Constructs a {@link CommonTokenFactory} which sets the text of each token
+   * from {@code textPool}, see {@link #textPool}. The pool may be shared by
+   * the factories of several lexers.
+   *
+   * @param textPool The value for {@link #textPool}.
+   */
+  public CommonTokenFactory(TokenTextPool textPool) {
+    this.copyText = true;
+    this.textPool = textPool;
   }
 
   /**
@@ -78,6 +102,10 @@ public class CommonTokenFactory implements TokenFactory {
     t.setCharPositionInLine(charPositionInLine);
     if (text != null) {
       t.setText(text);
+    } else if (textPool != null) {
+      if (type != Token.EOF && source.getItem2() != null) {
+        t.setText(textPool.getText(source.getItem2(), start, stop));
+      }
     } else if (copyText && source.getItem2() != null) {
       t.setText(source.getItem2().getText(Interval.of(start, stop)));
     }
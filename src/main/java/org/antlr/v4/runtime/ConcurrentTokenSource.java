@@ -0,0 +1,237 @@
+/*
+ * This file is a part of ANTLR.
+ *
+ * Copyright (c) 2012-2025 The ANTLR Project. All rights reserved.
+ * Copyright (c) 2025-2026 Valery Maximov <maximovvalery@gmail.com> and contributors
+ *
+ * Use of this file is governed by the BSD-3-Clause license that
+ * can be found in the LICENSE.txt file in the project root.
+ */
+package org.antlr.v4.runtime;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+
+/**
+ * A {@link TokenSource} which hands the tokens of another source over from one thread to another, so a parser can
+ * run while its input is still being lexed.
+ *
+ * <p>
+ * The producer thread calls {@link #run}, which pulls every token from the wrapped source and passes them on in
+ * batches through a bounded queue. The consumer, usually a {@link BufferedTokenStream} read by a parser, calls
+ * {@link #nextToken} and only blocks when it has caught up with the producer. The producer blocks when the queue is
+ * full, so a slow consumer does not make the producer buffer the whole input twice.</p>
+ *
+ * <p>
+ * Tokens get their {@link Token#getTokenIndex() token index} from the producer, so the list returned by {@link #run}
+ * matches the one a {@link BufferedTokenStream} builds on the consumer side.</p>
+ */
+@NullMarked
+public final class ConcurrentTokenSource implements TokenSource {
+  /**
+   * The default number of tokens passed to the consumer at once.
+   */
+  public static final int DEFAULT_BATCH_SIZE = 256;
+
+  /**
+   * The default number of batches the producer may be ahead of the consumer.
+   */
+  public static final int DEFAULT_CAPACITY = 64;
+
+  /**
+   * Marks the end of the queue after a failure or {@link #close}.
+   */
+  private static final Token[] END = new Token[0];
+
+  private final TokenSource source;
+  private final int batchSize;
+  private final BlockingQueue<Token[]> queue;
+  private volatile boolean closed;
+  private volatile @Nullable Throwable failure;
+
+  /**
+   * The batch read by the consumer, starting at {@link #batchIndex}.
+   */
+  private Token[] batch = END;
+  private int batchIndex;
+
+  /**
+   * The last token returned by {@link #nextToken}.
+   */
+  private @Nullable Token lastToken;
+
+  public ConcurrentTokenSource(TokenSource source) {
+    this(source, DEFAULT_BATCH_SIZE, DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates a source passing batches of {@code batchSize} tokens, with at most {@code capacity} batches in flight.
+   */
+  public ConcurrentTokenSource(TokenSource source, int batchSize, int capacity) {
+    if (batchSize <= 0 || capacity <= 0) {
+      throw new IllegalArgumentException("batchSize and capacity must be positive");
+    }
+
+    this.source = source;
+    this.batchSize = batchSize;
+    this.queue = new ArrayBlockingQueue<>(capacity);
+  }
+
+  /**
+   * Pulls all tokens up to and including {@link Token#EOF} from the wrapped source and passes them to the consumer.
+   * Must be called once, on the producer thread.
+   *
+   * @return The tokens of the wrapped source
+   *
+   * @throws CancellationException if the source was {@link #close closed} before the end of the input
+   */
+  public List<Token> run() {
+    List<Token> tokens = new ArrayList<>();
+    try {
+      Token[] buffer = new Token[batchSize];
+      int size = 0;
+      while (!closed) {
+        Token token = source.nextToken();
+        if (token instanceof WritableToken writableToken) {
+          writableToken.setTokenIndex(tokens.size());
+        }
+
+        tokens.add(token);
+        buffer[size++] = token;
+        boolean eof = token.getType() == Token.EOF;
+        if (eof || size == buffer.length) {
+          queue.put(size == buffer.length ? buffer : Arrays.copyOf(buffer, size));
+          if (eof) {
+            return tokens;
+          }
+
+          buffer = new Token[batchSize];
+          size = 0;
+        }
+      }
+
+      throw new CancellationException("The token source was closed");
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      fail(e);
+      throw new CancellationException("The token source was interrupted");
+    } catch (RuntimeException | Error e) {
+      fail(e);
+      throw e;
+    }
+  }
+
+  /**
+   * Reports to the consumer that no more tokens will come because the producer failed with {@code cause}.
+   */
+  public void fail(Throwable cause) {
+    failure = cause;
+    queue.clear();
+    queue.offer(END);
+  }
+
+  /**
+   * Stops the producer and discards the tokens it has not passed on yet. Called by the consumer when it no longer
+   * needs the tokens, so the producer does not stay blocked on a full queue.
+   */
+  public void close() {
+    closed = true;
+    queue.clear();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>
+   * After {@link Token#EOF}, returns the same end of file token again.</p>
+   *
+   * @throws IllegalStateException if the producer failed
+   */
+  @Override
+  public Token nextToken() {
+    if (batchIndex == batch.length) {
+      if (lastToken != null && lastToken.getType() == Token.EOF) {
+        return lastToken;
+      }
+
+      batch = take();
+      batchIndex = 0;
+    }
+
+    Token token = batch[batchIndex++];
+    lastToken = token;
+    return token;
+  }
+
+  private Token[] take() {
+    Token[] next;
+    try {
+      next = queue.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CancellationException("Interrupted while waiting for tokens");
+    }
+
+    if (next == END) {
+      queue.offer(END);
+      throw new IllegalStateException("The token source failed", failure);
+    }
+
+    return next;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>
+   * Returns the line of the last token returned by {@link #nextToken}, the producer may already be further.</p>
+   */
+  @Override
+  public int getLine() {
+    return lastToken != null ? lastToken.getLine() : 1;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>
+   * Returns the position of the last token returned by {@link #nextToken}, the producer may already be further.</p>
+   */
+  @Override
+  public int getCharPositionInLine() {
+    return lastToken != null ? lastToken.getCharPositionInLine() : 0;
+  }
+
+  @Override
+  public @Nullable CharStream getInputStream() {
+    return source.getInputStream();
+  }
+
+  @Override
+  public String getSourceName() {
+    return source.getSourceName();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>
+   * Must be called before {@link #run}, the factory is used by the producer thread.</p>
+   */
+  @Override
+  public void setTokenFactory(TokenFactory factory) {
+    source.setTokenFactory(factory);
+  }
+
+  @Override
+  public TokenFactory getTokenFactory() {
+    return source.getTokenFactory();
+  }
+}
@@ -12,7 +12,7 @@ package org.antlr.v4.runtime;
 import org.antlr.v4.runtime.atn.ATN;
 import org.antlr.v4.runtime.atn.ATNState;
 import org.antlr.v4.runtime.atn.PredictionContext;
-import org.antlr.v4.runtime.atn.RuleTransition;
+import org.antlr.v4.runtime.jfr.ErrorRecoveryEvent;
 import org.antlr.v4.runtime.misc.IntervalSet;
 import org.antlr.v4.runtime.misc.Tuple;
 import org.jspecify.annotations.NullMarked;
@@ -56,6 +56,12 @@ public class DefaultErrorStrategy implements ANTLRErrorStrategy {
    */
   protected int nextTokensState;
 
+  /**
+   * The flight recorder event of the current error recovery episode, or {@code null} if the event is disabled or the
+   * handler is not in error recovery mode.
+   */
+  private @Nullable ErrorRecoveryEvent recoveryEvent;
+
   /**
    * {@inheritDoc}
    *
@@ -74,6 +80,17 @@ public class DefaultErrorStrategy implements ANTLRErrorStrategy {
    */
   protected void beginErrorCondition(Parser recognizer) {
     errorRecoveryMode = true;
+    if (recoveryEvent == null) {
+      ErrorRecoveryEvent event = new ErrorRecoveryEvent();
+      if (event.isEnabled()) {
+        event.begin();
+        event.grammar = recognizer.getGrammarFileName();
+        ParserRuleContext context = recognizer.getContext();
+        event.rule = context != null ? recognizer.getRuleNames()[context.getRuleIndex()] : null;
+        event.startTokenIndex = recognizer.getInputStream().index();
+        recoveryEvent = event;
+      }
+    }
   }
 
   /**
@@ -93,6 +110,14 @@ public class DefaultErrorStrategy implements ANTLRErrorStrategy {
     errorRecoveryMode = false;
     lastErrorStates = null;
     lastErrorIndex = -1;
+    ErrorRecoveryEvent event = recoveryEvent;
+    if (event != null) {
+      recoveryEvent = null;
+      if (event.shouldCommit()) {
+        event.tokens = Math.max(0, recognizer.getInputStream().index() - event.startTokenIndex);
+        event.commit();
+      }
+    }
   }
 
   /**
@@ -670,21 +695,13 @@ public class DefaultErrorStrategy implements ANTLRErrorStrategy {
    *
    *  Like Grosch I implement context-sensitive FOLLOW sets that are combined
    *  at run-time upon error to avoid overhead during parsing.
+   *
+   *  The combined sets are cached by the ATN per chain of invoking states
+   *  (see ATN.getErrorRecoverySet), so a file with many errors computes the
+   *  set of each distinct call chain once. The returned set is read-only.
    */
   protected IntervalSet getErrorRecoverySet(Parser recognizer) {
-    ATN atn = recognizer.getInterpreter().atn;
-    RuleContext ctx = recognizer._ctx;
-    IntervalSet recoverSet = new IntervalSet();
-    while (ctx != null && ctx.invokingState >= 0) {
-      // compute what follows who invoked us
-      ATNState invokingState = atn.states.get(ctx.invokingState);
-      RuleTransition rt = (RuleTransition) invokingState.transition(0);
-      IntervalSet follow = atn.nextTokens(rt.followState);
-      recoverSet.addAll(follow);
-      ctx = ctx.parent;
-    }
-    recoverSet.remove(Token.EPSILON);
-    return recoverSet;
+    return recognizer.getInterpreter().atn.getErrorRecoverySet(recognizer._ctx);
   }
 
   /**
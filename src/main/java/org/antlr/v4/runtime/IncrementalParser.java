@@ -10,6 +10,7 @@
 package org.antlr.v4.runtime;
 
 import lombok.Getter;
+import org.antlr.v4.runtime.jfr.IncrementalReparseEvent;
 import org.antlr.v4.runtime.misc.Interval;
 import org.antlr.v4.runtime.tree.ErrorNode;
 import org.antlr.v4.runtime.tree.ParseTreeListener;
@@ -45,6 +46,11 @@ public abstract class IncrementalParser extends Parser implements ParseTreeListe
   private final int parserEpoch;
   private final @Nullable IncrementalParserData parseData;
 
+  // Reuse statistics of the current parse, for IncrementalReparseEvent.
+  private int reusedContexts;
+  private int reparsedContexts;
+  private int reusedTokens;
+
   public IncrementalParser(TokenStream input) {
     this(input, null);
   }
@@ -106,14 +112,21 @@ public abstract class IncrementalParser extends Parser implements ParseTreeListe
 
     // We haven't see it, so we need to rerun this rule.
     if (existingCtx == null) {
+      reparsedContexts++;
       return null;
     }
 
     // We have seen it, see if it was affected by the parse
     if (this.parseData.ruleAffectedByTokenChanges(existingCtx)) {
+      reparsedContexts++;
       return null;
     }
 
+    reusedContexts++;
+    if (existingCtx.start != null && existingCtx.stop != null) {
+      reusedTokens += Math.max(0, existingCtx.stop.getTokenIndex() - existingCtx.start.getTokenIndex() + 1);
+    }
+
     // Everything checked out, reuse the rule context - we add it to the
     // parent context as enterRule would have;
     if (this._ctx != null) {
@@ -132,7 +145,7 @@ public abstract class IncrementalParser extends Parser implements ParseTreeListe
    */
   private Interval popAndHandleMinMax(IncrementalParserRuleContext ctx) {
     Interval interval = popCurrentMinMax(ctx);
-    ctx.setMinMaxTokenIndex(ctx.getMinMaxTokenIndex().union(interval));
+    ctx.unionMinMaxTokenIndex(interval);
     // Returning interval is wrong because there may have been child
     // intervals already merged into this ctx.
     return ctx.getMinMaxTokenIndex();
@@ -148,7 +161,7 @@ public abstract class IncrementalParser extends Parser implements ParseTreeListe
     IncrementalParserRuleContext previous = (IncrementalParserRuleContext) this._ctx;
     // The incoming context becomes the parent
     IncrementalParserRuleContext incLocalCtx = (IncrementalParserRuleContext) localctx;
-    incLocalCtx.setMinMaxTokenIndex(incLocalCtx.getMinMaxTokenIndex().union(previous.getMinMaxTokenIndex()));
+    incLocalCtx.unionMinMaxTokenIndex(previous.getMinMaxTokenIndex());
     super.pushNewRecursionContext(localctx, state, ruleIndex);
   }
 
@@ -177,10 +190,31 @@ public abstract class IncrementalParser extends Parser implements ParseTreeListe
     // Now merge with our parent interval.
     if (incCtx.parent != null) {
       IncrementalParserRuleContext parentIncCtx = (IncrementalParserRuleContext) incCtx.parent;
-      parentIncCtx.setMinMaxTokenIndex(parentIncCtx.getMinMaxTokenIndex().union(interval));
+      parentIncCtx.unionMinMaxTokenIndex(interval);
+    } else {
+      commitReparseEvent(incCtx);
     }
   }
 
+  private void commitReparseEvent(ParserRuleContext root) {
+    IncrementalReparseEvent event = new IncrementalReparseEvent();
+    if (parseData != null && event.shouldCommit()) {
+      event.grammar = getGrammarFileName();
+      event.reusedContexts = reusedContexts;
+      event.reparsedContexts = reparsedContexts;
+      event.reusedTokens = reusedTokens;
+      if (root.start != null && root.stop != null) {
+        event.tokens = Math.max(0, root.stop.getTokenIndex() - root.start.getTokenIndex() + 1);
+      }
+      event.reuseRatio = event.tokens == 0 ? 0 : Math.min(1.0, (double) reusedTokens / event.tokens);
+      event.commit();
+    }
+
+    reusedContexts = 0;
+    reparsedContexts = 0;
+    reusedTokens = 0;
+  }
+
   @Override
   public void visitTerminal(TerminalNode node) {
   }
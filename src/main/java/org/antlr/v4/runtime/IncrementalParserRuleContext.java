@@ -22,33 +22,43 @@ public class IncrementalParserRuleContext extends ParserRuleContext {
   // The epoch number is incremented every time a new parser instance is created.
   public int epoch = -1;
 
-  // The interval that stores the min/max token we touched during
-  // lookahead/lookbehind
-  private Interval _minMaxTokenIndex = Interval.of(Integer.MAX_VALUE, Integer.MIN_VALUE);
+  // The min/max token we touched during lookahead/lookbehind. Kept as
+  // primitives rather than an Interval, there is one per rule context
+  private int minTokenIndex = Integer.MAX_VALUE;
+  private int maxTokenIndex = Integer.MIN_VALUE;
 
   /**
    * Get the minimum token index this rule touched.
    */
   public int getMinTokenIndex() {
-    return _minMaxTokenIndex.a;
+    return minTokenIndex;
   }
 
   /**
    * Get the maximum token index this rule touched.
    */
   public int getMaxTokenIndex() {
-    return _minMaxTokenIndex.b;
+    return maxTokenIndex;
   }
 
   /**
    * Get the interval this rule touched.
    */
   public Interval getMinMaxTokenIndex() {
-    return _minMaxTokenIndex;
+    return Interval.of(minTokenIndex, maxTokenIndex);
   }
 
   public void setMinMaxTokenIndex(Interval index) {
-    _minMaxTokenIndex = index;
+    minTokenIndex = index.a;
+    maxTokenIndex = index.b;
+  }
+
+  /**
+   * Extend the interval this rule touched by {@code index}.
+   */
+  public void unionMinMaxTokenIndex(Interval index) {
+    minTokenIndex = Math.min(minTokenIndex, index.a);
+    maxTokenIndex = Math.max(maxTokenIndex, index.b);
   }
 
   /**
@@ -0,0 +1,140 @@
+/*
+ * This file is a part of ANTLR.
+ *
+ * Copyright (c) 2012-2025 The ANTLR Project. All rights reserved.
+ * Copyright (c) 2025-2026 Valery Maximov <maximovvalery@gmail.com> and contributors
+ *
+ * Use of this file is governed by the BSD-3-Clause license that
+ * can be found in the LICENSE.txt file in the project root.
+ */
+package org.antlr.v4.runtime;
+
+import org.antlr.v4.runtime.atn.ATNState;
+import org.antlr.v4.runtime.misc.IntervalSet;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * An error strategy for parsing code while it is being edited, where a file may contain hundreds of syntax errors
+ * and a parse must stay fast no matter how broken the input is.
+ *
+ * <p>
+ * Recovery works like {@link DefaultErrorStrategy} with two cost bounds:</p>
+ *
+ * <ul>
+ * <li>Resynchronization skips at most {@link #getMaxSkippedTokens()} tokens per error. A half-typed construct near
+ * the start of a file then costs a few more error nodes instead of swallowing the rest of the file. When a rule
+ * gives up at the limit, its caller resynchronizes at its next decision to the tokens it expects there. The start
+ * rule has no caller, so there recovery keeps skipping up to its follow set.</li>
+ * <li>Single-token insertion checks the expected tokens with the cached follow sets of the current call chain rather
+ * than a full-context lookahead computation.</li>
+ * </ul>
+ *
+ * <p>
+ * {@code myparser.setErrorHandler(new InteractiveErrorStrategy());}</p>
+ *
+ * @see Parser#setErrorHandler(ANTLRErrorStrategy)
+ */
+@NullMarked
+public class InteractiveErrorStrategy extends DefaultErrorStrategy {
+  public static final int DEFAULT_MAX_SKIPPED_TOKENS = 128;
+
+  private final int maxSkippedTokens;
+
+  /**
+   * Whether the last {@link #consumeUntil} stopped at {@link #maxSkippedTokens} rather than at a token of its set.
+   */
+  private boolean skippedToLimit;
+
+  public InteractiveErrorStrategy() {
+    this(DEFAULT_MAX_SKIPPED_TOKENS);
+  }
+
+  /**
+   * @param maxSkippedTokens the maximum number of tokens consumed to resynchronize after one error
+   */
+  public InteractiveErrorStrategy(int maxSkippedTokens) {
+    if (maxSkippedTokens < 1) {
+      throw new IllegalArgumentException("maxSkippedTokens must be positive");
+    }
+    this.maxSkippedTokens = maxSkippedTokens;
+  }
+
+  public int getMaxSkippedTokens() {
+    return maxSkippedTokens;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>This implementation uses {@link org.antlr.v4.runtime.atn.ATN#getExpectedTokens}, which only walks the call
+   * chain while the end of a rule is reachable and reuses the follow sets cached in the ATN.</p>
+   */
+  @Override
+  protected boolean singleTokenInsertion(Parser recognizer) {
+    int currentSymbolType = recognizer.getInputStream().LA(1);
+    ATNState currentState = recognizer.getInterpreter().atn.states.get(recognizer.getState());
+    ATNState next = currentState.transition(0).target;
+    IntervalSet expectingAtLL2 = recognizer.getATN().getExpectedTokens(next.stateNumber, recognizer._ctx);
+    if (expectingAtLL2.contains(currentSymbolType)) {
+      reportMissingToken(recognizer);
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  protected void endErrorCondition(Parser recognizer) {
+    super.endErrorCondition(recognizer);
+    skippedToLimit = false;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>If the recovery of an invoked rule stopped at {@link #getMaxSkippedTokens()}, this implementation first
+   * consumes tokens until one the current rule expects at this state, so that the caller goes on parsing instead of
+   * failing at the same tokens.</p>
+   */
+  @Override
+  public void sync(Parser recognizer) throws RecognitionException {
+    if (skippedToLimit) {
+      skippedToLimit = false;
+      super.consumeUntil(recognizer, recognizer.getExpectedTokens());
+    }
+    super.sync(recognizer);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>If the skipped tokens reach {@link #getMaxSkippedTokens()} in the start rule, this implementation goes on
+   * consuming until the follow set. Leaving the start rule in the middle of the input would end the parse there.</p>
+   */
+  @Override
+  public void recover(Parser recognizer, RecognitionException e) {
+    super.recover(recognizer, e);
+    if (skippedToLimit && recognizer.getContext().getParent() == null) {
+      super.consumeUntil(recognizer, getErrorRecoverySet(recognizer));
+      skippedToLimit = false;
+    }
+  }
+
+  /**
+   * Consume tokens until one matches the given token set, or {@link #getMaxSkippedTokens()} tokens were consumed.
+   */
+  @Override
+  protected void consumeUntil(Parser recognizer, IntervalSet set) {
+    int ttype = recognizer.getInputStream().LA(1);
+    int skipped = 0;
+    while (ttype != Token.EOF && !set.contains(ttype)) {
+      if (skipped == maxSkippedTokens) {
+        skippedToLimit = true;
+        return;
+      }
+      recognizer.consume();
+      ttype = recognizer.getInputStream().LA(1);
+      skipped++;
+    }
+    skippedToLimit = false;
+  }
+}
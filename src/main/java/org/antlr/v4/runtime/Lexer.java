@@ -126,6 +126,11 @@ public abstract class Lexer extends Recognizer<Integer, LexerATNSimulator> imple
     try {
       outer:
       while (true) {
+        CancellationToken cancellation = getCancellationToken();
+        if (cancellation != null) {
+          cancellation.throwIfCancellationRequested();
+        }
+
         if (hitEOF) {
           return emitEOF();
         }
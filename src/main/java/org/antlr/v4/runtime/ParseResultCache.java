@@ -0,0 +1,608 @@
+/*
+ * This file is a part of ANTLR.
+ *
+ * Copyright (c) 2012-2025 The ANTLR Project. All rights reserved.
+ * Copyright (c) 2025-2026 Valery Maximov <maximovvalery@gmail.com> and contributors
+ *
+ * Use of this file is governed by the BSD-3-Clause license that
+ * can be found in the LICENSE.txt file in the project root.
+ */
+package org.antlr.v4.runtime;
+
+import org.antlr.v4.runtime.misc.Interval;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntUnaryOperator;
+import java.util.zip.CRC32;
+
+/**
+ * Stores the tokens and parse trees of inputs on disk, keyed by a hash of the input content and the grammar, so an
+ * input which was already parsed, in this process or an earlier one, does not have to be lexed and parsed again.
+ * {@link Tokenizer#setParseResultCache} uses it for whole files.
+ *
+ * <p>
+ * Entries are appended to segment files in one directory. Segments which are full are read through memory mapping,
+ * so a lookup copies the entry out of the page cache without a system call. When the segments take more than the
+ * maximum size, the least recently used segment is deleted together with all of its entries. The order in which the
+ * segments were used is kept in their modification times when the cache is closed.</p>
+ *
+ * <p>
+ * The cache is safe for use by multiple threads. A directory can only be used by one cache at a time, {@link #open}
+ * fails if another cache, possibly of another process, holds it.</p>
+ */
+@NullMarked
+public final class ParseResultCache implements Closeable {
+  /**
+   * The default maximum size of a segment file.
+   */
+  public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+
+  private static final String SEGMENT_PREFIX = "segment-";
+  private static final String SEGMENT_SUFFIX = ".dat";
+  private static final String LOCK_FILE = "cache.lock";
+
+  /**
+   * Each record is the key, the payload length and the CRC-32 of the payload, followed by the payload.
+   */
+  private static final int RECORD_HEADER_SIZE = Key.SIZE + Integer.BYTES + Integer.BYTES;
+
+  /**
+   * Directories opened in this process. Their file locks are not checked again, since closing another channel of the
+   * lock file could release the lock.
+   */
+  private static final Set<Path> OPEN_DIRECTORIES = ConcurrentHashMap.newKeySet();
+
+  private final Path directory;
+  private final long maxSize;
+  private final int segmentSize;
+  private final FileChannel lockChannel;
+  private final ReentrantLock lock = new ReentrantLock();
+
+  private final Map<Key, Entry> index = new HashMap<>();
+
+  /**
+   * Segments by id, from the least to the most recently used.
+   */
+  private final LinkedHashMap<Integer, Segment> segments = new LinkedHashMap<>(16, 0.75f, true);
+  private @Nullable Segment active;
+  private long size;
+  private long hitCount;
+  private long missCount;
+  private long writeFailureCount;
+  private boolean closed;
+
+  private ParseResultCache(Path directory, long maxSize, int segmentSize, FileChannel lockChannel) {
+    this.directory = directory;
+    this.maxSize = maxSize;
+    this.segmentSize = segmentSize;
+    this.lockChannel = lockChannel;
+  }
+
+  /**
+   * Opens the cache stored in {@code directory}, creating it if needed, with segments of
+   * {@link #DEFAULT_SEGMENT_SIZE} or less.
+   *
+   * @param directory The directory of the segment files
+   * @param maxSize   The size in bytes the segment files should not exceed
+   */
+  public static ParseResultCache open(Path directory, long maxSize) throws IOException {
+    return open(directory, maxSize, (int) Math.min(DEFAULT_SEGMENT_SIZE, Math.max(1, maxSize / 4)));
+  }
+
+  /**
+   * Opens the cache stored in {@code directory}, creating it if needed.
+   *
+   * @param directory   The directory of the segment files
+   * @param maxSize     The size in bytes the segment files should not exceed
+   * @param segmentSize The size in bytes of a segment file, after which a new one is started
+   */
+  public static ParseResultCache open(Path directory, long maxSize, int segmentSize) throws IOException {
+    if (maxSize <= 0 || segmentSize <= 0) {
+      throw new IllegalArgumentException("maxSize and segmentSize must be positive");
+    }
+
+    Files.createDirectories(directory);
+    var realDirectory = directory.toRealPath();
+    if (!OPEN_DIRECTORIES.add(realDirectory)) {
+      throw new IOException("The parse result cache " + directory + " is already open");
+    }
+
+    @Nullable FileChannel lockChannel = null;
+    @Nullable FileLock fileLock = null;
+    try {
+      lockChannel = FileChannel.open(realDirectory.resolve(LOCK_FILE), StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE);
+      fileLock = lockChannel.tryLock();
+    } finally {
+      if (fileLock == null) {
+        if (lockChannel != null) {
+          lockChannel.close();
+        }
+        OPEN_DIRECTORIES.remove(realDirectory);
+      }
+    }
+
+    if (fileLock == null) {
+      throw new IOException("The parse result cache " + directory + " is used by another process");
+    }
+
+    var cache = new ParseResultCache(realDirectory, maxSize, segmentSize, lockChannel);
+    try {
+      cache.load();
+    } catch (IOException | RuntimeException e) {
+      cache.close();
+      throw e;
+    }
+    return cache;
+  }
+
+  /**
+   * Returns the entry stored for {@code key}, or {@code null} if there is none.
+   */
+  public byte @Nullable [] get(Key key) {
+    lock.lock();
+    try {
+      ensureOpen();
+      var entry = index.get(key);
+      if (entry != null) {
+        segments.get(entry.segment.id); // marks the segment as recently used
+        var data = entry.segment.read(entry.offset, entry.length);
+        if (data != null && entry.crc == crc(data)) {
+          hitCount++;
+          return data;
+        }
+
+        index.remove(key);
+      }
+
+      missCount++;
+      return null;
+    } catch (IOException e) {
+      missCount++;
+      return null;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Stores {@code data} for {@code key}, replacing the previous entry, and evicts the least recently used segments if
+   * the cache became too large.
+   */
+  public void put(Key key, byte[] data) throws IOException {
+    lock.lock();
+    try {
+      ensureOpen();
+      int recordSize = RECORD_HEADER_SIZE + data.length;
+      var segment = active;
+      if (segment == null || segment.size > 0 && segment.size + recordSize > segmentSize) {
+        segment = startSegment();
+      }
+
+      int crc = crc(data);
+      var record = ByteBuffer.allocate(recordSize);
+      record.put(key.digest).putInt(data.length).putInt(crc).put(data).flip();
+      long offset = segment.size;
+      segment.write(record);
+      size += recordSize;
+      segments.get(segment.id);
+      index.put(key, new Entry(segment, offset + RECORD_HEADER_SIZE, data.length, crc));
+      evict();
+    } catch (IOException e) {
+      writeFailureCount++;
+      throw e;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the size in bytes of the segment files.
+   */
+  public long size() {
+    lock.lock();
+    try {
+      return size;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the number of {@link #get} calls which found an entry.
+   */
+  public long getHitCount() {
+    lock.lock();
+    try {
+      return hitCount;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the number of {@link #get} calls which did not find an entry.
+   */
+  public long getMissCount() {
+    lock.lock();
+    try {
+      return missCount;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the number of {@link #put} calls which failed with an I/O error.
+   */
+  public long getWriteFailureCount() {
+    lock.lock();
+    try {
+      return writeFailureCount;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Writes the order in which the segments were used and releases the directory.
+   */
+  @Override
+  public void close() throws IOException {
+    lock.lock();
+    try {
+      if (closed) {
+        return;
+      }
+
+      closed = true;
+      // закрытие канала снимает блокировку каталога
+      try (lockChannel) {
+        long time = System.currentTimeMillis() - segments.size();
+        for (var segment : segments.values()) {
+          Files.setLastModifiedTime(segment.path, FileTime.fromMillis(time++));
+        }
+
+        if (active != null) {
+          active.close();
+        }
+      } finally {
+        index.clear();
+        segments.clear();
+        active = null;
+        OPEN_DIRECTORIES.remove(directory);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void ensureOpen() {
+    if (closed) {
+      throw new IllegalStateException("The parse result cache is closed");
+    }
+  }
+
+  private void load() throws IOException {
+    List<Path> paths = new ArrayList<>();
+    try (var files = Files.list(directory)) {
+      files.filter(path -> segmentId(path) >= 0).forEach(paths::add);
+    }
+
+    // сначала давно использованные сегменты, порядок записан во время изменения при закрытии
+    Map<Path, FileTime> times = new HashMap<>();
+    for (var path : paths) {
+      times.put(path, Files.getLastModifiedTime(path));
+    }
+    paths.sort(Comparator.<Path, FileTime>comparing(times::get).thenComparingInt(ParseResultCache::segmentId));
+
+    Segment last = null;
+    for (var path : paths) {
+      var segment = Segment.map(segmentId(path), path);
+      scan(segment);
+      segments.put(segment.id, segment);
+      size += segment.size;
+      if (last == null || segment.id > last.id) {
+        last = segment;
+      }
+    }
+
+    if (last != null && last.size < segmentSize) {
+      last.reopen();
+      active = last;
+    }
+
+    evict();
+  }
+
+  /**
+   * Indexes the records of {@code segment}, dropping an incomplete record at its end.
+   */
+  private void scan(Segment segment) {
+    var buffer = segment.mapped;
+    if (buffer == null) {
+      return;
+    }
+
+    int offset = 0;
+    while (offset + RECORD_HEADER_SIZE <= buffer.limit()) {
+      var digest = new byte[Key.SIZE];
+      buffer.get(offset, digest);
+      int length = buffer.getInt(offset + Key.SIZE);
+      int crc = buffer.getInt(offset + Key.SIZE + Integer.BYTES);
+      if (length < 0 || length > buffer.limit() - offset - RECORD_HEADER_SIZE) {
+        break;
+      }
+
+      index.put(new Key(digest), new Entry(segment, offset + RECORD_HEADER_SIZE, length, crc));
+      offset += RECORD_HEADER_SIZE + length;
+    }
+
+    segment.size = offset;
+  }
+
+  private Segment startSegment() throws IOException {
+    var previous = active;
+    if (previous != null) {
+      previous.seal();
+    }
+
+    int id = segments.keySet().stream().mapToInt(Integer::intValue).max().orElse(-1) + 1;
+    var segment = Segment.create(id, directory.resolve(SEGMENT_PREFIX + id + SEGMENT_SUFFIX));
+    segments.put(id, segment);
+    active = segment;
+    return segment;
+  }
+
+  private void evict() {
+    var iterator = segments.values().iterator();
+    while (size > maxSize && iterator.hasNext()) {
+      var segment = iterator.next();
+      if (segment == active) {
+        continue;
+      }
+
+      iterator.remove();
+      size -= segment.size;
+      index.values().removeIf(entry -> entry.segment == segment);
+      segment.mapped = null;
+      try {
+        Files.deleteIfExists(segment.path);
+      } catch (IOException e) {
+        // отображенный файл в Windows удаляется только после сборки буфера,
+        // такой сегмент будет снова проиндексирован и вытеснен после открытия
+      }
+    }
+  }
+
+  private static int segmentId(Path path) {
+    var name = path.getFileName().toString();
+    if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) {
+      return -1;
+    }
+
+    try {
+      return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  private static int crc(byte[] data) {
+    var crc = new CRC32();
+    crc.update(data);
+    return (int) crc.getValue();
+  }
+
+  /**
+   * Identifies an input of a grammar, see {@link #of(String, CharStream)}.
+   */
+  public static final class Key {
+    /**
+     * The size in bytes of a key.
+     */
+    public static final int SIZE = 32;
+
+    private final byte[] digest;
+
+    private Key(byte[] digest) {
+      this.digest = digest;
+    }
+
+    /**
+     * Creates a key from a digest of {@link #SIZE} bytes computed by the caller, e.g. a SHA-256 hash the application
+     * already keeps for its files.
+     */
+    public static Key of(byte[] digest) {
+      if (digest.length != SIZE) {
+        throw new IllegalArgumentException("The digest must have " + SIZE + " bytes");
+      }
+      return new Key(digest.clone());
+    }
+
+    /**
+     * Creates a key from the SHA-256 hash of {@code namespace} and the code points of {@code input}. The namespace
+     * identifies the grammar, and should change whenever the lexer or the parser is regenerated.
+     */
+    public static Key of(String namespace, CharStream input) {
+      MessageDigest sha256;
+      try {
+        sha256 = MessageDigest.getInstance("SHA-256");
+      } catch (NoSuchAlgorithmException e) {
+        throw new IllegalStateException(e);
+      }
+
+      var namespaceBytes = namespace.getBytes(StandardCharsets.UTF_8);
+      var buffer = ByteBuffer.allocate(8192);
+      buffer.putInt(namespaceBytes.length);
+      sha256.update(buffer.flip());
+      sha256.update(namespaceBytes);
+
+      int n = input.size();
+      IntUnaryOperator codePointAt;
+      if (input instanceof CodePointCharStream codePoints) {
+        codePointAt = codePoints::codePointAt;
+      } else {
+        int[] codePoints = n > 0 ? input.getText(Interval.of(0, n - 1)).codePoints().toArray() : new int[0];
+        codePointAt = i -> codePoints[i];
+        n = codePoints.length;
+      }
+
+      buffer.clear();
+      for (int i = 0; i < n; i++) {
+        if (!buffer.hasRemaining()) {
+          sha256.update(buffer.flip());
+          buffer.clear();
+        }
+        buffer.putInt(codePointAt.applyAsInt(i));
+      }
+      sha256.update(buffer.flip());
+
+      return new Key(sha256.digest());
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+      return o instanceof Key key && Arrays.equals(digest, key.digest);
+    }
+
+    @Override
+    public int hashCode() {
+      // дайджест равномерно распределен, достаточно его начала
+      return ByteBuffer.wrap(digest).getInt();
+    }
+
+    @Override
+    public String toString() {
+      return HexFormat.of().formatHex(digest);
+    }
+  }
+
+  private record Entry(Segment segment, long offset, int length, int crc) {
+  }
+
+  /**
+   * A segment file. The active segment is appended through {@link #channel}, the other ones are read through
+   * {@link #mapped}.
+   */
+  private static final class Segment {
+    private final int id;
+    private final Path path;
+    private @Nullable FileChannel channel;
+    private @Nullable MappedByteBuffer mapped;
+    private long size;
+
+    private Segment(int id, Path path) {
+      this.id = id;
+      this.path = path;
+    }
+
+    static Segment create(int id, Path path) throws IOException {
+      var segment = new Segment(id, path);
+      segment.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+      return segment;
+    }
+
+    static Segment map(int id, Path path) throws IOException {
+      var segment = new Segment(id, path);
+      try (var file = FileChannel.open(path, StandardOpenOption.READ)) {
+        // отображение остается действительным после закрытия канала
+        segment.mapped = file.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+      }
+      return segment;
+    }
+
+    /**
+     * Makes this segment active again after {@link #map}, dropping the incomplete record at its end if any.
+     */
+    void reopen() throws IOException {
+      mapped = null;
+      channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      channel.truncate(size);
+    }
+
+    /**
+     * Stops appending to this segment and maps it.
+     */
+    void seal() throws IOException {
+      var thatChannel = channel;
+      if (thatChannel != null) {
+        mapped = thatChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        thatChannel.close();
+        channel = null;
+      }
+    }
+
+    void write(ByteBuffer record) throws IOException {
+      var thatChannel = channel;
+      if (thatChannel == null) {
+        throw new IllegalStateException("The segment is not active");
+      }
+
+      long position = size;
+      while (record.hasRemaining()) {
+        position += thatChannel.write(record, position);
+      }
+      size = position;
+    }
+
+    byte @Nullable [] read(long offset, int length) throws IOException {
+      var data = new byte[length];
+      var thatMapped = mapped;
+      if (thatMapped != null) {
+        thatMapped.get((int) offset, data);
+        return data;
+      }
+
+      var thatChannel = channel;
+      if (thatChannel == null) {
+        return null;
+      }
+
+      var buffer = ByteBuffer.wrap(data);
+      long position = offset;
+      while (buffer.hasRemaining()) {
+        int read = thatChannel.read(buffer, position);
+        if (read < 0) {
+          return null;
+        }
+        position += read;
+      }
+      return data;
+    }
+
+    void close() throws IOException {
+      mapped = null;
+      if (channel != null) {
+        channel.close();
+        channel = null;
+      }
+    }
+  }
+}
@@ -0,0 +1,365 @@
+/*
+ * This file is a part of ANTLR.
+ *
+ * Copyright (c) 2012-2025 The ANTLR Project. All rights reserved.
+ * Copyright (c) 2025-2026 Valery Maximov <maximovvalery@gmail.com> and contributors
+ *
+ * Use of this file is governed by the BSD-3-Clause license that
+ * can be found in the LICENSE.txt file in the project root.
+ */
+package org.antlr.v4.runtime;
+
+import org.antlr.v4.runtime.misc.Interval;
+import org.antlr.v4.runtime.misc.Tuple;
+import org.antlr.v4.runtime.tree.ErrorNode;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Constructor;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Converts the tokens and the parse tree of an input to bytes for {@link ParseResultCache} and back.
+ *
+ * <p>
+ * Tokens keep their type, channel, positions and explicitly set text; the text taken from the input is not stored,
+ * since the decoded tokens read it from the same content. The tree is stored in pre-order with the class of each rule
+ * context, so the decoded tree consists of the same generated context classes. Labels, parameters, return values and
+ * locals of the contexts are not stored, only what the generated accessors read from the children.</p>
+ *
+ * <p>
+ * A result which can not be restored exactly is not encoded: tokens which are not {@link CommonToken}s, tree nodes
+ * referring to tokens not in the list (e.g. tokens conjured by error recovery), contexts holding an exception and
+ * context classes without the constructors the generated ones have.</p>
+ */
+@NullMarked
+final class ParseResultCodec {
+  /**
+   * Changes whenever the format changes, entries of other versions are not decoded.
+   */
+  static final byte FORMAT_VERSION = 1;
+
+  private static final byte RULE = 0;
+  private static final byte TERMINAL = 1;
+  private static final byte ERROR = 2;
+
+  private static final ClassValue<Optional<ContextFactory>> FACTORIES = new ClassValue<>() {
+    @Override
+    protected Optional<ContextFactory> computeValue(Class<?> type) {
+      return ContextFactory.of(type);
+    }
+  };
+
+  private ParseResultCodec() {
+  }
+
+  /**
+   * Encodes the tokens of an input and the tree parsed from them.
+   *
+   * @return The encoded result, or {@code null} if it can not be restored exactly
+   */
+  static byte @Nullable [] encode(List<? extends Token> tokens, ParserRuleContext tree) {
+    try {
+      var treeBytes = new ByteArrayOutputStream();
+      List<String> classNames = new ArrayList<>();
+      if (!encodeTree(tokens, tree, new DataOutputStream(treeBytes), classNames)) {
+        return null;
+      }
+
+      var bytes = new ByteArrayOutputStream(tokens.size() * 6 * Integer.BYTES + treeBytes.size() + 64);
+      var out = new DataOutputStream(bytes);
+      out.writeByte(FORMAT_VERSION);
+      if (!encodeTokens(tokens, out)) {
+        return null;
+      }
+
+      out.writeInt(classNames.size());
+      for (var className : classNames) {
+        writeString(out, className);
+      }
+      treeBytes.writeTo(out);
+      out.flush();
+      return bytes.toByteArray();
+    } catch (IOException e) {
+      // запись в память не бросает исключений
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Decodes the tokens from the start of {@code data}, leaving it at the tree.
+   *
+   * @param source The source of the decoded tokens, usually the lexer which would have produced them
+   * @param input  The input the tokens were produced from
+   * @return The tokens, or {@code null} if {@code data} has another format version
+   */
+  static @Nullable List<Token> decodeTokens(ByteBuffer data, TokenSource source, CharStream input) {
+    if (data.get() != FORMAT_VERSION) {
+      return null;
+    }
+
+    var pair = Tuple.create(source, input);
+    int count = data.getInt();
+    List<Token> tokens = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      var token = new CommonToken(pair, data.getInt(), data.getInt(), data.getInt(), data.getInt());
+      token.setLine(data.getInt());
+      token.setCharPositionInLine(data.getInt());
+      token.setTokenIndex(i);
+      if (data.get() != 0) {
+        token.setText(readString(data));
+      }
+      tokens.add(token);
+    }
+
+    return tokens;
+  }
+
+  /**
+   * Decodes the tree following the tokens in {@code data}.
+   *
+   * @param tokens The tokens returned by {@link #decodeTokens}
+   * @param parser The parser creating the terminal and error nodes
+   * @throws IllegalStateException if a context class can not be loaded or created
+   */
+  static ParserRuleContext decodeTree(ByteBuffer data, List<Token> tokens, Parser parser) {
+    var factories = new ContextFactory[data.getInt()];
+    var classLoader = parser.getClass().getClassLoader();
+    for (int i = 0; i < factories.length; i++) {
+      var className = readString(data);
+      try {
+        var type = Class.forName(className, false, classLoader);
+        factories[i] = FACTORIES.get(type)
+          .orElseThrow(() -> new IllegalStateException("Can not create " + className));
+      } catch (ClassNotFoundException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    ParserRuleContext root = null;
+    // контексты, у которых еще не прочитаны все дети, и число оставшихся детей
+    Deque<ParserRuleContext> parents = new ArrayDeque<>();
+    Deque<int[]> remaining = new ArrayDeque<>();
+    int nodeCount = data.getInt();
+    for (int n = 0; n < nodeCount; n++) {
+      var parent = parents.peek();
+      byte kind = data.get();
+      if (kind == RULE) {
+        var ctx = factories[data.getInt()].create(parent, data.getInt());
+        ctx.start = token(tokens, data.getInt());
+        ctx.stop = token(tokens, data.getInt());
+        ctx.setAltNumber(data.getInt());
+        if (ctx instanceof IncrementalParserRuleContext incrementalCtx) {
+          incrementalCtx.epoch = data.getInt();
+          incrementalCtx.setMinMaxTokenIndex(Interval.of(data.getInt(), data.getInt()));
+        }
+
+        int childCount = data.getInt();
+        if (parent == null) {
+          if (root != null) {
+            throw new IllegalStateException("Malformed parse tree");
+          }
+          root = ctx;
+        } else {
+          parent.addAnyChild(ctx);
+          childAdded(parents, remaining);
+        }
+
+        if (childCount > 0) {
+          parents.push(ctx);
+          remaining.push(new int[]{childCount});
+        }
+      } else if (parent != null && (kind == TERMINAL || kind == ERROR)) {
+        var token = tokens.get(data.getInt());
+        parent.addAnyChild(kind == TERMINAL
+          ? parser.createTerminalNode(parent, token)
+          : parser.createErrorNode(parent, token));
+        childAdded(parents, remaining);
+      } else {
+        throw new IllegalStateException("Malformed parse tree");
+      }
+    }
+
+    if (root == null || !parents.isEmpty()) {
+      throw new IllegalStateException("Malformed parse tree");
+    }
+    return root;
+  }
+
+  private static void childAdded(Deque<ParserRuleContext> parents, Deque<int[]> remaining) {
+    var count = remaining.element();
+    if (--count[0] == 0) {
+      parents.pop();
+      remaining.pop();
+    }
+  }
+
+  private static boolean encodeTokens(List<? extends Token> tokens, DataOutputStream out) throws IOException {
+    out.writeInt(tokens.size());
+    for (int i = 0; i < tokens.size(); i++) {
+      if (!(tokens.get(i) instanceof CommonToken token) || token.getTokenIndex() != i) {
+        return false;
+      }
+
+      out.writeInt(token.getType());
+      out.writeInt(token.getChannel());
+      out.writeInt(token.getStartIndex());
+      out.writeInt(token.getStopIndex());
+      out.writeInt(token.getLine());
+      out.writeInt(token.getCharPositionInLine());
+      out.writeBoolean(token.text != null);
+      if (token.text != null) {
+        writeString(out, token.text);
+      }
+    }
+    return true;
+  }
+
+  private static boolean encodeTree(List<? extends Token> tokens, ParserRuleContext tree, DataOutputStream out,
+                                    List<String> classNames) throws IOException {
+    Map<Class<?>, Integer> classIds = new HashMap<>();
+    var nodes = new ByteArrayOutputStream();
+    var nodesOut = new DataOutputStream(nodes);
+    int nodeCount = 0;
+
+    // обход в прямом порядке без рекурсии
+    Deque<ParseTree> pending = new ArrayDeque<>();
+    pending.push(tree);
+    while (!pending.isEmpty()) {
+      var node = pending.pop();
+      nodeCount++;
+      if (node instanceof ParserRuleContext ctx) {
+        if (ctx.exception != null || FACTORIES.get(ctx.getClass()).isEmpty()) {
+          return false;
+        }
+
+        Integer classId = classIds.get(ctx.getClass());
+        if (classId == null) {
+          classId = classNames.size();
+          classIds.put(ctx.getClass(), classId);
+          classNames.add(ctx.getClass().getName());
+        }
+
+        int start = ctx.start == null ? -1 : tokenIndex(tokens, ctx.start);
+        int stop = ctx.stop == null ? -1 : tokenIndex(tokens, ctx.stop);
+        if (start == -2 || stop == -2) {
+          return false;
+        }
+
+        nodesOut.writeByte(RULE);
+        nodesOut.writeInt(classId);
+        nodesOut.writeInt(ctx.invokingState);
+        nodesOut.writeInt(start);
+        nodesOut.writeInt(stop);
+        nodesOut.writeInt(ctx.getAltNumber());
+        if (ctx instanceof IncrementalParserRuleContext incrementalCtx) {
+          nodesOut.writeInt(incrementalCtx.epoch);
+          nodesOut.writeInt(incrementalCtx.getMinTokenIndex());
+          nodesOut.writeInt(incrementalCtx.getMaxTokenIndex());
+        }
+
+        int childCount = ctx.getChildCount();
+        nodesOut.writeInt(childCount);
+        for (int i = childCount - 1; i >= 0; i--) {
+          pending.push(ctx.getChildren().get(i));
+        }
+      } else if (node instanceof TerminalNode terminal) {
+        int index = tokenIndex(tokens, terminal.getSymbol());
+        if (index < 0) {
+          return false;
+        }
+
+        nodesOut.writeByte(terminal instanceof ErrorNode ? ERROR : TERMINAL);
+        nodesOut.writeInt(index);
+      } else {
+        return false;
+      }
+    }
+
+    out.writeInt(nodeCount);
+    nodesOut.flush();
+    nodes.writeTo(out);
+    out.flush();
+    return true;
+  }
+
+  /**
+   * Returns the index of {@code token} in {@code tokens}, or -2 if it is not there.
+   */
+  private static int tokenIndex(List<? extends Token> tokens, Token token) {
+    int index = token.getTokenIndex();
+    return index >= 0 && index < tokens.size() && tokens.get(index) == token ? index : -2;
+  }
+
+  private static @Nullable Token token(List<Token> tokens, int index) {
+    return index < 0 ? null : tokens.get(index);
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    out.writeInt(value.length());
+    out.writeChars(value);
+  }
+
+  private static String readString(ByteBuffer data) {
+    var chars = new char[data.getInt()];
+    data.asCharBuffer().get(chars);
+    data.position(data.position() + chars.length * Character.BYTES);
+    return new String(chars);
+  }
+
+  /**
+   * Creates rule contexts of one class the way the generated parser does.
+   */
+  @FunctionalInterface
+  private interface ContextFactory {
+    ParserRuleContext create(@Nullable ParserRuleContext parent, int invokingState);
+
+    /**
+     * Finds the constructor of a rule context, {@code (ParserRuleContext parent, int invokingState)}, or of an
+     * alternative label context, which copies the context of its rule.
+     */
+    static Optional<ContextFactory> of(Class<?> type) {
+      if (!ParserRuleContext.class.isAssignableFrom(type)) {
+        return Optional.empty();
+      }
+
+      try {
+        Constructor<?> constructor = type.getConstructor(ParserRuleContext.class, int.class);
+        return Optional.of((parent, invokingState) ->
+          (ParserRuleContext) newInstance(constructor, parent, invokingState));
+      } catch (NoSuchMethodException e) {
+        // метка альтернативы
+      }
+
+      var superclass = type.getSuperclass();
+      try {
+        Constructor<?> constructor = type.getConstructor(superclass);
+        return FACTORIES.get(superclass).map(ruleFactory -> (parent, invokingState) ->
+          (ParserRuleContext) newInstance(constructor, ruleFactory.create(parent, invokingState)));
+      } catch (NoSuchMethodException e) {
+        return Optional.empty();
+      }
+    }
+
+    private static Object newInstance(Constructor<?> constructor, @Nullable Object... arguments) {
+      try {
+        return constructor.newInstance(arguments);
+      } catch (ReflectiveOperationException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+}
@@ -17,8 +17,10 @@ import org.antlr.v4.runtime.atn.ParseInfo;
 import org.antlr.v4.runtime.atn.ParserATNSimulator;
 import org.antlr.v4.runtime.atn.ProfilingATNSimulator;
 import org.antlr.v4.runtime.atn.RuleTransition;
+import org.antlr.v4.runtime.jfr.ParseEvent;
 import org.antlr.v4.runtime.misc.IntegerStack;
 import org.antlr.v4.runtime.misc.IntervalSet;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.antlr.v4.runtime.tree.ErrorNode;
 import org.antlr.v4.runtime.tree.ErrorNodeImpl;
 import org.antlr.v4.runtime.tree.ParseTreeListener;
@@ -32,8 +34,6 @@ import org.jspecify.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.WeakHashMap;
 
 /**
  * This is all the parsing support code essentially; most of it is error recovery stuff.
@@ -99,7 +99,7 @@ public abstract class Parser extends Recognizer<Token, ParserATNSimulator> {
    *
    * @see ATNDeserializationOptions#isGenerateRuleBypassTransitions()
    */
-  private static final Map<String, ATN> BYPASS_ALTS_ATN_CACHE = new WeakHashMap<>();
+  private static final RecognizerCache<String, ATN> BYPASS_ALTS_ATN_CACHE = new RecognizerCache<>();
 
   /**
    * The error handling strategy for the parser. The default value is a new instance of {@link DefaultErrorStrategy}.
@@ -166,6 +166,12 @@ public abstract class Parser extends Recognizer<Token, ParserATNSimulator> {
   @Getter
   protected boolean matchedEOF;
 
+  /**
+   * The flight recorder event of the current parse, or {@code null} if the event is disabled or no parse is running.
+   */
+  @Nullable
+  private ParseEvent parseEvent;
+
   /**
    * флаг для понимания того, создание ли у нас парсера, или мы его модифицируем. костыль, надо будет в будущем сделать
    * по человечески
@@ -189,6 +195,7 @@ public abstract class Parser extends Recognizer<Token, ParserATNSimulator> {
     _ctx = null; // todo надо переделать сброс
     _syntaxErrors = 0;
     matchedEOF = false;
+    parseEvent = null;
     setTrace(false);
     precedenceStack.clear();
     precedenceStack.push(0);
@@ -427,19 +434,11 @@ public abstract class Parser extends Recognizer<Token, ParserATNSimulator> {
    */
 
   public ATN getATNWithBypassAlts() {
-    String serializedAtn = getSerializedATN();
-
-    synchronized (BYPASS_ALTS_ATN_CACHE) {
-      ATN result = BYPASS_ALTS_ATN_CACHE.get(serializedAtn);
-      if (result == null) {
-        ATNDeserializationOptions deserializationOptions = new ATNDeserializationOptions();
-        deserializationOptions.setGenerateRuleBypassTransitions(true);
-        result = new ATNDeserializer(deserializationOptions).deserialize(serializedAtn.toCharArray());
-        BYPASS_ALTS_ATN_CACHE.put(serializedAtn, result);
-      }
-
-      return result;
-    }
+    return BYPASS_ALTS_ATN_CACHE.get(getClass(), getSerializedATN(), serializedAtn -> {
+      ATNDeserializationOptions deserializationOptions = new ATNDeserializationOptions();
+      deserializationOptions.setGenerateRuleBypassTransitions(true);
+      return new ATNDeserializer(deserializationOptions).deserialize(serializedAtn.toCharArray());
+    });
   }
 
   /**
@@ -550,8 +549,15 @@ public abstract class Parser extends Recognizer<Token, ParserATNSimulator> {
    * parse listeners. If the parser <em>is</em> in error recovery mode, the consumed symbol is added to the parse tree
    * using {@link #createErrorNode(ParserRuleContext, Token)} then {@link ParserRuleContext#addErrorNode(ErrorNode)} and
    * {@link ParseTreeListener#visitErrorNode} is called on any parse listeners.
+   *
+   * @throws ParseCancellationException if the {@link #getCancellationToken() cancellation token} was canceled
    */
   public Token consume() {
+    var cancellation = getCancellationToken();
+    if (cancellation != null) {
+      cancellation.throwIfCancellationRequested();
+    }
+
     var o = getCurrentToken();
     if (o.getType() != EOF) {
       getInputStream().consume();
@@ -611,6 +617,9 @@ public abstract class Parser extends Recognizer<Token, ParserATNSimulator> {
    */
   public void enterRule(ParserRuleContext localctx, int state, int ruleIndex) {
     setState(state);
+    if (_ctx == null) {
+      beginParseEvent(ruleIndex);
+    }
     _ctx = localctx;
     _ctx.start = _input.LT(1);
     if (_buildParseTrees) {
@@ -656,6 +665,9 @@ public abstract class Parser extends Recognizer<Token, ParserATNSimulator> {
     }
     setState(_ctx.invokingState);
     _ctx = (ParserRuleContext) _ctx.parent;
+    if (_ctx == null && parseEvent != null) {
+      commitParseEvent();
+    }
   }
 
   public void enterOuterAlt(ParserRuleContext localctx, int altNum) {
@@ -689,6 +701,9 @@ public abstract class Parser extends Recognizer<Token, ParserATNSimulator> {
   public void enterRecursionRule(ParserRuleContext localctx, int state, int ruleIndex, int precedence) {
     setState(state);
     precedenceStack.push(precedence);
+    if (_ctx == null) {
+      beginParseEvent(ruleIndex);
+    }
     _ctx = localctx;
     _ctx.start = _input.LT(1);
     if (!_parseListeners.isEmpty()) {
@@ -738,6 +753,34 @@ public abstract class Parser extends Recognizer<Token, ParserATNSimulator> {
       // add return ctx into invoking rule's tree
       _parentctx.addChild(retctx);
     }
+
+    if (_parentctx == null && parseEvent != null) {
+      commitParseEvent();
+    }
+  }
+
+  private void beginParseEvent(int startRuleIndex) {
+    ParseEvent event = new ParseEvent();
+    if (!event.isEnabled()) {
+      return;
+    }
+
+    event.begin();
+    event.grammar = getGrammarFileName();
+    event.startRule = getRuleNames()[startRuleIndex];
+    // index() is -1 until the token stream fetches its first token
+    event.startTokenIndex = _input.LT(1).getTokenIndex();
+    parseEvent = event;
+  }
+
+  private void commitParseEvent() {
+    ParseEvent event = parseEvent;
+    parseEvent = null;
+    if (event != null && event.shouldCommit()) {
+      event.tokens = _input.index() - event.startTokenIndex;
+      event.syntaxErrors = _syntaxErrors;
+      event.commit();
+    }
   }
 
   @Nullable
@@ -918,6 +961,10 @@ public abstract class Parser extends Recognizer<Token, ParserATNSimulator> {
   }
 
   /**
+   * Replaces the interpreter with a {@link ProfilingATNSimulator}, which records detailed statistics at a
+   * considerable cost per prediction. For counters which can stay enabled in production, see
+   * {@link ATN#setPredictionMetrics}.
+   *
    * @since 4.3
    */
   public void setProfile(boolean profile) {
@@ -930,6 +977,8 @@ public abstract class Parser extends Recognizer<Token, ParserATNSimulator> {
       setInterpreter(new ParserATNSimulator(this, getATN()));
     }
     getInterpreter().setPredictionMode(interp.getPredictionMode());
+    getInterpreter().memoize_predictions = interp.memoize_predictions;
+    getInterpreter().setPredictionLog(interp.getPredictionLog());
   }
 
   /**
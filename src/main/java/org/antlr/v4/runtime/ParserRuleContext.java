@@ -21,8 +21,10 @@ import org.antlr.v4.runtime.tree.Trees;
 import org.jspecify.annotations.NullMarked;
 import org.jspecify.annotations.Nullable;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
 
 /**
@@ -42,6 +44,8 @@ import java.util.List;
  * <p>
  * I do not use getters for fields of objects that are used simply to group values such as this aggregate.  The
  * getters/setters are there to satisfy the superclass interface.
+ * <p>
+ * A finished tree may be {@link #seal() sealed} to make it smaller and read-only.
  */
 @NullMarked
 public class ParserRuleContext extends RuleContext {
@@ -51,19 +55,23 @@ public class ParserRuleContext extends RuleContext {
    * If we are debugging or building a parse tree for a visitor, we need to track all of the tokens and rule invocations
    * associated with this rule's context. This is empty for parsing w/o tree constr. operation because we don't the need
    * to track the details about how we parse this rule.
+   * <p>
+   * The list is unmodifiable once the context is {@link #seal() sealed}.
    */
   @Getter
-  private final List<ParseTree> children;
+  private List<ParseTree> children;
 
   /**
-   * Ленивое хранение текста. Несколько увеличивает потребление памяти в угоду ускорения получения содержимого
+   * Ленивое хранение текста. Несколько увеличивает потребление памяти в угоду ускорения получения содержимого.
+   * После {@link #seal()} не хранится
    */
-  private final Lazy<String> text = new Lazy<>(super::getText);
+  private @Nullable Lazy<String> text = new Lazy<>(super::getText);
 
   /**
-   * Ленивое хранение токенов. Несколько увеличивает потребление памяти в угоду ускорения получения содержимого
+   * Ленивое хранение токенов. Несколько увеличивает потребление памяти в угоду ускорения получения содержимого.
+   * После {@link #seal()} не хранится
    */
-  private final Lazy<List<Token>> tokens = new Lazy<>(this::computeTokens);
+  private @Nullable Lazy<List<Token>> tokens = new Lazy<>(this::computeTokens);
 
   /**
    * Стартовая позиция (токен начала)
@@ -123,6 +131,46 @@ public class ParserRuleContext extends RuleContext {
     return EMPTY;
   }
 
+  /**
+   * Converts this finished subtree into a compact read-only form. Each children list is replaced by an unmodifiable
+   * list of exactly its size, and the lazy holders of {@link #getText()} and {@link #getTokens()} are dropped, so these
+   * methods compute their result on every call.
+   * <p>
+   * Adding, replacing or removing children of a sealed context throws {@link UnsupportedOperationException}. Since
+   * nothing is computed and cached on read any more, a sealed tree can be read by many threads at once without
+   * copying, once it is published to them safely, e.g. through a concurrent collection or a future.
+   * <p>
+   * A sealed tree must not be passed to {@link IncrementalParserData} as the previous tree, the incremental parser
+   * adjusts the token positions of the contexts it reuses.
+   */
+  public void seal() {
+    // обход без рекурсии, глубина дерева может быть большой
+    Deque<ParserRuleContext> pending = new ArrayDeque<>();
+    pending.push(this);
+    while (!pending.isEmpty()) {
+      var ctx = pending.pop();
+      if (ctx.isSealed()) {
+        continue;
+      }
+
+      ctx.children = List.copyOf(ctx.children);
+      ctx.text = null;
+      ctx.tokens = null;
+      for (var child : ctx.children) {
+        if (child instanceof ParserRuleContext childCtx) {
+          pending.push(childCtx);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns {@code true} if this context was {@link #seal() sealed}.
+   */
+  public boolean isSealed() {
+    return text == null;
+  }
+
   // Double dispatch methods for listeners
 
   public void enterRule(ParseTreeListener listener) {
@@ -329,7 +377,8 @@ public class ParserRuleContext extends RuleContext {
 
   @Override
   public String getText() {
-    return text.getOrCompute();
+    var lazyText = text;
+    return lazyText != null ? lazyText.getOrCompute() : super.getText();
   }
 
   @Override
@@ -338,7 +387,8 @@ public class ParserRuleContext extends RuleContext {
   }
 
   public List<Token> getTokens() {
-    return tokens.getOrCompute();
+    var lazyTokens = tokens;
+    return lazyTokens != null ? lazyTokens.getOrCompute() : computeTokens();
   }
 
   private List<Token> computeTokens() {
@@ -24,15 +24,14 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.WeakHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 @NullMarked
 public abstract class Recognizer<Symbol, ATNInterpreter extends ATNSimulator> {
   public static final int EOF = -1;
 
-  private static final Map<Vocabulary, Map<String, Integer>> tokenTypeMapCache = new WeakHashMap<>();
-  private static final Map<String[], Map<String, Integer>> ruleIndexMapCache = new WeakHashMap<>();
+  private static final RecognizerCache<Vocabulary, Map<String, Integer>> tokenTypeMapCache = new RecognizerCache<>();
+  private static final RecognizerCache<String[], Map<String, Integer>> ruleIndexMapCache = new RecognizerCache<>();
 
   private final List<ANTLRErrorListener<? super Symbol>> _listeners =
     new CopyOnWriteArrayList<>() {{
@@ -47,6 +46,16 @@ public abstract class Recognizer<Symbol, ATNInterpreter extends ATNSimulator> {
   @Setter
   private int state = -1;
 
+  /**
+   * Checked by the recognizer and its interpreter at cheap points to abort a stale parse.
+   *
+   * @see CancellationToken
+   */
+  @Getter
+  @Setter
+  @Nullable
+  private CancellationToken cancellationToken;
+
   public abstract String getGrammarFileName();
 
   public abstract IntStream getInputStream();
@@ -70,10 +79,7 @@ public abstract class Recognizer<Symbol, ATNInterpreter extends ATNSimulator> {
    * <p>Used for XPath and tree pattern compilation.</p>
    */
   public Map<String, Integer> getRuleIndexMap() {
-    String[] ruleNames = getRuleNames();
-    synchronized (ruleIndexMapCache) {
-      return ruleIndexMapCache.computeIfAbsent(ruleNames, key -> Collections.unmodifiableMap(Utils.toMap(key)));
-    }
+    return ruleIndexMapCache.get(getClass(), getRuleNames(), key -> Collections.unmodifiableMap(Utils.toMap(key)));
   }
 
   /**
@@ -82,31 +88,25 @@ public abstract class Recognizer<Symbol, ATNInterpreter extends ATNSimulator> {
    * <p>Used for XPath and tree pattern compilation.</p>
    */
   public Map<String, Integer> getTokenTypeMap() {
-    Vocabulary vocabulary = getVocabulary();
-
-    synchronized (tokenTypeMapCache) {
-      Map<String, Integer> result = tokenTypeMapCache.get(vocabulary);
-      if (result == null) {
-        result = new HashMap<>();
-        for (int i = 0; i <= getATN().maxTokenType; i++) {
-          String literalName = vocabulary.getLiteralName(i);
-          if (literalName != null) {
-            result.put(literalName, i);
-          }
-
-          String symbolicName = vocabulary.getSymbolicName(i);
-          if (symbolicName != null) {
-            result.put(symbolicName, i);
-          }
-        }
-
-        result.put("EOF", Token.EOF);
-        result = Collections.unmodifiableMap(result);
-        tokenTypeMapCache.put(vocabulary, result);
+    return tokenTypeMapCache.get(getClass(), getVocabulary(), this::createTokenTypeMap);
+  }
+
+  private Map<String, Integer> createTokenTypeMap(Vocabulary vocabulary) {
+    Map<String, Integer> result = new HashMap<>();
+    for (int i = 0; i <= getATN().maxTokenType; i++) {
+      String literalName = vocabulary.getLiteralName(i);
+      if (literalName != null) {
+        result.put(literalName, i);
       }
 
-      return result;
+      String symbolicName = vocabulary.getSymbolicName(i);
+      if (symbolicName != null) {
+        result.put(symbolicName, i);
+      }
     }
+
+    result.put("EOF", Token.EOF);
+    return Collections.unmodifiableMap(result);
   }
 
   public int getTokenType(String tokenName) {
@@ -0,0 +1,71 @@
+/*
+ * This file is a part of ANTLR.
+ *
+ * Copyright (c) 2012-2025 The ANTLR Project. All rights reserved.
+ * Copyright (c) 2025-2026 Valery Maximov <maximovvalery@gmail.com> and contributors
+ *
+ * Use of this file is governed by the BSD-3-Clause license that
+ * can be found in the LICENSE.txt file in the project root.
+ */
+package org.antlr.v4.runtime;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Cache of values derived from the static data of a recognizer class, such as its {@link Vocabulary} or rule names.
+ *
+ * <p>
+ * A generated recognizer always passes the same key object, so the first value computed for a class is kept in a
+ * {@link ClassValue} and later lookups are a lock-free identity check. Recognizers whose data differs per instance,
+ * like {@link ParserInterpreter}, fall back to a synchronized weak map.</p>
+ */
+@NullMarked
+final class RecognizerCache<K, V> {
+  private final ClassValue<AtomicReference<@Nullable Entry<K, V>>> entries = new ClassValue<>() {
+    @Override
+    protected AtomicReference<@Nullable Entry<K, V>> computeValue(Class<?> type) {
+      return new AtomicReference<>();
+    }
+  };
+
+  private final Map<K, V> fallback = new WeakHashMap<>();
+
+  V get(Class<?> owner, K key, Function<? super K, ? extends V> factory) {
+    AtomicReference<@Nullable Entry<K, V>> reference = entries.get(owner);
+    Entry<K, V> entry = reference.get();
+    if (entry != null && entry.key.get() == key) {
+      return entry.value;
+    }
+
+    if (entry == null) {
+      V value = factory.apply(key);
+      if (reference.compareAndSet(null, new Entry<>(key, value))) {
+        return value;
+      }
+    }
+
+    synchronized (fallback) {
+      return fallback.computeIfAbsent(key, factory);
+    }
+  }
+
+  private static final class Entry<K, V> {
+    /**
+     * Weak, so an interpreter which claimed the entry does not keep its grammar data alive.
+     */
+    final WeakReference<K> key;
+    final V value;
+
+    Entry(K key, V value) {
+      this.key = new WeakReference<>(key);
+      this.value = value;
+    }
+  }
+}
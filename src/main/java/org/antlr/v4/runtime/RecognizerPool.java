@@ -0,0 +1,217 @@
+/*
+ * This file is a part of ANTLR.
+ *
+ * Copyright (c) 2012-2025 The ANTLR Project. All rights reserved.
+ * Copyright (c) 2025-2026 Valery Maximov <maximovvalery@gmail.com> and contributors
+ *
+ * Use of this file is governed by the BSD-3-Clause license that
+ * can be found in the LICENSE.txt file in the project root.
+ */
+package org.antlr.v4.runtime;
+
+import org.antlr.v4.runtime.atn.ParserATNSimulator;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Keeps lexer/parser pairs of one grammar per thread, so parsing many inputs does not create a new lexer, token
+ * stream, parser, {@link ParserATNSimulator} and {@link DefaultErrorStrategy} for each of them.
+ *
+ * <pre>
+ * RecognizerPool&lt;MyLexer, MyParser&gt; pool = new RecognizerPool&lt;&gt;(MyLexer::new, MyParser::new);
+ * try (var lease = pool.acquire(CharStreams.fromString(text))) {
+ *   tree = lease.parser().compilationUnit();
+ * }
+ * </pre>
+ *
+ * <p>
+ * {@link #acquire} binds an idle pair of the current thread to the input, or creates one if there is none. Closing
+ * the {@link Lease} resets the recognizers and returns them to the thread. Leases may be nested, each one gets its
+ * own pair.</p>
+ *
+ * <p>
+ * Reset clears the parse state, i.e. the rule context, precedence stack, syntax error count, error recovery state,
+ * lexer mode stack and token buffer. It also restores the configuration the recognizers had when they were created:
+ * the error listeners, parse listeners, error strategy, interpreter, prediction mode, parse tree building,
+ * cancellation token and token factory. Changes made to them during a lease are not seen by the next one.</p>
+ *
+ * <p>
+ * Idle pairs are only kept for threads which parse repeatedly, such as the threads of a fixed pool. Virtual threads
+ * usually parse once, so pooling gains nothing for them.</p>
+ *
+ * @param <L> The lexer class
+ * @param <P> The parser class
+ */
+@NullMarked
+public final class RecognizerPool<L extends Lexer, P extends Parser> {
+  /**
+   * The default maximum number of idle pairs kept per thread.
+   */
+  public static final int DEFAULT_MAX_IDLE = 2;
+
+  private final Function<CharStream, L> lexerFactory;
+  private final Function<TokenStream, P> parserFactory;
+  private final int maxIdle;
+  private final ThreadLocal<ArrayDeque<Lease<L, P>>> idle = ThreadLocal.withInitial(ArrayDeque::new);
+
+  /**
+   * Creates a pool using the constructors of the generated recognizers, e.g. {@code MyLexer::new} and
+   * {@code MyParser::new}.
+   */
+  public RecognizerPool(Function<CharStream, L> lexerFactory, Function<TokenStream, P> parserFactory) {
+    this(lexerFactory, parserFactory, DEFAULT_MAX_IDLE);
+  }
+
+  /**
+   * Creates a pool keeping at most {@code maxIdle} idle pairs per thread.
+   */
+  public RecognizerPool(Function<CharStream, L> lexerFactory, Function<TokenStream, P> parserFactory, int maxIdle) {
+    if (maxIdle < 0) {
+      throw new IllegalArgumentException("maxIdle must not be negative");
+    }
+
+    this.lexerFactory = lexerFactory;
+    this.parserFactory = parserFactory;
+    this.maxIdle = maxIdle;
+  }
+
+  /**
+   * Returns a lexer/parser pair reading {@code input}. The lease must be closed on the thread which acquired it.
+   */
+  public Lease<L, P> acquire(CharStream input) {
+    Lease<L, P> lease = idle.get().pollLast();
+    if (lease == null) {
+      L lexer = lexerFactory.apply(input);
+      CommonTokenStream tokens = new CommonTokenStream(lexer);
+      return new Lease<>(this, lexer, tokens, parserFactory.apply(tokens));
+    }
+
+    lease.bind(input);
+    return lease;
+  }
+
+  /**
+   * Discards the idle pairs of the current thread.
+   */
+  public void clear() {
+    idle.remove();
+  }
+
+  private void release(Lease<L, P> lease) {
+    ArrayDeque<Lease<L, P>> leases = idle.get();
+    if (leases.size() < maxIdle) {
+      lease.unbind();
+      leases.addLast(lease);
+    }
+  }
+
+  /**
+   * A lexer, token stream and parser bound to one input, see {@link #acquire}.
+   *
+   * @param <L> The lexer class
+   * @param <P> The parser class
+   */
+  public static final class Lease<L extends Lexer, P extends Parser> implements AutoCloseable {
+    /**
+     * Stands in for the released input, so the pool does not keep it reachable.
+     */
+    private static final CharStream NO_INPUT = CharStreams.fromString("");
+
+    private final RecognizerPool<L, P> pool;
+    private final L lexer;
+    private final CommonTokenStream tokens;
+    private final P parser;
+    private boolean closed;
+
+    private final List<ANTLRErrorListener<? super Integer>> lexerErrorListeners;
+    private final TokenFactory lexerTokenFactory;
+    private final @Nullable CancellationToken lexerCancellationToken;
+    private final List<ANTLRErrorListener<? super Token>> parserErrorListeners;
+    private final List<ParseTreeListener> parseListeners;
+    private final ANTLRErrorStrategy errorStrategy;
+    private final ParserATNSimulator interpreter;
+    private final PredictionMode predictionMode;
+    private final boolean buildParseTrees;
+    private final @Nullable CancellationToken cancellationToken;
+
+    private Lease(RecognizerPool<L, P> pool, L lexer, CommonTokenStream tokens, P parser) {
+      this.pool = pool;
+      this.lexer = lexer;
+      this.tokens = tokens;
+      this.parser = parser;
+      this.lexerErrorListeners = new ArrayList<>(lexer.getErrorListeners());
+      this.lexerTokenFactory = lexer.getTokenFactory();
+      this.lexerCancellationToken = lexer.getCancellationToken();
+      this.parserErrorListeners = new ArrayList<>(parser.getErrorListeners());
+      this.parseListeners = new ArrayList<>(parser.getParseListeners());
+      this.errorStrategy = parser.getErrorHandler();
+      this.interpreter = parser.getInterpreter();
+      this.predictionMode = interpreter.getPredictionMode();
+      this.buildParseTrees = parser.getBuildParseTree();
+      this.cancellationToken = parser.getCancellationToken();
+    }
+
+    public L lexer() {
+      return lexer;
+    }
+
+    public CommonTokenStream tokens() {
+      return tokens;
+    }
+
+    public P parser() {
+      return parser;
+    }
+
+    /**
+     * Resets the recognizers and returns them to the pool.
+     */
+    @Override
+    public void close() {
+      if (!closed) {
+        closed = true;
+        pool.release(this);
+      }
+    }
+
+    private void bind(CharStream input) {
+      closed = false;
+      lexer.setInputStream(input);
+      tokens.setTokenSource(lexer);
+      parser.setTokenStream(tokens);
+    }
+
+    private void unbind() {
+      lexer.setInputStream(NO_INPUT);
+      lexer.reset();
+      lexer.setTokenFactory(lexerTokenFactory);
+      lexer.setCancellationToken(lexerCancellationToken);
+      restoreErrorListeners(lexer, lexerErrorListeners);
+
+      tokens.setTokenSource(lexer);
+
+      parser.setInterpreter(interpreter);
+      interpreter.setPredictionMode(predictionMode);
+      parser.setErrorHandler(errorStrategy);
+      parser.setBuildParseTree(buildParseTrees);
+      parser.setCancellationToken(cancellationToken);
+      parser.removeParseListeners();
+      parseListeners.forEach(parser::addParseListener);
+      restoreErrorListeners(parser, parserErrorListeners);
+      parser.reset();
+    }
+
+    private static <Symbol> void restoreErrorListeners(Recognizer<Symbol, ?> recognizer,
+                                                       List<ANTLRErrorListener<? super Symbol>> listeners) {
+      recognizer.removeErrorListeners();
+      listeners.forEach(recognizer::addErrorListener);
+    }
+  }
+}
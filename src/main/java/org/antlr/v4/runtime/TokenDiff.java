@@ -0,0 +1,238 @@
+/*
+ * This file is a part of ANTLR.
+ *
+ * Copyright (c) 2012-2025 The ANTLR Project. All rights reserved.
+ * Copyright (c) 2025-2026 Valery Maximov <maximovvalery@gmail.com> and contributors
+ *
+ * Use of this file is governed by the BSD-3-Clause license that
+ * can be found in the LICENSE.txt file in the project root.
+ */
+package org.antlr.v4.runtime;
+
+import org.jspecify.annotations.NullMarked;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Computes the {@link TokenChange}s which turn an old token list into a new one, for {@link IncrementalParserData}.
+ *
+ * <p>
+ * The common prefix and suffix are skipped first. The rest is compared with the greedy algorithm of Myers, "An
+ * O(ND) Difference Algorithm and Its Variations", which finds a shortest edit script in time proportional to the
+ * size of the input times the number of edits. Each run of removed and added tokens between two matched tokens
+ * becomes {@link TokenChangeType#CHANGED} pairs followed by the surplus removals or additions, so a token that only
+ * moved keeps its place in the old tree. If the edit script would be longer than {@link #MAX_EDITS}, or finding it
+ * would take more than {@link #MAX_WORK} steps, the whole region between the prefix and the suffix is reported as
+ * changed instead.</p>
+ *
+ * <p>
+ * Tokens are equal when they have the same type, channel and text. The texts of {@link CommonToken}s are compared by
+ * their {@link CommonToken#getContentHash() content hashes} first, without creating them.</p>
+ */
+@NullMarked
+final class TokenDiff {
+  /**
+   * The maximum number of edits computed precisely.
+   */
+  static final int MAX_EDITS = 1024;
+
+  /**
+   * The maximum number of steps spent on the edit script, where each diagonal visited and each pair of tokens
+   * compared counts as one step. Every round costs time proportional to the size of the region, so this bounds the
+   * diff of large inputs well before {@link #MAX_EDITS} is reached.
+   */
+  static final int MAX_WORK = 1 << 20;
+
+  private final List<Token> oldTokens;
+  private final List<Token> newTokens;
+  private final List<TokenChange> changes = new ArrayList<>();
+
+  private TokenDiff(List<Token> oldTokens, List<Token> newTokens) {
+    this.oldTokens = oldTokens;
+    this.newTokens = newTokens;
+  }
+
+  static List<TokenChange> compute(List<Token> oldTokens, List<Token> newTokens) {
+    return compute(oldTokens, newTokens, MAX_EDITS, MAX_WORK);
+  }
+
+  static List<TokenChange> compute(List<Token> oldTokens, List<Token> newTokens, int maxEdits, int maxWork) {
+    TokenDiff diff = new TokenDiff(oldTokens, newTokens);
+    diff.run(maxEdits, maxWork);
+    return diff.changes;
+  }
+
+  static boolean tokensEqual(Token oldToken, Token newToken) {
+    if (oldToken.getType() != newToken.getType() || oldToken.getChannel() != newToken.getChannel()) {
+      return false;
+    }
+
+    if (oldToken instanceof CommonToken oldCommonToken && newToken instanceof CommonToken newCommonToken) {
+      return oldCommonToken.contentEquals(newCommonToken);
+    }
+
+    return Objects.equals(oldToken.getText(), newToken.getText());
+  }
+
+  private void run(int maxEdits, int maxWork) {
+    int oldStart = 0;
+    int newStart = 0;
+    int oldEnd = oldTokens.size();
+    int newEnd = newTokens.size();
+
+    while (oldStart < oldEnd && newStart < newEnd && equal(oldStart, newStart)) {
+      oldStart++;
+      newStart++;
+    }
+
+    while (oldStart < oldEnd && newStart < newEnd && equal(oldEnd - 1, newEnd - 1)) {
+      oldEnd--;
+      newEnd--;
+    }
+
+    if (oldStart == oldEnd && newStart == newEnd) {
+      return;
+    }
+
+    if (!diff(oldStart, oldEnd, newStart, newEnd, maxEdits, maxWork)) {
+      addHunk(oldStart, oldEnd, newStart, newEnd);
+    }
+  }
+
+  /**
+   * Adds the changes of the shortest edit script between {@code oldTokens[oldStart, oldEnd)} and
+   * {@code newTokens[newStart, newEnd)}.
+   *
+   * @return {@code false} if the script is longer than {@code maxEdits} or takes more than {@code maxWork} steps to
+   * find, in which case nothing is added
+   */
+  private boolean diff(int oldStart, int oldEnd, int newStart, int newEnd, int maxEdits, int maxWork) {
+    int n = oldEnd - oldStart;
+    int m = newEnd - newStart;
+    int limit = Math.min(n + m, maxEdits);
+
+    // v[offset + k] is the furthest x reached on diagonal k = x - y, trace[d] holds v[offset - d .. offset + d]
+    // as it was before round d
+    int offset = limit + 1;
+    int[] v = new int[2 * limit + 3];
+    List<int[]> trace = new ArrayList<>();
+    int work = 0;
+    for (int d = 0; d <= limit; d++) {
+      int[] snapshot = new int[2 * d + 1];
+      System.arraycopy(v, offset - d, snapshot, 0, snapshot.length);
+      trace.add(snapshot);
+
+      for (int k = -d; k <= d; k += 2) {
+        int x;
+        if (k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1])) {
+          x = v[offset + k + 1];
+        } else {
+          x = v[offset + k - 1] + 1;
+        }
+
+        int y = x - k;
+        work++;
+        while (x < n && y < m && equal(oldStart + x, newStart + y)) {
+          x++;
+          y++;
+          work++;
+        }
+
+        if (work > maxWork) {
+          return false;
+        }
+
+        v[offset + k] = x;
+        if (x >= n && y >= m) {
+          addEditScript(trace, d, oldStart, newStart, n, m);
+          return true;
+        }
+      }
+    }
+
+    return false;
+  }
+
+  private void addEditScript(List<int[]> trace, int edits, int oldStart, int newStart, int n, int m) {
+    // walk back from (n, m), recording for each position of the old list the position of the new list it matches
+    int[] oldToNew = new int[n];
+    Arrays.fill(oldToNew, -1);
+    int x = n;
+    int y = m;
+    for (int d = edits; d > 0; d--) {
+      int[] v = trace.get(d);
+      int k = x - y;
+      int previousK = k == -d || (k != d && v[d + k - 1] < v[d + k + 1]) ? k + 1 : k - 1;
+      int previousX = v[d + previousK];
+      int previousY = previousX - previousK;
+      int snakeX = previousK == k + 1 ? previousX : previousX + 1;
+      while (x > snakeX) {
+        x--;
+        y--;
+        oldToNew[x] = y;
+      }
+
+      x = previousX;
+      y = previousY;
+    }
+
+    while (x > 0) {
+      x--;
+      y--;
+      oldToNew[x] = y;
+    }
+
+    int oldIndex = 0;
+    int newIndex = 0;
+    while (oldIndex < n || newIndex < m) {
+      int hunkOld = oldIndex;
+      while (oldIndex < n && oldToNew[oldIndex] < 0) {
+        oldIndex++;
+      }
+
+      int hunkNew = newIndex;
+      newIndex = oldIndex < n ? oldToNew[oldIndex] : m;
+      addHunk(oldStart + hunkOld, oldStart + oldIndex, newStart + hunkNew, newStart + newIndex);
+      if (oldIndex < n) {
+        oldIndex++;
+        newIndex++;
+      }
+    }
+  }
+
+  /**
+   * Adds the changes replacing {@code oldTokens[oldStart, oldEnd)} with {@code newTokens[newStart, newEnd)}.
+   */
+  private void addHunk(int oldStart, int oldEnd, int newStart, int newEnd) {
+    int oldIndex = oldStart;
+    int newIndex = newStart;
+    while (oldIndex < oldEnd && newIndex < newEnd) {
+      changes.add(TokenChange.builder()
+        .setChangeType(TokenChangeType.CHANGED)
+        .setOldToken((CommonToken) oldTokens.get(oldIndex++))
+        .setNewToken((CommonToken) newTokens.get(newIndex++))
+        .build());
+    }
+
+    while (oldIndex < oldEnd) {
+      changes.add(TokenChange.builder()
+        .setChangeType(TokenChangeType.REMOVED)
+        .setOldToken((CommonToken) oldTokens.get(oldIndex++))
+        .build());
+    }
+
+    while (newIndex < newEnd) {
+      changes.add(TokenChange.builder()
+        .setChangeType(TokenChangeType.ADDED)
+        .setNewToken((CommonToken) newTokens.get(newIndex++))
+        .build());
+    }
+  }
+
+  private boolean equal(int oldIndex, int newIndex) {
+    return tokensEqual(oldTokens.get(oldIndex), newTokens.get(newIndex));
+  }
+}
@@ -0,0 +1,250 @@
+/*
+ * This file is a part of ANTLR.
+ *
+ * Copyright (c) 2012-2025 The ANTLR Project. All rights reserved.
+ * Copyright (c) 2025-2026 Valery Maximov <maximovvalery@gmail.com> and contributors
+ *
+ * Use of this file is governed by the BSD-3-Clause license that
+ * can be found in the LICENSE.txt file in the project root.
+ */
+package org.antlr.v4.runtime;
+
+import org.antlr.v4.runtime.misc.Interval;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A bounded pool of token texts, so tokens with the same text share one {@link String}, see
+ * {@link CommonTokenFactory#CommonTokenFactory(TokenTextPool)}.
+ *
+ * <p>
+ * The pool is a direct-mapped cache: each text has one slot chosen by its hash code, and a new text replaces the one
+ * in its slot. Keywords, operators and frequent identifiers stay in the pool, while the pool never grows past its
+ * capacity. For a {@link CodePointCharStream} the text is hashed and compared straight from the code points of the
+ * stream, so a text found in the pool costs no allocation.</p>
+ *
+ * <p>
+ * The pool is safe to share between lexers on different threads. Slots are read and written without
+ * synchronization, which may lose a text stored concurrently, but never returns a wrong one since {@link String} is
+ * immutable.</p>
+ */
+@NullMarked
+public final class TokenTextPool {
+  /**
+   * The default number of slots.
+   */
+  public static final int DEFAULT_CAPACITY = 1 << 14;
+
+  /**
+   * The default maximum length of a pooled text, in code points.
+   */
+  public static final int DEFAULT_MAX_LENGTH = 64;
+
+  private final @Nullable String[] texts;
+  private final int maxLength;
+
+  public TokenTextPool() {
+    this(DEFAULT_CAPACITY, DEFAULT_MAX_LENGTH);
+  }
+
+  /**
+   * Creates a pool of at least {@code capacity} slots which holds texts of up to {@code maxLength} code points.
+   * Longer texts, such as comments and string literals, are rarely repeated and are created without pooling.
+   */
+  public TokenTextPool(int capacity, int maxLength) {
+    if (capacity <= 0 || capacity > 1 << 30) {
+      throw new IllegalArgumentException("capacity must be between 1 and 2^30");
+    }
+
+    this.texts = new String[capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1];
+    this.maxLength = maxLength;
+  }
+
+  /**
+   * Returns the text of the code points from {@code start} to {@code stop} of {@code input}, like
+   * {@link CharStream#getText}.
+   */
+  public String getText(CharStream input, int start, int stop) {
+    if (input instanceof CodePointCharStream codePoints) {
+      return codePoints.getText(start, stop, this);
+    }
+
+    return intern(input.getText(Interval.of(start, stop)));
+  }
+
+  /**
+   * Returns the pooled text equal to {@code text}, or adds {@code text} to the pool and returns it.
+   */
+  public String intern(String text) {
+    if (text.length() > maxLength && text.codePointCount(0, text.length()) > maxLength) {
+      return text;
+    }
+
+    int slot = slot(text.hashCode());
+    String existing = texts[slot];
+    if (existing != null && existing.equals(text)) {
+      return existing;
+    }
+
+    texts[slot] = text;
+    return text;
+  }
+
+  /**
+   * Removes all texts from the pool.
+   */
+  public void clear() {
+    Arrays.fill(texts, null);
+  }
+
+  /**
+   * Returns the pooled text of {@code length} Latin-1 characters of {@code data} starting at {@code offset}.
+   */
+  String get(byte[] data, int offset, int length) {
+    if (length > maxLength) {
+      return new String(data, offset, length, StandardCharsets.ISO_8859_1);
+    }
+
+    int hash = 0;
+    for (int i = offset; i < offset + length; i++) {
+      hash = 31 * hash + (data[i] & 0xFF);
+    }
+
+    int slot = slot(hash);
+    String existing = texts[slot];
+    if (existing != null && existing.length() == length && existing.hashCode() == hash) {
+      int i = 0;
+      while (i < length && existing.charAt(i) == (data[offset + i] & 0xFF)) {
+        i++;
+      }
+
+      if (i == length) {
+        return existing;
+      }
+    }
+
+    String text = new String(data, offset, length, StandardCharsets.ISO_8859_1);
+    texts[slot] = text;
+    return text;
+  }
+
+  /**
+   * Returns the pooled text of {@code length} UTF-16 characters of {@code data} starting at {@code offset}.
+   */
+  String get(char[] data, int offset, int length) {
+    if (length > maxLength) {
+      return new String(data, offset, length);
+    }
+
+    int hash = 0;
+    for (int i = offset; i < offset + length; i++) {
+      hash = 31 * hash + data[i];
+    }
+
+    int slot = slot(hash);
+    String existing = texts[slot];
+    if (existing != null && existing.length() == length && existing.hashCode() == hash) {
+      int i = 0;
+      while (i < length && existing.charAt(i) == data[offset + i]) {
+        i++;
+      }
+
+      if (i == length) {
+        return existing;
+      }
+    }
+
+    String text = new String(data, offset, length);
+    texts[slot] = text;
+    return text;
+  }
+
+  /**
+   * Returns the pooled text of {@code length} characters of {@code data} starting at {@code offset}.
+   */
+  String get(CharSequence data, int offset, int length) {
+    if (length > maxLength) {
+      return data.subSequence(offset, offset + length).toString();
+    }
+
+    int hash = 0;
+    for (int i = offset; i < offset + length; i++) {
+      hash = 31 * hash + data.charAt(i);
+    }
+
+    int slot = slot(hash);
+    String existing = texts[slot];
+    if (existing != null && existing.length() == length && existing.hashCode() == hash) {
+      int i = 0;
+      while (i < length && existing.charAt(i) == data.charAt(offset + i)) {
+        i++;
+      }
+
+      if (i == length) {
+        return existing;
+      }
+    }
+
+    String text = data.subSequence(offset, offset + length).toString();
+    texts[slot] = text;
+    return text;
+  }
+
+  /**
+   * Returns the pooled text of {@code length} code points of {@code data} starting at {@code offset}.
+   */
+  String get(int[] data, int offset, int length) {
+    if (length > maxLength) {
+      return new String(data, offset, length);
+    }
+
+    int hash = 0;
+    int chars = 0;
+    for (int i = offset; i < offset + length; i++) {
+      int codePoint = data[i];
+      if (Character.isBmpCodePoint(codePoint)) {
+        hash = 31 * hash + codePoint;
+        chars++;
+      } else {
+        hash = 31 * (31 * hash + Character.highSurrogate(codePoint)) + Character.lowSurrogate(codePoint);
+        chars += 2;
+      }
+    }
+
+    int slot = slot(hash);
+    String existing = texts[slot];
+    if (existing != null && existing.length() == chars && existing.hashCode() == hash
+      && matches(existing, data, offset, length)) {
+      return existing;
+    }
+
+    String text = new String(data, offset, length);
+    texts[slot] = text;
+    return text;
+  }
+
+  private static boolean matches(String text, int[] data, int offset, int length) {
+    int j = 0;
+    for (int i = offset; i < offset + length; i++) {
+      int codePoint = data[i];
+      if (Character.isBmpCodePoint(codePoint)) {
+        if (text.charAt(j++) != codePoint) {
+          return false;
+        }
+      } else if (text.charAt(j++) != Character.highSurrogate(codePoint)
+        || text.charAt(j++) != Character.lowSurrogate(codePoint)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  private int slot(int hash) {
+    // mix the high bits in, the low bits of short texts mostly depend on their last character
+    return (hash ^ (hash >>> 16)) & (texts.length - 1);
+  }
+}
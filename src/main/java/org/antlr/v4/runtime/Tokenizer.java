@@ -12,17 +12,23 @@ package org.antlr.v4.runtime;
 import com.github._1c_syntax.utils.Lazy;
 import org.antlr.v4.runtime.atn.PredictionMode;
 import org.antlr.v4.runtime.misc.NotNull;
-import org.apache.commons.io.IOUtils;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.locks.ReentrantLock;
 
 import static org.antlr.v4.runtime.Token.EOF;
@@ -38,7 +44,30 @@ import static org.antlr.v4.runtime.Token.EOF;
  */
 public abstract class Tokenizer<CONTEXT extends ParserRuleContext, PARSER extends Parser> {
 
+  /**
+   * Стратегия выбора режима предсказания при построении AST
+   */
+  public enum PredictionStrategy {
+    /**
+     * Весь файл разбирается в режиме {@link PredictionMode#SLL}. Если разбор завершился исключением,
+     * поток перематывается и весь файл разбирается повторно в режиме {@link PredictionMode#LL}.
+     */
+    SLL_THEN_LL,
+
+    /**
+     * Один проход в режиме {@link PredictionMode#LL}. Каждое решение сначала предсказывается без учета контекста
+     * (SLL), и только решение, на котором возник SLL-конфликт, повторно анализируется с полным контекстом.
+     * Файлы с синтаксическими ошибками или трудными решениями не разбираются дважды, а ошибки сообщаются
+     * по результатам полного LL-анализа.
+     */
+    DECISION_LOCAL
+  }
+
+  /**
+   * Контент в виде потока байт UTF-8 либо текста, заполнено одно из полей
+   */
   private InputStream content;
+  private CharSequence text;
   private final Lexer lexer;
   private final Lazy<IncrementalTokenStream> tokenStream = new Lazy<>(this::computeTokenStream);
   private final Lazy<List<Token>> tokens = new Lazy<>(this::computeTokens);
@@ -54,13 +83,75 @@ public abstract class Tokenizer<CONTEXT extends ParserRuleContext, PARSER extend
   private final ReentrantLock rebuildLock = new ReentrantLock();
   private volatile CONTEXT oldAst;
   private volatile List<Token> oldTokens;
+  private volatile PredictionStrategy predictionStrategy = PredictionStrategy.SLL_THEN_LL;
+
+  /**
+   * Конвейер, запущенный для текущего контента методами {@link #getTokensAsync}/{@link #getAstAsync}
+   */
+  private volatile Pipeline pipeline;
+
+  /**
+   * Исполнитель, на котором нужно запустить конвейер при вычислении {@link #tokenStream}
+   */
+  private Executor pipelineExecutor;
+
+  /**
+   * Кэш результатов разбора, см. {@link #setParseResultCache}
+   */
+  private volatile ParseResultCache parseResultCache;
+
+  /**
+   * Ключ текущего контента в кэше, по которому сохраняется результат разбора
+   */
+  private ParseResultCache.Key contentKey;
+
+  /**
+   * Дерево из найденной в кэше записи, восстанавливаемое при вычислении {@link #ast}
+   */
+  private ByteBuffer cachedTree;
+
+  /**
+   * Идентификаторы грамматик парсеров для ключей кэша
+   */
+  private static final ClassValue<Optional<String>> PARSER_IDS = new ClassValue<>() {
+    @Override
+    protected Optional<String> computeValue(Class<?> type) {
+      var emptyStream = new IncrementalTokenStream(new ListTokenSource(List.of()));
+      var streamType = IncrementalParser.class.isAssignableFrom(type) ? IncrementalTokenStream.class : TokenStream.class;
+      try {
+        return Optional.ofNullable(
+          recognizerId((Recognizer<?, ?>) type.getDeclaredConstructor(streamType).newInstance(emptyStream)));
+      } catch (InstantiationException | IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
+        throw new RuntimeException(e);
+      }
+    }
+  };
 
   protected Tokenizer(@NotNull String content, @NotNull Lexer lexer, @NotNull Class<PARSER> parserClass) {
-    this(IOUtils.toInputStream(content, StandardCharsets.UTF_8), lexer, parserClass);
+    this((CharSequence) content, lexer, parserClass);
+  }
+
+  /**
+   * Создает токенайзер для текста, уже находящегося в памяти.
+   * <p>
+   * Текст без суррогатных пар лексер читает напрямую, без перекодирования в UTF-8 и копирования в буфер кодовых
+   * точек (см. {@link CharStreams#fromCharSequence}), поэтому текст не должен изменяться до окончания разбора.
+   *
+   * @param content     Текст
+   * @param lexer       Лексер
+   * @param parserClass Класс парсера
+   */
+  protected Tokenizer(@NotNull CharSequence content, @NotNull Lexer lexer, @NotNull Class<PARSER> parserClass) {
+    this(lexer, parserClass);
+    this.text = content;
   }
 
   protected Tokenizer(@NotNull InputStream content, @NotNull Lexer lexer, @NotNull Class<PARSER> parserClass) {
+    this(lexer, parserClass);
     this.content = content;
+  }
+
+  private Tokenizer(Lexer lexer, Class<PARSER> parserClass) {
     this.lexer = lexer;
     this.parserClass = parserClass;
     this.supportRebuild = IncrementalParser.class.isAssignableFrom(parserClass);
@@ -84,6 +175,86 @@ public abstract class Tokenizer<CONTEXT extends ParserRuleContext, PARSER extend
     return ast.getOrCompute();
   }
 
+  /**
+   * Асинхронно возвращает список токенов, см. {@link #getAstAsync}.
+   *
+   * @param executor Исполнитель для лексера и парсера
+   * @return Список токенов, доступный по окончании лексического анализа
+   */
+  public CompletableFuture<List<Token>> getTokensAsync(@NotNull Executor executor) {
+    var thatPipeline = startPipeline(executor);
+    if (thatPipeline == null) {
+      return CompletableFuture.supplyAsync(this::getTokens, executor);
+    }
+    return thatPipeline.tokens;
+  }
+
+  /**
+   * Асинхронно возвращает AST.
+   * <p>
+   * Если токены и AST еще не вычислены, запускает конвейер: лексер работает в одной задаче {@code executor} и
+   * передает токены пачками через ограниченную очередь {@link ConcurrentTokenSource} парсеру, работающему в другой
+   * задаче. Парсер ожидает токены только когда обгоняет лексер, поэтому на многоядерной машине AST большого файла
+   * готов раньше, чем при последовательном разборе. Исполнитель должен выполнять обе задачи одновременно, например
+   * {@link java.util.concurrent.Executors#newVirtualThreadPerTaskExecutor()}.
+   * <p>
+   * Повторный разбор после {@link #rebuild} сравнивает токены со старыми до начала разбора, поэтому выполняется
+   * без конвейера.
+   *
+   * @param executor Исполнитель для лексера и парсера
+   * @return AST, доступное по окончании разбора
+   */
+  public CompletableFuture<CONTEXT> getAstAsync(@NotNull Executor executor) {
+    var thatPipeline = startPipeline(executor);
+    if (thatPipeline == null) {
+      return CompletableFuture.supplyAsync(this::getAst, executor);
+    }
+    return thatPipeline.ast;
+  }
+
+  /**
+   * Возвращает стратегию выбора режима предсказания
+   *
+   * @return Стратегия предсказания
+   */
+  public PredictionStrategy getPredictionStrategy() {
+    return predictionStrategy;
+  }
+
+  /**
+   * Устанавливает стратегию выбора режима предсказания. Применяется при следующем построении AST.
+   *
+   * @param predictionStrategy Стратегия предсказания
+   */
+  public void setPredictionStrategy(@NotNull PredictionStrategy predictionStrategy) {
+    this.predictionStrategy = Objects.requireNonNull(predictionStrategy);
+  }
+
+  /**
+   * Возвращает кэш результатов разбора
+   *
+   * @return Кэш либо {@code null}, если не используется
+   */
+  public ParseResultCache getParseResultCache() {
+    return parseResultCache;
+  }
+
+  /**
+   * Устанавливает кэш результатов разбора. Применяется при следующем вычислении токенов.
+   * <p>
+   * Перед лексическим анализом вычисляется ключ контента {@link #cacheKey(CharStream)}. Если в кэше есть запись с
+   * этим ключом, токены и AST восстанавливаются из нее без лексера и парсера, иначе результат разбора без
+   * синтаксических ошибок сохраняется в кэш. Из кэша восстанавливаются классы контекстов и их дети, но не метки, параметры и локальные
+   * переменные правил.
+   * <p>
+   * Повторный разбор после {@link #rebuild} переиспользует старое дерево и кэш не использует.
+   *
+   * @param parseResultCache Кэш либо {@code null}, чтобы не использовать кэш
+   */
+  public void setParseResultCache(ParseResultCache parseResultCache) {
+    this.parseResultCache = parseResultCache;
+  }
+
   /**
    * Выполняет обновление дерева на основании нового контента.
    * <p>
@@ -92,10 +263,18 @@ public abstract class Tokenizer<CONTEXT extends ParserRuleContext, PARSER extend
    * @param newContent Новый контент
    */
   public void rebuild(String newContent) {
-    if (!supportRebuild) {
-      return;
-    }
-    rebuild(IOUtils.toInputStream(newContent, StandardCharsets.UTF_8));
+    rebuild((CharSequence) newContent);
+  }
+
+  /**
+   * Выполняет обновление дерева на основании нового текста, см. {@link #Tokenizer(CharSequence, Lexer, Class)}.
+   * <p>
+   * Актуально только для парсеров, поддерживающих инкрементальный анализ {@link IncrementalParserData}
+   *
+   * @param newContent Новый контент
+   */
+  public void rebuild(@NotNull CharSequence newContent) {
+    replaceContent(null, newContent);
   }
 
   /**
@@ -106,6 +285,10 @@ public abstract class Tokenizer<CONTEXT extends ParserRuleContext, PARSER extend
    * @param newContent Новый контент
    */
   public void rebuild(@NotNull InputStream newContent) {
+    replaceContent(newContent, null);
+  }
+
+  private void replaceContent(InputStream newContent, CharSequence newText) {
     if (!supportRebuild) {
       return;
     }
@@ -115,9 +298,12 @@ public abstract class Tokenizer<CONTEXT extends ParserRuleContext, PARSER extend
     try {
       oldAst = getAst(); // запоминаем дерево, которое было ДО
       oldTokens = getTokens(); // запоминаем токены, которые были ДО
+      pipeline = null;
+      contentKey = null;
       tokenStream.clear();
       tokens.clear();
       content = newContent;
+      text = newText;
       ast.clear();
     } finally {
       rebuildLock.unlock();
@@ -125,7 +311,9 @@ public abstract class Tokenizer<CONTEXT extends ParserRuleContext, PARSER extend
   }
 
   private List<Token> computeTokens() {
-    var tokensTemp = new ArrayList<>(getTokenStream().getTokens());
+    var thatPipeline = pipeline;
+    // поток токенов конвейера читает парсер, поэтому токены берутся у лексера
+    var tokensTemp = new ArrayList<>(thatPipeline != null ? thatPipeline.lexing.join() : getTokenStream().getTokens());
     if (tokensTemp.isEmpty()) {
       return tokensTemp;
     }
@@ -139,6 +327,24 @@ public abstract class Tokenizer<CONTEXT extends ParserRuleContext, PARSER extend
   }
 
   private CONTEXT computeAST() {
+    // дерево из кэша становится известно только при вычислении потока токенов
+    getTokenStream();
+    var thatCachedTree = cachedTree;
+    if (thatCachedTree != null) {
+      cachedTree = null;
+      var cachedAst = readCachedAST(thatCachedTree);
+      if (cachedAst != null) {
+        contentKey = null;
+        return cachedAst;
+      }
+    }
+
+    var result = parseAST();
+    writeCache(result);
+    return result;
+  }
+
+  private CONTEXT parseAST() {
     var thatTokenStream = getTokenStream();
     if (parser == null || !supportRebuild) {
       parser = createParser(thatTokenStream);
@@ -154,6 +360,12 @@ public abstract class Tokenizer<CONTEXT extends ParserRuleContext, PARSER extend
     }
 
     parser.removeErrorListener(ConsoleErrorListener.INSTANCE);
+    if (predictionStrategy == PredictionStrategy.DECISION_LOCAL) {
+      // SLL -> LL эскалация выполняется симулятором отдельно для каждого решения
+      parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+      return rootAST();
+    }
+
     try {
       parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
       return rootAST();
@@ -164,86 +376,114 @@ public abstract class Tokenizer<CONTEXT extends ParserRuleContext, PARSER extend
     return rootAST();
   }
 
-  private static List<TokenChange> computeTokenChanges(List<Token> oldTokens, List<Token> newTokens) {
-    List<TokenChange> changes = new ArrayList<>();
-
-    int oldIndex = 0;
-    int newIndex = 0;
-
-    // Пропускаем одинаковые токены с начала
-    while (oldIndex < oldTokens.size() && newIndex < newTokens.size()) {
-      var oldToken = oldTokens.get(oldIndex);
-      var newToken = newTokens.get(newIndex);
-
-      if (tokensEqual(oldToken, newToken)) {
-        oldIndex++;
-        newIndex++;
-      } else {
-        break;
-      }
+  /**
+   * Вычисляет ключ контента в кэше результатов разбора, см. {@link #setParseResultCache}.
+   * <p>
+   * По умолчанию это хеш кодовых точек контента и идентификатора грамматики, составленного из имен классов лексера и
+   * парсера и SHA-256 их сериализованных ATN. У интерпретаторов сериализованного ATN нет, и грамматику нельзя опознать
+   * в другом процессе, поэтому для них ключ не вычисляется и кэш не используется. Наследник может вычислять ключ
+   * иначе, например по хешу файла, который приложение уже хранит, и должен учитывать в нем грамматику.
+   *
+   * @param input Контент
+   * @return Ключ либо {@code null}, чтобы не использовать кэш
+   */
+  protected ParseResultCache.Key cacheKey(@NotNull CharStream input) {
+    var lexerId = recognizerId(lexer);
+    var parserId = PARSER_IDS.get(parserClass).orElse(null);
+    if (lexerId == null || parserId == null) {
+      return null;
     }
+    return ParseResultCache.Key.of(lexerId + '/' + parserId, input);
+  }
 
-    // Пропускаем одинаковые токены с конца
-    int oldEnd = oldTokens.size() - 1;
-    int newEnd = newTokens.size() - 1;
+  private static String recognizerId(Recognizer<?, ?> recognizer) {
+    String serializedATN;
+    try {
+      serializedATN = recognizer.getSerializedATN();
+    } catch (UnsupportedOperationException e) {
+      // интерпретатор, ATN которого известен только в текущем процессе
+      return null;
+    }
 
-    while (oldIndex <= oldEnd && newIndex <= newEnd) {
-      var oldToken = oldTokens.get(oldEnd);
-      var newToken = newTokens.get(newEnd);
+    MessageDigest sha256;
+    try {
+      sha256 = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    var atnHash = sha256.digest(serializedATN.getBytes(StandardCharsets.UTF_8));
+    return recognizer.getClass().getName() + '#' + HexFormat.of().formatHex(atnHash);
+  }
 
-      if (tokensEqual(oldToken, newToken)) {
-        oldEnd--;
-        newEnd--;
-      } else {
-        break;
-      }
+  private IncrementalTokenStream readCache(ParseResultCache cache, CharStream input) {
+    var key = cacheKey(input);
+    contentKey = key;
+    if (key == null) {
+      return null;
     }
 
-    // Все токены между oldIndex и oldEnd были изменены/удалены
-    // Все токены между newIndex и newEnd были изменены/добавлены
+    var data = cache.get(key);
+    if (data == null) {
+      return null;
+    }
 
-    // Для упрощения: считаем, что все токены в измененной области были изменены
-    while (oldIndex <= oldEnd && newIndex <= newEnd) {
-      var oldToken = oldTokens.get(oldIndex);
-      var newToken = newTokens.get(newIndex);
+    try {
+      var buffer = ByteBuffer.wrap(data);
+      var cachedTokens = ParseResultCodec.decodeTokens(buffer, lexer, input);
+      if (cachedTokens == null) {
+        return null;
+      }
 
-      changes.add(TokenChange.builder()
-        .setChangeType(TokenChangeType.CHANGED)
-        .setOldToken((CommonToken) oldToken)
-        .setNewToken((CommonToken) newToken)
-        .build());
+      lexer.setInputStream(input);
+      var tempTokenStream = new IncrementalTokenStream(new ListTokenSource(cachedTokens));
+      tempTokenStream.fill();
+      cachedTree = buffer;
+      return tempTokenStream;
+    } catch (RuntimeException e) {
+      // запись другого формата, разбираем заново и перезаписываем
+      return null;
+    }
+  }
 
-      oldIndex++;
-      newIndex++;
+  @SuppressWarnings("unchecked")
+  private CONTEXT readCachedAST(ByteBuffer data) {
+    var thatTokenStream = getTokenStream();
+    parser = createParser(thatTokenStream);
+    parser.removeErrorListener(ConsoleErrorListener.INSTANCE);
+    try {
+      return (CONTEXT) ParseResultCodec.decodeTree(data, thatTokenStream.getTokens(), parser);
+    } catch (RuntimeException e) {
+      // классы контекстов изменились без изменения грамматики, разбираем заново
+      parser = null;
+      return null;
     }
+  }
 
-    // Оставшиеся старые токены были удалены
-    while (oldIndex <= oldEnd) {
-      var oldToken = oldTokens.get(oldIndex);
-      changes.add(TokenChange.builder()
-        .setChangeType(TokenChangeType.REMOVED)
-        .setOldToken((CommonToken) oldToken)
-        .build());
-      oldIndex++;
+  private void writeCache(CONTEXT result) {
+    var cache = parseResultCache;
+    var key = contentKey;
+    contentKey = null;
+    if (cache == null || key == null || parser.getNumberOfSyntaxErrors() > 0) {
+      return;
     }
 
-    // Оставшиеся новые токены были добавлены
-    while (newIndex <= newEnd) {
-      var newToken = newTokens.get(newIndex);
-      changes.add(TokenChange.builder()
-        .setChangeType(TokenChangeType.ADDED)
-        .setNewToken((CommonToken) newToken)
-        .build());
-      newIndex++;
+    var thatTokenStream = tokenStream.getOrCompute();
+    thatTokenStream.fill();
+    var data = ParseResultCodec.encode(thatTokenStream.getTokens(), result);
+    if (data == null) {
+      return;
     }
 
-    return changes;
+    try {
+      cache.put(key, data);
+    } catch (IOException e) {
+      // без кэша разбор остается корректным, сбой учтен в ParseResultCache#getWriteFailureCount
+    }
   }
 
-  private static boolean tokensEqual(Token oldToken, Token newToken) {
-    return oldToken.getType() == newToken.getType()
-      && oldToken.getChannel() == newToken.getChannel()
-      && Objects.equals(oldToken.getText(), newToken.getText());
+  private static List<TokenChange> computeTokenChanges(List<Token> oldTokens, List<Token> newTokens) {
+    // минимальный набор изменений, чтобы переиспользовать как можно больше поддеревьев
+    return TokenDiff.compute(oldTokens, newTokens);
   }
 
   /**
@@ -256,7 +496,57 @@ public abstract class Tokenizer<CONTEXT extends ParserRuleContext, PARSER extend
    */
   protected abstract CONTEXT rootAST();
 
+  private Pipeline startPipeline(Executor executor) {
+    rebuildLock.lock();
+    try {
+      // конвейер запускается, только если поток токенов еще не вычислен
+      pipelineExecutor = executor;
+      tokenStream.getOrCompute();
+      return pipeline;
+    } finally {
+      pipelineExecutor = null;
+      rebuildLock.unlock();
+    }
+  }
+
   private IncrementalTokenStream computeTokenStream() {
+    lexer.removeErrorListener(ConsoleErrorListener.INSTANCE);
+
+    CharStream input = null;
+    var cache = parseResultCache;
+    if (cache != null && oldAst == null) {
+      input = readContent();
+      var cachedTokenStream = readCache(cache, input);
+      if (cachedTokenStream != null) {
+        return cachedTokenStream;
+      }
+    }
+
+    var executor = pipelineExecutor;
+    if (executor != null && oldAst == null) {
+      var source = new ConcurrentTokenSource(lexer);
+      var tempTokenStream = new IncrementalTokenStream(source);
+      var thatPipeline = new Pipeline(source, tempTokenStream, executor, input);
+      pipeline = thatPipeline;
+      thatPipeline.start.complete(null);
+      return tempTokenStream;
+    }
+
+    lexer.setInputStream(input != null ? input : readContent());
+    var tempTokenStream = new IncrementalTokenStream(lexer);
+    tempTokenStream.fill();
+    return tempTokenStream;
+  }
+
+  private CharStream readContent() {
+    var thatText = text;
+    if (thatText != null) {
+      // BOM, как и при чтении из потока, не является частью текста
+      if (!thatText.isEmpty() && thatText.charAt(0) == '\uFEFF') {
+        thatText = thatText.subSequence(1, thatText.length());
+      }
+      return CharStreams.fromCharSequence(thatText);
+    }
 
     CharStream input;
 
@@ -270,12 +560,7 @@ public abstract class Tokenizer<CONTEXT extends ParserRuleContext, PARSER extend
       throw new RuntimeException(e);
     }
 
-    lexer.setInputStream(input);
-    lexer.removeErrorListener(ConsoleErrorListener.INSTANCE);
-
-    var tempTokenStream = new IncrementalTokenStream(lexer);
-    tempTokenStream.fill();
-    return tempTokenStream;
+    return input;
   }
 
   protected IncrementalTokenStream getTokenStream() {
@@ -306,4 +591,44 @@ public abstract class Tokenizer<CONTEXT extends ParserRuleContext, PARSER extend
       throw new RuntimeException(e);
     }
   }
+
+  /**
+   * Лексер и парсер, работающие одновременно над текущим контентом
+   */
+  private final class Pipeline {
+    /**
+     * Запускает задачи после публикации конвейера в {@link Tokenizer#pipeline}
+     */
+    private final CompletableFuture<Void> start = new CompletableFuture<>();
+    private final CompletableFuture<List<Token>> lexing;
+    private final CompletableFuture<List<Token>> tokens;
+    private final CompletableFuture<CONTEXT> ast;
+
+    /**
+     * @param input Контент, если уже прочитан, иначе читается в задаче лексера
+     */
+    private Pipeline(ConcurrentTokenSource source, IncrementalTokenStream stream, Executor executor, CharStream input) {
+      lexing = start.thenApplyAsync(started -> {
+        try {
+          lexer.setInputStream(input != null ? input : readContent());
+        } catch (RuntimeException | Error e) {
+          source.fail(e);
+          throw e;
+        }
+        return source.run();
+      }, executor);
+      tokens = lexing.thenApply(lexed -> getTokens());
+      ast = start.thenApplyAsync(started -> {
+        try {
+          var result = getAst();
+          // дочитываем токены после конца разбора, чтобы лексер не остался ждать в очереди
+          stream.fill();
+          return result;
+        } catch (RuntimeException | Error e) {
+          source.close();
+          throw e;
+        }
+      }, executor);
+    }
+  }
 }
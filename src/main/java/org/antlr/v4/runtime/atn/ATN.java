@@ -21,11 +21,13 @@ import org.antlr.v4.runtime.misc.Nullable;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  *
@@ -88,8 +90,7 @@ public class ATN {
   @NotNull
   public final List<TokensStartState> modeToStartState = new ArrayList<>();
 
-  private final ConcurrentMap<PredictionContext, PredictionContext> contextCache =
-    new ConcurrentHashMap<>();
+  private final PredictionContextInterner contextCache = new PredictionContextInterner();
 
   @NotNull
   public DFA[] decisionToDFA = new DFA[0];
@@ -98,6 +99,41 @@ public class ATN {
 
   protected final ConcurrentMap<Integer, Integer> LL1Table = new ConcurrentHashMap<>();
 
+  /**
+   * LL(1) predictions computed by the tool, as {@code decision, alt, a, b}
+   * quadruples: {@code alt} is predicted for tokens {@code a..b}. They seed
+   * {@link #LL1Table} again after {@link #clearDFA()}.
+   */
+  private int[] precomputedLL1Predictions = new int[0];
+
+  /**
+   * Decisions with at least one prediction in {@link #precomputedLL1Predictions}.
+   */
+  private BitSet precomputedLL1Decisions = new BitSet();
+
+  /**
+   * The maximum number of cached error recovery sets, see {@link #getErrorRecoverySet}.
+   */
+  private static final int MAX_RECOVERY_SET_NODES = 1 << 16;
+
+  /**
+   * Root of the trie of error recovery sets. The node reached by following the invoking states of a context from the
+   * outermost rule inwards holds the recovery set of that context.
+   */
+  private final RecoverySetNode recoverySetRoot = new RecoverySetNode(IntervalSet.EMPTY_SET);
+  private final AtomicInteger recoverySetNodes = new AtomicInteger();
+
+  /**
+   * The backing field for {@link #isAutoFreezeDFA()}.
+   */
+  private volatile boolean autoFreezeDFA;
+
+  /**
+   * The backing field for {@link #getPredictionMetrics()}.
+   */
+  @Nullable
+  private volatile PredictionMetrics predictionMetrics;
+
   /**
    * Used for runtime deserialization of ATNs from strings
    */
@@ -119,12 +155,111 @@ public class ATN {
 
     contextCache.clear();
     LL1Table.clear();
+    seedLL1Table();
+  }
+
+  /**
+   * Freeze the current decision and mode DFAs, see {@link DFA#freeze()}.
+   */
+  public final void freezeDFA() {
+    for (DFA dfa : decisionToDFA) {
+      dfa.freeze();
+    }
+
+    for (DFA dfa : modeToDFA) {
+      dfa.freeze();
+    }
+  }
+
+  /**
+   * Gets whether the DFAs of this ATN freeze themselves once they stop growing.
+   *
+   * @see DFA#setAutoFreeze(boolean)
+   */
+  public final boolean isAutoFreezeDFA() {
+    return autoFreezeDFA;
+  }
+
+  /**
+   * Sets whether the DFAs of this ATN, including those created later by {@link #clearDFA()}, freeze themselves
+   * once they stop growing.
+   *
+   * @see DFA#setAutoFreeze(boolean)
+   */
+  public final void setAutoFreezeDFA(boolean autoFreezeDFA) {
+    this.autoFreezeDFA = autoFreezeDFA;
+    for (DFA dfa : decisionToDFA) {
+      dfa.setAutoFreeze(autoFreezeDFA);
+    }
+
+    for (DFA dfa : modeToDFA) {
+      dfa.setAutoFreeze(autoFreezeDFA);
+    }
+  }
+
+  /**
+   * Gets the metrics which every parser using this ATN updates, or {@code null} if metrics are disabled.
+   */
+  @Nullable
+  public final PredictionMetrics getPredictionMetrics() {
+    return predictionMetrics;
+  }
+
+  /**
+   * Sets the metrics which every parser using this ATN updates, see {@link PredictionMetrics}. Pass {@code null} to
+   * disable them.
+   */
+  public final void setPredictionMetrics(@Nullable PredictionMetrics predictionMetrics) {
+    if (predictionMetrics != null && grammarType != ATNType.PARSER) {
+      throw new IllegalStateException("Prediction metrics require a parser ATN.");
+    }
+
+    this.predictionMetrics = predictionMetrics;
+  }
+
+  /**
+   * Sets the LL(1) predictions of a pre-optimized serialized ATN, see {@link #precomputedLL1Predictions}.
+   */
+  final void setPrecomputedLL1Predictions(int[] predictions) {
+    precomputedLL1Predictions = predictions;
+    BitSet decisions = new BitSet();
+    for (int i = 0; i < predictions.length; i += 4) {
+      decisions.set(predictions[i]);
+    }
+    precomputedLL1Decisions = decisions;
+    seedLL1Table();
+  }
+
+  /**
+   * Returns {@code true} if the tool computed LL(1) predictions for {@code decision}, so {@link #LL1Table} may have
+   * entries for it before its DFA has any state.
+   */
+  public boolean hasPrecomputedLL1Predictions(int decision) {
+    return precomputedLL1Decisions.get(decision);
+  }
+
+  private void seedLL1Table() {
+    int[] predictions = precomputedLL1Predictions;
+    for (int i = 0; i < predictions.length; i += 4) {
+      int decision = predictions[i];
+      int alt = predictions[i + 1];
+      for (int t = predictions[i + 2]; t <= predictions[i + 3]; t++) {
+        LL1Table.put((decision << 16) + t, alt);
+      }
+    }
   }
 
   public int getContextCacheSize() {
     return contextCache.size();
   }
 
+  /**
+   * Returns the table of canonical contexts shared by all recognizers of this ATN, with its size and hit rate.
+   */
+  public PredictionContextInterner getContextCache() {
+    return contextCache;
+  }
+
   public PredictionContext getCachedContext(PredictionContext context) {
     return PredictionContext.getCachedContext(context, contextCache, new PredictionContext.IdentityHashMap());
   }
@@ -268,6 +403,85 @@ public class ATN {
     return expected;
   }
 
+  /**
+   * Computes the set of tokens that can follow any rule invocation in the call chain of {@code context}, which error
+   * recovery resynchronizes to. {@link Token#EPSILON} is never in the set.
+   *
+   * <p>The set only depends on the invoking states of the chain, so it is cached by that chain and shared by all
+   * parsers using this ATN. The returned set is read-only.</p>
+   *
+   * @param context the full parse context
+   * @return The union of the follow sets of all rule invocations in {@code context}.
+   */
+  @NotNull
+  public IntervalSet getErrorRecoverySet(@Nullable RuleContext context) {
+    int depth = 0;
+    for (RuleContext ctx = context; ctx != null && ctx.invokingState >= 0; ctx = ctx.parent) {
+      depth++;
+    }
+
+    int[] invokingStates = new int[depth];
+    RuleContext ctx = context;
+    for (int i = depth - 1; i >= 0; i--) {
+      invokingStates[i] = ctx.invokingState;
+      ctx = ctx.parent;
+    }
+
+    RecoverySetNode node = recoverySetRoot;
+    for (int i = 0; i < depth; i++) {
+      RecoverySetNode child = node.children.get(invokingStates[i]);
+      if (child == null) {
+        if (recoverySetNodes.get() >= MAX_RECOVERY_SET_NODES) {
+          // cache is full; compute the rest of the chain without storing it
+          IntervalSet recoverSet = new IntervalSet(node.set);
+          for (int j = i; j < depth; j++) {
+            recoverSet.addAll(getFollowOfInvocation(invokingStates[j]));
+          }
+          recoverSet.remove(Token.EPSILON);
+          return recoverSet;
+        }
+
+        IntervalSet parentSet = node.set;
+        child = node.children.computeIfAbsent(invokingStates[i], invokingState -> {
+          recoverySetNodes.incrementAndGet();
+          return new RecoverySetNode(union(parentSet, getFollowOfInvocation(invokingState)));
+        });
+      }
+      node = child;
+    }
+
+    return node.set;
+  }
+
+  private IntervalSet getFollowOfInvocation(int invokingState) {
+    RuleTransition rt = (RuleTransition) states.get(invokingState).transition(0);
+    return nextTokens(rt.followState);
+  }
+
+  /**
+   * Returns {@code set} with {@code follow} added, reusing {@code set} if nothing is added.
+   */
+  private static IntervalSet union(IntervalSet set, IntervalSet follow) {
+    IntervalSet result = new IntervalSet(set);
+    result.addAll(follow);
+    result.remove(Token.EPSILON);
+    if (result.equals(set)) {
+      return set;
+    }
+
+    result.setReadonly(true);
+    return result;
+  }
+
+  private static final class RecoverySetNode {
+    final IntervalSet set;
+    final ConcurrentMap<Integer, RecoverySetNode> children = new ConcurrentHashMap<>();
+
+    RecoverySetNode(IntervalSet set) {
+      this.set = set;
+    }
+  }
+
   public boolean hasUnicodeSMPTransitions() {
     return hasUnicodeSMPTransitions;
   }
@@ -22,6 +22,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Set;
 
 /**
@@ -90,12 +91,19 @@ public class ATNConfigSet implements Set<ATNConfig> {
 
   private int cachedHashCode = -1;
 
+  /**
+   * {@code true} for a set created by {@link #compact()}, which no longer
+   * holds its configurations.
+   */
+  private final boolean compacted;
+
   public ATNConfigSet() {
     this.mergedConfigs = new HashMap<>();
     this.unmerged = new ArrayList<>();
     this.configs = new ArrayList<>();
 
     this.uniqueAlt = ATN.INVALID_ALT_NUMBER;
+    this.compacted = false;
   }
 
   @SuppressWarnings("unchecked")
@@ -123,6 +131,20 @@ public class ATNConfigSet implements Set<ATNConfig> {
     }
 
     // if (!readonly && set.isReadOnly()) -> addAll is called from clone()
+    this.compacted = false;
+  }
+
+  private ATNConfigSet(ATNConfigSet set) {
+    this.mergedConfigs = null;
+    this.unmerged = null;
+    this.configs = new ArrayList<>(0);
+
+    this.dipsIntoOuterContext = set.dipsIntoOuterContext;
+    this.hasSemanticContext = set.hasSemanticContext;
+    this.outermostConfigSet = set.outermostConfigSet;
+    this.uniqueAlt = set.uniqueAlt;
+    this.conflictInfo = set.conflictInfo;
+    this.compacted = true;
   }
 
   /**
@@ -175,7 +197,36 @@ public class ATNConfigSet implements Set<ATNConfig> {
     }
   }
 
+  /**
+   * Returns a read-only copy of this set which keeps the summary used by
+   * prediction ({@link #getUniqueAlt}, {@link #getConflictInfo},
+   * {@link #hasSemanticContext}, {@link #getDipsIntoOuterContext} and
+   * {@link #isOutermostConfigSet}), but none of the configurations.
+   *
+   * <p>Two compacted sets are equal if their summaries are. Prediction stops
+   * at a DFA state holding a compacted set and only reads the summary, so the
+   * DFA keeps a single state for all compacted sets with the same summary. A
+   * compacted set is never equal to a set which holds its configurations.</p>
+   *
+   * @see ParserATNSimulator#compact_accept_state_configs
+   */
+  public ATNConfigSet compact() {
+    return compacted ? this : new ATNConfigSet(this);
+  }
+
+  public final boolean isCompacted() {
+    return compacted;
+  }
+
   public ATNConfigSet clone(boolean readonly) {
+    if (compacted) {
+      if (!readonly) {
+        throw new IllegalStateException("The configurations of a compacted set were discarded.");
+      }
+
+      return this;
+    }
+
     ATNConfigSet copy = new ATNConfigSet(this, readonly);
     if (!readonly && this.isReadOnly()) {
       copy.addAll(this.configs);
@@ -399,10 +450,18 @@ public class ATNConfigSet implements Set<ATNConfig> {
       return true;
     }
 
-    if (!(obj instanceof ATNConfigSet other)) {
+    if (!(obj instanceof ATNConfigSet other) || compacted != other.compacted) {
       return false;
     }
 
+    if (compacted) {
+      return this.uniqueAlt == other.uniqueAlt
+        && this.outermostConfigSet == other.outermostConfigSet
+        && this.dipsIntoOuterContext == other.dipsIntoOuterContext
+        && this.hasSemanticContext == other.hasSemanticContext
+        && Utils.equals(conflictInfo, other.conflictInfo);
+    }
+
     return this.outermostConfigSet == other.outermostConfigSet
       && Utils.equals(conflictInfo, other.conflictInfo)
       && configs.equals(other.configs);
@@ -416,7 +475,14 @@ public class ATNConfigSet implements Set<ATNConfig> {
 
     int hashCode = 1;
     hashCode = 5 * hashCode ^ (outermostConfigSet ? 1 : 0);
-    hashCode = 5 * hashCode ^ configs.hashCode();
+    if (compacted) {
+      hashCode = 5 * hashCode ^ uniqueAlt;
+      hashCode = 5 * hashCode ^ (dipsIntoOuterContext ? 1 : 0);
+      hashCode = 5 * hashCode ^ (hasSemanticContext ? 1 : 0);
+      hashCode = 5 * hashCode ^ Objects.hashCode(conflictInfo);
+    } else {
+      hashCode = 5 * hashCode ^ configs.hashCode();
+    }
 
     if (isReadOnly()) {
       cachedHashCode = hashCode;
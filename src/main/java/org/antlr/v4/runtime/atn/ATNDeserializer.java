@@ -11,7 +11,6 @@ package org.antlr.v4.runtime.atn;
 
 import org.antlr.v4.runtime.Token;
 import org.antlr.v4.runtime.dfa.DFA;
-import org.antlr.v4.runtime.misc.Interval;
 import org.antlr.v4.runtime.misc.IntervalSet;
 import org.antlr.v4.runtime.misc.NotNull;
 import org.antlr.v4.runtime.misc.Nullable;
@@ -20,6 +19,8 @@ import org.antlr.v4.runtime.misc.Tuple;
 import org.antlr.v4.runtime.misc.Tuple3;
 
 import java.io.InvalidClassException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.BitSet;
@@ -61,6 +62,13 @@ public class ATNDeserializer {
    * 32-bit integers to support the full Unicode SMP range up to U+10FFFF.
    */
   private static final UUID ADDED_UNICODE_SMP;
+  /**
+   * This UUID indicates the serialized ATN was already optimized by the tool.
+   * After the lexer actions it contains the optimized transitions of each
+   * state and the LL(1) predictions known at tool time, see
+   * {@link ATNSerializer#serializeOptimized}.
+   */
+  static final UUID ADDED_OPTIMIZED_ATN;
   /**
    * This list contains all of the currently supported UUIDs, ordered by when
    * the feature first appeared in this branch.
@@ -79,11 +87,13 @@ public class ATNDeserializer {
     BASE_SERIALIZED_UUID = UUID.fromString("E4178468-DF95-44D0-AD87-F22A5D5FB6D3");
     ADDED_LEXER_ACTIONS = UUID.fromString("AB35191A-1603-487E-B75A-479B831EAF6D");
     ADDED_UNICODE_SMP = UUID.fromString("C23FEA89-0605-4f51-AFB8-058BCAB8C91B");
+    ADDED_OPTIMIZED_ATN = UUID.fromString("09EF0280-EA7B-4188-9D40-B49271A10A22");
 
     SUPPORTED_UUIDS = new ArrayList<>();
     SUPPORTED_UUIDS.add(BASE_SERIALIZED_UUID);
     SUPPORTED_UUIDS.add(ADDED_LEXER_ACTIONS);
     SUPPORTED_UUIDS.add(ADDED_UNICODE_SMP);
+    SUPPORTED_UUIDS.add(ADDED_OPTIMIZED_ATN);
 
     SERIALIZED_UUID = ADDED_UNICODE_SMP;
   }
@@ -167,7 +177,6 @@ public class ATNDeserializer {
     return SUPPORTED_UUIDS.indexOf(actualUuid) >= featureIndex;
   }
 
-  @SuppressWarnings("deprecation")
   public ATN deserialize(@NotNull char[] data) {
     data = data.clone();
 
@@ -190,6 +199,25 @@ public class ATNDeserializer {
       data[i] = (char) (data[i] - 2);
     }
 
+    return deserializeUnshifted(data);
+  }
+
+  /**
+   * Deserialize an ATN from its binary form: the serialized values as
+   * big-endian unsigned 16-bit numbers, without the +2 shift of the string
+   * form. Loading this form from a resource avoids the copy and the shift
+   * loop of {@link #deserialize(char[])}.
+   *
+   * @see ATNSerializer#getSerializedAsBytes
+   */
+  public ATN deserialize(@NotNull ByteBuffer data) {
+    char[] values = new char[data.remaining() / 2];
+    data.duplicate().order(ByteOrder.BIG_ENDIAN).asCharBuffer().get(values);
+    return deserializeUnshifted(values);
+  }
+
+  @SuppressWarnings("deprecation")
+  private ATN deserializeUnshifted(char[] data) {
     int p = 0;
     int version = toInt(data[p++]);
     if (version != SERIALIZED_VERSION) {
@@ -484,6 +512,43 @@ public class ATNDeserializer {
       }
     }
 
+    //
+    // OPTIMIZED TRANSITIONS AND LL(1) PREDICTIONS
+    //
+    boolean preOptimized = isFeatureSupported(ADDED_OPTIMIZED_ATN, uuid);
+    List<Pair<ATNState, List<Transition>>> optimizedTransitions = new ArrayList<>();
+    int[] ll1Predictions = new int[0];
+    if (preOptimized) {
+      int noptimized = toInt(data[p++]);
+      for (int i = 0; i < noptimized; i++) {
+        ATNState state = atn.states.get(toInt(data[p++]));
+        int ntransitions = toInt(data[p++]);
+        List<Transition> transitions = new ArrayList<>(ntransitions);
+        for (int j = 0; j < ntransitions; j++) {
+          int trg = toInt(data[p]);
+          int ttype = toInt(data[p + 1]);
+          int arg1 = toInt(data[p + 2]);
+          int arg2 = toInt(data[p + 3]);
+          int arg3 = toInt(data[p + 4]);
+          transitions.add(edgeFactory(atn, ttype, state.stateNumber, trg, arg1, arg2, arg3, sets));
+          p += 5;
+        }
+
+        optimizedTransitions.add(Tuple.create(state, transitions));
+      }
+
+      ll1Predictions = new int[toInt(data[p++]) * 4];
+      for (int i = 0; i < ll1Predictions.length; i++) {
+        ll1Predictions[i] = toInt(data[p++]);
+      }
+    }
+
+    // The tool verified and optimized a pre-optimized ATN already, unless
+    // rule bypass transitions change it here
+    boolean applyPreOptimized = preOptimized
+      && deserializationOptions.isOptimize()
+      && !deserializationOptions.isGenerateRuleBypassTransitions();
+
     markPrecedenceDecisions(atn);
 
     atn.decisionToDFA = new DFA[ndecisions];
@@ -491,7 +556,7 @@ public class ATNDeserializer {
       atn.decisionToDFA[i] = new DFA(atn.decisionToState.get(i), i);
     }
 
-    if (deserializationOptions.isVerifyATN()) {
+    if (deserializationOptions.isVerifyATN() && !applyPreOptimized) {
       verifyATN(atn);
     }
 
@@ -587,7 +652,15 @@ public class ATNDeserializer {
       }
     }
 
-    if (deserializationOptions.isOptimize()) {
+    if (applyPreOptimized) {
+      for (Pair<ATNState, List<Transition>> pair : optimizedTransitions) {
+        for (Transition transition : pair.getItem2()) {
+          pair.getItem1().addOptimizedTransition(transition);
+        }
+      }
+
+      atn.setPrecomputedLL1Predictions(ll1Predictions);
+    } else if (deserializationOptions.isOptimize()) {
       while (true) {
         int optimizationCount = 0;
         optimizationCount += inlineSetRules(atn);
@@ -996,9 +1069,9 @@ public class ATNDeserializer {
       var blockEndState = decision.getOptimizedTransition(setTransitions.getMinElement())
         .target.getOptimizedTransition(0).target;
       IntervalSet matchSet = new IntervalSet();
-      for (int i = 0; i < setTransitions.getIntervals().size(); i++) {
-        Interval interval = setTransitions.getIntervals().get(i);
-        for (int j = interval.a; j <= interval.b; j++) {
+      for (int i = 0; i < setTransitions.getIntervalCount(); i++) {
+        int end = setTransitions.getIntervalEnd(i);
+        for (int j = setTransitions.getIntervalStart(i); j <= end; j++) {
           Transition matchTransition = decision.getOptimizedTransition(j).target.getOptimizedTransition(0);
           if (matchTransition instanceof NotSetTransition) {
             throw new UnsupportedOperationException("Not yet implemented.");
@@ -1009,12 +1082,11 @@ public class ATNDeserializer {
       }
 
       Transition newTransition;
-      if (matchSet.getIntervals().size() == 1) {
+      if (matchSet.getIntervalCount() == 1) {
         if (matchSet.size() == 1) {
           newTransition = new AtomTransition(blockEndState, matchSet.getMinElement());
         } else {
-          Interval matchInterval = matchSet.getIntervals().get(0);
-          newTransition = new RangeTransition(blockEndState, matchInterval.a, matchInterval.b);
+          newTransition = new RangeTransition(blockEndState, matchSet.getIntervalStart(0), matchSet.getIntervalEnd(0));
         }
       } else {
         newTransition = new SetTransition(blockEndState, matchSet);
@@ -11,8 +11,8 @@ package org.antlr.v4.runtime.atn;
 
 import org.antlr.v4.runtime.Token;
 import org.antlr.v4.runtime.misc.IntegerList;
-import org.antlr.v4.runtime.misc.Interval;
 import org.antlr.v4.runtime.misc.IntervalSet;
+import org.antlr.v4.runtime.misc.Nullable;
 import org.antlr.v4.runtime.misc.Utils;
 
 import java.io.InvalidClassException;
@@ -72,9 +72,36 @@ public class ATNSerializer {
    * Convenient to pack into unsigned shorts to make as Java string.
    */
   public IntegerList serialize() {
+    return serialize(null);
+  }
+
+  /**
+   * Serialize an ATN which was deserialized with optimization enabled, so the
+   * runtime can skip verification and optimization when loading it. In
+   * addition to the regular sections, the result holds the optimized
+   * transitions of each state:
+   * <p>
+   * num optimized states,
+   * state, num transitions, trg, edge-type, edge arg1, arg2, arg3, ...
+   * <p>
+   * followed by the LL(1) predictions of the grammar as
+   * num predictions, decision, alt, min token, max token, ...
+   *
+   * @param ll1Predictions {@code decision, alt, a, b} quadruples: tokens {@code a..b} predict {@code alt}
+   */
+  public IntegerList serializeOptimized(IntegerList ll1Predictions) {
+    if (ll1Predictions.size() % 4 != 0) {
+      throw new IllegalArgumentException("LL(1) predictions must consist of decision, alt, a, b quadruples");
+    }
+
+    return serialize(ll1Predictions);
+  }
+
+  private IntegerList serialize(@Nullable IntegerList ll1Predictions) {
+    boolean optimized = ll1Predictions != null;
     IntegerList data = new IntegerList();
     data.add(ATNDeserializer.SERIALIZED_VERSION);
-    serializeUUID(data, ATNDeserializer.SERIALIZED_UUID);
+    serializeUUID(data, optimized ? ATNDeserializer.ADDED_OPTIMIZED_ATN : ATNDeserializer.SERIALIZED_UUID);
 
     // convert grammar type to ATN const to avoid dependence on ANTLRParser
     data.add(atn.grammarType.ordinal());
@@ -132,11 +159,12 @@ public class ATNSerializer {
       }
 
       for (int i = 0; i < s.getNumberOfTransitions(); i++) {
-        Transition t = s.transition(i);
-        int edgeType = Transition.serializationTypes.get(t.getClass());
-        if (edgeType == Transition.SET || edgeType == Transition.NOT_SET) {
-          SetTransition st = (SetTransition) t;
-          sets.put(st.set, true);
+        collectSet(sets, s.transition(i));
+      }
+
+      if (optimized && s.isOptimized()) {
+        for (int i = 0; i < s.getNumberOfOptimizedTransitions(); i++) {
+          collectSet(sets, s.getOptimizedTransition(i));
         }
       }
     }
@@ -220,75 +248,8 @@ public class ATNSerializer {
       }
 
       for (int i = 0; i < s.getNumberOfTransitions(); i++) {
-        Transition t = s.transition(i);
-
-        if (atn.states.get(t.target.stateNumber) == null) {
-          throw new IllegalStateException("Cannot serialize a transition to a removed state.");
-        }
-
-        int src = s.stateNumber;
-        int trg = t.target.stateNumber;
-        int edgeType = Transition.serializationTypes.get(t.getClass());
-        int arg1 = 0;
-        int arg2 = 0;
-        int arg3 = 0;
-        switch (edgeType) {
-          case Transition.RULE:
-            trg = ((RuleTransition) t).followState.stateNumber;
-            arg1 = t.target.stateNumber;
-            arg2 = ((RuleTransition) t).ruleIndex;
-            arg3 = ((RuleTransition) t).precedence;
-            break;
-          case Transition.PRECEDENCE:
-            PrecedencePredicateTransition ppt = (PrecedencePredicateTransition) t;
-            arg1 = ppt.precedence;
-            break;
-          case Transition.PREDICATE:
-            PredicateTransition pt = (PredicateTransition) t;
-            arg1 = pt.ruleIndex;
-            arg2 = pt.predIndex;
-            arg3 = pt.isCtxDependent ? 1 : 0;
-            break;
-          case Transition.RANGE:
-            arg1 = ((RangeTransition) t).from;
-            arg2 = ((RangeTransition) t).to;
-            if (arg1 == Token.EOF) {
-              arg1 = 0;
-              arg3 = 1;
-            }
-
-            break;
-          case Transition.ATOM:
-            arg1 = ((AtomTransition) t).label;
-            if (arg1 == Token.EOF) {
-              arg1 = 0;
-              arg3 = 1;
-            }
-
-            break;
-          case Transition.ACTION:
-            ActionTransition at = (ActionTransition) t;
-            arg1 = at.ruleIndex;
-            arg2 = at.actionIndex;
-            if (arg2 == -1) {
-              arg2 = 0xFFFF;
-            }
-
-            arg3 = at.isCtxDependent ? 1 : 0;
-            break;
-          case Transition.SET, Transition.NOT_SET:
-            arg1 = setIndices.get(((SetTransition) t).set);
-            break;
-          case Transition.WILDCARD:
-            break;
-        }
-
-        data.add(src);
-        data.add(trg);
-        data.add(edgeType);
-        data.add(arg1);
-        data.add(arg2);
-        data.add(arg3);
+        data.add(s.stateNumber);
+        serializeTransition(data, s.transition(i), setIndices);
       }
     }
 
@@ -353,6 +314,32 @@ public class ATNSerializer {
       }
     }
 
+    if (optimized) {
+      List<ATNState> optimizedStates = new ArrayList<>();
+      for (ATNState s : atn.states) {
+        if (s != null && s.isOptimized()) {
+          optimizedStates.add(s);
+        }
+      }
+
+      data.add(optimizedStates.size());
+      for (ATNState s : optimizedStates) {
+        data.add(s.stateNumber);
+        data.add(s.getNumberOfOptimizedTransitions());
+        for (int i = 0; i < s.getNumberOfOptimizedTransitions(); i++) {
+          Transition t = s.getOptimizedTransition(i);
+          if (t instanceof EpsilonTransition epsilon && epsilon.outermostPrecedenceReturn() != -1) {
+            throw new UnsupportedOperationException("Cannot serialize a precedence return as an optimized transition.");
+          }
+
+          serializeTransition(data, t, setIndices);
+        }
+      }
+
+      data.add(ll1Predictions.size() / 4);
+      data.addAll(ll1Predictions);
+    }
+
     // Note: This value shifting loop is documented in ATNDeserializer.
     // don't adjust the first value since that's the version number
     for (int i = 1; i < data.size(); i++) {
@@ -372,6 +359,81 @@ public class ATNSerializer {
     return data;
   }
 
+  private void serializeTransition(IntegerList data, Transition t, Map<IntervalSet, Integer> setIndices) {
+    if (atn.states.get(t.target.stateNumber) == null) {
+      throw new IllegalStateException("Cannot serialize a transition to a removed state.");
+    }
+
+    int trg = t.target.stateNumber;
+    int edgeType = Transition.serializationTypes.get(t.getClass());
+    int arg1 = 0;
+    int arg2 = 0;
+    int arg3 = 0;
+    switch (edgeType) {
+      case Transition.RULE:
+        trg = ((RuleTransition) t).followState.stateNumber;
+        arg1 = t.target.stateNumber;
+        arg2 = ((RuleTransition) t).ruleIndex;
+        arg3 = ((RuleTransition) t).precedence;
+        break;
+      case Transition.PRECEDENCE:
+        PrecedencePredicateTransition ppt = (PrecedencePredicateTransition) t;
+        arg1 = ppt.precedence;
+        break;
+      case Transition.PREDICATE:
+        PredicateTransition pt = (PredicateTransition) t;
+        arg1 = pt.ruleIndex;
+        arg2 = pt.predIndex;
+        arg3 = pt.isCtxDependent ? 1 : 0;
+        break;
+      case Transition.RANGE:
+        arg1 = ((RangeTransition) t).from;
+        arg2 = ((RangeTransition) t).to;
+        if (arg1 == Token.EOF) {
+          arg1 = 0;
+          arg3 = 1;
+        }
+
+        break;
+      case Transition.ATOM:
+        arg1 = ((AtomTransition) t).label;
+        if (arg1 == Token.EOF) {
+          arg1 = 0;
+          arg3 = 1;
+        }
+
+        break;
+      case Transition.ACTION:
+        ActionTransition at = (ActionTransition) t;
+        arg1 = at.ruleIndex;
+        arg2 = at.actionIndex;
+        if (arg2 == -1) {
+          arg2 = 0xFFFF;
+        }
+
+        arg3 = at.isCtxDependent ? 1 : 0;
+        break;
+      case Transition.SET, Transition.NOT_SET:
+        arg1 = setIndices.get(((SetTransition) t).set);
+        break;
+      case Transition.WILDCARD:
+        break;
+    }
+
+    data.add(trg);
+    data.add(edgeType);
+    data.add(arg1);
+    data.add(arg2);
+    data.add(arg3);
+  }
+
+  private static void collectSet(Map<IntervalSet, Boolean> sets, Transition t) {
+    int edgeType = Transition.serializationTypes.get(t.getClass());
+    if (edgeType == Transition.SET || edgeType == Transition.NOT_SET) {
+      sets.put(((SetTransition) t).set, true);
+    }
+  }
+
   private static void serializeSets(
     IntegerList data,
     Collection<IntervalSet> sets,
@@ -381,25 +443,27 @@ public class ATNSerializer {
 
     for (IntervalSet set : sets) {
       boolean containsEof = set.contains(Token.EOF);
-      if (containsEof && set.getIntervals().get(0).b == Token.EOF) {
-        data.add(set.getIntervals().size() - 1);
+      if (containsEof && set.getIntervalEnd(0) == Token.EOF) {
+        data.add(set.getIntervalCount() - 1);
       } else {
-        data.add(set.getIntervals().size());
+        data.add(set.getIntervalCount());
       }
 
       data.add(containsEof ? 1 : 0);
-      for (Interval I : set.getIntervals()) {
-        if (I.a == Token.EOF) {
-          if (I.b == Token.EOF) {
+      for (int i = 0; i < set.getIntervalCount(); i++) {
+        int a = set.getIntervalStart(i);
+        int b = set.getIntervalEnd(i);
+        if (a == Token.EOF) {
+          if (b == Token.EOF) {
             continue;
           } else {
             codePointSerializer.serializeCodePoint(data, 0);
           }
         } else {
-          codePointSerializer.serializeCodePoint(data, I.a);
+          codePointSerializer.serializeCodePoint(data, a);
         }
 
-        codePointSerializer.serializeCodePoint(data, I.b);
+        codePointSerializer.serializeCodePoint(data, b);
       }
     }
   }
@@ -628,6 +692,23 @@ public class ATNSerializer {
     return Utils.toCharArray(getSerialized(atn, ruleNames));
   }
 
+  /**
+   * Converts the result of {@link #serialize()} or {@link #serializeOptimized} to the binary form read by
+   * {@link ATNDeserializer#deserialize(java.nio.ByteBuffer)}: each value as a big-endian unsigned 16-bit number,
+   * without the shift applied for the string form.
+   */
+  public static byte[] getSerializedAsBytes(IntegerList serialized) {
+    byte[] bytes = new byte[serialized.size() * 2];
+    for (int i = 0; i < serialized.size(); i++) {
+      // the first value is the version number, which is not shifted
+      int value = i == 0 ? serialized.get(i) : (serialized.get(i) - 2) & 0xFFFF;
+      bytes[2 * i] = (byte) (value >> 8);
+      bytes[2 * i + 1] = (byte) value;
+    }
+
+    return bytes;
+  }
+
   public static String getDecoded(ATN atn, List<String> ruleNames, List<String> tokenNames) {
     IntegerList serialized = getSerialized(atn, ruleNames);
     char[] data = Utils.toCharArray(serialized);
@@ -207,6 +207,26 @@ public class DecisionInfo {
    */
   public long LL_DFATransitions;
 
+  /**
+   * The number of predictions for this decision which were answered from the
+   * per-parse prediction memo, skipping DFA and ATN simulation entirely. These
+   * predictions are included in {@link #invocations} but contribute no
+   * lookahead.
+   *
+   * <p>This value is 0 unless
+   * {@link ParserATNSimulator#memoize_predictions} is enabled.</p>
+   *
+   * @see PredictionMemo
+   */
+  public long memoHits;
+  /**
+   * The number of predictions for this decision which were looked up in the
+   * per-parse prediction memo without finding an entry.
+   *
+   * @see #memoHits
+   */
+  public long memoMisses;
+
   /**
    * Constructs a new instance of the {@link DecisionInfo} class to contain
    * statistics for a particular decision.
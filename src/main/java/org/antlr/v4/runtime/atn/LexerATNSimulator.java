@@ -19,6 +19,7 @@ import org.antlr.v4.runtime.Token;
 import org.antlr.v4.runtime.dfa.AcceptStateInfo;
 import org.antlr.v4.runtime.dfa.DFA;
 import org.antlr.v4.runtime.dfa.DFAState;
+import org.antlr.v4.runtime.jfr.DFAUpdateEvent;
 import org.antlr.v4.runtime.misc.Interval;
 import org.antlr.v4.runtime.misc.NotNull;
 import org.antlr.v4.runtime.misc.Nullable;
@@ -99,6 +100,11 @@ public class LexerATNSimulator extends ATNSimulator {
   @NotNull
   protected final SimState prevAccept = new SimState();
 
+  /**
+   * The number of DFA states this simulator added, for {@link DFAUpdateEvent}.
+   */
+  private int createdDFAStates;
+
   public LexerATNSimulator(@NotNull ATN atn) {
     this(null, atn);
   }
@@ -117,6 +123,9 @@ public class LexerATNSimulator extends ATNSimulator {
 
   public int match(@NotNull CharStream input, int mode) {
     this.mode = mode;
+    DFAUpdateEvent event = new DFAUpdateEvent();
+    event.begin();
+    int statesBefore = createdDFAStates;
     int mark = input.mark();
     try {
       this.startIndex = input.index();
@@ -129,6 +138,14 @@ public class LexerATNSimulator extends ATNSimulator {
       }
     } finally {
       input.release(mark);
+      if (createdDFAStates != statesBefore && event.shouldCommit()) {
+        event.grammar = recog != null ? recog.getGrammarFileName() : null;
+        event.lexer = true;
+        event.decision = mode;
+        event.statesCreated = createdDFAStates - statesBefore;
+        event.dfaSize = atn.modeToDFA[mode].states.size();
+        event.commit();
+      }
     }
   }
 
@@ -233,7 +250,7 @@ public class LexerATNSimulator extends ATNSimulator {
    */
   @Nullable
   protected DFAState getExistingTargetState(@NotNull DFAState s, int t) {
-    DFAState target = s.getTarget(t);
+    DFAState target = atn.modeToDFA[mode].getTarget(s, t);
     if (debug && target != null) {
       System.out.println("reuse state " + s.stateNumber +
         " edge to " + target.stateNumber);
@@ -671,7 +688,11 @@ public class LexerATNSimulator extends ATNSimulator {
       newState.setAcceptState(new AcceptStateInfo(prediction, lexerActionExecutor));
     }
 
-    return atn.modeToDFA[mode].addState(newState);
+    DFAState added = atn.modeToDFA[mode].addState(newState);
+    if (added == newState) {
+      createdDFAStates++;
+    }
+    return added;
   }
 
   @NotNull
@@ -11,6 +11,7 @@ package org.antlr.v4.runtime.atn;
 
 import lombok.Getter;
 import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.CancellationToken;
 import org.antlr.v4.runtime.FailedPredicateException;
 import org.antlr.v4.runtime.IntStream;
 import org.antlr.v4.runtime.NoViableAltException;
@@ -24,9 +25,12 @@ import org.antlr.v4.runtime.VocabularyImpl;
 import org.antlr.v4.runtime.dfa.AcceptStateInfo;
 import org.antlr.v4.runtime.dfa.DFA;
 import org.antlr.v4.runtime.dfa.DFAState;
+import org.antlr.v4.runtime.jfr.DFAUpdateEvent;
+import org.antlr.v4.runtime.jfr.FullContextPredictionEvent;
 import org.antlr.v4.runtime.misc.IntegerList;
 import org.antlr.v4.runtime.misc.Interval;
 import org.antlr.v4.runtime.misc.Pair;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.antlr.v4.runtime.misc.Tuple;
 import org.jspecify.annotations.Nullable;
 
@@ -222,6 +226,18 @@ import java.util.concurrent.atomic.AtomicReference;
  * <p>
  * Of course, if the input is invalid, then we will get an error for sure in both SLL and LL parsing. Erroneous input
  * will therefore require 2 passes over the input.</p>
+ *
+ * <p>
+ * <strong>Decision-local two-stage prediction</strong></p>
+ *
+ * <p>
+ * The {@link PredictionMode#LL} mode applies the same idea to one decision at a time instead of the whole input. Each
+ * prediction first runs SLL (see {@link #always_try_local_context}); only when it ends in an SLL conflict does
+ * {@link #execATN} report {@link #reportAttemptingFullContext attempting full context} and retry that single decision
+ * with the full parser context, starting at the same input position. Decisions which the tool proved to be SLL skip
+ * the retry entirely. Invalid input is therefore parsed once with errors reported from full LL analysis, and a single
+ * hard decision costs one full-context prediction rather than a reparse of the input. Prefer this over the
+ * whole-input approach above when syntax errors are common, e.g. for files being edited.</p>
  */
 public class ParserATNSimulator extends ATNSimulator {
   public static final boolean debug = false;
@@ -252,6 +268,68 @@ public class ParserATNSimulator extends ATNSimulator {
   public boolean tail_call_preserves_sll = true;
   public boolean treat_sllk1_conflict_as_ambiguity = false;
 
+  /**
+   * Determines whether predictions are memoized for the duration of a parse. When {@code true}, the result of
+   * {@link #adaptivePredict} is stored by decision, input index and outer context, and a repeated prediction at the
+   * same point (e.g. during error recovery or after a rule is re-entered at the same position) returns the stored
+   * alternative without touching the DFA or ATN. Predictions which evaluated semantic predicates are not memoized.
+   * The table is dropped by {@link #reset}, which {@link Parser#reset} calls when the input is rewound.
+   *
+   * <p>
+   * The default value is {@code false}.</p>
+   *
+   * @see PredictionMemo
+   * @see DecisionInfo#memoHits
+   */
+  public boolean memoize_predictions = false;
+
+  /**
+   * Determines whether DFA states which predict a unique alternative keep their configurations. An SLL or
+   * full-context prediction stops at such a state, so when {@code true}, only the summary needed by
+   * {@link #execDFA} and {@link #isAcceptState} is kept (see {@link ATNConfigSet#compact()}), which drops most of the
+   * memory retained by a warm DFA. States with conflicts or predicates, and states which prediction extends further,
+   * always keep their configurations.
+   *
+   * <p>
+   * Compacted states with the same summary are equal, so all edges which predict the same alternative share one
+   * compacted state.</p>
+   *
+   * <p>
+   * The default value is {@code false}.</p>
+   */
+  public boolean compact_accept_state_configs = false;
+
+  @Nullable
+  private PredictionMemo predictionMemo;
+
+  @Nullable
+  private PredictionLog predictionLog;
+
+  /**
+   * Set when the current prediction evaluates semantic predicates, which makes its result unfit for memoization.
+   */
+  private boolean predicatesEvaluated;
+
+  /**
+   * Set when the current prediction falls back to {@link #execATN}, for {@link PredictionMetrics}.
+   */
+  private boolean atnFallback;
+
+  /**
+   * The largest input index the current prediction consumed up to, for {@link PredictionMetrics}.
+   */
+  private int lookaheadStopIndex;
+
+  /**
+   * The number of predictions left until the next timed one, for {@link PredictionMetrics}.
+   */
+  private int predictionsUntilTimingSample;
+
+  /**
+   * The number of DFA states this simulator added, for {@link DFAUpdateEvent}.
+   */
+  private int createdDFAStates;
+
   @Getter
   @Nullable
   protected final Parser parser;
@@ -294,8 +372,27 @@ public class ParserATNSimulator extends ATNSimulator {
     this.predictionMode = predictionMode;
   }
 
+  /**
+   * Install a log which records the predictions of this simulator, or replays recorded predictions instead of
+   * computing them. {@link #reset} rewinds the log. Pass {@code null} to predict normally.
+   *
+   * @see PredictionLog
+   */
+  public void setPredictionLog(@Nullable PredictionLog predictionLog) {
+    this.predictionLog = predictionLog;
+  }
+
+  @Nullable
+  public PredictionLog getPredictionLog() {
+    return predictionLog;
+  }
+
   @Override
   public void reset() {
+    predictionMemo = null;
+    if (predictionLog != null) {
+      predictionLog.rewind();
+    }
   }
 
   public int adaptivePredict(TokenStream input, int decision,
@@ -307,15 +404,89 @@ public class ParserATNSimulator extends ATNSimulator {
                              int decision,
                              @Nullable ParserRuleContext outerContext,
                              boolean useContext) {
+    PredictionMetrics metrics = atn.getPredictionMetrics();
+    if (metrics == null || useContext) {
+      return predictOrReplay(input, decision, outerContext, useContext);
+    }
+
+    boolean timed = false;
+    int timingSampleInterval = metrics.getTimingSampleInterval();
+    if (timingSampleInterval > 0 && --predictionsUntilTimingSample <= 0) {
+      predictionsUntilTimingSample = timingSampleInterval;
+      timed = true;
+    }
+
+    int startIndex = input.index();
+    atnFallback = false;
+    lookaheadStopIndex = startIndex;
+    long start = timed ? System.nanoTime() : 0;
+    try {
+      return predictOrReplay(input, decision, outerContext, false);
+    } finally {
+      if (timed) {
+        metrics.recordTime(decision, System.nanoTime() - start);
+      }
+
+      metrics.recordPrediction(decision, atnFallback, lookaheadStopIndex - startIndex + 1);
+    }
+  }
+
+  private int predictOrReplay(TokenStream input,
+                              int decision,
+                              @Nullable ParserRuleContext outerContext,
+                              boolean useContext) {
+    PredictionLog log = predictionLog;
+    if (log == null) {
+      return computeAdaptivePrediction(input, decision, outerContext, useContext);
+    }
+
+    if (log.isReplaying()) {
+      int alt = log.next(decision);
+      if (alt != ATN.INVALID_ALT_NUMBER) {
+        return alt;
+      }
+      // the recorded prediction failed; compute it again to raise the same syntax error
+      return computeAdaptivePrediction(input, decision, outerContext, useContext);
+    }
+
+    int alt = ATN.INVALID_ALT_NUMBER;
+    try {
+      alt = computeAdaptivePrediction(input, decision, outerContext, useContext);
+      return alt;
+    } finally {
+      log.add(decision, alt);
+    }
+  }
+
+  protected int computeAdaptivePrediction(TokenStream input,
+                                          int decision,
+                                          @Nullable ParserRuleContext outerContext,
+                                          boolean useContext) {
     DFA dfa = atn.decisionToDFA[decision];
     assert dfa != null;
-    if (optimize_ll1 && !dfa.isPrecedenceDfa() && !dfa.isEmpty()) {
+    // the table fills as the DFA grows, unless the tool seeded it for this decision
+    if (optimize_ll1 && !dfa.isPrecedenceDfa() && (!dfa.isEmpty() || atn.hasPrecomputedLL1Predictions(decision))) {
       Integer alt = tryLL1Prediction(input, decision);
       if (alt != null) {
         return alt;
       }
     }
 
+    PredictionMemo memo = null;
+    int precedence = parser != null ? parser.getPrecedence() : -1;
+    if (memoize_predictions && !useContext) {
+      memo = predictionMemo;
+      if (memo == null || memo.getInputStream() != input) {
+        memo = predictionMemo = new PredictionMemo(input);
+      }
+
+      int alt = memo.get(decision, input.index(), outerContext, precedence);
+      reportPredictionMemoLookup(decision, alt != ATN.INVALID_ALT_NUMBER);
+      if (alt != ATN.INVALID_ALT_NUMBER) {
+        return alt;
+      }
+    }
+
     this.dfa = dfa;
 
     if (force_global_context) {
@@ -326,6 +497,7 @@ public class ParserATNSimulator extends ATNSimulator {
 
     userWantsCtxSensitive = useContext
       || (predictionMode != PredictionMode.SLL && outerContext != null && !atn.decisionToState.get(decision).sll);
+    ParserRuleContext memoContext = outerContext;
     if (outerContext == null) {
       outerContext = ParserRuleContext.emptyContext();
     }
@@ -339,13 +511,36 @@ public class ParserATNSimulator extends ATNSimulator {
       state = computeStartState(dfa, outerContext, useContext);
     }
 
+    DFAUpdateEvent event = new DFAUpdateEvent();
+    event.begin();
+    int statesBefore = createdDFAStates;
     final int m = input.mark(), index = input.index();
     try {
-      return execDFA(dfa, input, index, state);
+      predicatesEvaluated = false;
+      int alt = execDFA(dfa, input, index, state);
+      if (memo != null && !predicatesEvaluated) {
+        memo.put(decision, index, memoContext, precedence, alt);
+      }
+      return alt;
     } finally {
       this.dfa = null;
       input.seek(index);
       input.release(m);
+      if (createdDFAStates != statesBefore) {
+        // a nested full-context prediction reports its own states
+        commitDFAUpdateEvent(event, dfa, createdDFAStates - statesBefore);
+        createdDFAStates = statesBefore;
+      }
+    }
+  }
+
+  private void commitDFAUpdateEvent(DFAUpdateEvent event, DFA dfa, int statesCreated) {
+    if (event.shouldCommit()) {
+      event.grammar = parser != null ? parser.getGrammarFileName() : null;
+      event.decision = dfa.decision;
+      event.statesCreated = statesCreated;
+      event.dfaSize = dfa.states.size();
+      event.commit();
     }
   }
 
@@ -493,6 +688,7 @@ public class ParserATNSimulator extends ATNSimulator {
       s = target;
       if (!isAcceptState(s, state.useContext) && t != IntStream.EOF) {
         input.consume();
+        lookaheadStopIndex = Math.max(lookaheadStopIndex, input.index());
         t = input.LA(1);
       }
     }
@@ -534,8 +730,9 @@ public class ParserATNSimulator extends ATNSimulator {
             reportAttemptingFullContext(dfa, conflictingAlts, conflictState, startIndex, input.index());
           }
 
+          FullContextPredictionEvent event = beginFullContextPrediction(dfa, startIndex, input.index());
           input.seek(startIndex);
-          return adaptivePredict(input, dfa.decision, outerContext, true);
+          return endFullContextPrediction(event, computeAdaptivePrediction(input, dfa.decision, outerContext, true));
         }
       }
     }
@@ -642,6 +839,7 @@ public class ParserATNSimulator extends ATNSimulator {
                         SimulatorState initialState) {
     final ParserRuleContext outerContext = initialState.outerContext;
     final boolean useContext = initialState.useContext;
+    atnFallback = true;
 
     int t = input.LA(1);
 
@@ -649,6 +847,7 @@ public class ParserATNSimulator extends ATNSimulator {
 
     PredictionContextCache contextCache = new PredictionContextCache();
     while (true) { // while more work
+      checkCancellation();
       SimulatorState nextState = computeReachSet(dfa, previous, t, contextCache);
       if (nextState == null) {
         addDFAEdge(previous.s0, input.LA(1), ERROR);
@@ -749,8 +948,9 @@ public class ParserATNSimulator extends ATNSimulator {
             reportAttemptingFullContext(dfa, conflictingAlts, nextState, startIndex, input.index());
           }
 
+          FullContextPredictionEvent event = beginFullContextPrediction(dfa, startIndex, input.index());
           input.seek(startIndex);
-          return execATN(dfa, input, startIndex, fullContextState);
+          return endFullContextPrediction(event, execATN(dfa, input, startIndex, fullContextState));
         }
       }
 
@@ -758,6 +958,7 @@ public class ParserATNSimulator extends ATNSimulator {
 
       if (t != IntStream.EOF) {
         input.consume();
+        lookaheadStopIndex = Math.max(lookaheadStopIndex, input.index());
         t = input.LA(1);
       }
     }
@@ -944,8 +1145,12 @@ public class ParserATNSimulator extends ATNSimulator {
   }
 
   /**
-   * Get an existing target state for an edge in the DFA. If the target state for the edge has not yet been computed or
-   * is otherwise not available, this method returns {@code null}.
+   * Get an existing target state for an edge in the DFA of the current decision. If the target state for the edge has
+   * not yet been computed or is otherwise not available, this method returns {@code null}.
+   *
+   * <p>
+   * The default implementation calls {@link #getExistingTargetState(DFA, DFAState, int)} while a prediction is in
+   * progress, and otherwise reads the edge of {@code s} directly.</p>
    *
    * @param s The current DFA state
    * @param t The next input symbol
@@ -955,7 +1160,28 @@ public class ParserATNSimulator extends ATNSimulator {
    */
   @Nullable
   protected DFAState getExistingTargetState(DFAState s, int t) {
-    return s.getTarget(t);
+    DFA current = dfa;
+    if (current == null) {
+      return s.getTarget(t);
+    }
+
+    return getExistingTargetState(current, s, t);
+  }
+
+  /**
+   * Get an existing target state for an edge in the DFA. If the target state for the edge has not yet been computed or
+   * is otherwise not available, this method returns {@code null}.
+   *
+   * @param dfa The DFA of the current decision
+   * @param s   The current DFA state
+   * @param t   The next input symbol
+   *
+   * @return The existing target DFA state for the given input symbol {@code t}, or {@code null} if the target state for
+   * this edge is not already cached
+   */
+  @Nullable
+  protected DFAState getExistingTargetState(DFA dfa, DFAState s, int t) {
+    return dfa.getTarget(s, t);
   }
 
   /**
@@ -1498,6 +1724,7 @@ public class ParserATNSimulator extends ATNSimulator {
   protected BitSet evalSemanticContext(DFAState.PredPrediction[] predPredictions,
                                        ParserRuleContext outerContext,
                                        boolean complete) {
+    predicatesEvaluated = true;
     BitSet predictions = new BitSet();
     for (DFAState.PredPrediction pair : predPredictions) {
       if (pair.pred == SemanticContext.NONE) {
@@ -1555,6 +1782,19 @@ public class ParserATNSimulator extends ATNSimulator {
     return pred.eval(parser, parserCallStack);
   }
 
+  /**
+   * Throws {@link ParseCancellationException} if the parser has a canceled
+   * {@link Parser#getCancellationToken() cancellation token}.
+   */
+  protected final void checkCancellation() {
+    if (parser != null) {
+      CancellationToken cancellation = parser.getCancellationToken();
+      if (cancellation != null) {
+        cancellation.throwIfCancellationRequested();
+      }
+    }
+  }
+
 	/* TODO: If we are doing predicates, there is no point in pursuing
 		 closure operations if we reach a DFA state that uniquely predicts
 		 alternative. We will not be caching that DFA state and it is a
@@ -1575,6 +1815,7 @@ public class ParserATNSimulator extends ATNSimulator {
     ATNConfigSet currentConfigs = sourceConfigs;
     Set<ATNConfig> closureBusy = new HashSet<>();
     while (!currentConfigs.isEmpty()) {
+      checkCancellation();
       ATNConfigSet intermediate = new ATNConfigSet();
       for (ATNConfig config : currentConfigs) {
         closure(config,
@@ -2102,7 +2343,7 @@ public class ParserATNSimulator extends ATNSimulator {
     assert contextTransitions == null || contextTransitions.isEmpty() || dfa.isContextSensitive();
 
     DFAState from = fromState;
-    DFAState to = addDFAState(dfa, toConfigs, contextCache);
+    DFAState to = addDFAState(dfa, toConfigs, contextCache, true);
 
     if (contextTransitions != null) {
       for (int context : contextTransitions.toArray()) {
@@ -2165,12 +2406,29 @@ public class ParserATNSimulator extends ATNSimulator {
    */
 
   protected DFAState addDFAState(DFA dfa, ATNConfigSet configs, PredictionContextCache contextCache) {
+    return addDFAState(dfa, configs, contextCache, false);
+  }
+
+  /**
+   * Add a DFA state for {@code configs} unless an equal one already exists.
+   *
+   * @param edgeTarget {@code true} if the state is the target of a symbol edge. Prediction never extends or reports
+   *                   from such a state if it accepts a unique alternative without semantic context, so it may be held
+   *                   with {@link ATNConfigSet#compact compacted} configurations, see
+   *                   {@link #compact_accept_state_configs} and {@link DFA#freeze()}
+   */
+  protected DFAState addDFAState(DFA dfa,
+                                 ATNConfigSet configs,
+                                 PredictionContextCache contextCache,
+                                 boolean edgeTarget) {
     final boolean enableDfa = enable_global_context_dfa || !configs.isOutermostConfigSet();
     if (enableDfa) {
       if (!configs.isReadOnly()) {
         configs.optimizeConfigs(this);
       }
 
+      // The context cache of the ATN holds its canonical contexts weakly. An equal state may have been built from
+      // contexts which were since reclaimed and interned again, so states are matched by equality, never identity.
       DFAState proposed = createDFAState(dfa, configs);
       DFAState existing = dfa.states.get(proposed);
       if (existing != null) return existing;
@@ -2182,9 +2440,21 @@ public class ParserATNSimulator extends ATNSimulator {
       }
     }
 
-    DFAState newState = createDFAState(dfa, configs.clone(true));
-    DecisionState decisionState = atn.getDecisionState(dfa.decision);
     int predictedAlt = getUniqueAlt(configs);
+    boolean compactable = edgeTarget
+      && enableDfa
+      && predictedAlt != ATN.INVALID_ALT_NUMBER
+      && configs.getConflictInfo() == null
+      && !configs.hasSemanticContext();
+    boolean compact = compactable && compact_accept_state_configs;
+    if (compactable && !compact) {
+      // a frozen DFA holds such a state compacted
+      DFAState existing = dfa.states.get(createDFAState(dfa, configs.compact()));
+      if (existing != null) return existing;
+    }
+
+    DFAState newState = createDFAState(dfa, compact ? configs.compact() : configs.clone(true));
+    DecisionState decisionState = atn.getDecisionState(dfa.decision);
     if (predictedAlt != ATN.INVALID_ALT_NUMBER) {
       newState.setAcceptState(new AcceptStateInfo(predictedAlt));
     } else if (configs.getConflictingAlts() != null) {
@@ -2200,7 +2470,10 @@ public class ParserATNSimulator extends ATNSimulator {
     }
 
     DFAState added = dfa.addState(newState);
-    if (debug && added == newState) System.out.println("adding new DFA state: " + newState);
+    if (added == newState) {
+      createdDFAStates++;
+      if (debug) System.out.println("adding new DFA state: " + newState);
+    }
     return added;
   }
 
@@ -2247,6 +2520,51 @@ public class ParserATNSimulator extends ATNSimulator {
         acceptState);
   }
 
+  /**
+   * Records the retry of an SLL conflict at {@code conflictIndex} with full context in the {@link PredictionMetrics}
+   * and returns the {@link FullContextPredictionEvent} of the retry, or {@code null} if the event is disabled.
+   */
+  @Nullable
+  private FullContextPredictionEvent beginFullContextPrediction(DFA dfa, int startIndex, int conflictIndex) {
+    PredictionMetrics metrics = atn.getPredictionMetrics();
+    if (metrics != null) {
+      metrics.recordFullContextPrediction(dfa.decision);
+    }
+
+    FullContextPredictionEvent event = new FullContextPredictionEvent();
+    if (!event.isEnabled()) {
+      return null;
+    }
+
+    event.begin();
+    if (parser != null) {
+      event.grammar = parser.getGrammarFileName();
+      event.rule = parser.getRuleNames()[dfa.atnStartState.ruleIndex];
+    }
+    event.decision = dfa.decision;
+    event.startIndex = startIndex;
+    event.sllLookahead = conflictIndex - startIndex + 1;
+    return event;
+  }
+
+  private static int endFullContextPrediction(@Nullable FullContextPredictionEvent event, int prediction) {
+    if (event != null && event.shouldCommit()) {
+      event.prediction = prediction;
+      event.commit();
+    }
+
+    return prediction;
+  }
+
+  /**
+   * Called for every lookup in the prediction memo when {@link #memoize_predictions} is enabled.
+   *
+   * @param decision The decision number
+   * @param hit      {@code true} if the memoized alternative was returned without DFA or ATN simulation
+   */
+  protected void reportPredictionMemoLookup(int decision, boolean hit) {
+  }
+
   /**
    * If context sensitive parsing, we know it's ambiguity not conflict
    */
@@ -19,7 +19,6 @@ import org.antlr.v4.runtime.misc.NotNull;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.ConcurrentMap;
 
 public abstract class PredictionContext {
   @NotNull
@@ -238,7 +237,7 @@ public abstract class PredictionContext {
 
   public static PredictionContext getCachedContext(
     @NotNull PredictionContext context,
-    @NotNull ConcurrentMap<PredictionContext, PredictionContext> contextCache,
+    @NotNull PredictionContextInterner contextCache,
     @NotNull PredictionContext.IdentityHashMap visited) {
     if (context.isEmpty()) {
       return context;
@@ -274,10 +273,13 @@ public abstract class PredictionContext {
       }
     }
 
+    // Another thread may have made an equal context canonical since the lookup above, or the canonical context
+    // seen by an earlier lookup may have been reclaimed; either way the context in the cache is returned.
     if (!changed) {
-      existing = contextCache.putIfAbsent(context, context);
-      visited.put(context, existing != null ? existing : context);
-      return context;
+      existing = contextCache.putIfAbsent(context);
+      PredictionContext canonical = existing != null ? existing : context;
+      visited.put(context, canonical);
+      return canonical;
     }
 
     // We know parents.length>0 because context.isEmpty() is checked at the beginning of the method.
@@ -289,11 +291,12 @@ public abstract class PredictionContext {
       updated = new ArrayPredictionContext(parents, arrayPredictionContext.returnStates, context.cachedHashCode);
     }
 
-    existing = contextCache.putIfAbsent(updated, updated);
-    visited.put(updated, existing != null ? existing : updated);
-    visited.put(context, existing != null ? existing : updated);
+    existing = contextCache.putIfAbsent(updated);
+    PredictionContext canonical = existing != null ? existing : updated;
+    visited.put(updated, canonical);
+    visited.put(context, canonical);
 
-    return updated;
+    return canonical;
   }
 
   public PredictionContext appendContext(int returnContext, PredictionContextCache contextCache) {
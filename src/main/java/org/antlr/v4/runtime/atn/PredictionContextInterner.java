@@ -0,0 +1,166 @@
+/*
+ * This file is a part of ANTLR.
+ *
+ * Copyright (c) 2012-2025 The ANTLR Project. All rights reserved.
+ * Copyright (c) 2025-2026 Valery Maximov <maximovvalery@gmail.com> and contributors
+ *
+ * Use of this file is governed by the BSD-3-Clause license that
+ * can be found in the LICENSE.txt file in the project root.
+ */
+package org.antlr.v4.runtime.atn;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The shared interning table of the canonical {@link PredictionContext} objects of an {@link ATN}, see
+ * {@link ATN#getCachedContext}.
+ *
+ * <p>
+ * Contexts are held weakly. A canonical context stays in the table as long as a {@link DFAState} or a running
+ * prediction refers to it, and is dropped once the garbage collector reclaims it, so the table of a static ATN
+ * does not grow past the contexts in use on a long-running server. Equal contexts interned again after that get a
+ * new canonical instance, which is equal but not identical to any evicted one.</p>
+ *
+ * <p>
+ * Lookups are counted for monitoring: {@link #getHitRate()} close to 1 means most DFA states are built from
+ * contexts already known to the ATN.</p>
+ */
+@NullMarked
+public final class PredictionContextInterner {
+  private final ConcurrentMap<WeakContext, WeakContext> contexts = new ConcurrentHashMap<>();
+  private final ReferenceQueue<PredictionContext> reclaimed = new ReferenceQueue<>();
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * Returns the canonical context equal to {@code context}, or {@code null} if there is none.
+   */
+  @Nullable
+  PredictionContext get(PredictionContext context) {
+    expungeReclaimedContexts();
+    WeakContext entry = contexts.get(new WeakContext(context, null));
+    PredictionContext existing = entry != null ? entry.get() : null;
+    if (existing != null) {
+      hits.increment();
+    }
+
+    return existing;
+  }
+
+  /**
+   * Makes {@code context} canonical unless an equal context already is.
+   *
+   * @return the existing canonical context, or {@code null} if {@code context} was added
+   */
+  @Nullable
+  PredictionContext putIfAbsent(PredictionContext context) {
+    expungeReclaimedContexts();
+    WeakContext entry = new WeakContext(context, reclaimed);
+    while (true) {
+      WeakContext existingEntry = contexts.putIfAbsent(entry, entry);
+      if (existingEntry == null) {
+        misses.increment();
+        return null;
+      }
+
+      PredictionContext existing = existingEntry.get();
+      if (existing != null) {
+        hits.increment();
+        return existing;
+      }
+
+      // reclaimed after the lookup matched it
+      contexts.remove(existingEntry, existingEntry);
+    }
+  }
+
+  /**
+   * Returns the number of canonical contexts which were not reclaimed yet.
+   */
+  public int size() {
+    expungeReclaimedContexts();
+    return contexts.size();
+  }
+
+  public void clear() {
+    contexts.clear();
+  }
+
+  /**
+   * Returns the number of lookups which found a canonical context.
+   */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * Returns the number of contexts which became canonical.
+   */
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /**
+   * Returns the share of lookups which found a canonical context, or {@code 0} before the first lookup.
+   */
+  public double getHitRate() {
+    long hitCount = getHitCount();
+    long total = hitCount + getMissCount();
+    return total == 0 ? 0 : (double) hitCount / total;
+  }
+
+  private void expungeReclaimedContexts() {
+    for (Reference<? extends PredictionContext> reference = reclaimed.poll();
+         reference != null;
+         reference = reclaimed.poll()) {
+      contexts.remove(reference, reference);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "PredictionContextInterner{size=" + size() + ", hitRate=" + getHitRate() + '}';
+  }
+
+  /**
+   * A weak reference which compares equal to another one while both contexts are alive and equal. Once its
+   * context is reclaimed it only equals itself, so it can still be removed from the table.
+   */
+  private static final class WeakContext extends WeakReference<PredictionContext> {
+    private final int hashCode;
+
+    WeakContext(PredictionContext context, @Nullable ReferenceQueue<PredictionContext> queue) {
+      super(context, queue);
+      this.hashCode = context.hashCode();
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (o == this) {
+        return true;
+      }
+
+      if (!(o instanceof WeakContext other) || other.hashCode != hashCode) {
+        return false;
+      }
+
+      PredictionContext context = get();
+      PredictionContext otherContext = other.get();
+      return context != null && otherContext != null && context.equals(otherContext);
+    }
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * This file is a part of ANTLR.
+ *
+ * Copyright (c) 2012-2025 The ANTLR Project. All rights reserved.
+ * Copyright (c) 2025-2026 Valery Maximov <maximovvalery@gmail.com> and contributors
+ *
+ * Use of this file is governed by the BSD-3-Clause license that
+ * can be found in the LICENSE.txt file in the project root.
+ */
+package org.antlr.v4.runtime.atn;
+
+import org.antlr.v4.runtime.misc.IntegerList;
+
+import java.util.Arrays;
+
+/**
+ * The sequence of predictions made by a {@link ParserATNSimulator} during one
+ * parse, stored as {@code decision, alt} pairs.
+ *
+ * <p>
+ * A log created by {@link #record()} and installed with
+ * {@link ParserATNSimulator#setPredictionLog} collects every result of
+ * {@link ParserATNSimulator#adaptivePredict}. {@link #toArray()} returns the
+ * compact form, which can be stored next to the tokens of the input. A log
+ * created by {@link #replay(int[])} feeds the stored predictions back in the
+ * same order, so parsing the same token stream again is a linear walk that does
+ * not touch the DFA or the ATN.</p>
+ *
+ * <p>
+ * A prediction which failed with a syntax error is stored with the alternative
+ * {@link ATN#INVALID_ALT_NUMBER}; on replay that prediction is computed again
+ * so the parser sees the same exception.</p>
+ */
+public final class PredictionLog {
+  private final boolean replaying;
+  private final IntegerList data;
+  private int position;
+
+  private PredictionLog(boolean replaying, IntegerList data) {
+    this.replaying = replaying;
+    this.data = data;
+  }
+
+  /**
+   * Creates an empty log which records predictions.
+   */
+  public static PredictionLog record() {
+    return new PredictionLog(false, new IntegerList());
+  }
+
+  /**
+   * Creates a log which replays the predictions of {@code log}, as returned by {@link #toArray()}.
+   */
+  public static PredictionLog replay(int[] log) {
+    if (log.length % 2 != 0) {
+      throw new IllegalArgumentException("prediction log must consist of decision, alt pairs");
+    }
+    IntegerList data = new IntegerList(log.length);
+    data.addAll(log);
+    return new PredictionLog(true, data);
+  }
+
+  public boolean isReplaying() {
+    return replaying;
+  }
+
+  /**
+   * Returns the number of predictions in the log.
+   */
+  public int size() {
+    return data.size() / 2;
+  }
+
+  /**
+   * Returns the number of predictions replayed so far.
+   */
+  public int getPosition() {
+    return position / 2;
+  }
+
+  public int[] toArray() {
+    return data.toArray();
+  }
+
+  /**
+   * Start over: a recording log is cleared, a replaying log is rewound to its first prediction.
+   */
+  public void rewind() {
+    if (!replaying) {
+      data.clear();
+    }
+    position = 0;
+  }
+
+  void add(int decision, int alt) {
+    assert !replaying;
+    data.add(decision);
+    data.add(alt);
+  }
+
+  /**
+   * Returns the next logged alternative, which may be {@link ATN#INVALID_ALT_NUMBER} for a failed prediction.
+   *
+   * @throws IllegalStateException if the log is exhausted or was recorded for a different prediction sequence
+   */
+  int next(int decision) {
+    assert replaying;
+    if (position >= data.size()) {
+      throw new IllegalStateException("prediction log exhausted after " + size() + " predictions");
+    }
+
+    int loggedDecision = data.get(position);
+    if (loggedDecision != decision) {
+      throw new IllegalStateException("prediction log mismatch at prediction " + getPosition() +
+        ": expected decision " + loggedDecision + ", found " + decision);
+    }
+
+    int alt = data.get(position + 1);
+    position += 2;
+    return alt;
+  }
+
+  @Override
+  public String toString() {
+    return (replaying ? "replay" : "record") + Arrays.toString(toArray());
+  }
+}
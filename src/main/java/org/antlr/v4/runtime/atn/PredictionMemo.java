@@ -0,0 +1,143 @@
+/*
+ * This file is a part of ANTLR.
+ *
+ * Copyright (c) 2012-2025 The ANTLR Project. All rights reserved.
+ * Copyright (c) 2025-2026 Valery Maximov <maximovvalery@gmail.com> and contributors
+ *
+ * Use of this file is governed by the BSD-3-Clause license that
+ * can be found in the LICENSE.txt file in the project root.
+ */
+package org.antlr.v4.runtime.atn;
+
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.misc.Nullable;
+
+/**
+ * Packrat-style table of the predictions made during a single parse, see
+ * {@link ParserATNSimulator#memoize_predictions}.
+ *
+ * <p>
+ * An entry is keyed by the decision and the input index of the prediction. The
+ * outer context is part of the entry rather than the key: it is compared by
+ * identity together with its invoking state and the parser precedence, which
+ * fingerprints the full context the prediction depended on. A prediction at the
+ * same decision and index under a different context replaces the entry.</p>
+ *
+ * <p>
+ * The table is bound to one {@link TokenStream}; the simulator drops it when the
+ * parser is reset or switches to another stream.</p>
+ */
+public class PredictionMemo {
+  private static final int INITIAL_CAPACITY = 256;
+
+  private final TokenStream input;
+
+  private long[] keys = new long[INITIAL_CAPACITY];
+  private ParserRuleContext[] contexts = new ParserRuleContext[INITIAL_CAPACITY];
+  private int[] invokingStates = new int[INITIAL_CAPACITY];
+  private int[] precedences = new int[INITIAL_CAPACITY];
+
+  /**
+   * Predicted alternatives; {@link ATN#INVALID_ALT_NUMBER} marks a free slot.
+   */
+  private int[] alts = new int[INITIAL_CAPACITY];
+  private int size;
+
+  public PredictionMemo(TokenStream input) {
+    this.input = input;
+  }
+
+  public TokenStream getInputStream() {
+    return input;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the memoized prediction, or {@link ATN#INVALID_ALT_NUMBER} if there is none for this context.
+   */
+  public int get(int decision, int index, @Nullable ParserRuleContext outerContext, int precedence) {
+    long key = key(decision, index);
+    int mask = keys.length - 1;
+    for (int slot = slot(key, mask); alts[slot] != ATN.INVALID_ALT_NUMBER; slot = (slot + 1) & mask) {
+      if (keys[slot] == key) {
+        if (contexts[slot] == outerContext
+          && invokingStates[slot] == invokingState(outerContext)
+          && precedences[slot] == precedence) {
+          return alts[slot];
+        }
+        return ATN.INVALID_ALT_NUMBER;
+      }
+    }
+    return ATN.INVALID_ALT_NUMBER;
+  }
+
+  public void put(int decision, int index, @Nullable ParserRuleContext outerContext, int precedence, int alt) {
+    if (2 * (size + 1) > keys.length) {
+      grow();
+    }
+
+    long key = key(decision, index);
+    int mask = keys.length - 1;
+    int slot = slot(key, mask);
+    while (alts[slot] != ATN.INVALID_ALT_NUMBER && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+
+    if (alts[slot] == ATN.INVALID_ALT_NUMBER) {
+      size++;
+    }
+    keys[slot] = key;
+    contexts[slot] = outerContext;
+    invokingStates[slot] = invokingState(outerContext);
+    precedences[slot] = precedence;
+    alts[slot] = alt;
+  }
+
+  private void grow() {
+    long[] oldKeys = keys;
+    ParserRuleContext[] oldContexts = contexts;
+    int[] oldInvokingStates = invokingStates;
+    int[] oldPrecedences = precedences;
+    int[] oldAlts = alts;
+
+    int capacity = oldKeys.length * 2;
+    keys = new long[capacity];
+    contexts = new ParserRuleContext[capacity];
+    invokingStates = new int[capacity];
+    precedences = new int[capacity];
+    alts = new int[capacity];
+    int mask = capacity - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldAlts[i] == ATN.INVALID_ALT_NUMBER) {
+        continue;
+      }
+
+      int slot = slot(oldKeys[i], mask);
+      while (alts[slot] != ATN.INVALID_ALT_NUMBER) {
+        slot = (slot + 1) & mask;
+      }
+      keys[slot] = oldKeys[i];
+      contexts[slot] = oldContexts[i];
+      invokingStates[slot] = oldInvokingStates[i];
+      precedences[slot] = oldPrecedences[i];
+      alts[slot] = oldAlts[i];
+    }
+  }
+
+  private static long key(int decision, int index) {
+    return ((long) decision << 32) | (index & 0xFFFFFFFFL);
+  }
+
+  private static int slot(long key, int mask) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32)) & mask;
+  }
+
+  private static int invokingState(@Nullable ParserRuleContext outerContext) {
+    return outerContext != null ? outerContext.invokingState : ATNState.INVALID_STATE_NUMBER;
+  }
+}
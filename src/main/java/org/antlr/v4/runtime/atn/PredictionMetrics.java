@@ -0,0 +1,216 @@
+/*
+ * This file is a part of ANTLR.
+ *
+ * Copyright (c) 2012-2025 The ANTLR Project. All rights reserved.
+ * Copyright (c) 2025-2026 Valery Maximov <maximovvalery@gmail.com> and contributors
+ *
+ * Use of this file is governed by the BSD-3-Clause license that
+ * can be found in the LICENSE.txt file in the project root.
+ */
+package org.antlr.v4.runtime.atn;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per decision prediction counters which are cheap enough to leave enabled in production, see
+ * {@link ATN#setPredictionMetrics}.
+ *
+ * <p>
+ * Unlike {@link ProfilingATNSimulator}, the metrics do not replace the simulator and do not allocate per prediction.
+ * Every parser using the ATN adds to the same striped {@link LongAdder} counters, so a single instance describes all
+ * of them and can be scraped periodically with {@link #snapshot()} or {@link #snapshotAndReset()}.</p>
+ *
+ * <p>
+ * Prediction time is only measured for one prediction out of {@link #getTimingSampleInterval()} of each parser, and
+ * {@link DecisionMetrics#estimatedTimeNanos()} extrapolates it to all of them.</p>
+ */
+@NullMarked
+public final class PredictionMetrics {
+  /**
+   * The number of buckets of the lookahead depth histogram, see {@link #getLookaheadBucket}.
+   */
+  public static final int LOOKAHEAD_BUCKETS = 8;
+
+  private final int timingSampleInterval;
+  private final AtomicReferenceArray<@Nullable Counters> decisions;
+
+  /**
+   * Creates metrics for {@code decisions} decisions without timing.
+   */
+  public PredictionMetrics(int decisions) {
+    this(decisions, 0);
+  }
+
+  /**
+   * Creates metrics for {@code decisions} decisions, timing one prediction out of {@code timingSampleInterval} of each
+   * parser. An interval of {@code 0} disables timing.
+   */
+  public PredictionMetrics(int decisions, int timingSampleInterval) {
+    if (timingSampleInterval < 0) {
+      throw new IllegalArgumentException("timingSampleInterval must not be negative");
+    }
+
+    this.timingSampleInterval = timingSampleInterval;
+    this.decisions = new AtomicReferenceArray<>(decisions);
+  }
+
+  /**
+   * Gets the number of predictions per parser for each timed prediction, or {@code 0} if predictions are not timed.
+   */
+  public int getTimingSampleInterval() {
+    return timingSampleInterval;
+  }
+
+  /**
+   * Gets the histogram bucket of a prediction which looked at {@code depth} symbols. Bucket {@code i} counts the
+   * predictions with a depth from {@code 2^(i-1) + 1} to {@code 2^i}, so bucket {@code 0} holds the LL(1) predictions
+   * and the last bucket every depth above {@code 2^(LOOKAHEAD_BUCKETS - 2)}.
+   */
+  public static int getLookaheadBucket(int depth) {
+    if (depth <= 1) {
+      return 0;
+    }
+
+    return Math.min(Integer.SIZE - Integer.numberOfLeadingZeros(depth - 1), LOOKAHEAD_BUCKETS - 1);
+  }
+
+  void recordPrediction(int decision, boolean atnFallback, int depth) {
+    Counters counters = getCounters(decision);
+    counters.invocations.increment();
+    (atnFallback ? counters.atnFallbacks : counters.dfaHits).increment();
+    counters.lookahead[getLookaheadBucket(depth)].increment();
+  }
+
+  void recordFullContextPrediction(int decision) {
+    getCounters(decision).llEscalations.increment();
+  }
+
+  void recordTime(int decision, long nanos) {
+    Counters counters = getCounters(decision);
+    counters.timingSamples.increment();
+    counters.sampledTimeNanos.add(nanos);
+  }
+
+  /**
+   * Returns the current counters, indexed by decision number. Concurrent predictions may be partially included.
+   */
+  public DecisionMetrics[] snapshot() {
+    return snapshot(false);
+  }
+
+  /**
+   * Returns the current counters like {@link #snapshot()} and resets them, so the next snapshot only holds the
+   * predictions made in between.
+   */
+  public DecisionMetrics[] snapshotAndReset() {
+    return snapshot(true);
+  }
+
+  /**
+   * Resets all counters to zero.
+   */
+  public void reset() {
+    snapshot(true);
+  }
+
+  private DecisionMetrics[] snapshot(boolean reset) {
+    DecisionMetrics[] result = new DecisionMetrics[decisions.length()];
+    for (int i = 0; i < result.length; i++) {
+      Counters counters = decisions.get(i);
+      result[i] = counters != null ? counters.snapshot(i, reset) : DecisionMetrics.empty(i);
+    }
+
+    return result;
+  }
+
+  private Counters getCounters(int decision) {
+    Counters counters = decisions.get(decision);
+    if (counters == null) {
+      Counters created = new Counters();
+      counters = decisions.compareAndExchange(decision, null, created);
+      if (counters == null) {
+        counters = created;
+      }
+    }
+
+    return counters;
+  }
+
+  /**
+   * The counters of a decision, created on its first prediction.
+   */
+  private static final class Counters {
+    final LongAdder invocations = new LongAdder();
+    final LongAdder dfaHits = new LongAdder();
+    final LongAdder atnFallbacks = new LongAdder();
+    final LongAdder llEscalations = new LongAdder();
+    final LongAdder timingSamples = new LongAdder();
+    final LongAdder sampledTimeNanos = new LongAdder();
+    final LongAdder[] lookahead = new LongAdder[LOOKAHEAD_BUCKETS];
+
+    Counters() {
+      for (int i = 0; i < lookahead.length; i++) {
+        lookahead[i] = new LongAdder();
+      }
+    }
+
+    DecisionMetrics snapshot(int decision, boolean reset) {
+      long[] histogram = new long[lookahead.length];
+      for (int i = 0; i < histogram.length; i++) {
+        histogram[i] = sum(lookahead[i], reset);
+      }
+
+      return new DecisionMetrics(decision,
+        sum(invocations, reset),
+        sum(dfaHits, reset),
+        sum(atnFallbacks, reset),
+        sum(llEscalations, reset),
+        histogram,
+        sum(timingSamples, reset),
+        sum(sampledTimeNanos, reset));
+    }
+
+    private static long sum(LongAdder adder, boolean reset) {
+      return reset ? adder.sumThenReset() : adder.sum();
+    }
+  }
+
+  /**
+   * The counters of one decision at the time of a snapshot.
+   *
+   * @param decision           The decision number
+   * @param invocations        The number of predictions started by {@link ParserATNSimulator#adaptivePredict}
+   * @param dfaHits            The number of predictions answered without ATN simulation
+   * @param atnFallbacks       The number of predictions which simulated the ATN to extend the DFA
+   * @param llEscalations      The number of retries with the full parser context after an SLL conflict
+   * @param lookaheadHistogram The number of predictions by lookahead depth, see {@link #getLookaheadBucket}
+   * @param timingSamples      The number of timed predictions
+   * @param sampledTimeNanos   The total time of the timed predictions
+   */
+  public record DecisionMetrics(
+    int decision,
+    long invocations,
+    long dfaHits,
+    long atnFallbacks,
+    long llEscalations,
+    long[] lookaheadHistogram,
+    long timingSamples,
+    long sampledTimeNanos
+  ) {
+    static DecisionMetrics empty(int decision) {
+      return new DecisionMetrics(decision, 0, 0, 0, 0, new long[LOOKAHEAD_BUCKETS], 0, 0);
+    }
+
+    /**
+     * Gets the time spent in all predictions of the decision, extrapolated from the timed ones, or {@code 0} if none
+     * was timed.
+     */
+    public long estimatedTimeNanos() {
+      return timingSamples == 0 ? 0 : Math.round((double) sampledTimeNanos * invocations / timingSamples);
+    }
+  }
+}
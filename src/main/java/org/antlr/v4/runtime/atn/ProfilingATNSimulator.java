@@ -50,6 +50,11 @@ public class ProfilingATNSimulator extends ParserATNSimulator {
    */
   protected int conflictingAltResolvedBySLL;
 
+  /**
+   * Set when the current prediction was answered from the prediction memo, so it required no lookahead.
+   */
+  protected boolean memoHit;
+
   public ProfilingATNSimulator(Parser parser) {
     super(parser, parser.getInterpreter().atn);
     optimize_ll1 = false;
@@ -72,11 +77,15 @@ public class ProfilingATNSimulator extends ParserATNSimulator {
       this.currentDecision = decision;
       this.currentState = null;
       this.conflictingAltResolvedBySLL = ATN.INVALID_ALT_NUMBER;
+      this.memoHit = false;
       long start = System.nanoTime(); // expensive but useful info
       int alt = super.adaptivePredict(input, decision, outerContext);
       long stop = System.nanoTime();
       decisions[decision].timeInPrediction += (stop - start);
       decisions[decision].invocations++;
+      if (memoHit) {
+        return alt;
+      }
 
       int SLL_k = _sllStopIndex - _startIndex + 1;
       decisions[decision].SLL_TotalLook += SLL_k;
@@ -107,6 +116,17 @@ public class ProfilingATNSimulator extends ParserATNSimulator {
     }
   }
 
+  @Override
+  protected void reportPredictionMemoLookup(int decision, boolean hit) {
+    if (hit) {
+      memoHit = true;
+      decisions[decision].memoHits++;
+    } else {
+      decisions[decision].memoMisses++;
+    }
+    super.reportPredictionMemoLookup(decision, hit);
+  }
+
   @Override
   protected SimulatorState getStartState(DFA dfa,
                                          TokenStream input,
@@ -142,7 +162,7 @@ public class ProfilingATNSimulator extends ParserATNSimulator {
   }
 
   @Override
-  protected DFAState getExistingTargetState(DFAState previousD, int t) {
+  protected DFAState getExistingTargetState(DFA dfa, DFAState previousD, int t) {
     // this method is called after each time the input position advances
     if (currentState.useContext) {
       _llStopIndex = _input.index();
@@ -150,7 +170,7 @@ public class ProfilingATNSimulator extends ParserATNSimulator {
       _sllStopIndex = _input.index();
     }
 
-    DFAState existingTargetState = super.getExistingTargetState(previousD, t);
+    DFAState existingTargetState = super.getExistingTargetState(dfa, previousD, t);
     if (existingTargetState != null) {
       // this method is directly called by execDFA; must construct a SimulatorState
       // to represent the current state for this case
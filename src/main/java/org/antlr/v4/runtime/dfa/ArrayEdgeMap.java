@@ -16,7 +16,6 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
@@ -86,13 +85,12 @@ public final class ArrayEdgeMap<T> extends AbstractEdgeMap<T> {
 
     if (m instanceof HashEdgeMap<?>) {
       HashEdgeMap<? extends T> other = (HashEdgeMap<? extends T>) m;
-      AtomicIntegerArray keys = other.getKeys();
-      T[] values = other.getValues();
+      AtomicReferenceArray<? extends HashEdgeMap.Entry<? extends T>> entries = other.getEntries();
       ArrayEdgeMap<T> result = this;
-      for (int i = 0; i < values.length; i++) {
-        T value = values[i];
-        if (value != null) {
-          result = result.put(keys.get(i), value);
+      for (int i = 0; i < entries.length(); i++) {
+        HashEdgeMap.Entry<? extends T> entry = entries.get(i);
+        if (entry != null) {
+          result = result.put(entry.key, entry.value);
         }
       }
 
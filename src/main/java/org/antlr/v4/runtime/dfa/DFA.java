@@ -15,6 +15,7 @@ import org.antlr.v4.runtime.Vocabulary;
 import org.antlr.v4.runtime.VocabularyImpl;
 import org.antlr.v4.runtime.atn.ATN;
 import org.antlr.v4.runtime.atn.ATNConfigSet;
+import org.antlr.v4.runtime.atn.ATNSimulator;
 import org.antlr.v4.runtime.atn.ATNState;
 import org.antlr.v4.runtime.atn.ATNType;
 import org.antlr.v4.runtime.atn.LexerATNSimulator;
@@ -23,6 +24,10 @@ import org.antlr.v4.runtime.atn.TokensStartState;
 import org.antlr.v4.runtime.misc.NotNull;
 import org.antlr.v4.runtime.misc.Nullable;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -116,6 +121,31 @@ public class DFA {
    */
   private final boolean precedenceDfa;
 
+  /**
+   * The number of consecutive edge lookups which an auto-freezing DFA must
+   * answer from its mutable states before it is frozen. The threshold doubles
+   * each time the DFA thaws, so a DFA which keeps growing is not frozen over
+   * and over again.
+   */
+  private static final int AUTO_FREEZE_THRESHOLD = 10_000;
+
+  private static final int MAX_AUTO_FREEZE_THRESHOLD = 1 << 24;
+
+  /**
+   * The read-only snapshot created by {@link #freeze()}, or {@code null}.
+   *
+   * <p>This field and the auto-freeze counters are deliberately not volatile.
+   * A snapshot only has final fields, so a thread which sees it sees it
+   * completely; a thread which still uses a snapshot after another thread
+   * thawed the DFA only finds edges which are still valid.</p>
+   */
+  @Nullable
+  private FrozenDFA frozen;
+
+  private boolean autoFreeze;
+  private int autoFreezeThreshold = AUTO_FREEZE_THRESHOLD;
+  private int warmLookups;
+
   /**
    * Constructs a {@link DFA} instance associated with a lexer mode.
    *
@@ -168,6 +198,7 @@ public class DFA {
     }
 
     this.precedenceDfa = isPrecedenceDfa;
+    this.autoFreeze = atnStartState.atn.isAutoFreezeDFA();
   }
 
   /**
@@ -287,7 +318,7 @@ public class DFA {
    * @throws IllegalStateException if this is not a precedence DFA.
    * @see #isPrecedenceDfa()
    */
-  @SuppressWarnings({"SynchronizeOnNonFinalField", "null"})
+  @SuppressWarnings("null")
   public final void setPrecedenceStartState(int precedence, boolean fullContext, DFAState startState) {
     if (!isPrecedenceDfa()) {
       throw new IllegalStateException("Only precedence DFAs may contain a precedence start state.");
@@ -297,16 +328,12 @@ public class DFA {
       return;
     }
 
+    // s0.get() and s0full.get() are never null for a precedence DFA; the
+    // edge update itself is atomic, see DFAState#setTarget
     if (fullContext) {
-      synchronized (s0full) {
-        // s0full.get() is never null for a precedence DFA
-        s0full.get().setTarget(precedence, startState);
-      }
+      s0full.get().setTarget(precedence, startState);
     } else {
-      synchronized (s0) {
-        // s0.get() is never null for a precedence DFA
-        s0.get().setTarget(precedence, startState);
-      }
+      s0.get().setTarget(precedence, startState);
     }
   }
 
@@ -333,9 +360,190 @@ public class DFA {
       return existing;
     }
 
+    if (frozen != null) {
+      thaw();
+    }
+
+    warmLookups = 0;
     return state;
   }
 
+  /**
+   * Get the target of the edge for {@code symbol} leaving {@code s}, or
+   * {@code null} if the edge was not computed yet.
+   *
+   * <p>A frozen DFA answers from its snapshot. An edge which is missing from
+   * the snapshot thaws the DFA, and the edge is then looked up in, and later
+   * added to, the mutable states as usual.</p>
+   *
+   * @param s      A state of this DFA.
+   * @param symbol The input symbol.
+   * @see #freeze()
+   */
+  @Nullable
+  public DFAState getTarget(@NotNull DFAState s, int symbol) {
+    FrozenDFA snapshot = frozen;
+    if (snapshot != null) {
+      int index = s.frozenIndex;
+      if (index >= 0 && index < snapshot.states.length && snapshot.states[index] == s) {
+        int target = snapshot.getTarget(index, symbol);
+        if (target > 0) {
+          return snapshot.states[target - 1];
+        } else if (target == FrozenDFA.ERROR) {
+          return ATNSimulator.ERROR;
+        }
+
+        // symbols outside the edge range are never stored, so they do not make the snapshot stale
+        if (symbol >= minDfaEdge && symbol <= maxDfaEdge) {
+          thaw();
+        }
+      }
+
+      return s.getTarget(symbol);
+    }
+
+    DFAState target = s.getTarget(symbol);
+    if (autoFreeze && target != null && ++warmLookups >= autoFreezeThreshold) {
+      freeze();
+    }
+
+    return target;
+  }
+
+  /**
+   * Gets whether this DFA currently serves edge lookups from a read-only
+   * snapshot.
+   *
+   * @see #freeze()
+   */
+  public final boolean isFrozen() {
+    return frozen != null;
+  }
+
+  /**
+   * Compact the states of this DFA and their edges into a read-only snapshot
+   * of primitive arrays, which {@link #getTarget(DFAState, int)} then uses
+   * instead of the edge maps of the individual states.
+   *
+   * <p>Freezing is meant for a DFA which has stopped growing, e.g. after a
+   * warm-up parse. The mutable states are kept, so the first lookup of an
+   * edge which is not in the snapshot thaws the DFA and prediction continues
+   * to extend it as usual. Context edges and the precedence start states are
+   * always looked up in the mutable states.</p>
+   *
+   * <p>Prediction never extends a parser state which accepts a unique
+   * alternative without conflict or predicates, so freezing replaces each
+   * such state by one holding the {@link ATNConfigSet#compact() compacted}
+   * configurations, which releases most of the memory of a warm DFA.</p>
+   *
+   * @see #setAutoFreeze(boolean)
+   */
+  public synchronized void freeze() {
+    if (atnStartState.atn.grammarType != ATNType.LEXER) {
+      compactAcceptStates();
+    }
+
+    DFAState[] snapshot = states.values().toArray(new DFAState[0]);
+    for (int i = 0; i < snapshot.length; i++) {
+      snapshot[i].frozenIndex = i;
+    }
+
+    frozen = new FrozenDFA(snapshot);
+  }
+
+  /**
+   * Replace the final accept states of this parser DFA by states holding
+   * compacted configurations, and redirect the edges leading to them. A
+   * thread which still holds a replaced state predicts the same way from it.
+   */
+  private void compactAcceptStates() {
+    Set<DFAState> startStates = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (DFAState start : new DFAState[]{s0.get(), s0full.get()}) {
+      if (start != null) {
+        startStates.add(start);
+        if (isPrecedenceDfa()) {
+          startStates.addAll(start.getEdgeMap().values());
+        }
+      }
+    }
+
+    Map<DFAState, DFAState> replacements = new IdentityHashMap<>();
+    for (DFAState state : states.values()) {
+      ATNConfigSet configs = state.configs;
+      if (!state.isAcceptState()
+        || state.predicates != null
+        || state.isContextSensitive()
+        || !state.getEdgeMap().isEmpty()
+        || startStates.contains(state)
+        || configs.isCompacted()
+        || configs.getUniqueAlt() == ATN.INVALID_ALT_NUMBER
+        || configs.getConflictInfo() != null
+        || configs.hasSemanticContext()) {
+        continue;
+      }
+
+      DFAState compacted = new DFAState(this, configs.compact());
+      compacted.stateNumber = state.stateNumber;
+      compacted.setAcceptState(state.getAcceptStateInfo());
+      states.remove(state, state);
+      DFAState existing = states.putIfAbsent(compacted, compacted);
+      replacements.put(state, existing != null ? existing : compacted);
+    }
+
+    if (replacements.isEmpty()) {
+      return;
+    }
+
+    List<DFAState> sources = new ArrayList<>(states.values());
+    sources.addAll(startStates);
+    for (DFAState source : sources) {
+      for (Map.Entry<Integer, DFAState> edge : source.getEdgeMap().entrySet()) {
+        DFAState target = replacements.get(edge.getValue());
+        if (target != null) {
+          source.setTarget(edge.getKey(), target);
+        }
+      }
+
+      for (Map.Entry<Integer, DFAState> edge : source.getContextEdgeMap().entrySet()) {
+        DFAState target = replacements.get(edge.getValue());
+        if (target != null) {
+          source.setContextTarget(edge.getKey(), target);
+        }
+      }
+    }
+  }
+
+  /**
+   * Drop the snapshot created by {@link #freeze()}; does nothing if this DFA
+   * is not frozen.
+   */
+  public void thaw() {
+    if (frozen == null) {
+      return;
+    }
+
+    frozen = null;
+    warmLookups = 0;
+    if (autoFreezeThreshold < MAX_AUTO_FREEZE_THRESHOLD) {
+      autoFreezeThreshold <<= 1;
+    }
+  }
+
+  public final boolean isAutoFreeze() {
+    return autoFreeze;
+  }
+
+  /**
+   * Sets whether this DFA freezes itself once {@value #AUTO_FREEZE_THRESHOLD}
+   * consecutive edge lookups found an existing edge. Defaults to
+   * {@link ATN#isAutoFreezeDFA()} of the ATN.
+   *
+   * @see #freeze()
+   */
+  public final void setAutoFreeze(boolean autoFreeze) {
+    this.autoFreeze = autoFreeze;
+  }
+
   @Override
   public String toString() {
     return toString(VocabularyImpl.EMPTY_VOCABULARY);
@@ -24,6 +24,7 @@ import java.util.BitSet;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
  * A DFA state represents a set of possible ATN configurations.
@@ -51,8 +52,24 @@ import java.util.Map;
  * meaning that state was reached via a different set of rule invocations.</p>
  */
 public class DFAState {
+  @SuppressWarnings("rawtypes")
+  private static final AtomicReferenceFieldUpdater<DFAState, AbstractEdgeMap> EDGES =
+    AtomicReferenceFieldUpdater.newUpdater(DFAState.class, AbstractEdgeMap.class, "edges");
+  @SuppressWarnings("rawtypes")
+  private static final AtomicReferenceFieldUpdater<DFAState, AbstractEdgeMap> CONTEXT_EDGES =
+    AtomicReferenceFieldUpdater.newUpdater(DFAState.class, AbstractEdgeMap.class, "contextEdges");
+  private static final AtomicReferenceFieldUpdater<DFAState, BitSet> CONTEXT_SYMBOLS =
+    AtomicReferenceFieldUpdater.newUpdater(DFAState.class, BitSet.class, "contextSymbols");
+
   public int stateNumber = -1;
 
+  /**
+   * The number of this state in the latest {@link FrozenDFA} snapshot of its
+   * DFA, or {@code -1}. A stale value is harmless since readers check that the
+   * snapshot holds this state at that number.
+   */
+  int frozenIndex = -1;
+
   @NotNull
   public final ATNConfigSet configs;
 
@@ -74,7 +91,7 @@ public class DFAState {
    * Symbols in this set require a global context transition before matching an input symbol.
    */
   @Nullable
-  private BitSet contextSymbols;
+  private volatile BitSet contextSymbols;
 
   /**
    * This list is computed by {@link ParserATNSimulator#predicateDFAState}.
@@ -174,11 +191,7 @@ public class DFAState {
       return;
     }
 
-    synchronized (this) {
-      if (contextSymbols == null) {
-        contextSymbols = new BitSet();
-      }
-    }
+    CONTEXT_SYMBOLS.compareAndSet(this, null, new BitSet());
   }
 
   public final AcceptStateInfo getAcceptStateInfo() {
@@ -214,14 +227,20 @@ public class DFAState {
   }
 
   public void setTarget(int symbol, DFAState target) {
-    edges = edges.put(symbol, target);
+    while (true) {
+      AbstractEdgeMap<DFAState> current = edges;
+      AbstractEdgeMap<DFAState> updated = current.put(symbol, target);
+      if (updated == current || EDGES.compareAndSet(this, current, updated)) {
+        return;
+      }
+    }
   }
 
   public Map<Integer, DFAState> getEdgeMap() {
     return edges.toMap();
   }
 
-  public synchronized DFAState getContextTarget(int invokingState) {
+  public DFAState getContextTarget(int invokingState) {
     if (invokingState == PredictionContext.EMPTY_FULL_STATE_KEY) {
       invokingState = -1;
     }
@@ -229,7 +248,7 @@ public class DFAState {
     return contextEdges.get(invokingState);
   }
 
-  public synchronized void setContextTarget(int invokingState, DFAState target) {
+  public void setContextTarget(int invokingState, DFAState target) {
     if (!isContextSensitive()) {
       throw new IllegalStateException("The state is not context sensitive.");
     }
@@ -238,7 +257,13 @@ public class DFAState {
       invokingState = -1;
     }
 
-    contextEdges = contextEdges.put(invokingState, target);
+    while (true) {
+      AbstractEdgeMap<DFAState> current = contextEdges;
+      AbstractEdgeMap<DFAState> updated = current.put(invokingState, target);
+      if (updated == current || CONTEXT_EDGES.compareAndSet(this, current, updated)) {
+        return;
+      }
+    }
   }
 
   public Map<Integer, DFAState> getContextEdgeMap() {
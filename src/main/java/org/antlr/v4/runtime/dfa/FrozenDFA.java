@@ -0,0 +1,105 @@
+/*
+ * This file is a part of ANTLR.
+ *
+ * Copyright (c) 2012-2025 The ANTLR Project. All rights reserved.
+ * Copyright (c) 2025-2026 Valery Maximov <maximovvalery@gmail.com> and contributors
+ *
+ * Use of this file is governed by the BSD-3-Clause license that
+ * can be found in the LICENSE.txt file in the project root.
+ */
+package org.antlr.v4.runtime.dfa;
+
+import org.antlr.v4.runtime.atn.ATNSimulator;
+
+import java.util.Map;
+
+/**
+ * A read-only snapshot of the symbol edges of a {@link DFA}, see {@link DFA#freeze()}.
+ *
+ * <p>
+ * The states are numbered densely. The outgoing edges of state {@code i} are
+ * stored in {@link #transitions} as one row covering the symbols from
+ * {@code rows[3 * i + 1]} to {@code rows[3 * i + 2]}, starting at offset
+ * {@code rows[3 * i]}. An element holds the number of the target state plus
+ * one, {@link #ERROR} for an edge to {@link ATNSimulator#ERROR}, or
+ * {@link #MISSING}.</p>
+ *
+ * <p>
+ * All fields are final and never modified after construction, so a snapshot
+ * can be read by any thread without synchronization.</p>
+ */
+final class FrozenDFA {
+  static final int MISSING = 0;
+  static final int ERROR = -1;
+
+  final DFAState[] states;
+  private final int[] rows;
+  private final int[] transitions;
+
+  /**
+   * Creates the snapshot of {@code states}, numbering each state by its
+   * position. The {@link DFAState#frozenIndex} of each state must already be
+   * set to that position. Edges to states which are not part of the snapshot
+   * are left {@link #MISSING}.
+   */
+  FrozenDFA(DFAState[] states) {
+    this.states = states;
+    this.rows = new int[3 * states.length];
+
+    @SuppressWarnings("unchecked")
+    Map<Integer, DFAState>[] edges = new Map[states.length];
+    int size = 0;
+    for (int i = 0; i < states.length; i++) {
+      edges[i] = states[i].getEdgeMap();
+      int min = Integer.MAX_VALUE;
+      int max = Integer.MIN_VALUE;
+      for (int symbol : edges[i].keySet()) {
+        min = Math.min(min, symbol);
+        max = Math.max(max, symbol);
+      }
+
+      if (min > max) {
+        min = 0;
+        max = -1;
+      }
+
+      rows[3 * i] = size;
+      rows[3 * i + 1] = min;
+      rows[3 * i + 2] = max;
+      size += max - min + 1;
+    }
+
+    this.transitions = new int[size];
+    for (int i = 0; i < states.length; i++) {
+      int offset = rows[3 * i] - rows[3 * i + 1];
+      for (Map.Entry<Integer, DFAState> edge : edges[i].entrySet()) {
+        transitions[offset + edge.getKey()] = encode(edge.getValue());
+      }
+    }
+  }
+
+  /**
+   * Returns the encoded target of the edge for {@code symbol} leaving state {@code index}.
+   */
+  int getTarget(int index, int symbol) {
+    int row = 3 * index;
+    if (symbol < rows[row + 1] || symbol > rows[row + 2]) {
+      return MISSING;
+    }
+
+    return transitions[rows[row] + symbol - rows[row + 1]];
+  }
+
+  private int encode(DFAState target) {
+    if (target == ATNSimulator.ERROR) {
+      return ERROR;
+    }
+
+    int index = target.frozenIndex;
+    if (index >= 0 && index < states.length && states[index] == target) {
+      return index + 1;
+    }
+
+    return MISSING;
+  }
+}
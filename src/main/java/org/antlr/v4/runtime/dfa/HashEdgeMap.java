@@ -15,46 +15,44 @@ import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
-import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
+ * A small open-addressing edge map without probing: a key lives in the bucket
+ * {@code key & (capacity - 1)} and a collision produces a larger copy.
+ *
+ * <p>Each bucket holds an immutable {@link Entry}, so readers always see a
+ * matching key and value, and writers install entries with compare-and-set
+ * instead of locking the map. An edge written to a map while another thread
+ * copies it may be lost, which only costs recomputing that edge.</p>
+ *
  * @author Sam Harwell
  */
 public final class HashEdgeMap<T> extends AbstractEdgeMap<T> {
   private static final int DEFAULT_MAX_SIZE = 2;
 
-  private final AtomicIntegerArray keys;
-  private final T[] values;
+  private final AtomicReferenceArray<Entry<T>> entries;
 
   public HashEdgeMap(int minIndex, int maxIndex) {
     this(minIndex, maxIndex, DEFAULT_MAX_SIZE);
   }
 
-  @SuppressWarnings("unchecked")
   public HashEdgeMap(int minIndex, int maxIndex, int maxSparseSize) {
     super(minIndex, maxIndex);
-    this.keys = new AtomicIntegerArray(maxSparseSize);
-    this.values = (T[]) new Object[maxSparseSize];
+    this.entries = new AtomicReferenceArray<>(maxSparseSize);
   }
 
-  @SuppressWarnings("unchecked")
   private HashEdgeMap(@NotNull HashEdgeMap<T> map, int maxSparseSize) {
     super(map.minIndex, map.maxIndex);
-    synchronized (map) {
-      if (maxSparseSize < map.values.length) {
-        throw new IllegalArgumentException();
-      }
+    if (maxSparseSize < map.entries.length()) {
+      throw new IllegalArgumentException();
+    }
 
-      keys = new AtomicIntegerArray(maxSparseSize);
-      values = (T[]) new Object[maxSparseSize];
-      for (int i = 0; i < map.values.length; i++) {
-        int key = map.keys.get(i);
-        T value = map.values[i];
-        if (value != null) {
-          int bucket = bucket(key);
-          keys.set(bucket, key);
-          values[bucket] = value;
-        }
+    entries = new AtomicReferenceArray<>(maxSparseSize);
+    for (int i = 0; i < map.entries.length(); i++) {
+      Entry<T> entry = map.entries.get(i);
+      if (entry != null) {
+        entries.set(bucket(entry.key), entry);
       }
     }
   }
@@ -68,24 +66,19 @@ public final class HashEdgeMap<T> extends AbstractEdgeMap<T> {
   private int bucket(int key) {
     // Note: this returns a valid array index even if key is outside the
     // allowed range or the minIndex is negative.
-    return key & (values.length - 1);
+    return key & (entries.length() - 1);
   }
 
   @NotNull
-    /*package*/ AtomicIntegerArray getKeys() {
-    return keys;
-  }
-
-  @NotNull
-    /*package*/ T[] getValues() {
-    return values;
+    /*package*/ AtomicReferenceArray<Entry<T>> getEntries() {
+    return entries;
   }
 
   @Override
   public int size() {
     int size = 0;
-    for (T edge : values) {
-      if (edge != null) {
+    for (int i = 0; i < entries.length(); i++) {
+      if (entries.get(i) != null) {
         size++;
       }
     }
@@ -105,15 +98,12 @@ public final class HashEdgeMap<T> extends AbstractEdgeMap<T> {
 
   @Override
   public T get(int key) {
-    int bucket = bucket(key);
-
-    // Read the value first
-    T value = values[bucket];
-    if (value == null || keys.get(bucket) != key) {
+    Entry<T> entry = entries.get(bucket(key));
+    if (entry == null || entry.key != key) {
       return null;
     }
 
-    return value;
+    return entry.value;
   }
 
   @Override
@@ -126,43 +116,41 @@ public final class HashEdgeMap<T> extends AbstractEdgeMap<T> {
       return remove(key);
     }
 
-    synchronized (this) {
-      int bucket = bucket(key);
-      int currentKey = keys.get(bucket);
-      if (currentKey == key) {
-        values[bucket] = value;
-        return this;
+    int bucket = bucket(key);
+    Entry<T> entry = new Entry<>(key, value);
+    Entry<T> current;
+    while (true) {
+      current = entries.get(bucket);
+      if (current != null && current.key != key) {
+        break;
       }
 
-      T currentValue = values[bucket];
-      if (currentValue == null) {
-        // Write the key first
-        keys.set(bucket, key);
-        values[bucket] = value;
+      if (entries.compareAndSet(bucket, current, entry)) {
         return this;
       }
+    }
 
-      // Resize on collision
-      int newSize = values.length;
-      while (true) {
-        newSize *= 2;
-        if (newSize >= (maxIndex - minIndex + 1) / 2) {
-          ArrayEdgeMap<T> arrayMap = new ArrayEdgeMap<>(minIndex, maxIndex);
-          arrayMap = arrayMap.putAll(this);
-          arrayMap.put(key, value);
-          return arrayMap;
-        }
-
-        // Check for another collision
-        if (bucket(newSize, currentKey) != bucket(newSize, key)) {
-          break;
-        }
+    // Resize on collision
+    int currentKey = current.key;
+    int newSize = entries.length();
+    while (true) {
+      newSize *= 2;
+      if (newSize >= (maxIndex - minIndex + 1) / 2) {
+        ArrayEdgeMap<T> arrayMap = new ArrayEdgeMap<>(minIndex, maxIndex);
+        arrayMap = arrayMap.putAll(this);
+        arrayMap.put(key, value);
+        return arrayMap;
       }
 
-      HashEdgeMap<T> resized = new HashEdgeMap<>(this, newSize);
-      resized.put(key, value);
-      return resized;
+      // Check for another collision
+      if (bucket(newSize, currentKey) != bucket(newSize, key)) {
+        break;
+      }
     }
+
+    HashEdgeMap<T> resized = new HashEdgeMap<>(this, newSize);
+    resized.put(key, value);
+    return resized;
   }
 
   @Override
@@ -171,10 +159,8 @@ public final class HashEdgeMap<T> extends AbstractEdgeMap<T> {
       return this;
     }
 
-    HashEdgeMap<T> result = new HashEdgeMap<>(this, values.length);
-    int bucket = result.bucket(key);
-    result.keys.set(bucket, 0);
-    result.values[bucket] = null;
+    HashEdgeMap<T> result = new HashEdgeMap<>(this, entries.length());
+    result.entries.set(result.bucket(key), null);
     return result;
   }
 
@@ -193,22 +179,30 @@ public final class HashEdgeMap<T> extends AbstractEdgeMap<T> {
       return Collections.emptyMap();
     }
 
-    synchronized (this) {
-      Map<Integer, T> result = new TreeMap<>();
-      for (int i = 0; i < values.length; i++) {
-        int key = keys.get(i);
-        T value = values[i];
-        if (value != null) {
-          result.put(key, value);
-        }
+    Map<Integer, T> result = new TreeMap<>();
+    for (int i = 0; i < entries.length(); i++) {
+      Entry<T> entry = entries.get(i);
+      if (entry != null) {
+        result.put(entry.key, entry.value);
       }
-
-      return result;
     }
+
+    return result;
   }
 
   @Override
   public Set<Map.Entry<Integer, T>> entrySet() {
     return toMap().entrySet();
   }
+
+  /*package*/ static final class Entry<T> {
+    final int key;
+    @NotNull
+    final T value;
+
+    Entry(int key, @NotNull T value) {
+      this.key = key;
+      this.value = value;
+    }
+  }
 }
@@ -0,0 +1,49 @@
+/*
+ * This file is a part of ANTLR.
+ *
+ * Copyright (c) 2012-2025 The ANTLR Project. All rights reserved.
+ * Copyright (c) 2025-2026 Valery Maximov <maximovvalery@gmail.com> and contributors
+ *
+ * Use of this file is governed by the BSD-3-Clause license that
+ * can be found in the LICENSE.txt file in the project root.
+ */
+package org.antlr.v4.runtime.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * A parser prediction or a lexer match which added states to a DFA. Many of these in a short time mark the warm-up of
+ * a grammar, or input which keeps taking paths the DFA has not seen yet.
+ */
+@Name("org.antlr.v4.DFAUpdate")
+@Label("DFA Update")
+@Category({"ANTLR", "Prediction"})
+@Description("Parser prediction or lexer match which added states to a DFA")
+@Enabled(false)
+@StackTrace(false)
+public final class DFAUpdateEvent extends Event {
+  @Label("Grammar")
+  public @Nullable String grammar;
+
+  @Label("Lexer")
+  @Description("Whether the DFA is the DFA of a lexer mode")
+  public boolean lexer;
+
+  @Label("Decision")
+  @Description("The parser decision or the lexer mode")
+  public int decision;
+
+  @Label("States Created")
+  public int statesCreated;
+
+  @Label("DFA Size")
+  @Description("Number of states of the DFA after the update")
+  public int dfaSize;
+}
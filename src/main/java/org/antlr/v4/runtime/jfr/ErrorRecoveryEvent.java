@@ -0,0 +1,44 @@
+/*
+ * This file is a part of ANTLR.
+ *
+ * Copyright (c) 2012-2025 The ANTLR Project. All rights reserved.
+ * Copyright (c) 2025-2026 Valery Maximov <maximovvalery@gmail.com> and contributors
+ *
+ * Use of this file is governed by the BSD-3-Clause license that
+ * can be found in the LICENSE.txt file in the project root.
+ */
+package org.antlr.v4.runtime.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * An error recovery episode of a parser, from the first syntax error until a token is matched again.
+ */
+@Name("org.antlr.v4.ErrorRecovery")
+@Label("Error Recovery")
+@Category({"ANTLR", "Parser"})
+@Description("Parser error recovery from a syntax error until a token is matched again")
+@Enabled(false)
+@StackTrace(false)
+public final class ErrorRecoveryEvent extends Event {
+  @Label("Grammar")
+  public @Nullable String grammar;
+
+  @Label("Rule")
+  @Description("The rule which reported the first error")
+  public @Nullable String rule;
+
+  @Label("Start Token Index")
+  public int startTokenIndex;
+
+  @Label("Tokens")
+  @Description("Number of tokens consumed during recovery")
+  public int tokens;
+}
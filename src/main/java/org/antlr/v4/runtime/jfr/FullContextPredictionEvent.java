@@ -0,0 +1,49 @@
+/*
+ * This file is a part of ANTLR.
+ *
+ * Copyright (c) 2012-2025 The ANTLR Project. All rights reserved.
+ * Copyright (c) 2025-2026 Valery Maximov <maximovvalery@gmail.com> and contributors
+ *
+ * Use of this file is governed by the BSD-3-Clause license that
+ * can be found in the LICENSE.txt file in the project root.
+ */
+package org.antlr.v4.runtime.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * A prediction which fell back to full-context LL after an SLL conflict.
+ */
+@Name("org.antlr.v4.FullContextPrediction")
+@Label("Full-Context Prediction")
+@Category({"ANTLR", "Prediction"})
+@Description("Prediction retried with the full parser context after an SLL conflict")
+@Enabled(false)
+@StackTrace(false)
+public final class FullContextPredictionEvent extends Event {
+  @Label("Grammar")
+  public @Nullable String grammar;
+
+  @Label("Decision")
+  public int decision;
+
+  @Label("Rule")
+  public @Nullable String rule;
+
+  @Label("Start Index")
+  public int startIndex;
+
+  @Label("SLL Lookahead")
+  @Description("Number of tokens examined before the SLL conflict")
+  public int sllLookahead;
+
+  @Label("Prediction")
+  public int prediction;
+}
@@ -0,0 +1,51 @@
+/*
+ * This file is a part of ANTLR.
+ *
+ * Copyright (c) 2012-2025 The ANTLR Project. All rights reserved.
+ * Copyright (c) 2025-2026 Valery Maximov <maximovvalery@gmail.com> and contributors
+ *
+ * Use of this file is governed by the BSD-3-Clause license that
+ * can be found in the LICENSE.txt file in the project root.
+ */
+package org.antlr.v4.runtime.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Percentage;
+import jdk.jfr.StackTrace;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * The reuse of the previous parse tree by an incremental parse.
+ */
+@Name("org.antlr.v4.IncrementalReparse")
+@Label("Incremental Reparse")
+@Category({"ANTLR", "Parser"})
+@Description("Rule contexts and tokens an incremental parse took over from the previous parse")
+@Enabled(false)
+@StackTrace(false)
+public final class IncrementalReparseEvent extends Event {
+  @Label("Grammar")
+  public @Nullable String grammar;
+
+  @Label("Reused Contexts")
+  public int reusedContexts;
+
+  @Label("Reparsed Contexts")
+  @Description("Number of rule contexts which could not be reused")
+  public int reparsedContexts;
+
+  @Label("Reused Tokens")
+  public int reusedTokens;
+
+  @Label("Tokens")
+  public int tokens;
+
+  @Label("Reuse Ratio")
+  @Percentage
+  public double reuseRatio;
+}
@@ -0,0 +1,46 @@
+/*
+ * This file is a part of ANTLR.
+ *
+ * Copyright (c) 2012-2025 The ANTLR Project. All rights reserved.
+ * Copyright (c) 2025-2026 Valery Maximov <maximovvalery@gmail.com> and contributors
+ *
+ * Use of this file is governed by the BSD-3-Clause license that
+ * can be found in the LICENSE.txt file in the project root.
+ */
+package org.antlr.v4.runtime.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * The parse of one input, from the entry of the start rule to its exit.
+ */
+@Name("org.antlr.v4.Parse")
+@Label("Parse")
+@Category({"ANTLR", "Parser"})
+@Description("Parse of an input from the entry of the start rule to its exit")
+@Enabled(false)
+@StackTrace(false)
+public final class ParseEvent extends Event {
+  @Label("Grammar")
+  public @Nullable String grammar;
+
+  @Label("Start Rule")
+  public @Nullable String startRule;
+
+  @Label("Start Token Index")
+  public int startTokenIndex;
+
+  @Label("Tokens")
+  @Description("Number of tokens consumed by the parse, not counting the EOF it matched")
+  public int tokens;
+
+  @Label("Syntax Errors")
+  public int syntaxErrors;
+}
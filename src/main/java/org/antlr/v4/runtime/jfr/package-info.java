@@ -0,0 +1,21 @@
+/*
+ * This file is a part of ANTLR.
+ *
+ * Copyright (c) 2012-2025 The ANTLR Project. All rights reserved.
+ * Copyright (c) 2025-2026 Valery Maximov <maximovvalery@gmail.com> and contributors
+ *
+ * Use of this file is governed by the BSD-3-Clause license that
+ * can be found in the LICENSE.txt file in the project root.
+ */
+/**
+ * Java Flight Recorder events of the runtime.
+ *
+ * <p>
+ * All events are disabled by default. A disabled event is never committed, and while no recording is running the JIT
+ * removes the event objects, so the instrumentation costs nothing in production until it is enabled, for example with
+ * {@code -XX:StartFlightRecording:+org.antlr.v4.Parse#enabled=true} or a custom {@code .jfc} settings file.</p>
+ */
+@NullMarked
+package org.antlr.v4.runtime.jfr;
+
+import org.jspecify.annotations.NullMarked;
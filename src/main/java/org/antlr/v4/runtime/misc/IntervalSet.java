@@ -9,16 +9,15 @@
  */
 package org.antlr.v4.runtime.misc;
 
-import lombok.Getter;
 import org.antlr.v4.runtime.Lexer;
 import org.antlr.v4.runtime.Token;
 import org.antlr.v4.runtime.Vocabulary;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
-import java.util.ListIterator;
+import java.util.Objects;
 import java.util.Set;
 
 /**
@@ -29,12 +28,20 @@ import java.util.Set;
  * the set { 1, 2, 3, 4, 7, 8 } may be represented as { [1, 4], [7, 8] }.
  *
  * <p>
+ * The intervals are packed into a single {@code int[]} as {@code a, b} pairs,
+ * so membership tests, iteration and set algebra work on primitive values
+ * without allocating {@link Interval} objects. {@link #add}, {@link #addAll}
+ * and {@link #retainAll} update the set in place.</p>
+ *
+ * <p>
  * This class is able to represent sets containing any combination of values in
  * the range {@link Integer#MIN_VALUE} to {@link Integer#MAX_VALUE}
  * (inclusive).</p>
  */
-@Getter
 public class IntervalSet implements IntSet {
+  // must be initialized before the constant sets below
+  private static final int[] EMPTY_RANGES = new int[0];
+
   public static final IntervalSet COMPLETE_CHAR_SET = IntervalSet.of(Lexer.MIN_CHAR_VALUE, Lexer.MAX_CHAR_VALUE);
 
   static {
@@ -48,26 +55,33 @@ public class IntervalSet implements IntSet {
   }
 
   /**
-   * The list of sorted, disjoint intervals.
+   * The sorted, disjoint and non-adjacent intervals; interval {@code i} is
+   * {@code ranges[2 * i]..ranges[2 * i + 1]}. Only the first
+   * {@link #intervalCount} pairs are used.
    */
-  protected List<Interval> intervals;
+  protected int[] ranges;
+
+  protected int intervalCount;
 
   protected boolean readonly;
 
   public IntervalSet(List<Interval> intervals) {
-    this.intervals = intervals;
+    ranges = new int[2 * intervals.size()];
+    for (Interval interval : intervals) {
+      add(interval.a, interval.b);
+    }
   }
 
   public IntervalSet(IntervalSet set) {
-    this();
-    addAll(set);
+    ranges = Arrays.copyOf(set.ranges, 2 * set.intervalCount);
+    intervalCount = set.intervalCount;
   }
 
   public IntervalSet(int... els) {
     if (els == null || els.length == 0) {
-      intervals = new ArrayList<>(2); // most sets are 1 or 2 elements
+      ranges = EMPTY_RANGES;
     } else {
-      intervals = new ArrayList<>(els.length);
+      ranges = new int[2 * els.length];
       for (int e : els) add(e);
     }
   }
@@ -93,7 +107,7 @@ public class IntervalSet implements IntSet {
 
   public void clear() {
     if (readonly) throw new IllegalStateException("can't alter readonly IntervalSet");
-    intervals.clear();
+    intervalCount = 0;
   }
 
   /**
@@ -112,59 +126,33 @@ public class IntervalSet implements IntSet {
    * Keep list in sorted order (by left range value).
    * If overlap, combine ranges.  For example,
    * If this is {1..5, 10..20}, adding 6..7 yields
-   * {1..5, 6..7, 10..20}.  Adding 4..8 yields {1..8, 10..20}.
+   * {1..7, 10..20}.  Adding 4..8 yields {1..8, 10..20}.
    */
   public void add(int a, int b) {
-    add(Interval.of(a, b));
-  }
-
-  // copy on write so we can cache a..a intervals and sets of that
-  protected void add(Interval addition) {
     if (readonly) throw new IllegalStateException("can't alter readonly IntervalSet");
-    if (addition.b < addition.a) {
+    if (b < a) {
       return;
     }
-    // find position in list
-    // Use iterators as we modify list in place
-    for (ListIterator<Interval> iter = intervals.listIterator(); iter.hasNext(); ) {
-      final Interval r = iter.next();
-      if (addition.equals(r)) {
-        return;
-      }
-      if (addition.adjacent(r) || !addition.disjoint(r)) {
-        mergeIntervals(addition, r, iter);
-        return;
-      }
-      if (addition.startsBeforeDisjoint(r)) {
-        // insert before r
-        iter.previous();
-        iter.add(addition);
-        return;
-      }
-      // if disjoint and after r, a future iteration will handle it
-    }
-    // ok, must be after last interval (and disjoint from last interval)
-    // just add it
-    intervals.add(addition);
-  }
-
-  private static void mergeIntervals(final Interval addition, final Interval r, final ListIterator<Interval> iter) {
-    // next to each other, make a single larger interval
-    final Interval bigger = addition.union(r);
-    iter.set(bigger);
-    // make sure we didn't just create an interval that
-    // should be merged with next interval in list
-    while (iter.hasNext()) {
-      final Interval next = iter.next();
-      if (!bigger.adjacent(next) && bigger.disjoint(next)) {
-        break;
-      }
-      // if we bump up against or overlap next, merge
-      iter.remove();   // remove this one
-      iter.previous(); // move backwards to what we just set
-      iter.set(bigger.union(next)); // set to 3 merged ones
-      iter.next(); // first call to next after previous duplicates the result
+
+    // intervals [first, last) touch or overlap a..b and collapse into a single one
+    int first = firstEndingAtOrAfter((long) a - 1);
+    int last = firstStartingAfter((long) b + 1);
+    if (first == last) {
+      ensureCapacity(intervalCount + 1);
+      System.arraycopy(ranges, 2 * first, ranges, 2 * first + 2, 2 * (intervalCount - first));
+      ranges[2 * first] = a;
+      ranges[2 * first + 1] = b;
+      intervalCount++;
+      return;
     }
+
+    ranges[2 * first] = Math.min(a, ranges[2 * first]);
+    ranges[2 * first + 1] = Math.max(b, ranges[2 * last - 1]);
+    removeIntervals(first + 1, last);
+  }
+
+  protected void add(Interval addition) {
+    add(addition.a, addition.b);
   }
 
   /**
@@ -178,15 +166,12 @@ public class IntervalSet implements IntSet {
 
   @Override
   public IntervalSet addAll(IntSet set) {
-    if (set == null) {
+    if (set == null || set == this) {
       return this;
     }
 
     if (set instanceof IntervalSet other) {
-      // walk set and add each interval
-      for (Interval interval : other.intervals) {
-        add(interval.a, interval.b);
-      }
+      union(other);
     } else {
       for (int value : set.toList()) {
         add(value);
@@ -196,6 +181,132 @@ public class IntervalSet implements IntSet {
     return this;
   }
 
+  /**
+   * Merge {@code other} into this set. A few intervals are inserted one by one; larger sets are merged in a single
+   * linear pass over both arrays.
+   */
+  private void union(IntervalSet other) {
+    if (readonly) throw new IllegalStateException("can't alter readonly IntervalSet");
+    int otherCount = other.intervalCount;
+    if (otherCount <= 2 || intervalCount == 0) {
+      for (int i = 0; i < otherCount; i++) {
+        add(other.ranges[2 * i], other.ranges[2 * i + 1]);
+      }
+      return;
+    }
+
+    int[] merged = new int[2 * (intervalCount + otherCount)];
+    int n = 0;
+    int i = 0;
+    int j = 0;
+    while (i < intervalCount || j < otherCount) {
+      int a;
+      int b;
+      if (j >= otherCount || (i < intervalCount && ranges[2 * i] <= other.ranges[2 * j])) {
+        a = ranges[2 * i];
+        b = ranges[2 * i + 1];
+        i++;
+      } else {
+        a = other.ranges[2 * j];
+        b = other.ranges[2 * j + 1];
+        j++;
+      }
+
+      if (n > 0 && a <= (long) merged[2 * n - 1] + 1) {
+        merged[2 * n - 1] = Math.max(b, merged[2 * n - 1]);
+      } else {
+        merged[2 * n] = a;
+        merged[2 * n + 1] = b;
+        n++;
+      }
+    }
+
+    ranges = merged;
+    intervalCount = n;
+  }
+
+  /**
+   * Keep only the elements that are also in {@code other}.
+   *
+   * @return this set
+   */
+  public IntervalSet retainAll(IntervalSet other) {
+    if (readonly) throw new IllegalStateException("can't alter readonly IntervalSet");
+    if (other == this) {
+      return this;
+    }
+
+    int resultCount = 0;
+    int i = 0;
+    int j = 0;
+    while (i < intervalCount && j < other.intervalCount) {
+      int myEnd = ranges[2 * i + 1];
+      int theirEnd = other.ranges[2 * j + 1];
+      if (Math.max(ranges[2 * i], other.ranges[2 * j]) <= Math.min(myEnd, theirEnd)) {
+        resultCount++;
+      }
+      if (myEnd < theirEnd) {
+        i++;
+      } else {
+        j++;
+      }
+    }
+
+    if (resultCount == 0) {
+      intervalCount = 0;
+      return this;
+    }
+
+    // one interval of this set may overlap several of other, so the result can have more intervals than this set;
+    // moving this set past the room the result takes keeps every write behind the intervals still to be read
+    ensureCapacity(resultCount + intervalCount);
+    System.arraycopy(ranges, 0, ranges, 2 * resultCount, 2 * intervalCount);
+    int n = 0;
+    i = resultCount;
+    j = 0;
+    int end = resultCount + intervalCount;
+    while (i < end && j < other.intervalCount) {
+      int myEnd = ranges[2 * i + 1];
+      int theirEnd = other.ranges[2 * j + 1];
+      int a = Math.max(ranges[2 * i], other.ranges[2 * j]);
+      int b = Math.min(myEnd, theirEnd);
+      if (a <= b) {
+        ranges[2 * n] = a;
+        ranges[2 * n + 1] = b;
+        n++;
+      }
+      if (myEnd < theirEnd) {
+        i++;
+      } else {
+        j++;
+      }
+    }
+    intervalCount = n;
+    return this;
+  }
+
+  /**
+   * Does this set have at least one element in common with {@code other}? Unlike {@code !and(other).isNil()} this
+   * does not allocate.
+   */
+  public boolean intersects(IntervalSet other) {
+    int i = 0;
+    int j = 0;
+    while (i < intervalCount && j < other.intervalCount) {
+      int myEnd = ranges[2 * i + 1];
+      int theirEnd = other.ranges[2 * j + 1];
+      if (Math.max(ranges[2 * i], other.ranges[2 * j]) <= Math.min(myEnd, theirEnd)) {
+        return true;
+      }
+      if (myEnd < theirEnd) {
+        i++;
+      } else {
+        j++;
+      }
+    }
+    return false;
+  }
+
   public IntervalSet complement(int minElement, int maxElement) {
     return this.complement(IntervalSet.of(minElement, maxElement));
   }
@@ -246,67 +357,45 @@ public class IntervalSet implements IntSet {
       return new IntervalSet();
     }
 
-    IntervalSet result = new IntervalSet(left);
     if (right == null || right.isNil()) {
       // right set has no elements; just return the copy of the current set
-      return result;
+      return new IntervalSet(left);
     }
 
-    int resultI = 0;
+    IntervalSet result = new IntervalSet();
+    result.ranges = new int[2 * (left.intervalCount + right.intervalCount)];
     int rightI = 0;
-    while (resultI < result.intervals.size() && rightI < right.intervals.size()) {
-      Interval resultInterval = result.intervals.get(resultI);
-      Interval rightInterval = right.intervals.get(rightI);
-
-      // operation: (resultInterval - rightInterval) and update indexes
+    for (int leftI = 0; leftI < left.intervalCount; leftI++) {
+      int a = left.ranges[2 * leftI];
+      int b = left.ranges[2 * leftI + 1];
 
-      if (rightInterval.b < resultInterval.a) {
+      // right intervals ending before a can't affect this or any later left interval
+      while (rightI < right.intervalCount && right.ranges[2 * rightI + 1] < a) {
         rightI++;
-        continue;
-      }
-
-      if (rightInterval.a > resultInterval.b) {
-        resultI++;
-        continue;
       }
 
-      Interval beforeCurrent = null;
-      Interval afterCurrent = null;
-      if (rightInterval.a > resultInterval.a) {
-        beforeCurrent = new Interval(resultInterval.a, rightInterval.a - 1);
-      }
-
-      if (rightInterval.b < resultInterval.b) {
-        afterCurrent = new Interval(rightInterval.b + 1, resultInterval.b);
-      }
-
-      if (beforeCurrent != null) {
-        if (afterCurrent != null) {
-          // split the current interval into two
-          result.intervals.set(resultI, beforeCurrent);
-          result.intervals.add(resultI + 1, afterCurrent);
-          resultI++;
-          rightI++;
-        } else {
-          // replace the current interval
-          result.intervals.set(resultI, beforeCurrent);
-          resultI++;
+      // operation: (a..b - right intervals overlapping it); rightI stays as the last
+      // of them may also overlap the next left interval
+      int current = a;
+      boolean covered = false;
+      for (int k = rightI; k < right.intervalCount && right.ranges[2 * k] <= b; k++) {
+        int rightA = right.ranges[2 * k];
+        int rightB = right.ranges[2 * k + 1];
+        if (rightA > current) {
+          result.append(current, rightA - 1);
         }
-      } else {
-        if (afterCurrent != null) {
-          // replace the current interval
-          result.intervals.set(resultI, afterCurrent);
-          rightI++;
-        } else {
-          // remove the current interval (thus no need to increment resultI)
-          result.intervals.remove(resultI);
+        if (rightB >= b) {
+          covered = true;
+          break;
         }
+        current = rightB + 1;
+      }
+
+      if (!covered) {
+        result.append(current, b);
       }
     }
 
-    // If rightI reached right.intervals.size(), no more intervals to subtract from result.
-    // If resultI reached result.intervals.size(), we would be subtracting from an empty set.
-    // Either way, we are done.
     return result;
   }
 
@@ -327,61 +416,33 @@ public class IntervalSet implements IntSet {
       return null; // nothing in common with null set
     }
 
-    List<Interval> myIntervals = this.intervals;
-    List<Interval> theirIntervals = ((IntervalSet) other).intervals;
-    IntervalSet intersection = null;
-    int mySize = myIntervals.size();
-    int theirSize = theirIntervals.size();
+    IntervalSet theirs;
+    if (other instanceof IntervalSet intervalSet) {
+      theirs = intervalSet;
+    } else {
+      theirs = new IntervalSet();
+      theirs.addAll(other);
+    }
+
+    IntervalSet intersection = new IntervalSet();
     int i = 0;
     int j = 0;
-    // iterate down both interval lists looking for nondisjoint intervals
-    while (i < mySize && j < theirSize) {
-      Interval mine = myIntervals.get(i);
-      Interval theirs = theirIntervals.get(j);
-
-      if (mine.startsBeforeDisjoint(theirs)) {
-        // move this iterator looking for interval that might overlap
+    // iterate down both interval arrays looking for nondisjoint intervals,
+    // moving past whichever interval ends first
+    while (i < intervalCount && j < theirs.intervalCount) {
+      int myEnd = ranges[2 * i + 1];
+      int theirEnd = theirs.ranges[2 * j + 1];
+      int a = Math.max(ranges[2 * i], theirs.ranges[2 * j]);
+      int b = Math.min(myEnd, theirEnd);
+      if (a <= b) {
+        intersection.append(a, b);
+      }
+      if (myEnd < theirEnd) {
         i++;
-      } else if (theirs.startsBeforeDisjoint(mine)) {
-        // move other iterator looking for interval that might overlap
-        j++;
-      } else if (mine.properlyContains(theirs)) {
-        // overlap, add intersection, get next theirs
-        if (intersection == null) {
-          intersection = new IntervalSet();
-        }
-        intersection.add(mine.intersection(theirs));
+      } else {
         j++;
-      } else if (theirs.properlyContains(mine)) {
-        // overlap, add intersection, get next mine
-        if (intersection == null) {
-          intersection = new IntervalSet();
-        }
-        intersection.add(mine.intersection(theirs));
-        i++;
-      } else if (!mine.disjoint(theirs)) {
-        // overlap, add intersection
-        if (intersection == null) {
-          intersection = new IntervalSet();
-        }
-        intersection.add(mine.intersection(theirs));
-        // Move the iterator of lower range [a..b], but not
-        // the upper range as it may contain elements that will collide
-        // with the next iterator. So, if mine=[0..115] and
-        // theirs=[115..200], then intersection is 115 and move mine
-        // but not theirs as theirs may collide with the next range
-        // in thisIter.
-        // move both iterators to next ranges
-        if (mine.startsAfterNonDisjoint(theirs)) {
-          j++;
-        } else if (theirs.startsAfterNonDisjoint(mine)) {
-          i++;
-        }
       }
     }
-    if (intersection == null) {
-      return new IntervalSet();
-    }
     return intersection;
   }
 
@@ -390,19 +451,15 @@ public class IntervalSet implements IntSet {
    */
   @Override
   public boolean contains(int el) {
-    int n = intervals.size();
     int l = 0;
-    int r = n - 1;
+    int r = intervalCount - 1;
     // Binary search for the element in the (sorted,
     // disjoint) array of intervals.
     while (l <= r) {
-      int m = (l + r) / 2;
-      Interval I = intervals.get(m);
-      int a = I.a;
-      int b = I.b;
-      if (b < el) {
+      int m = (l + r) >>> 1;
+      if (ranges[2 * m + 1] < el) {
         l = m + 1;
-      } else if (a > el) {
+      } else if (ranges[2 * m] > el) {
         r = m - 1;
       } else { // el >= a && el <= b
         return true;
@@ -416,7 +473,7 @@ public class IntervalSet implements IntSet {
    */
   @Override
   public boolean isNil() {
-    return intervals == null || intervals.isEmpty();
+    return intervalCount == 0;
   }
 
   /**
@@ -424,11 +481,8 @@ public class IntervalSet implements IntSet {
    */
   @Override
   public int getSingleElement() {
-    if (intervals != null && intervals.size() == 1) {
-      Interval I = intervals.get(0);
-      if (I.a == I.b) {
-        return I.a;
-      }
+    if (intervalCount == 1 && ranges[0] == ranges[1]) {
+      return ranges[0];
     }
     return Token.INVALID_TYPE;
   }
@@ -443,8 +497,7 @@ public class IntervalSet implements IntSet {
     if (isNil()) {
       return Token.INVALID_TYPE;
     }
-    Interval last = intervals.get(intervals.size() - 1);
-    return last.b;
+    return ranges[2 * intervalCount - 1];
   }
 
   /**
@@ -458,33 +511,68 @@ public class IntervalSet implements IntSet {
       return Token.INVALID_TYPE;
     }
 
-    return intervals.get(0).a;
+    return ranges[0];
+  }
+
+  /**
+   * Returns the number of intervals in the set.
+   */
+  public int getIntervalCount() {
+    return intervalCount;
+  }
+
+  /**
+   * Returns the first element of interval {@code i}.
+   */
+  public int getIntervalStart(int i) {
+    return ranges[2 * Objects.checkIndex(i, intervalCount)];
+  }
+
+  /**
+   * Returns the last element (inclusive) of interval {@code i}.
+   */
+  public int getIntervalEnd(int i) {
+    return ranges[2 * Objects.checkIndex(i, intervalCount) + 1];
+  }
+
+  /**
+   * Returns a snapshot of the intervals of this set. Prefer {@link #getIntervalCount()},
+   * {@link #getIntervalStart(int)} and {@link #getIntervalEnd(int)}, which don't allocate.
+   * <p>
+   * Every call builds a new list. Unlike in earlier versions it is not backed by the set: later changes of the set
+   * do not show in the list, and changing the list does not change the set. Use {@link #add}, {@link #remove} and
+   * the other methods of this class to change the set.
+   */
+  public List<Interval> getIntervals() {
+    List<Interval> result = new ArrayList<>(intervalCount);
+    for (int i = 0; i < intervalCount; i++) {
+      result.add(Interval.of(ranges[2 * i], ranges[2 * i + 1]));
+    }
+    return result;
   }
 
   @Override
   public int hashCode() {
     int hash = MurmurHash.initialize();
-    for (Interval I : intervals) {
-      hash = MurmurHash.update(hash, I.a);
-      hash = MurmurHash.update(hash, I.b);
+    for (int i = 0; i < 2 * intervalCount; i++) {
+      hash = MurmurHash.update(hash, ranges[i]);
     }
 
-    hash = MurmurHash.finish(hash, intervals.size() * 2);
+    hash = MurmurHash.finish(hash, intervalCount * 2);
     return hash;
   }
 
   /**
    * Are two IntervalSets equal?  Because all intervals are sorted
-   * and disjoint, equals is a simple linear walk over both lists
-   * to make sure they are the same.  Interval.equals() is used
-   * by the List.equals() method to check the ranges.
+   * and disjoint, equals is a simple linear walk over both arrays
+   * to make sure they are the same.
    */
   @Override
   public boolean equals(Object obj) {
     if (!(obj instanceof IntervalSet other)) {
       return false;
     }
-    return this.intervals.equals(other.intervals);
+    return Arrays.equals(ranges, 0, 2 * intervalCount, other.ranges, 0, 2 * other.intervalCount);
   }
 
   @Override
@@ -494,17 +582,15 @@ public class IntervalSet implements IntSet {
 
   public String toString(boolean elemAreChar) {
     StringBuilder buf = new StringBuilder();
-    if (this.intervals == null || this.intervals.isEmpty()) {
+    if (isNil()) {
       return "{}";
     }
     if (this.size() > 1) {
       buf.append("{");
     }
-    Iterator<Interval> iter = this.intervals.iterator();
-    while (iter.hasNext()) {
-      Interval I = iter.next();
-      int a = I.a;
-      int b = I.b;
+    for (int i = 0; i < intervalCount; i++) {
+      int a = ranges[2 * i];
+      int b = ranges[2 * i + 1];
       if (a == b) {
         if (a == Token.EOF) buf.append("<EOF>");
         else if (elemAreChar) buf.append("'").appendCodePoint(a).append("'");
@@ -513,7 +599,7 @@ public class IntervalSet implements IntSet {
         if (elemAreChar) buf.append("'").appendCodePoint(a).append("'..'").appendCodePoint(b).append("'");
         else buf.append(a).append("..").append(b);
       }
-      if (iter.hasNext()) {
+      if (i + 1 < intervalCount) {
         buf.append(", ");
       }
     }
@@ -525,26 +611,24 @@ public class IntervalSet implements IntSet {
 
   public String toString(@NotNull Vocabulary vocabulary) {
     StringBuilder buf = new StringBuilder();
-    if (this.intervals == null || this.intervals.isEmpty()) {
+    if (isNil()) {
       return "{}";
     }
     if (this.size() > 1) {
       buf.append("{");
     }
-    Iterator<Interval> iter = this.intervals.iterator();
-    while (iter.hasNext()) {
-      Interval I = iter.next();
-      int a = I.a;
-      int b = I.b;
+    for (int i = 0; i < intervalCount; i++) {
+      int a = ranges[2 * i];
+      int b = ranges[2 * i + 1];
       if (a == b) {
         buf.append(elementName(vocabulary, a));
       } else {
-        for (int i = a; i <= b; i++) {
-          if (i > a) buf.append(", ");
-          buf.append(elementName(vocabulary, i));
+        for (int v = a; v <= b; v++) {
+          if (v > a) buf.append(", ");
+          buf.append(elementName(vocabulary, v));
         }
       }
-      if (iter.hasNext()) {
+      if (i + 1 < intervalCount) {
         buf.append(", ");
       }
     }
@@ -567,23 +651,18 @@ public class IntervalSet implements IntSet {
 
   @Override
   public int size() {
-    int numIntervals = intervals.size();
-    if (numIntervals == 1) {
-      Interval firstInterval = intervals.get(0);
-      return firstInterval.b - firstInterval.a + 1;
-    }
     int n = 0;
-    for (Interval interval : intervals) {
-      n += (interval.b - interval.a + 1);
+    for (int i = 0; i < intervalCount; i++) {
+      n += (ranges[2 * i + 1] - ranges[2 * i] + 1);
     }
     return n;
   }
 
   public IntegerList toIntegerList() {
     IntegerList values = new IntegerList(size());
-    for (Interval interval : intervals) {
-      int a = interval.a;
-      int b = interval.b;
+    for (int i = 0; i < intervalCount; i++) {
+      int a = ranges[2 * i];
+      int b = ranges[2 * i + 1];
       for (int v = a; v <= b; v++) {
         values.add(v);
       }
@@ -594,9 +673,9 @@ public class IntervalSet implements IntSet {
   @Override
   public List<Integer> toList() {
     List<Integer> values = new ArrayList<>(size());
-    for (Interval interval : intervals) {
-      int a = interval.a;
-      int b = interval.b;
+    for (int i = 0; i < intervalCount; i++) {
+      int a = ranges[2 * i];
+      int b = ranges[2 * i + 1];
       for (int v = a; v <= b; v++) {
         values.add(v);
       }
@@ -606,9 +685,9 @@ public class IntervalSet implements IntSet {
 
   public Set<Integer> toSet() {
     Set<Integer> s = new HashSet<>(size());
-    for (Interval I : intervals) {
-      int a = I.a;
-      int b = I.b;
+    for (int i = 0; i < intervalCount; i++) {
+      int a = ranges[2 * i];
+      int b = ranges[2 * i + 1];
       for (int v = a; v <= b; v++) {
         s.add(v);
       }
@@ -623,39 +702,100 @@ public class IntervalSet implements IntSet {
   @Override
   public void remove(int el) {
     if (readonly) throw new IllegalStateException("can't alter readonly IntervalSet");
-    for (int i = 0, n = intervals.size(); i < n; i++) {
-      Interval interval = intervals.get(i);
-      int a = interval.a;
-      int b = interval.b;
-      if (el < a) {
-        break; // list is sorted and el is before this interval; not here
-      }
+    int i = firstEndingAtOrAfter(el);
+    if (i == intervalCount || ranges[2 * i] > el) {
+      return; // not in the set
+    }
+
+    int a = ranges[2 * i];
+    int b = ranges[2 * i + 1];
+    if (a == b) {
       // if whole interval x..x, rm
-      if (el == a && el == b) {
-        intervals.remove(i);
-        break;
-      }
+      removeIntervals(i, i + 1);
+    } else if (el == a) {
       // if on left edge x..b, adjust left
-      if (el == a) {
-        intervals.set(i, Interval.of(interval.a + 1, interval.b));
-        break;
-      }
+      ranges[2 * i] = a + 1;
+    } else if (el == b) {
       // if on right edge a..x, adjust right
-      if (el == b) {
-        intervals.set(i, Interval.of(interval.a, interval.b - 1));
-        break;
-      }
+      ranges[2 * i + 1] = b - 1;
+    } else {
       // if in middle a..x..b, split interval
-      if (el < b) { // found in this interval
-        int oldb = interval.b;
-        intervals.set(i, Interval.of(interval.a, el - 1)); // [a..x-1]
-        add(el + 1, oldb); // add [x+1..b]
-      }
+      ensureCapacity(intervalCount + 1);
+      System.arraycopy(ranges, 2 * i + 2, ranges, 2 * i + 4, 2 * (intervalCount - i - 1));
+      ranges[2 * i + 1] = el - 1;
+      ranges[2 * i + 2] = el + 1;
+      ranges[2 * i + 3] = b;
+      intervalCount++;
     }
   }
 
+  public boolean isReadonly() {
+    return readonly;
+  }
+
   public void setReadonly(boolean readonly) {
     if (this.readonly && !readonly) throw new IllegalStateException("can't alter readonly IntervalSet");
     this.readonly = readonly;
   }
+
+  /**
+   * Append a..b after the last interval; the caller guarantees it sorts after it and is not adjacent to it.
+   */
+  private void append(int a, int b) {
+    ensureCapacity(intervalCount + 1);
+    ranges[2 * intervalCount] = a;
+    ranges[2 * intervalCount + 1] = b;
+    intervalCount++;
+  }
+
+  /**
+   * Remove intervals {@code [from, to)}.
+   */
+  private void removeIntervals(int from, int to) {
+    if (from >= to) {
+      return;
+    }
+    System.arraycopy(ranges, 2 * to, ranges, 2 * from, 2 * (intervalCount - to));
+    intervalCount -= to - from;
+  }
+
+  private void ensureCapacity(int count) {
+    if (ranges.length < 2 * count) {
+      ranges = Arrays.copyOf(ranges, Math.max(2 * count, Math.max(4, ranges.length * 2)));
+    }
+  }
+
+  /**
+   * Index of the first interval whose end is {@code >= value}, or {@link #intervalCount} if none.
+   */
+  private int firstEndingAtOrAfter(long value) {
+    int l = 0;
+    int r = intervalCount;
+    while (l < r) {
+      int m = (l + r) >>> 1;
+      if (ranges[2 * m + 1] < value) {
+        l = m + 1;
+      } else {
+        r = m;
+      }
+    }
+    return l;
+  }
+
+  /**
+   * Index of the first interval whose start is {@code > value}, or {@link #intervalCount} if none.
+   */
+  private int firstStartingAfter(long value) {
+    int l = 0;
+    int r = intervalCount;
+    while (l < r) {
+      int m = (l + r) >>> 1;
+      if (ranges[2 * m] <= value) {
+        l = m + 1;
+      } else {
+        r = m;
+      }
+    }
+    return l;
+  }
 }
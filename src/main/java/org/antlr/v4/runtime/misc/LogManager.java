@@ -58,6 +58,19 @@ public class LogManager {
     log(null, msg);
   }
 
+  /**
+   * Append all records of {@code other} to this log, e.g. those collected by a worker tool.
+   */
+  public void append(LogManager other) {
+    if (other.records == null || other.records.isEmpty()) {
+      return;
+    }
+    if (records == null) {
+      records = new ArrayList<>();
+    }
+    records.addAll(other.records);
+  }
+
   public void save(String filename) throws IOException {
     FileWriter fw = new FileWriter(filename);
     try (BufferedWriter bw = new BufferedWriter(fw)) {
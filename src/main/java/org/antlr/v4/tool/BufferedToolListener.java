@@ -0,0 +1,71 @@
+/*
+ * This file is a part of ANTLR.
+ *
+ * Copyright (c) 2012-2025 The ANTLR Project. All rights reserved.
+ * Copyright (c) 2025-2026 Valery Maximov <maximovvalery@gmail.com> and contributors
+ *
+ * Use of this file is governed by the BSD-3-Clause license that
+ * can be found in the LICENSE.txt file in the project root.
+ */
+package org.antlr.v4.tool;
+
+import org.antlr.v4.Tool;
+import org.jspecify.annotations.NullMarked;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the messages of a worker {@link Tool} so they can be replayed into
+ * the owning tool in a fixed order once the worker has finished. This keeps the
+ * output of parallel grammar processing identical from run to run.
+ */
+@NullMarked
+public class BufferedToolListener implements ANTLRToolListener {
+  private enum Kind {INFO, ERROR, WARNING}
+
+  private record Event(Kind kind, Object payload) {
+  }
+
+  private final List<Event> events = new ArrayList<>();
+
+  @Override
+  public synchronized void info(String msg) {
+    events.add(new Event(Kind.INFO, msg));
+  }
+
+  @Override
+  public synchronized void error(ANTLRMessage msg) {
+    events.add(new Event(Kind.ERROR, msg));
+  }
+
+  @Override
+  public synchronized void warning(ANTLRMessage msg) {
+    events.add(new Event(Kind.WARNING, msg));
+  }
+
+  /**
+   * Replay all buffered messages into {@code tool}. Errors and warnings go through the tool's
+   * {@link ErrorManager} so that counters, one-off suppression and {@code -Werror} behave exactly
+   * as if the messages had been reported there in the first place.
+   */
+  public synchronized void replay(Tool tool) {
+    for (Event event : events) {
+      switch (event.kind()) {
+        case INFO -> tool.info((String) event.payload());
+        case ERROR -> {
+          ANTLRMessage msg = (ANTLRMessage) event.payload();
+          // the owner re-derives this one from the replayed warning
+          if (msg.getErrorType() != ErrorType.WARNING_TREATED_AS_ERROR) {
+            tool.errMgr.emit(msg.getErrorType(), msg);
+          }
+        }
+        case WARNING -> {
+          ANTLRMessage msg = (ANTLRMessage) event.payload();
+          tool.errMgr.emit(msg.getErrorType(), msg);
+        }
+      }
+    }
+    events.clear();
+  }
+}
@@ -0,0 +1,228 @@
+/*
+ * This file is a part of ANTLR.
+ *
+ * Copyright (c) 2012-2025 The ANTLR Project. All rights reserved.
+ * Copyright (c) 2025-2026 Valery Maximov <maximovvalery@gmail.com> and contributors
+ *
+ * Use of this file is governed by the BSD-3-Clause license that
+ * can be found in the LICENSE.txt file in the project root.
+ */
+package org.antlr.v4.tool;
+
+import org.antlr.v4.Tool;
+import org.antlr.v4.parse.TokenVocabParser;
+import org.jspecify.annotations.NullMarked;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Content addressed cache of the files generated for a grammar.
+ * <p>
+ * The key of an entry is a hash of the grammar text and of every tool option that influences the output.
+ * Inputs that are only known after processing (imported grammars and the tokenVocab file) are recorded
+ * in the entry manifest together with their own hashes; an entry is reused only if all of them are still
+ * unchanged. On a hit the cached files are copied to the output directory and semantic analysis, ATN
+ * construction and code generation are skipped.
+ * <p>
+ * Only runs without errors or warnings are stored, so a hit never hides a diagnostic.
+ */
+@NullMarked
+public class BuildCache {
+  private static final String MANIFEST = "manifest";
+  private static final String FILES = "files";
+  private static final String DEPENDENCY = "dep ";
+  private static final String OUTPUT = "out ";
+
+  private final File directory;
+  private final AtomicInteger hits = new AtomicInteger();
+  private final AtomicInteger misses = new AtomicInteger();
+
+  public BuildCache(File directory) {
+    this.directory = directory;
+  }
+
+  public int getHits() {
+    return hits.get();
+  }
+
+  public int getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * Create a cache over the same directory with its own counters, for a worker tool whose lookups may be dropped.
+   *
+   * @see #merge
+   */
+  public BuildCache forWorker() {
+    return new BuildCache(directory);
+  }
+
+  /**
+   * Add the counters of {@code worker} to this cache.
+   */
+  public void merge(BuildCache worker) {
+    hits.addAndGet(worker.getHits());
+    misses.addAndGet(worker.getMisses());
+  }
+
+  /**
+   * Copy the cached output of {@code g} into the output directory.
+   *
+   * @return {@code true} if the cache held an up-to-date entry for the grammar
+   */
+  public boolean restore(Tool tool, Grammar g) {
+    try {
+      File entry = getEntry(tool, g);
+      File manifest = new File(entry, MANIFEST);
+      if (!manifest.isFile()) {
+        misses.incrementAndGet();
+        return false;
+      }
+
+      List<String> outputs = new ArrayList<>();
+      for (String line : Files.readAllLines(manifest.toPath(), StandardCharsets.UTF_8)) {
+        if (line.startsWith(DEPENDENCY)) {
+          int split = line.indexOf(' ', DEPENDENCY.length());
+          String hash = line.substring(DEPENDENCY.length(), split);
+          File dependency = new File(line.substring(split + 1));
+          if (!dependency.isFile() || !hash.equals(hash(dependency))) {
+            tool.log("cache", g.fileName + ": " + dependency + " changed");
+            misses.incrementAndGet();
+            return false;
+          }
+        } else if (line.startsWith(OUTPUT)) {
+          outputs.add(line.substring(OUTPUT.length()));
+        }
+      }
+
+      tool.awaitOutputGate();
+      File outputDir = tool.getOutputDirectory(g.fileName);
+      Path files = new File(entry, FILES).toPath();
+      for (String output : outputs) {
+        Path target = outputDir.toPath().resolve(output);
+        Files.createDirectories(target.getParent());
+        Files.copy(files.resolve(output), target, StandardCopyOption.REPLACE_EXISTING);
+      }
+      tool.log("cache", g.fileName + ": hit " + entry.getName());
+      hits.incrementAndGet();
+      return true;
+    } catch (IOException e) {
+      tool.log("cache", g.fileName + ": " + e);
+      misses.incrementAndGet();
+      return false;
+    }
+  }
+
+  /**
+   * Store the files generated for {@code g}. Failures are logged and otherwise ignored; the cache is an
+   * optimization and must never fail a build.
+   *
+   * @param outputs names of the generated files relative to the grammar output directory
+   */
+  public void store(Tool tool, Grammar g, List<String> outputs) {
+    try {
+      File entry = getEntry(tool, g);
+      Files.createDirectories(entry.toPath());
+      Path files = new File(entry, FILES).toPath();
+      File outputDir = tool.getOutputDirectory(g.fileName);
+      StringBuilder manifest = new StringBuilder();
+      for (Map.Entry<String, String> dependency : getDependencies(g).entrySet()) {
+        manifest.append(DEPENDENCY).append(dependency.getValue()).append(' ').append(dependency.getKey()).append('\n');
+      }
+      for (String output : outputs) {
+        Path target = files.resolve(output);
+        Files.createDirectories(target.getParent());
+        Files.copy(outputDir.toPath().resolve(output), target, StandardCopyOption.REPLACE_EXISTING);
+        manifest.append(OUTPUT).append(output).append('\n');
+      }
+
+      // the manifest goes last so a partially written entry is never taken for a hit
+      Files.writeString(new File(entry, MANIFEST).toPath(), manifest, StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      tool.log("cache", g.fileName + ": cannot store: " + e);
+    }
+  }
+
+  protected File getEntry(Tool tool, Grammar g) throws IOException {
+    MessageDigest digest = newDigest();
+    update(digest, Tool.VERSION);
+    update(digest, new File(g.fileName).getName());
+    digest.update(Files.readAllBytes(getGrammarFile(tool, g).toPath()));
+    update(digest, String.valueOf(tool.grammarEncoding));
+    update(digest, String.valueOf(tool.genPackage));
+    update(digest, String.valueOf(tool.gen_listener));
+    update(digest, String.valueOf(tool.gen_visitor));
+    update(digest, String.valueOf(tool.generate_ATN_dot));
+    update(digest, String.valueOf(tool.force_atn));
+    update(digest, String.valueOf(tool.grammarOptions != null ? new TreeMap<>(tool.grammarOptions) : null));
+    // where imports and .tokens files are looked up, and how the output is laid out
+    update(digest, String.valueOf(tool.libDirectory != null ? new File(tool.libDirectory).getAbsolutePath() : null));
+    update(digest, String.valueOf(tool.exact_output_dir));
+    return new File(directory, HexFormat.of().formatHex(digest.digest()));
+  }
+
+  protected Map<String, String> getDependencies(Grammar g) throws IOException {
+    Map<String, String> dependencies = new LinkedHashMap<>();
+    List<Grammar> imported = g.getAllImportedGrammars();
+    if (imported != null) {
+      for (Grammar d : imported) {
+        File file = new File(d.fileName).getAbsoluteFile();
+        dependencies.put(file.getPath(), hash(file));
+      }
+    }
+    if (g.getOptionString("tokenVocab") != null) {
+      File file = new TokenVocabParser(g).getImportedVocabFile().getAbsoluteFile();
+      if (file.isFile()) {
+        dependencies.put(file.getPath(), hash(file));
+      }
+    }
+    return dependencies;
+  }
+
+  private static File getGrammarFile(Tool tool, Grammar g) {
+    File file = new File(g.fileName);
+    if (!file.isAbsolute()) {
+      file = new File(tool.inputDirectory, g.fileName);
+    }
+    return file;
+  }
+
+  private static String hash(File file) throws IOException {
+    MessageDigest digest = newDigest();
+    digest.update(Files.readAllBytes(file.toPath()));
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  private static void update(MessageDigest digest, String value) {
+    digest.update(value.getBytes(StandardCharsets.UTF_8));
+    digest.update((byte) 0);
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "build cache: " + hits.get() + " hit(s), " + misses.get() + " miss(es)";
+  }
+}
@@ -175,7 +175,7 @@ public class ErrorManager {
 
   }
 
-  public void leftRecursionCycles(String fileName, Collection<? extends Collection<Rule>> cycles) {
+  public synchronized void leftRecursionCycles(String fileName, Collection<? extends Collection<Rule>> cycles) {
     errors++;
     ANTLRMessage msg = new LeftRecursionCyclesMessage(fileName, cycles);
     tool.error(msg);
@@ -203,7 +203,7 @@ public class ErrorManager {
   // S U P P O R T  C O D E
 
   @SuppressWarnings("fallthrough")
-  public void emit(ErrorType etype, ANTLRMessage msg) {
+  public synchronized void emit(ErrorType etype, ANTLRMessage msg) {
     switch (etype.severity) {
       case WARNING_ONE_OFF:
         if (errorTypes.contains(etype)) break;
@@ -0,0 +1,61 @@
+/*
+ * This file is a part of ANTLR.
+ *
+ * Copyright (c) 2012-2025 The ANTLR Project. All rights reserved.
+ * Copyright (c) 2025-2026 Valery Maximov <maximovvalery@gmail.com> and contributors
+ *
+ * Use of this file is governed by the BSD-3-Clause license that
+ * can be found in the LICENSE.txt file in the project root.
+ */
+package org.antlr.v4.unicode;
+
+import lombok.experimental.UtilityClass;
+import org.antlr.v4.runtime.misc.IntervalSet;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Format of the {@code unicodedata.bin} resource. It is kept out of {@link UnicodeData}, whose static initializer
+ * reads the resource, so that {@link UnicodeDataTemplateController} can regenerate a missing or broken resource.
+ */
+@UtilityClass
+class UnicodeDataFormat {
+  static final String RESOURCE = "unicodedata.bin";
+  static final int MAGIC = 0x554E4344; // "UNCD"
+  static final int VERSION = 1;
+
+  /**
+   * Write property ranges and aliases in the format of the {@value #RESOURCE} resource. Property codes and aliases
+   * are stored in lower case; the intervals of each set are expected to be sorted and disjoint, which
+   * {@link IntervalSet} guarantees.
+   */
+  static void write(DataOutputStream out,
+                    Map<String, IntervalSet> codePointRanges,
+                    Map<String, String> aliases) throws IOException {
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    out.writeInt(codePointRanges.size());
+    for (Map.Entry<String, IntervalSet> entry : codePointRanges.entrySet()) {
+      out.writeUTF(toLowerCase(entry.getKey()));
+      out.writeInt(entry.getValue().getIntervalCount());
+    }
+    out.writeInt(aliases.size());
+    for (Map.Entry<String, String> entry : aliases.entrySet()) {
+      out.writeUTF(toLowerCase(entry.getKey()));
+      out.writeUTF(toLowerCase(entry.getValue()));
+    }
+    for (IntervalSet set : codePointRanges.values()) {
+      for (int i = 0; i < set.getIntervalCount(); i++) {
+        out.writeInt(set.getIntervalStart(i));
+        out.writeInt(set.getIntervalEnd(i));
+      }
+    }
+  }
+
+  static String toLowerCase(String str) {
+    return str.toLowerCase(Locale.US);
+  }
+}
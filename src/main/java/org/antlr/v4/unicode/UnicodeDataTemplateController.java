@@ -15,13 +15,17 @@ import com.ibm.icu.text.UnicodeSet;
 import com.ibm.icu.util.RangeValueIterator;
 import org.antlr.v4.runtime.misc.IntervalSet;
 
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
- * StringTemplate controller used to generate parameters to feed
- * to {@code unicodedata.st} to code-generate {@code UnicodeData.java},
+ * Generator of the {@code unicodedata.bin} resource read by {@link UnicodeData},
  * used by the tool for Unicode property escapes like {@code \\p\{Lu\}}.
+ * Run {@link #main} with the path of the resource to regenerate it.
  * <p>
  * Uses ICU to iterate over Unicode character categories, properties,
  * and script codes, as well as aliases for those codes.
@@ -91,6 +95,16 @@ public abstract class UnicodeDataTemplateController {
     return properties;
   }
 
+  @SuppressWarnings("unchecked")
+  public static void main(String[] args) throws IOException {
+    Map<String, Object> properties = getProperties();
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(args[0])))) {
+      UnicodeDataFormat.write(out,
+        (Map<String, IntervalSet>) properties.get("propertyCodePointRanges"),
+        (Map<String, String>) properties.get("propertyAliases"));
+    }
+  }
+
   private static String getShortPropertyName(int property) {
     String propertyName = UCharacter.getPropertyName(property, UProperty.NameChoice.SHORT);
     // For some reason, a few properties only have long names.
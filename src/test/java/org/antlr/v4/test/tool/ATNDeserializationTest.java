@@ -9,16 +9,24 @@
  */
 package org.antlr.v4.test.tool;
 
+import org.antlr.v4.analysis.AnalysisPipeline;
+import org.antlr.v4.codegen.model.SerializedATN;
 import org.antlr.v4.runtime.atn.ATN;
 import org.antlr.v4.runtime.atn.ATNDeserializationOptions;
 import org.antlr.v4.runtime.atn.ATNDeserializer;
 import org.antlr.v4.runtime.atn.ATNSerializer;
+import org.antlr.v4.runtime.atn.ATNState;
+import org.antlr.v4.runtime.atn.Transition;
+import org.antlr.v4.runtime.misc.IntegerList;
 import org.antlr.v4.runtime.misc.Utils;
 import org.antlr.v4.tool.Grammar;
 import org.antlr.v4.tool.LexerGrammar;
 import org.junit.jupiter.api.Test;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -209,4 +217,95 @@ class ATNDeserializationTest extends AbstractBaseTest {
 
     assertThat(atn2Data).isEqualTo(atnData);
   }
+
+  @Test
+  void testPreOptimizedParser() throws Exception {
+    Grammar g = new Grammar(
+      """
+        parser grammar T;
+        a : b* (C | D E)? EOF ;
+        b : A | B C | e ;
+        e : A e | B ;
+        """);
+    checkPreOptimizedIsEquivalent(g);
+  }
+
+  @Test
+  void testPreOptimizedLexer() throws Exception {
+    LexerGrammar lg = new LexerGrammar(
+      """
+        lexer grammar L;
+        ID : [a-z]+ ;
+        INT : [0-9]+ ;
+        STRING : '"' ~'"'* '"' ;
+        WS : [ \\t]+ -> skip ;
+        """);
+    checkPreOptimizedIsEquivalent(lg);
+  }
+
+  @Test
+  void testLL1Predictions() throws Exception {
+    Grammar g = new Grammar(
+      """
+        parser grammar T;
+        tokens {A, B, C, D}
+        a : A | B | C D ;
+        b : A C? ;
+        """);
+    ATN atn = createATN(g, false);
+    new AnalysisPipeline(g).process();
+    IntegerList predictions = AnalysisPipeline.getLL1Predictions(g, createATN(g, true));
+
+    // the decision of C? is left out since its exit branch depends on what follows rule b
+    assertThat(predictions.toArray()).containsExactly(
+      0, 1, 1, 1,
+      0, 2, 2, 2,
+      0, 3, 3, 3);
+
+    List<String> ruleNames = Arrays.asList(g.getRuleNames());
+    ATN plain = new ATNDeserializer().deserialize(ATNSerializer.getSerializedAsChars(atn, ruleNames));
+    char[] optimized = Utils.toCharArray(new ATNSerializer(plain, ruleNames).serializeOptimized(predictions));
+    assertThat(describeOptimizedTransitions(new ATNDeserializer().deserialize(optimized)))
+      .isEqualTo(describeOptimizedTransitions(plain));
+  }
+
+  /**
+   * Deserializing the tool-optimized form must give the same runtime ATN as optimizing at load time, from chars
+   * as well as from bytes.
+   */
+  protected void checkPreOptimizedIsEquivalent(Grammar g) {
+    ATN atn = createATN(g, false);
+    List<String> ruleNames = Arrays.asList(g.getRuleNames());
+    ATN expected = new ATNDeserializer().deserialize(ATNSerializer.getSerializedAsChars(atn, ruleNames));
+
+    IntegerList preOptimized = SerializedATN.getOptimizedSerialization(g, atn, ruleNames);
+    ATN fromChars = new ATNDeserializer().deserialize(Utils.toCharArray(preOptimized));
+    ATN fromBytes = new ATNDeserializer().deserialize(ByteBuffer.wrap(ATNSerializer.getSerializedAsBytes(preOptimized)));
+
+    List<String> expectedTransitions = describeOptimizedTransitions(expected);
+    assertThat(describeOptimizedTransitions(fromChars)).isEqualTo(expectedTransitions);
+    assertThat(describeOptimizedTransitions(fromBytes)).isEqualTo(expectedTransitions);
+    assertThat(fromChars.getNumberOfDecisions()).isEqualTo(expected.getNumberOfDecisions());
+  }
+
+  private static List<String> describeOptimizedTransitions(ATN atn) {
+    List<String> result = new ArrayList<>();
+    for (ATNState state : atn.states) {
+      if (state == null) {
+        continue;
+      }
+
+      StringBuilder description = new StringBuilder();
+      description.append(state.stateNumber).append(':').append(state.getStateType()).append(" ->");
+      for (int i = 0; i < state.getNumberOfOptimizedTransitions(); i++) {
+        Transition t = state.getOptimizedTransition(i);
+        description.append(' ').append(t.target.stateNumber).append('/').append(t.getSerializationType());
+        if (t.label() != null) {
+          description.append(t.label());
+        }
+      }
+      result.add(description.toString());
+    }
+    return result;
+  }
 }
@@ -0,0 +1,101 @@
+/*
+ * This file is a part of ANTLR.
+ *
+ * Copyright (c) 2012-2025 The ANTLR Project. All rights reserved.
+ * Copyright (c) 2025-2026 Valery Maximov <maximovvalery@gmail.com> and contributors
+ *
+ * Use of this file is governed by the BSD-3-Clause license that
+ * can be found in the LICENSE.txt file in the project root.
+ */
+package org.antlr.v4.test.tool;
+
+import org.antlr.v4.Tool;
+import org.antlr.v4.tool.BuildCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BuildCacheTest {
+  @TempDir
+  Path directory;
+
+  private Path grammar;
+  private Path imported;
+  private Path output;
+
+  @BeforeEach
+  void writeGrammars() throws IOException {
+    imported = directory.resolve("S.g4");
+    Files.writeString(imported, "parser grammar S;\na : B ;\n");
+    grammar = directory.resolve("M.g4");
+    Files.writeString(grammar, "grammar M;\nimport S;\ns : a ;\nB : 'b' ;\n");
+    output = directory.resolve("out");
+  }
+
+  @Test
+  void testUnchangedGrammarIsRestored() throws IOException {
+    assertThat(run().getMisses()).isEqualTo(1);
+    String parser = Files.readString(output.resolve("MParser.java"));
+    Files.delete(output.resolve("MParser.java"));
+
+    BuildCache cache = run();
+    assertThat(cache.getHits()).isEqualTo(1);
+    assertThat(cache.getMisses()).isZero();
+    assertThat(output.resolve("MParser.java")).hasContent(parser);
+  }
+
+  @Test
+  void testEditedGrammarIsGeneratedAgain() throws IOException {
+    run();
+    Files.writeString(grammar, "grammar M;\nimport S;\ns : a a ;\nB : 'b' ;\n");
+
+    BuildCache cache = run();
+    assertThat(cache.getHits()).isZero();
+    assertThat(cache.getMisses()).isEqualTo(1);
+  }
+
+  @Test
+  void testEditedImportedGrammarIsGeneratedAgain() throws IOException {
+    run();
+    Files.writeString(imported, "parser grammar S;\na : B B ;\n");
+
+    BuildCache cache = run();
+    assertThat(cache.getHits()).isZero();
+    assertThat(cache.getMisses()).isEqualTo(1);
+  }
+
+  @Test
+  void testChangedOptionIsGeneratedAgain() throws IOException {
+    run();
+    assertThat(run("-visitor").getMisses()).isEqualTo(1);
+
+    Path lib = Files.createDirectories(directory.resolve("lib"));
+    assertThat(run("-lib", lib.toString()).getMisses()).isEqualTo(1);
+    assertThat(run("-lib", lib.toString()).getHits()).isEqualTo(1);
+  }
+
+  private BuildCache run(String... options) {
+    List<String> args = new ArrayList<>(List.of(
+      "-Xcache", directory.resolve("cache").toString(),
+      "-o", output.toString(),
+      "-Xexact-output-dir"));
+    args.addAll(List.of(options));
+    args.add(grammar.toString());
+
+    Tool tool = new Tool(args.toArray(String[]::new));
+    ErrorQueue queue = new ErrorQueue(tool);
+    tool.addListener(queue);
+    tool.processGrammarsOnCommandLine();
+    assertThat(queue.errors).isEmpty();
+    assertThat(tool.buildCache).isNotNull();
+    return tool.buildCache;
+  }
+}
@@ -11,6 +11,7 @@ package org.antlr.v4.test.tool;
 
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.misc.Interval;
 import org.antlr.v4.runtime.misc.Utils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -223,4 +224,28 @@ class CharStreamsTest {
     assertThat(s).hasToString("hello \uD83C\uDF0E");
     assertThat(s.getSourceName()).isEqualTo(p.toString());
   }
+
+  @Test
+  void fromBMPCharSequenceReadsSequence() {
+    StringBuilder text = new StringBuilder("hello \u0416\u00e9");
+    CharStream s = CharStreams.fromCharSequence(text, "name");
+    assertThat(s.size()).isEqualTo(8);
+    assertThat(s.index()).isZero();
+    assertThat(s.LA(1)).isEqualTo('h');
+    assertThat(s.LA(7)).isEqualTo(0x416);
+    assertThat(s.LA(9)).isEqualTo(CharStream.EOF);
+    s.seek(2);
+    assertThat(s.LA(-1)).isEqualTo('e');
+    assertThat(s).hasToString("hello \u0416\u00e9");
+    assertThat(s.getText(Interval.of(6, 7))).isEqualTo("\u0416\u00e9");
+    assertThat(s.getSourceName()).isEqualTo("name");
+  }
+
+  @Test
+  void fromSMPCharSequenceHasExpectedSize() {
+    CharStream s = CharStreams.fromCharSequence(new StringBuilder("hello \uD83C\uDF0E"));
+    assertThat(s.size()).isEqualTo(7);
+    assertThat(s.LA(7)).isEqualTo(0x1F30E);
+    assertThat(s).hasToString("hello \uD83C\uDF0E");
+  }
 }
@@ -15,6 +15,7 @@ import org.antlr.v4.runtime.CommonTokenFactory;
 import org.antlr.v4.runtime.CommonTokenStream;
 import org.antlr.v4.runtime.IntStream;
 import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.ListTokenSource;
 import org.antlr.v4.runtime.Token;
 import org.antlr.v4.runtime.TokenFactory;
 import org.antlr.v4.runtime.TokenSource;
@@ -22,6 +23,9 @@ import org.antlr.v4.runtime.TokenStream;
 import org.antlr.v4.runtime.WritableToken;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 class CommonTokenStreamTest extends BufferedTokenStreamTest {
@@ -269,4 +273,69 @@ class CommonTokenStreamTest extends BufferedTokenStreamTest {
     assertThat(tokens.index()).isZero();
     assertThat(tokens.size()).isEqualTo(1);
   }
+
+  @Test
+  void testChannelNavigationMatchesLinearScan() {
+    // runs of up to 20 off-channel tokens on channels 1 and 2 between default channel tokens
+    List<Token> source = new ArrayList<>();
+    for (int i = 0; i < 60; i++) {
+      int run = (i * 7) % 21;
+      for (int j = 0; j < run; j++) {
+        CommonToken hidden = new CommonToken(2, "h");
+        hidden.setChannel((i + j) % 3 == 0 ? 2 : Lexer.HIDDEN);
+        source.add(hidden);
+      }
+      source.add(new CommonToken(1, "t" + i));
+    }
+    source.add(new CommonToken(Token.EOF, "<EOF>"));
+
+    CommonTokenStream tokens = new CommonTokenStream(new ListTokenSource(source));
+    for (int i = 0; i < 60; i++) {
+      assertThat(tokens.LT(1).getText()).isEqualTo("t" + i);
+      if (i > 0) {
+        assertThat(tokens.LT(-1).getText()).isEqualTo("t" + (i - 1));
+      }
+      tokens.consume();
+    }
+    assertThat(tokens.LA(1)).isEqualTo(Token.EOF);
+
+    for (int index = 0; index < tokens.size(); index++) {
+      for (int channel : new int[] {-1, Lexer.HIDDEN, 2}) {
+        List<Token> right = tokens.getHiddenTokensToRight(index, channel);
+        List<Token> left = tokens.getHiddenTokensToLeft(index, channel);
+        assertThat(right).isEqualTo(hiddenTokens(tokens.getTokens(), index, channel, 1));
+        assertThat(left == null ? null : left.reversed()).isEqualTo(hiddenTokens(tokens.getTokens(), index, channel, -1));
+
+        List<Token> iterated = new ArrayList<>();
+        for (int i = tokens.nextHiddenToken(index, channel); i != -1; i = tokens.nextHiddenToken(i, channel)) {
+          iterated.add(tokens.get(i));
+        }
+        assertThat(iterated.isEmpty() ? null : iterated).isEqualTo(right);
+
+        iterated.clear();
+        for (int i = tokens.previousHiddenToken(index, channel); i != -1; i = tokens.previousHiddenToken(i, channel)) {
+          iterated.add(tokens.get(i));
+        }
+        assertThat(iterated.isEmpty() ? null : iterated).isEqualTo(left == null ? null : left.reversed());
+      }
+    }
+  }
+
+  /**
+   * The off-channel tokens next to {@code index} in {@code direction}, nearest first, found by a linear scan.
+   */
+  private static List<Token> hiddenTokens(List<Token> tokens, int index, int channel, int direction) {
+    List<Token> hidden = new ArrayList<>();
+    for (int i = index + direction; i >= 0 && i < tokens.size(); i += direction) {
+      Token token = tokens.get(i);
+      if (token.getChannel() == Lexer.DEFAULT_TOKEN_CHANNEL || token.getType() == Token.EOF) {
+        break;
+      }
+
+      if (channel == -1 || token.getChannel() == channel) {
+        hidden.add(token);
+      }
+    }
+    return hidden.isEmpty() ? null : hidden;
+  }
 }
@@ -0,0 +1,80 @@
+/*
+ * This file is a part of ANTLR.
+ *
+ * Copyright (c) 2012-2025 The ANTLR Project. All rights reserved.
+ * Copyright (c) 2025-2026 Valery Maximov <maximovvalery@gmail.com> and contributors
+ *
+ * Use of this file is governed by the BSD-3-Clause license that
+ * can be found in the LICENSE.txt file in the project root.
+ */
+package org.antlr.v4.test.tool;
+
+import org.antlr.v4.CompilerService;
+import org.antlr.v4.Tool;
+import org.antlr.v4.codegen.CodeGenerator;
+import org.antlr.v4.codegen.Target;
+import org.antlr.v4.tool.ErrorType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.stringtemplate.v4.ST;
+import org.stringtemplate.v4.STGroup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompilerServiceTest {
+  @TempDir
+  Path directory;
+
+  @Test
+  void testTemplatesAreSharedBetweenTools() throws Exception {
+    STGroup templates = new CodeGenerator(new Tool(), null, "Java").getTemplates();
+    STGroup other = CompletableFuture.supplyAsync(() -> new CodeGenerator(new Tool(), null, "Java").getTemplates())
+      .get();
+
+    assertThat(templates).isNotNull();
+    assertThat(other).isSameAs(templates);
+  }
+
+  @Test
+  void testTemplateErrorsGoToTheCurrentTool() {
+    Tool first = new Tool();
+    ErrorQueue firstErrors = new ErrorQueue(first);
+    first.addListener(firstErrors);
+    Tool second = new Tool();
+    ErrorQueue secondErrors = new ErrorQueue(second);
+    second.addListener(secondErrors);
+    STGroup templates = new CodeGenerator(first, null, "Java").getTemplates();
+
+    Target.reportTemplateErrorsTo(second, () -> new ST(templates, "<noSuchTemplate()>").render());
+
+    assertThat(firstErrors.all).isEmpty();
+    assertThat(secondErrors.all).singleElement()
+      .satisfies(msg -> assertThat(msg.getErrorType()).isEqualTo(ErrorType.STRING_TEMPLATE_WARNING));
+  }
+
+  @Test
+  void testRequestsAreIsolated() throws Exception {
+    Path bad = directory.resolve("Bad.g4");
+    Files.writeString(bad, "grammar Bad;\nstart : undefined ;\n");
+    Path good = directory.resolve("Good.g4");
+    Files.writeString(good, "grammar Good;\nstart : ID EOF ;\nID : [a-z]+ ;\n");
+    String output = directory.resolve("out").toString();
+
+    try (CompilerService service = new CompilerService(1)) {
+      service.warmUp();
+      CompilerService.Result failed = service.compile("-o", output, "-Xexact-output-dir", bad.toString());
+      CompilerService.Result passed = service.compile("-o", output, "-Xexact-output-dir", good.toString());
+
+      assertThat(failed.errors()).isPositive();
+      assertThat(failed.exitCode()).isEqualTo(1);
+      assertThat(passed.errors()).isZero();
+      assertThat(passed.messages()).isEmpty();
+      assertThat(passed.exitCode()).isZero();
+      assertThat(directory.resolve("out").resolve("GoodParser.java")).exists();
+    }
+  }
+}
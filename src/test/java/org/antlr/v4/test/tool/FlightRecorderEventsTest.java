@@ -0,0 +1,104 @@
+/*
+ * This file is a part of ANTLR.
+ *
+ * Copyright (c) 2012-2025 The ANTLR Project. All rights reserved.
+ * Copyright (c) 2025-2026 Valery Maximov <maximovvalery@gmail.com> and contributors
+ *
+ * Use of this file is governed by the BSD-3-Clause license that
+ * can be found in the LICENSE.txt file in the project root.
+ */
+package org.antlr.v4.test.tool;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.LexerInterpreter;
+import org.antlr.v4.runtime.ParserInterpreter;
+import org.antlr.v4.tool.Grammar;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FlightRecorderEventsTest {
+  private static final List<String> EVENTS = List.of(
+    "org.antlr.v4.Parse",
+    "org.antlr.v4.FullContextPrediction",
+    "org.antlr.v4.DFAUpdate",
+    "org.antlr.v4.ErrorRecovery");
+
+  @Test
+  void testEventsAreRecorded() throws Exception {
+    Grammar g = new Grammar(
+      """
+        grammar T;
+        s : ('$' a | '@' b) EOF ;
+        a : e ID ;
+        b : e INT ID ;
+        e : INT | ;
+        ID : [a-z]+ ;
+        INT : [0-9]+ ;
+        WS : [ \\t\\n]+ -> skip ;
+        """);
+
+    Path file = Files.createTempFile("antlr", ".jfr");
+    try {
+      try (Recording recording = new Recording()) {
+        EVENTS.forEach(recording::enable);
+        recording.start();
+        // the SLL conflict in e is resolved with full context
+        parse(g, "$ 34 abc");
+        // the extra ID is deleted
+        parse(g, "$ abc abc");
+        recording.stop();
+        recording.dump(file);
+      }
+
+      List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+      List<RecordedEvent> parses = eventsOf(events, "org.antlr.v4.Parse");
+      assertThat(parses).hasSize(2);
+      assertThat(parses.get(0).getString("grammar")).isEqualTo(g.fileName);
+      assertThat(parses.get(0).getString("startRule")).isEqualTo("s");
+      // '$', 34 and abc; matching EOF does not consume it
+      assertThat(parses.get(0).getInt("startTokenIndex")).isZero();
+      assertThat(parses.get(0).getInt("tokens")).isEqualTo(3);
+      assertThat(parses.get(0).getInt("syntaxErrors")).isZero();
+      assertThat(parses.get(1).getInt("syntaxErrors")).isEqualTo(1);
+
+      List<RecordedEvent> fullContext = eventsOf(events, "org.antlr.v4.FullContextPrediction");
+      assertThat(fullContext).isNotEmpty();
+      assertThat(fullContext.get(0).getString("rule")).isEqualTo("e");
+      assertThat(fullContext.get(0).getInt("sllLookahead")).isGreaterThan(1);
+
+      List<RecordedEvent> updates = eventsOf(events, "org.antlr.v4.DFAUpdate");
+      assertThat(updates).anyMatch(e -> e.getBoolean("lexer"));
+      assertThat(updates).anyMatch(e -> !e.getBoolean("lexer"));
+      assertThat(updates).allMatch(e -> e.getInt("statesCreated") > 0);
+
+      List<RecordedEvent> recoveries = eventsOf(events, "org.antlr.v4.ErrorRecovery");
+      assertThat(recoveries).hasSize(1);
+      assertThat(recoveries.get(0).getString("rule")).isEqualTo("s");
+      assertThat(recoveries.get(0).getInt("tokens")).isEqualTo(1);
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  private static void parse(Grammar g, String input) {
+    LexerInterpreter lexer = g.createLexerInterpreter(CharStreams.fromString(input));
+    ParserInterpreter parser = g.createParserInterpreter(new CommonTokenStream(lexer));
+    parser.removeErrorListeners();
+    parser.parse(g.rules.get("s").index);
+  }
+
+  private static List<RecordedEvent> eventsOf(List<RecordedEvent> events, String name) {
+    return events.stream()
+      .filter(e -> e.getEventType().getName().equals(name))
+      .toList();
+  }
+}
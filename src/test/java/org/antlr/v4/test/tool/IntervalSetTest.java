@@ -11,10 +11,14 @@ package org.antlr.v4.test.tool;
 
 import org.antlr.v4.runtime.Lexer;
 import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.misc.Interval;
 import org.antlr.v4.runtime.misc.IntervalSet;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class IntervalSetTest extends AbstractBaseTest {
 
@@ -433,5 +437,84 @@ class IntervalSetTest extends AbstractBaseTest {
     assertThat(result).isEqualTo(expecting);
   }
 
+  @Test
+  void testAddMergesAcrossManyIntervals() {
+    IntervalSet s = new IntervalSet();
+    for (int i = 0; i < 100; i += 2) {
+      s.add(i);
+    }
+    assertThat(s.getIntervalCount()).isEqualTo(50);
+    s.add(5, 94);
+    assertThat(s).hasToString("{0, 2, 4..94, 96, 98}");
+  }
+
+  @Test
+  void testUnionOfLargeSets() {
+    IntervalSet evens = new IntervalSet();
+    IntervalSet odds = new IntervalSet();
+    for (int i = 0; i < 1000; i++) {
+      ((i & 1) == 0 ? evens : odds).add(i);
+    }
+    evens.addAll(odds);
+    assertThat(evens).isEqualTo(IntervalSet.of(0, 999));
+  }
+
+  @Test
+  void testRetainAll() {
+    IntervalSet s = IntervalSet.of(0, 100);
+    s.add(200, 300);
+    IntervalSet other = IntervalSet.of(50, 250);
+    assertThat(s.retainAll(other)).hasToString("{50..100, 200..250}");
+  }
+
+  @Test
+  void testRetainAllSplitsAnInterval() {
+    IntervalSet s = IntervalSet.of(0, 100);
+    s.add(200, 201);
+    IntervalSet other = IntervalSet.of(1, 2);
+    other.add(4, 5);
+    other.add(7, 8);
+    other.add(200, 300);
+    assertThat(s.retainAll(other)).isSameAs(s).isEqualTo(s.and(other)).hasToString("{1..2, 4..5, 7..8, 200..201}");
+    assertThat(s.retainAll(IntervalSet.of(300, 400)).isNil()).isTrue();
+  }
+
+  @Test
+  void testIntersects() {
+    IntervalSet s = IntervalSet.of(10, 20);
+    s.add(30, 40);
+    assertThat(s.intersects(IntervalSet.of(21, 29))).isFalse();
+    assertThat(s.intersects(IntervalSet.of(25, 30))).isTrue();
+    assertThat(s.intersects(new IntervalSet())).isFalse();
+  }
+
+  @Test
+  void testIntervalAccessors() {
+    IntervalSet s = IntervalSet.of(1, 5);
+    s.add(10);
+    assertThat(s.getIntervalCount()).isEqualTo(2);
+    assertThat(s.getIntervalStart(1)).isEqualTo(10);
+    assertThat(s.getIntervalEnd(0)).isEqualTo(5);
+    assertThat(s.getIntervals()).containsExactly(Interval.of(1, 5), Interval.of(10, 10));
+    assertThatThrownBy(() -> s.getIntervalStart(2)).isInstanceOf(IndexOutOfBoundsException.class);
+    assertThatThrownBy(() -> s.getIntervalEnd(-1)).isInstanceOf(IndexOutOfBoundsException.class);
+  }
 
+  @Test
+  void testGetIntervalsIsASnapshot() {
+    IntervalSet s = IntervalSet.of(1, 5);
+    List<Interval> intervals = s.getIntervals();
+    s.add(10);
+    intervals.clear();
+    assertThat(s.getIntervals()).containsExactly(Interval.of(1, 5), Interval.of(10, 10));
+  }
+
+  @Test
+  void testEqualsIgnoresSpareCapacity() {
+    IntervalSet s = IntervalSet.of(1, 20);
+    s.remove(10);
+    s.add(10);
+    assertThat(s).isEqualTo(IntervalSet.of(1, 20));
+    assertThat(s.hashCode()).isEqualTo(IntervalSet.of(1, 20).hashCode());
+  }
 }
@@ -0,0 +1,111 @@
+/*
+ * This file is a part of ANTLR.
+ *
+ * Copyright (c) 2012-2025 The ANTLR Project. All rights reserved.
+ * Copyright (c) 2025-2026 Valery Maximov <maximovvalery@gmail.com> and contributors
+ *
+ * Use of this file is governed by the BSD-3-Clause license that
+ * can be found in the LICENSE.txt file in the project root.
+ */
+package org.antlr.v4.test.tool;
+
+import org.antlr.v4.Tool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParallelProcessingTest {
+  private static final String LEXER = """
+    lexer grammar L;
+    A : 'a' ;
+    B : 'b' ;
+    WS : ' '+ -> skip ;
+    """;
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void testParallelRunMatchesSequentialRun() throws IOException {
+    List<Path> grammars = List.of(
+      grammar("P1", "s : A B ;"),
+      grammar("L", LEXER),
+      grammar("P2", "s : B A* ;"),
+      grammar("P3", "s : A+ ;"));
+
+    Run sequential = run("sequential", false, grammars);
+    Run parallel = run("parallel", true, grammars);
+
+    assertThat(sequential.errors()).isZero();
+    assertThat(sequential.files()).containsKeys("L.tokens", "P1.java", "P2.java", "P3.java");
+    assertThat(parallel.files()).isEqualTo(sequential.files());
+    assertThat(parallel.messages()).isEqualTo(sequential.messages());
+  }
+
+  @Test
+  void testParallelRunStopsAfterErrorLikeSequentialRun() throws IOException {
+    List<Path> grammars = List.of(
+      grammar("L", LEXER),
+      grammar("P1", "s : A B ;"),
+      grammar("P2", "s : undefined ;"),
+      grammar("P3", "s : A+ ;"));
+
+    Run sequential = run("sequential", false, grammars);
+    Run parallel = run("parallel", true, grammars);
+
+    assertThat(sequential.errors()).isPositive();
+    assertThat(sequential.files()).containsKey("P1.java").doesNotContainKey("P3.java");
+    assertThat(parallel.errors()).isEqualTo(sequential.errors());
+    assertThat(parallel.files()).isEqualTo(sequential.files());
+    assertThat(parallel.messages()).isEqualTo(sequential.messages());
+  }
+
+  private Path grammar(String name, String text) throws IOException {
+    if (!text.startsWith("lexer grammar")) {
+      text = "parser grammar " + name + ";\noptions { tokenVocab = L; }\n" + text + "\n";
+    }
+    Path file = directory.resolve("grammars").resolve(name + ".g4");
+    Files.createDirectories(file.getParent());
+    Files.writeString(file, text);
+    return file;
+  }
+
+  private Run run(String name, boolean parallel, List<Path> grammars) throws IOException {
+    Path output = directory.resolve(name);
+    List<String> args = new ArrayList<>(List.of("-o", output.toString(), "-Xexact-output-dir"));
+    if (parallel) {
+      args.add("-Xparallel");
+    }
+    for (Path grammar : grammars) {
+      args.add(grammar.toString());
+    }
+
+    Tool tool = new Tool(args.toArray(String[]::new));
+    ErrorQueue queue = new ErrorQueue(tool);
+    tool.addListener(queue);
+    tool.processGrammarsOnCommandLine();
+
+    Map<String, String> files = new TreeMap<>();
+    if (Files.isDirectory(output)) {
+      try (Stream<Path> paths = Files.walk(output)) {
+        for (Path path : paths.filter(Files::isRegularFile).toList()) {
+          files.put(output.relativize(path).toString(), Files.readString(path));
+        }
+      }
+    }
+    return new Run(tool.getNumErrors(), queue.toString(), files);
+  }
+
+  private record Run(int errors, String messages, Map<String, String> files) {
+  }
+}
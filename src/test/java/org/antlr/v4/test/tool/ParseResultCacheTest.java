@@ -0,0 +1,145 @@
+/*
+ * This file is a part of ANTLR.
+ *
+ * Copyright (c) 2012-2025 The ANTLR Project. All rights reserved.
+ * Copyright (c) 2025-2026 Valery Maximov <maximovvalery@gmail.com> and contributors
+ *
+ * Use of this file is governed by the BSD-3-Clause license that
+ * can be found in the LICENSE.txt file in the project root.
+ */
+package org.antlr.v4.test.tool;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.ParseResultCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ParseResultCacheTest {
+  @TempDir
+  Path directory;
+
+  @Test
+  void testKeyDependsOnContentAndNamespace() {
+    var key = ParseResultCache.Key.of("grammar", CharStreams.fromString("a = 1;"));
+
+    assertThat(ParseResultCache.Key.of("grammar", CharStreams.fromCharSequence(new StringBuilder("a = 1;"))))
+      .isEqualTo(key);
+    assertThat(ParseResultCache.Key.of("grammar", CharStreams.fromString("a = 2;"))).isNotEqualTo(key);
+    assertThat(ParseResultCache.Key.of("other", CharStreams.fromString("a = 1;"))).isNotEqualTo(key);
+  }
+
+  @Test
+  void testEntriesSurviveReopen() throws IOException {
+    try (var cache = ParseResultCache.open(directory, 1 << 20)) {
+      cache.put(key(1), data(1, 100));
+      cache.put(key(2), data(2, 100));
+      assertThat(cache.get(key(1))).isEqualTo(data(1, 100));
+    }
+
+    try (var cache = ParseResultCache.open(directory, 1 << 20)) {
+      assertThat(cache.get(key(1))).isEqualTo(data(1, 100));
+      assertThat(cache.get(key(2))).isEqualTo(data(2, 100));
+      assertThat(cache.get(key(3))).isNull();
+      assertThat(cache.getHitCount()).isEqualTo(2);
+      assertThat(cache.getMissCount()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  void testLeastRecentlyUsedSegmentIsEvicted() throws IOException {
+    // каждая запись занимает отдельный сегмент
+    try (var cache = ParseResultCache.open(directory, 500, 200)) {
+      cache.put(key(1), data(1, 100));
+      cache.put(key(2), data(2, 100));
+      cache.put(key(3), data(3, 100));
+      assertThat(cache.get(key(1))).isNotNull();
+      cache.put(key(4), data(4, 100));
+
+      assertThat(cache.size()).isLessThanOrEqualTo(500);
+      assertThat(cache.get(key(2))).isNull();
+      assertThat(cache.get(key(1))).isNotNull();
+      assertThat(cache.get(key(3))).isNotNull();
+      assertThat(cache.get(key(4))).isNotNull();
+    }
+  }
+
+  @Test
+  void testIncompleteRecordIsDropped() throws IOException {
+    try (var cache = ParseResultCache.open(directory, 1 << 20)) {
+      cache.put(key(1), data(1, 100));
+    }
+
+    try (var segments = Files.list(directory)) {
+      Path segment = segments.filter(path -> path.toString().endsWith(".dat")).findFirst().orElseThrow();
+      Files.write(segment, data(9, 50), StandardOpenOption.APPEND);
+    }
+
+    try (var cache = ParseResultCache.open(directory, 1 << 20)) {
+      assertThat(cache.get(key(1))).isEqualTo(data(1, 100));
+      cache.put(key(2), data(2, 100));
+    }
+
+    try (var cache = ParseResultCache.open(directory, 1 << 20)) {
+      assertThat(cache.get(key(1))).isEqualTo(data(1, 100));
+      assertThat(cache.get(key(2))).isEqualTo(data(2, 100));
+    }
+  }
+
+  @Test
+  void testDirectoryIsUsedByOneCache() throws IOException {
+    try (var cache = ParseResultCache.open(directory, 1 << 20)) {
+      assertThatThrownBy(() -> ParseResultCache.open(directory, 1 << 20)).isInstanceOf(IOException.class);
+      cache.put(key(1), data(1, 10));
+    }
+
+    try (var cache = ParseResultCache.open(directory, 1 << 20)) {
+      assertThat(cache.get(key(1))).isEqualTo(data(1, 10));
+    }
+  }
+
+  @Test
+  void testWriteFailuresAreCounted() throws IOException {
+    Path cacheDirectory = directory.resolve("cache");
+    var cache = ParseResultCache.open(cacheDirectory, 1 << 20);
+    try {
+      // новый сегмент негде создать
+      try (var files = Files.list(cacheDirectory)) {
+        for (Path file : files.toList()) {
+          Files.delete(file);
+        }
+      }
+      Files.delete(cacheDirectory);
+
+      assertThatThrownBy(() -> cache.put(key(1), data(1, 10))).isInstanceOf(IOException.class);
+      assertThat(cache.getWriteFailureCount()).isEqualTo(1);
+      assertThat(cache.get(key(1))).isNull();
+    } finally {
+      try {
+        cache.close();
+      } catch (IOException e) {
+        // каталога уже нет
+      }
+    }
+  }
+
+  private static ParseResultCache.Key key(int id) {
+    var digest = new byte[ParseResultCache.Key.SIZE];
+    digest[0] = (byte) id;
+    return ParseResultCache.Key.of(digest);
+  }
+
+  private static byte[] data(int id, int size) {
+    var data = new byte[size];
+    Arrays.fill(data, (byte) id);
+    return data;
+  }
+}
@@ -9,16 +9,37 @@
  */
 package org.antlr.v4.test.tool;
 
+import org.antlr.v4.runtime.CancellationToken;
 import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.InteractiveErrorStrategy;
 import org.antlr.v4.runtime.LexerInterpreter;
+import org.antlr.v4.runtime.Parser;
 import org.antlr.v4.runtime.ParserInterpreter;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.atn.PredictionLog;
+import org.antlr.v4.runtime.atn.PredictionMetrics;
+import org.antlr.v4.runtime.dfa.DFA;
+import org.antlr.v4.runtime.dfa.DFAState;
+import org.antlr.v4.runtime.misc.IntervalSet;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.antlr.v4.runtime.tree.ErrorNode;
 import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.TerminalNode;
 import org.antlr.v4.tool.Grammar;
 import org.antlr.v4.tool.LexerGrammar;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class ParserInterpreterTest extends AbstractBaseTest {
 
@@ -403,6 +424,491 @@ class ParserInterpreterTest extends AbstractBaseTest {
     testInterp(lg, g, "e", "a+a*a", "(e (e a) + (e (e a) * (e a)))");
   }
 
+  @Test
+  void testPredictionLogReplay() throws Exception {
+    LexerGrammar lg = new LexerGrammar(
+      """
+        lexer grammar L;
+        A : 'a' ;
+        B : 'b' ;
+        PLUS : '+' ;
+        MULT : '*' ;
+        """);
+    Grammar g = new Grammar(
+      """
+        parser grammar T;
+        s : e (B | A)* ;
+        e : e MULT e
+          | e PLUS e
+          | A
+          ;
+        """,
+      lg);
+    String input = "a+a*a+aab";
+
+    CommonTokenStream tokens = new CommonTokenStream(lg.createLexerInterpreter(CharStreams.fromString(input)));
+    ParserInterpreter parser = g.createParserInterpreter(tokens);
+    PredictionLog recording = PredictionLog.record();
+    parser.getInterpreter().setPredictionLog(recording);
+    String expected = parser.parse(g.rules.get("s").index).toStringTree(parser);
+    int[] log = recording.toArray();
+    assertThat(recording.size()).isPositive();
+
+    parser.getInterpreter().clearDFA();
+    tokens = new CommonTokenStream(lg.createLexerInterpreter(CharStreams.fromString(input)));
+    parser = g.createParserInterpreter(tokens);
+    PredictionLog replay = PredictionLog.replay(log);
+    parser.getInterpreter().setPredictionLog(replay);
+    assertThat(parser.parse(g.rules.get("s").index).toStringTree(parser)).isEqualTo(expected);
+    assertThat(replay.getPosition()).isEqualTo(replay.size());
+    for (DFA dfa : parser.getInterpreter().atn.decisionToDFA) {
+      assertThat(dfa.isEmpty()).isTrue();
+    }
+  }
+
+  @Test
+  void testPredictionLogReplayWithFullContextFallback() throws Exception {
+    LexerGrammar lg = new LexerGrammar(
+      """
+        lexer grammar L;
+        DOLLAR : '$' ;
+        AT : '@' ;
+        INT : [0-9]+ ;
+        ID : [a-z]+ ;
+        WS : ' '+ -> skip ;
+        """);
+    Grammar g = new Grammar(
+      """
+        parser grammar T;
+        s : (DOLLAR a | AT b)+ EOF ;
+        a : e ID ;
+        b : e INT ID ;
+        e : INT | ;
+        """,
+      lg);
+    // the second prediction in e runs on a warm DFA, ends in an SLL conflict and retries with full context
+    String input = "$ 34 abc $ 35 def @ 36 37 ghi";
+
+    CommonTokenStream tokens = new CommonTokenStream(lg.createLexerInterpreter(CharStreams.fromString(input)));
+    ParserInterpreter parser = g.createParserInterpreter(tokens);
+    PredictionLog recording = PredictionLog.record();
+    parser.getInterpreter().setPredictionLog(recording);
+    String expected = parser.parse(g.rules.get("s").index).toStringTree(parser);
+    assertThat(parser.getNumberOfSyntaxErrors()).isZero();
+
+    tokens = new CommonTokenStream(lg.createLexerInterpreter(CharStreams.fromString(input)));
+    parser = g.createParserInterpreter(tokens);
+    PredictionLog replay = PredictionLog.replay(recording.toArray());
+    parser.getInterpreter().setPredictionLog(replay);
+    assertThat(parser.parse(g.rules.get("s").index).toStringTree(parser)).isEqualTo(expected);
+    assertThat(replay.getPosition()).isEqualTo(replay.size());
+  }
+
+  @Test
+  void testFrozenDFAThawsOnMissingEdge() throws Exception {
+    LexerGrammar lg = new LexerGrammar(
+      """
+        lexer grammar L;
+        ID : [a-z]+ ;
+        INT : [0-9]+ ;
+        EQ : '=' ;
+        LP : '(' ;
+        RP : ')' ;
+        SEMI : ';' ;
+        WS : ' ' -> skip ;
+        """);
+    Grammar g = new Grammar(
+      """
+        parser grammar T;
+        s : (a SEMI)* EOF ;
+        a : ID EQ ID
+          | ID LP RP
+          | ID
+          | INT
+          ;
+        """,
+      lg);
+
+    LexerInterpreter lexer = lg.createLexerInterpreter(CharStreams.fromString("x = y; f(); z;"));
+    ParserInterpreter parser = g.createParserInterpreter(new CommonTokenStream(lexer));
+    int startRule = g.rules.get("s").index;
+    String expected = parser.parse(startRule).toStringTree(parser);
+
+    DFA lexerDFA = lexer.getInterpreter().atn.modeToDFA[0];
+    DFA decisionDFA = getDecisionDFA(parser, g.rules.get("a").index);
+    int warmConfigs = countDFAConfigs(parser);
+    lexer.getInterpreter().atn.freezeDFA();
+    parser.getInterpreter().atn.freezeDFA();
+    assertThat(lexerDFA.isFrozen()).isTrue();
+    assertThat(decisionDFA.isFrozen()).isTrue();
+    // the final accept states give up their configurations
+    assertThat(countDFAConfigs(parser)).isLessThan(warmConfigs);
+    assertThat(decisionDFA.states.values()).anyMatch(state -> state.configs.isCompacted());
+
+    // the same input only takes edges of the snapshot
+    lexer.setInputStream(CharStreams.fromString("x = y; f(); z;"));
+    parser.setInputStream(new CommonTokenStream(lexer));
+    assertThat(parser.parse(startRule).toStringTree(parser)).isEqualTo(expected);
+    assertThat(lexerDFA.isFrozen()).isTrue();
+    assertThat(decisionDFA.isFrozen()).isTrue();
+
+    // a digit and the INT alternative are new to both DFAs; entering the loop on INT reuses its compacted state
+    DFA loopDFA = getDecisionDFA(parser, startRule);
+    int loopStates = loopDFA.states.size();
+    lexer.setInputStream(CharStreams.fromString("x = y; 42; z;"));
+    parser.setInputStream(new CommonTokenStream(lexer));
+    assertThat(parser.parse(startRule).toStringTree(parser)).isEqualTo("(s (a x = y) ; (a 42) ; (a z) ; <EOF>)");
+    assertThat(lexerDFA.isFrozen()).isFalse();
+    assertThat(decisionDFA.isFrozen()).isFalse();
+    assertThat(loopDFA.states).hasSize(loopStates);
+  }
+
+  @Test
+  void testAutoFreezeDFA() throws Exception {
+    LexerGrammar lg = new LexerGrammar(
+      """
+        lexer grammar L;
+        ID : [a-z]+ ;
+        EQ : '=' ;
+        SEMI : ';' ;
+        WS : ' ' -> skip ;
+        """);
+    Grammar g = new Grammar(
+      """
+        parser grammar T;
+        s : (a SEMI)* EOF ;
+        a : ID EQ ID | ID ;
+        """,
+      lg);
+
+    StringBuilder input = new StringBuilder();
+    for (int i = 0; i < 10_000; i++) {
+      input.append(i % 2 == 0 ? "x = y; " : "z; ");
+    }
+
+    ParserInterpreter parser = g.createParserInterpreter(new CommonTokenStream(lg.createLexerInterpreter(
+      CharStreams.fromString(input.toString()))));
+    parser.getInterpreter().atn.setAutoFreezeDFA(true);
+    DFA decisionDFA = getDecisionDFA(parser, g.rules.get("a").index);
+    assertThat(decisionDFA.isAutoFreeze()).isTrue();
+
+    ParserRuleContext tree = parser.parse(g.rules.get("s").index);
+    assertThat(tree.getChildCount()).isEqualTo(2 * 10_000 + 1);
+    assertThat(decisionDFA.isFrozen()).isTrue();
+
+    parser.getInterpreter().clearDFA();
+    assertThat(getDecisionDFA(parser, g.rules.get("a").index).isAutoFreeze()).isTrue();
+  }
+
+  @Test
+  void testCompactAcceptStateConfigs() throws Exception {
+    LexerGrammar lg = new LexerGrammar(
+      """
+        lexer grammar L;
+        ID : [a-z]+ ;
+        INT : [0-9]+ ;
+        EQ : '=' ;
+        LP : '(' ;
+        RP : ')' ;
+        SEMI : ';' ;
+        WS : ' ' -> skip ;
+        """);
+    Grammar g = new Grammar(
+      """
+        parser grammar T;
+        s : (a SEMI)* EOF ;
+        a : ID EQ e
+          | ID LP RP
+          | e
+          ;
+        e : ID | INT | LP e RP ;
+        """,
+      lg);
+    String input = "x = y; f(); z; (1); x = (2); g(); ((a));";
+
+    ParserInterpreter parser = g.createParserInterpreter(new CommonTokenStream(
+      lg.createLexerInterpreter(CharStreams.fromString(input))));
+    String expected = parser.parse(g.rules.get("s").index).toStringTree(parser);
+    int fullConfigs = countDFAConfigs(parser);
+    int fullStates = countDFAStates(parser);
+
+    parser = g.createParserInterpreter(new CommonTokenStream(lg.createLexerInterpreter(CharStreams.fromString(input))));
+    parser.getInterpreter().compact_accept_state_configs = true;
+    assertThat(parser.parse(g.rules.get("s").index).toStringTree(parser)).isEqualTo(expected);
+    assertThat(countDFAConfigs(parser)).isLessThan(fullConfigs);
+    // edges which predict the same alternative share one compacted state
+    assertThat(countDFAStates(parser)).isLessThan(fullStates);
+
+    boolean compacted = false;
+    for (DFA dfa : parser.getInterpreter().atn.decisionToDFA) {
+      for (DFAState state : dfa.states.values()) {
+        if (state.configs.isCompacted()) {
+          compacted = true;
+          assertThat(state.configs).isEmpty();
+          assertThat(state.isAcceptState()).isTrue();
+          assertThat(state.configs.getConflictInfo()).isNull();
+        }
+      }
+    }
+    assertThat(compacted).isTrue();
+
+    // the warm DFA predicts the same way, including from compacted states
+    parser.setInputStream(new CommonTokenStream(lg.createLexerInterpreter(CharStreams.fromString(input))));
+    assertThat(parser.parse(g.rules.get("s").index).toStringTree(parser)).isEqualTo(expected);
+  }
+
+  @Test
+  void testPredictionMetrics() throws Exception {
+    LexerGrammar lg = new LexerGrammar(
+      """
+        lexer grammar L;
+        ID : [a-z]+ ;
+        EQ : '=' ;
+        SEMI : ';' ;
+        WS : ' ' -> skip ;
+        """);
+    Grammar g = new Grammar(
+      """
+        parser grammar T;
+        s : (a SEMI)* EOF ;
+        a : ID EQ ID | ID ;
+        """,
+      lg);
+    String input = "x = y; z; x = y; z;";
+
+    LexerInterpreter lexer = lg.createLexerInterpreter(CharStreams.fromString(input));
+    ParserInterpreter parser = g.createParserInterpreter(new CommonTokenStream(lexer));
+    PredictionMetrics metrics = new PredictionMetrics(parser.getATN().getNumberOfDecisions(), 1);
+    parser.getATN().setPredictionMetrics(metrics);
+    int decision = getDecisionDFA(parser, g.rules.get("a").index).decision;
+    parser.parse(g.rules.get("s").index);
+
+    PredictionMetrics.DecisionMetrics cold = metrics.snapshotAndReset()[decision];
+    assertThat(cold.invocations()).isEqualTo(4);
+    assertThat(cold.atnFallbacks()).isPositive();
+    assertThat(cold.dfaHits() + cold.atnFallbacks()).isEqualTo(cold.invocations());
+    assertThat(cold.llEscalations()).isZero();
+    // both alternatives need the symbol after ID
+    assertThat(cold.lookaheadHistogram()[PredictionMetrics.getLookaheadBucket(2)]).isEqualTo(4);
+    assertThat(cold.timingSamples()).isEqualTo(4);
+    assertThat(cold.estimatedTimeNanos()).isEqualTo(cold.sampledTimeNanos());
+
+    lexer.setInputStream(CharStreams.fromString(input));
+    parser.setInputStream(new CommonTokenStream(lexer));
+    parser.parse(g.rules.get("s").index);
+    PredictionMetrics.DecisionMetrics warm = metrics.snapshot()[decision];
+    assertThat(warm.invocations()).isEqualTo(4);
+    assertThat(warm.dfaHits()).isEqualTo(4);
+    assertThat(warm.atnFallbacks()).isZero();
+
+    metrics.reset();
+    assertThat(metrics.snapshot()[decision].invocations()).isZero();
+
+    parser.getATN().setPredictionMetrics(null);
+    lexer.setInputStream(CharStreams.fromString(input));
+    parser.setInputStream(new CommonTokenStream(lexer));
+    parser.parse(g.rules.get("s").index);
+    assertThat(metrics.snapshot()[decision].invocations()).isZero();
+  }
+
+  @Test
+  void testLookaheadBuckets() {
+    assertThat(PredictionMetrics.getLookaheadBucket(1)).isZero();
+    assertThat(PredictionMetrics.getLookaheadBucket(2)).isEqualTo(1);
+    assertThat(PredictionMetrics.getLookaheadBucket(3)).isEqualTo(2);
+    assertThat(PredictionMetrics.getLookaheadBucket(4)).isEqualTo(2);
+    assertThat(PredictionMetrics.getLookaheadBucket(5)).isEqualTo(3);
+    assertThat(PredictionMetrics.getLookaheadBucket(64)).isEqualTo(6);
+    assertThat(PredictionMetrics.getLookaheadBucket(65)).isEqualTo(PredictionMetrics.LOOKAHEAD_BUCKETS - 1);
+    assertThat(PredictionMetrics.getLookaheadBucket(1_000_000)).isEqualTo(PredictionMetrics.LOOKAHEAD_BUCKETS - 1);
+  }
+
+  static int countDFAStates(Parser parser) {
+    int states = 0;
+    for (DFA dfa : parser.getInterpreter().atn.decisionToDFA) {
+      states += dfa.states.size();
+    }
+    return states;
+  }
+
+  static int countDFAConfigs(Parser parser) {
+    int configs = 0;
+    for (DFA dfa : parser.getInterpreter().atn.decisionToDFA) {
+      for (DFAState state : dfa.states.values()) {
+        configs += state.configs.size();
+      }
+    }
+    return configs;
+  }
+
+  private static DFA getDecisionDFA(Parser parser, int ruleIndex) {
+    for (DFA dfa : parser.getInterpreter().atn.decisionToDFA) {
+      if (dfa.atnStartState.ruleIndex == ruleIndex) {
+        return dfa;
+      }
+    }
+
+    throw new IllegalArgumentException("no decision in rule " + ruleIndex);
+  }
+
+  @Test
+  void testErrorRecoverySetIsShared() throws Exception {
+    LexerGrammar lg = new LexerGrammar(
+      """
+        lexer grammar L;
+        LBRACK : '[' ;
+        RBRACK : ']' ;
+        LPAREN : '(' ;
+        RPAREN : ')' ;
+        CARET : '^' ;
+        ID : [a-z]+ ;
+        INT : [0-9]+ ;
+        """);
+    Grammar g = new Grammar(
+      """
+        parser grammar T;
+        a : '[' b ']'
+          | '(' b ')'
+          ;
+        b : c '^' INT ;
+        c : ID
+          | INT
+          ;
+        """,
+      lg);
+
+    List<IntervalSet> recoverySets = new ArrayList<>();
+    ParserInterpreter parser = g.createParserInterpreter(
+      new CommonTokenStream(lg.createLexerInterpreter(CharStreams.fromString("[]"))));
+    parser.removeErrorListeners();
+    parser.setErrorHandler(new DefaultErrorStrategy() {
+      @Override
+      public void recover(Parser recognizer, RecognitionException e) {
+        recoverySets.add(getErrorRecoverySet(recognizer));
+        super.recover(recognizer, e);
+      }
+    });
+    // the recovery sets are cached in the ATN, so both parses run on the ATN of one interpreter
+    for (int i = 0; i < 2; i++) {
+      parser.setInputStream(new CommonTokenStream(lg.createLexerInterpreter(CharStreams.fromString("[]"))));
+      parser.parse(g.rules.get("a").index);
+    }
+
+    // FOLLOW(b in a) + FOLLOW(c in b), computed once for the call chain a -> b -> c
+    IntervalSet first = recoverySets.get(0);
+    assertThat(first.toString(g.getVocabulary())).isEqualTo("{']', '^'}");
+    assertThat(first.isReadonly()).isTrue();
+    assertThat(recoverySets.get(recoverySets.size() / 2)).isSameAs(first);
+  }
+
+  @Test
+  void testInteractiveErrorStrategyBoundsSkippedTokens() throws Exception {
+    LexerGrammar lg = new LexerGrammar(
+      """
+        lexer grammar L;
+        SEMI : ';' ;
+        ID : [a-z]+ ;
+        INT : [0-9]+ ;
+        WS : ' ' -> skip ;
+        """);
+    Grammar g = new Grammar(
+      """
+        parser grammar T;
+        s : (ID ';')* EOF ;
+        """,
+      lg);
+
+    ParserInterpreter parser = g.createParserInterpreter(
+      new CommonTokenStream(lg.createLexerInterpreter(CharStreams.fromString("a ; 1 2 3 4 5 6 7 8 b ;"))));
+    parser.removeErrorListeners();
+    parser.setErrorHandler(new InteractiveErrorStrategy(2));
+    parser.parse(g.rules.get("s").index);
+
+    assertThat(parser.getNumberOfSyntaxErrors()).isPositive();
+    assertThat(parser.getCurrentToken().getType()).isEqualTo(Token.EOF);
+  }
+
+  @Test
+  void testInteractiveErrorStrategyResynchronizesInCaller() throws Exception {
+    LexerGrammar lg = new LexerGrammar(
+      """
+        lexer grammar L;
+        LBRACE : '{' ;
+        RBRACE : '}' ;
+        ID : [a-z]+ ;
+        INT : [0-9]+ ;
+        WS : ' ' -> skip ;
+        """);
+    Grammar g = new Grammar(
+      """
+        parser grammar T;
+        s : b* EOF ;
+        b : '{' ID* '}' ;
+        """,
+      lg);
+
+    ParserInterpreter parser = g.createParserInterpreter(
+      new CommonTokenStream(lg.createLexerInterpreter(CharStreams.fromString("{ a 1 2 3 4 5 } { c }"))));
+    parser.removeErrorListeners();
+    parser.setErrorHandler(new InteractiveErrorStrategy(2));
+    ParserRuleContext tree = parser.parse(g.rules.get("s").index);
+
+    // b gives up after two tokens, then s skips to the next block instead of failing
+    assertThat(parser.getNumberOfSyntaxErrors()).isEqualTo(1);
+    assertThat(parser.getCurrentToken().getType()).isEqualTo(Token.EOF);
+    assertThat(tree.getChild(tree.getChildCount() - 2).getText()).isEqualTo("{c}");
+  }
+
+  @Test
+  void testCancellationTokenAbortsParse() throws Exception {
+    LexerGrammar lg = new LexerGrammar(
+      """
+        lexer grammar L;
+        SEMI : ';' ;
+        ID : [a-z]+ ;
+        WS : ' ' -> skip ;
+        """);
+    Grammar g = new Grammar(
+      """
+        parser grammar T;
+        s : (ID ';')* EOF ;
+        """,
+      lg);
+
+    LexerInterpreter lexer = lg.createLexerInterpreter(CharStreams.fromString("a ; b ; c ; d ;"));
+    ParserInterpreter parser = g.createParserInterpreter(new CommonTokenStream(lexer));
+    CancellationToken cancellation = new CancellationToken();
+    parser.setCancellationToken(cancellation);
+    parser.addParseListener(new ParseTreeListener() {
+      @Override
+      public void visitTerminal(TerminalNode node) {
+        if (node.getSymbol().getTokenIndex() == 2) {
+          cancellation.cancel();
+        }
+      }
+
+      @Override
+      public void visitErrorNode(ErrorNode node) {
+      }
+
+      @Override
+      public void enterEveryRule(ParserRuleContext ctx) {
+      }
+
+      @Override
+      public void exitEveryRule(ParserRuleContext ctx) {
+      }
+    });
+
+    assertThatThrownBy(() -> parser.parse(g.rules.get("s").index))
+      .isInstanceOf(ParseCancellationException.class);
+    assertThat(parser.getCurrentToken().getTokenIndex()).isEqualTo(3);
+
+    LexerInterpreter expired = lg.createLexerInterpreter(CharStreams.fromString("a ; b ;"));
+    expired.setCancellationToken(CancellationToken.withTimeout(Duration.ZERO));
+    assertThatThrownBy(expired::nextToken).isInstanceOf(ParseCancellationException.class);
+  }
+
   ParseTree testInterp(LexerGrammar lg, Grammar g,
                        String startRule, String input,
                        String expectedParseTree) {
@@ -14,9 +14,11 @@ import org.antlr.v4.runtime.CommonTokenStream;
 import org.antlr.v4.runtime.LexerInterpreter;
 import org.antlr.v4.runtime.ParserInterpreter;
 import org.antlr.v4.runtime.atn.DecisionInfo;
+import org.antlr.v4.runtime.atn.ParserATNSimulator;
 import org.antlr.v4.tool.Grammar;
 import org.antlr.v4.tool.LexerGrammar;
 import org.antlr.v4.tool.Rule;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
@@ -26,6 +28,7 @@ class ParserProfilerTest extends AbstractBaseTest {
   LexerGrammar lg;
 
   @Override
+  @BeforeEach
   public void setUp() throws Exception {
     super.setUp();
     lg = new LexerGrammar(
@@ -245,6 +248,38 @@ class ParserProfilerTest extends AbstractBaseTest {
     assertThat(stderrDuringParse).isNull();
   }
 
+  @Test
+  void testPredictionMemo() throws Exception {
+    Grammar g = new Grammar(
+      """
+        parser grammar T;
+        s : ID SEMI {}
+          | ID DOT
+          ;
+        """,
+      lg);
+
+    LexerInterpreter lexEngine = lg.createLexerInterpreter(CharStreams.fromString("xyz;"));
+    CommonTokenStream tokens = new CommonTokenStream(lexEngine);
+    tokens.fill();
+    ParserInterpreter parser = g.createParserInterpreter(tokens);
+    parser.getInterpreter().memoize_predictions = true;
+    parser.setProfile(true);
+
+    ParserATNSimulator interpreter = parser.getInterpreter();
+    assertThat(interpreter.adaptivePredict(tokens, 0, null)).isEqualTo(1);
+    assertThat(interpreter.adaptivePredict(tokens, 0, null)).isEqualTo(1);
+    DecisionInfo info = parser.getParseInfo().getDecisionInfo()[0];
+    assertThat(info.invocations).isEqualTo(2);
+    assertThat(info.memoMisses).isEqualTo(1);
+    assertThat(info.memoHits).isEqualTo(1);
+
+    // rewinding the parser drops the memo
+    parser.reset();
+    assertThat(interpreter.adaptivePredict(tokens, 0, null)).isEqualTo(1);
+    assertThat(info.memoMisses).isEqualTo(2);
+  }
+
   public DecisionInfo[] interpAndGetDecisionInfo(
     LexerGrammar lg, Grammar g,
     String startRule, String... input) {
@@ -9,6 +9,8 @@
  */
 package org.antlr.v4.test.tool;
 
+import org.antlr.v4.analysis.AnalysisPipeline;
+import org.antlr.v4.codegen.model.SerializedATN;
 import org.antlr.v4.runtime.ANTLRErrorListener;
 import org.antlr.v4.runtime.BailErrorStrategy;
 import org.antlr.v4.runtime.BaseErrorListener;
@@ -20,44 +22,63 @@ import org.antlr.v4.runtime.CommonTokenStream;
 import org.antlr.v4.runtime.DefaultErrorStrategy;
 import org.antlr.v4.runtime.DiagnosticErrorListener;
 import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.LexerInterpreter;
+import org.antlr.v4.runtime.ParseResultCache;
 import org.antlr.v4.runtime.Parser;
 import org.antlr.v4.runtime.ParserInterpreter;
 import org.antlr.v4.runtime.ParserRuleContext;
 import org.antlr.v4.runtime.RecognitionException;
 import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.RecognizerPool;
 import org.antlr.v4.runtime.Token;
 import org.antlr.v4.runtime.TokenSource;
 import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.Tokenizer;
 import org.antlr.v4.runtime.atn.ATN;
 import org.antlr.v4.runtime.atn.ATNConfig;
 import org.antlr.v4.runtime.atn.ATNConfigSet;
 import org.antlr.v4.runtime.atn.ATNDeserializer;
+import org.antlr.v4.runtime.atn.ATNSerializer;
+import org.antlr.v4.runtime.atn.ATNState;
+import org.antlr.v4.runtime.atn.DecisionState;
+import org.antlr.v4.runtime.atn.LL1Analyzer;
 import org.antlr.v4.runtime.atn.LexerATNSimulator;
+import org.antlr.v4.runtime.atn.NotSetTransition;
 import org.antlr.v4.runtime.atn.ParserATNSimulator;
 import org.antlr.v4.runtime.atn.PredictionContextCache;
 import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.atn.SetTransition;
 import org.antlr.v4.runtime.atn.SimulatorState;
 import org.antlr.v4.runtime.dfa.DFA;
 import org.antlr.v4.runtime.dfa.DFAState;
 import org.antlr.v4.runtime.dfa.EmptyEdgeMap;
+import org.antlr.v4.runtime.misc.IntegerList;
 import org.antlr.v4.runtime.misc.Interval;
+import org.antlr.v4.runtime.misc.IntervalSet;
 import org.antlr.v4.runtime.misc.MurmurHash;
 import org.antlr.v4.runtime.misc.Pair;
 import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.antlr.v4.runtime.misc.Utils;
 import org.antlr.v4.runtime.tree.ErrorNode;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.antlr.v4.runtime.tree.ParseTreeListener;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
 import org.antlr.v4.runtime.tree.TerminalNode;
+import org.antlr.v4.tool.Grammar;
+import org.antlr.v4.unicode.UnicodeData;
 import org.jspecify.annotations.NullMarked;
 import org.jspecify.annotations.Nullable;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FilenameFilter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
 import java.lang.ref.Reference;
 import java.lang.ref.SoftReference;
 import java.lang.ref.WeakReference;
@@ -67,10 +88,15 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
@@ -91,6 +117,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -2106,4 +2133,370 @@ class PerformanceTest extends AbstractBaseTest {
     long endTime = System.nanoTime();
     System.out.format("%s milliseconds.%n", (endTime - startTime) / 1000000.0);
   }
+
+  /**
+   * Class initialization time and retained heap of the Unicode tables, measured in a fresh class loader,
+   * followed by the cost of materializing a few commonly used properties.
+   */
+  @Test
+  @Disabled("Benchmark")
+  void benchmarkUnicodeDataStartup() throws Exception {
+    String[] common = {"L", "Lu", "Ll", "Nd", "Zs", "Latin", "Cyrillic"};
+    URL codeSource = UnicodeData.class.getProtectionDomain().getCodeSource().getLocation();
+    for (int run = 0; run < 5; run++) {
+      try (URLClassLoader loader = new URLClassLoader(new URL[]{codeSource}, null)) {
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        Class<?> unicodeData = Class.forName(UnicodeData.class.getName(), true, loader);
+        long initTime = System.nanoTime() - start;
+        long heapAfterInit = usedHeap();
+
+        Method lookup = unicodeData.getMethod("getPropertyCodePoints", String.class);
+        start = System.nanoTime();
+        for (String property : common) {
+          lookup.invoke(null, property);
+        }
+        long lookupTime = System.nanoTime() - start;
+        long heapAfterLookup = usedHeap();
+
+        System.out.printf("run %d: class init %.2f ms (%d KB), %d common lookups %.2f ms (%d KB)%n",
+          run,
+          initTime / 1e6, (heapAfterInit - heapBefore) / 1024,
+          common.length, lookupTime / 1e6, (heapAfterLookup - heapAfterInit) / 1024);
+      }
+    }
+  }
+
+  private static long usedHeap() throws InterruptedException {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+      Thread.sleep(50);
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  /**
+   * Measures the membership tests done by the lexer on {@link SetTransition} and {@link NotSetTransition} edges,
+   * and the set operations of grammar analysis ({@link LL1Analyzer} and {@link AnalysisPipeline#disjoint}).
+   */
+  @Test
+  @Disabled("Benchmark")
+  void benchmarkIntervalSetOperations() throws Exception {
+    IntervalSet letters = UnicodeData.getPropertyCodePoints("L");
+    SetTransition set = new SetTransition(null, letters);
+    NotSetTransition notSet = new NotSetTransition(null, letters);
+    Grammar g = new Grammar("""
+      grammar T;
+      s : (a | b | c | d)* EOF ;
+      a : ID '=' e ';' ;
+      b : 'if' e 'then' s ('else' s)? 'end' ;
+      c : 'while' e 'do' s 'end' ;
+      d : 'return' e? ';' ;
+      e : e ('*' | '/') e | e ('+' | '-') e | '(' e ')' | ID | INT ;
+      ID : [a-zA-Z_] [a-zA-Z_0-9]* ;
+      INT : [0-9]+ ;
+      WS : [ \\t\\r\\n]+ -> skip ;
+      """);
+    List<DecisionState> decisions = g.atn.decisionToState;
+
+    for (int run = 0; run < 10; run++) {
+      long start = System.nanoTime();
+      int matches = 0;
+      for (int i = 0; i < 20; i++) {
+        for (int c = 0; c < 0x30000; c++) {
+          if (set.matches(c, Lexer.MIN_CHAR_VALUE, Lexer.MAX_CHAR_VALUE)) matches++;
+          if (notSet.matches(c, Lexer.MIN_CHAR_VALUE, Lexer.MAX_CHAR_VALUE)) matches++;
+        }
+      }
+      long lexerTime = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      int disjoint = 0;
+      for (int i = 0; i < 1000; i++) {
+        LL1Analyzer analyzer = new LL1Analyzer(g.atn);
+        for (ATNState decision : decisions) {
+          if (AnalysisPipeline.disjoint(analyzer.getDecisionLookahead(decision))) disjoint++;
+        }
+      }
+      long analysisTime = System.nanoTime() - start;
+
+      System.out.printf("run %d: set transitions %.2f ms (%d matches), analysis %.2f ms (%d LL(1))%n",
+        run, lexerTime / 1e6, matches, analysisTime / 1e6, disjoint);
+    }
+  }
+
+  @Test
+  @Disabled("Benchmark")
+  void benchmarkTokenizerPredictionStrategies() throws Exception {
+    BslRecognizer bsl = generateBslRecognizer();
+    String clean = TokenizerTest.generateSource(2000, false);
+    String erroneous = TokenizerTest.generateSource(2000, true);
+    for (int run = 0; run < 10; run++) {
+      for (Tokenizer.PredictionStrategy strategy : Tokenizer.PredictionStrategy.values()) {
+        long cleanTime = timeParse(bsl.newTokenizer(clean, strategy));
+        long erroneousTime = timeParse(bsl.newTokenizer(erroneous, strategy));
+        System.out.printf("run %d %-14s clean %.2f ms, erroneous %.2f ms%n",
+          run, strategy, cleanTime / 1e6, erroneousTime / 1e6);
+      }
+    }
+  }
+
+  private static long timeParse(Tokenizer<?, ?> tokenizer) {
+    tokenizer.getTokens();
+    long start = System.nanoTime();
+    tokenizer.getAst();
+    return System.nanoTime() - start;
+  }
+
+  private BslRecognizer generateBslRecognizer() throws Exception {
+    assertThat(rawGenerateAndBuildRecognizer("Bsl.g4", TokenizerTest.GRAMMAR, "BslParser", "BslLexer")).isTrue();
+    return new BslRecognizer(loadLexerClassFromTempDir("BslLexer"), loadParserClassFromTempDir("BslParser"));
+  }
+
+  /**
+   * The generated recognizer of the BSL-like grammar from {@link TokenizerTest}.
+   */
+  private record BslRecognizer(Class<? extends Lexer> lexerClass, Class<? extends Parser> parserClass) {
+    TokenizerTest.TestTokenizer newTokenizer(String source, Tokenizer.PredictionStrategy strategy) throws Exception {
+      Lexer lexer = lexerClass.getConstructor(CharStream.class).newInstance((CharStream) null);
+      TokenizerTest.TestTokenizer tokenizer = new TokenizerTest.TestTokenizer(source, lexer, parserClass);
+      tokenizer.setPredictionStrategy(strategy);
+      return tokenizer;
+    }
+  }
+
+  @Test
+  @Disabled("Benchmark")
+  void benchmarkSharedDFAContention() throws Exception {
+    assertThat(rawGenerateAndBuildRecognizer("Expr.g4", SharedDFAConcurrencyTest.GRAMMAR, "ExprParser", "ExprLexer"))
+      .isTrue();
+    Class<? extends Lexer> lexerClass = loadLexerClassFromTempDir("ExprLexer");
+    Class<? extends Parser> parserClass = loadParserClassFromTempDir("ExprParser");
+    List<String> sources = new ArrayList<>();
+    for (int i = 0; i < 10_000; i++) {
+      sources.add(SharedDFAConcurrencyTest.generateSource(i, 10));
+    }
+
+    for (int run = 0; run < 5; run++) {
+      SharedDFAConcurrencyTest.newParser(lexerClass, parserClass, "").getInterpreter().clearDFA();
+      long cold = timeParallel(lexerClass, parserClass, sources, Executors.newVirtualThreadPerTaskExecutor());
+      long warm = timeParallel(lexerClass, parserClass, sources, Executors.newVirtualThreadPerTaskExecutor());
+      long platform = timeParallel(lexerClass, parserClass, sources,
+        Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors()));
+      System.out.printf("run %d: virtual cold %.2f ms, virtual warm %.2f ms, platform warm %.2f ms%n",
+        run, cold / 1e6, warm / 1e6, platform / 1e6);
+    }
+  }
+
+  private static long timeParallel(Class<? extends Lexer> lexerClass, Class<? extends Parser> parserClass,
+                                   List<String> sources, ExecutorService executor) throws Exception {
+    long start = System.nanoTime();
+    try (executor) {
+      List<Future<String>> futures = new ArrayList<>();
+      for (String source : sources) {
+        futures.add(executor.submit(() -> SharedDFAConcurrencyTest.parse(lexerClass, parserClass, source)));
+      }
+      for (Future<String> future : futures) {
+        future.get();
+      }
+    }
+    return System.nanoTime() - start;
+  }
+
+  @Test
+  @Disabled("Benchmark")
+  void benchmarkATNDeserialization() throws Exception {
+    Grammar g = loadJavaGrammar();
+    ATN atn = createATN(g, false);
+    List<String> ruleNames = Arrays.asList(g.getRuleNames());
+    char[] plain = ATNSerializer.getSerializedAsChars(atn, ruleNames);
+    IntegerList preOptimized = SerializedATN.getOptimizedSerialization(g, atn, ruleNames);
+    char[] preOptimizedChars = Utils.toCharArray(preOptimized);
+    byte[] preOptimizedBytes = ATNSerializer.getSerializedAsBytes(preOptimized);
+
+    for (int run = 0; run < 10; run++) {
+      long start = System.nanoTime();
+      for (int i = 0; i < 100; i++) {
+        new ATNDeserializer().deserialize(plain);
+      }
+      long plainTime = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      for (int i = 0; i < 100; i++) {
+        new ATNDeserializer().deserialize(preOptimizedChars);
+      }
+      long preOptimizedTime = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      for (int i = 0; i < 100; i++) {
+        new ATNDeserializer().deserialize(ByteBuffer.wrap(preOptimizedBytes));
+      }
+      long bytesTime = System.nanoTime() - start;
+
+      System.out.printf("run %d: plain %.3f ms, pre-optimized %.3f ms, pre-optimized bytes %.3f ms%n",
+        run, plainTime / 1e8, preOptimizedTime / 1e8, bytesTime / 1e8);
+    }
+  }
+
+  @Test
+  @Disabled("Benchmark")
+  void benchmarkCompactAcceptStateConfigs() throws Exception {
+    Grammar g = loadJavaGrammar();
+    List<String> sources = new ArrayList<>();
+    try (Stream<Path> files = Files.walk(Paths.get("src/main/java"))) {
+      for (Path file : (Iterable<Path>) files.filter(f -> f.toString().endsWith(".java"))::iterator) {
+        sources.add(Files.readString(file));
+      }
+    }
+
+    for (boolean compact : new boolean[]{false, true, false, true}) {
+      LexerInterpreter lexer = g.createLexerInterpreter(CharStreams.fromString(""));
+      ParserInterpreter parser = g.createParserInterpreter(new CommonTokenStream(lexer));
+      lexer.removeErrorListeners();
+      parser.removeErrorListeners();
+      parser.getInterpreter().compact_accept_state_configs = compact;
+      long before = usedHeap();
+      for (String source : sources) {
+        lexer.setInputStream(CharStreams.fromString(source));
+        parser.setInputStream(new CommonTokenStream(lexer));
+        parser.parse(g.rules.get("compilationUnit").index);
+      }
+
+      lexer.setInputStream(CharStreams.fromString(""));
+      parser.setInputStream(new CommonTokenStream(lexer));
+      long retained = usedHeap() - before;
+      int states = 0;
+      for (DFA dfa : parser.getInterpreter().atn.decisionToDFA) {
+        states += dfa.states.size();
+      }
+
+      System.out.printf("compact=%s: %d files, %d DFA states, %d configs, %.2f MB retained%n",
+        compact, sources.size(), states, ParserInterpreterTest.countDFAConfigs(parser), retained / (1024.0 * 1024.0));
+    }
+  }
+
+  private static Grammar loadJavaGrammar() throws Exception {
+    try (InputStream in = Thread.currentThread().getContextClassLoader().getResourceAsStream("Java.g4")) {
+      if (in == null) {
+        throw new IOException("Could not find resource: Java.g4");
+      }
+      return new Grammar(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+    }
+  }
+
+  @Test
+  @Disabled("Benchmark")
+  void benchmarkTokenizerPipeline() throws Exception {
+    BslRecognizer bsl = generateBslRecognizer();
+    String source = TokenizerTest.generateSource(20000, false);
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int run = 0; run < 10; run++) {
+        long start = System.nanoTime();
+        bsl.newTokenizer(source, Tokenizer.PredictionStrategy.SLL_THEN_LL).getAst();
+        long sync = System.nanoTime() - start;
+        start = System.nanoTime();
+        bsl.newTokenizer(source, Tokenizer.PredictionStrategy.SLL_THEN_LL).getAstAsync(executor).get();
+        long pipelined = System.nanoTime() - start;
+        System.out.printf("run %d sync %.2f ms, pipelined %.2f ms%n", run, sync / 1e6, pipelined / 1e6);
+      }
+    }
+  }
+
+  @Test
+  @Disabled("Benchmark")
+  void benchmarkTokenizerContentSources() throws Exception {
+    BslRecognizer bsl = generateBslRecognizer();
+    String source = TokenizerTest.generateSource(20000, false);
+    for (int run = 0; run < 10; run++) {
+      long start = System.nanoTime();
+      Lexer lexer = bsl.lexerClass().getConstructor(CharStream.class).newInstance((CharStream) null);
+      new TokenizerTest.TestTokenizer(
+        new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8)), lexer, bsl.parserClass()).getTokens();
+      long stream = System.nanoTime() - start;
+      start = System.nanoTime();
+      bsl.newTokenizer(source, Tokenizer.PredictionStrategy.SLL_THEN_LL).getTokens();
+      long text = System.nanoTime() - start;
+      System.out.printf("run %d input stream %.2f ms, text %.2f ms%n", run, stream / 1e6, text / 1e6);
+    }
+  }
+
+  @Test
+  @Disabled("Benchmark")
+  void benchmarkRecognizerPoolAllocationPerFile() throws Exception {
+    StringBuilder source = new StringBuilder();
+    for (int i = 0; i < 20; i++) {
+      source.append("x").append(i).append(" = (a + ").append(i).append(") * b;\n");
+    }
+
+    String text = source.toString();
+    assertThat(rawGenerateAndBuildRecognizer("Expr.g4", RecognizerPoolTest.GRAMMAR, "ExprParser", "ExprLexer"))
+      .isTrue();
+    Class<? extends Lexer> lexerClass = loadLexerClassFromTempDir("ExprLexer");
+    Class<? extends Parser> parserClass = loadParserClassFromTempDir("ExprParser");
+    RecognizerPool<Lexer, Parser> pool = new RecognizerPool<>(
+      input -> RecognizerPoolTest.newInstance(lexerClass, CharStream.class, input),
+      tokens -> RecognizerPoolTest.newInstance(parserClass, TokenStream.class, tokens));
+    var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    for (int run = 0; run < 10; run++) {
+      long before = threads.getCurrentThreadAllocatedBytes();
+      for (int i = 0; i < 1000; i++) {
+        Lexer lexer = RecognizerPoolTest.newInstance(lexerClass, CharStream.class, CharStreams.fromString(text));
+        Parser parser = RecognizerPoolTest.newInstance(parserClass, TokenStream.class, new CommonTokenStream(lexer));
+        RecognizerPoolTest.ruleOf(parser);
+      }
+      long created = (threads.getCurrentThreadAllocatedBytes() - before) / 1000;
+
+      before = threads.getCurrentThreadAllocatedBytes();
+      for (int i = 0; i < 1000; i++) {
+        try (var lease = pool.acquire(CharStreams.fromString(text))) {
+          RecognizerPoolTest.ruleOf(lease.parser());
+        }
+      }
+      long pooled = (threads.getCurrentThreadAllocatedBytes() - before) / 1000;
+      System.out.printf("run %d new recognizers %d bytes/file, pooled %d bytes/file%n", run, created, pooled);
+    }
+  }
+
+  @Test
+  @Disabled("Benchmark")
+  void benchmarkSealedParseTreeRetainedSize() throws Exception {
+    Grammar g = new Grammar(SealedParseTreeTest.GRAMMAR);
+    StringBuilder source = new StringBuilder();
+    for (int i = 0; i < 100_000; i++) {
+      source.append("x").append(i).append(" = (a + ").append(i).append(") * b - c / 2;\n");
+    }
+
+    ParserInterpreter parser = SealedParseTreeTest.parser(g, source.toString());
+    ((CommonTokenStream) parser.getInputStream()).fill();
+    long tokens = usedHeap();
+    ParserRuleContext tree = parser.parse(g.getRule("file").index);
+    long parsed = usedHeap();
+    tree.seal();
+    long sealed = usedHeap();
+
+    System.out.printf("tree %d bytes, sealed tree %d bytes%n", parsed - tokens, sealed - tokens);
+    assertThat(tree.isSealed()).isTrue();
+  }
+
+  @Test
+  @Disabled("Benchmark")
+  void benchmarkParseResultCache(@TempDir Path directory) throws Exception {
+    BslRecognizer bsl = generateBslRecognizer();
+    String source = TokenizerTest.generateSource(20000, false);
+    try (var cache = ParseResultCache.open(directory, 1 << 28)) {
+      for (int run = 0; run < 10; run++) {
+        long start = System.nanoTime();
+        bsl.newTokenizer(source, Tokenizer.PredictionStrategy.SLL_THEN_LL).getAst();
+        long parsed = System.nanoTime() - start;
+        start = System.nanoTime();
+        Tokenizer<?, ?> tokenizer = bsl.newTokenizer(source, Tokenizer.PredictionStrategy.SLL_THEN_LL);
+        tokenizer.setParseResultCache(cache);
+        tokenizer.getAst();
+        long cached = System.nanoTime() - start;
+        System.out.printf("run %d parsed %.2f ms, from cache %.2f ms (%d bytes)%n",
+          run, parsed / 1e6, cached / 1e6, cache.size());
+      }
+    }
+  }
 }
@@ -0,0 +1,74 @@
+/*
+ * This file is a part of ANTLR.
+ *
+ * Copyright (c) 2012-2025 The ANTLR Project. All rights reserved.
+ * Copyright (c) 2025-2026 Valery Maximov <maximovvalery@gmail.com> and contributors
+ *
+ * Use of this file is governed by the BSD-3-Clause license that
+ * can be found in the LICENSE.txt file in the project root.
+ */
+package org.antlr.v4.test.tool;
+
+import org.antlr.v4.runtime.atn.ATN;
+import org.antlr.v4.runtime.atn.ATNType;
+import org.antlr.v4.runtime.atn.PredictionContext;
+import org.antlr.v4.runtime.atn.PredictionContextInterner;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PredictionContextInternerTest {
+  @Test
+  void testEqualContextsShareCanonicalInstance() {
+    ATN atn = new ATN(ATNType.PARSER, 10);
+    PredictionContext first = atn.getCachedContext(context(3, 5, 7));
+    PredictionContext second = atn.getCachedContext(context(3, 5, 7));
+
+    assertThat(second).isSameAs(first);
+    assertThat(second.getParent(0)).isSameAs(first.getParent(0));
+    assertThat(atn.getContextCacheSize()).isEqualTo(3);
+
+    PredictionContextInterner cache = atn.getContextCache();
+    assertThat(cache.getMissCount()).isEqualTo(3);
+    assertThat(cache.getHitCount()).isEqualTo(1);
+    assertThat(cache.getHitRate()).isEqualTo(0.25);
+
+    // a new context on top of a known parent reuses the canonical parent
+    PredictionContext sibling = atn.getCachedContext(context(3, 5, 9));
+    assertThat(sibling.getParent(0)).isSameAs(first.getParent(0));
+    assertThat(atn.getContextCacheSize()).isEqualTo(4);
+
+    atn.clearDFA();
+    assertThat(atn.getContextCacheSize()).isZero();
+  }
+
+  @Test
+  void testUnreferencedContextsAreReclaimed() throws Exception {
+    ATN atn = new ATN(ATNType.PARSER, 10);
+    PredictionContext retained = atn.getCachedContext(context(1, 2));
+    for (int i = 0; i < 1000; i++) {
+      atn.getCachedContext(context(100 + i, 2000 + i));
+    }
+    assertThat(atn.getContextCacheSize()).isEqualTo(2002);
+
+    for (int i = 0; i < 50 && atn.getContextCacheSize() > 2; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+
+    assertThat(atn.getContextCacheSize()).isEqualTo(2);
+    assertThat(atn.getCachedContext(context(1, 2))).isSameAs(retained);
+
+    // an equal context interned after its canonical instance was reclaimed becomes the new canonical instance
+    PredictionContext reinterned = context(100, 2000);
+    assertThat(atn.getCachedContext(reinterned)).isSameAs(reinterned);
+  }
+
+  private static PredictionContext context(int... returnStates) {
+    PredictionContext context = PredictionContext.EMPTY_FULL;
+    for (int returnState : returnStates) {
+      context = context.getChild(returnState);
+    }
+    return context;
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * This file is a part of ANTLR.
+ *
+ * Copyright (c) 2012-2025 The ANTLR Project. All rights reserved.
+ * Copyright (c) 2025-2026 Valery Maximov <maximovvalery@gmail.com> and contributors
+ *
+ * Use of this file is governed by the BSD-3-Clause license that
+ * can be found in the LICENSE.txt file in the project root.
+ */
+package org.antlr.v4.test.tool;
+
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.RecognizerPool;
+import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecognizerPoolTest extends AbstractBaseTest {
+  static final String GRAMMAR = """
+    grammar Expr;
+    file : statement* EOF ;
+    statement : ID '=' expression ';' ;
+    expression
+      : expression ('*' | '/') expression
+      | expression ('+' | '-') expression
+      | '(' expression ')'
+      | ID
+      | INT
+      ;
+    ID : [a-zA-Z_]+ ;
+    INT : [0-9]+ ;
+    WS : [ \\t\\r\\n]+ -> skip ;
+    """;
+
+  private RecognizerPool<Lexer, Parser> pool;
+
+  @BeforeEach
+  void generateRecognizer() throws Exception {
+    assertThat(rawGenerateAndBuildRecognizer("Expr.g4", GRAMMAR, "ExprParser", "ExprLexer")).isTrue();
+    Class<? extends Lexer> lexerClass = loadLexerClassFromTempDir("ExprLexer");
+    Class<? extends Parser> parserClass = loadParserClassFromTempDir("ExprParser");
+    pool = new RecognizerPool<>(
+      input -> newInstance(lexerClass, CharStream.class, input),
+      tokens -> newInstance(parserClass, TokenStream.class, tokens));
+  }
+
+  @Test
+  void testRecognizersAreReused() {
+    Parser parser;
+    try (var lease = pool.acquire(CharStreams.fromString("a = 1;"))) {
+      parser = lease.parser();
+      try (var nested = pool.acquire(CharStreams.fromString("b = 2;"))) {
+        assertThat(nested.parser()).isNotSameAs(parser);
+      }
+    }
+
+    try (var lease = pool.acquire(CharStreams.fromString("c = 3;"))) {
+      assertThat(lease.parser()).isSameAs(parser);
+      assertThat(lease.tokens().getTokenSource()).isSameAs(lease.lexer());
+      assertThat(parse(lease.parser())).isEqualTo("(file (statement c = (expression 3) ;) <EOF>)");
+    }
+  }
+
+  @Test
+  void testStateIsResetBetweenLeases() {
+    String expected;
+    try (var lease = pool.acquire(CharStreams.fromString("a = (1 + b) * 2;"))) {
+      expected = parse(lease.parser());
+    }
+
+    try (var lease = pool.acquire(CharStreams.fromString("a = (1 + ;"))) {
+      Parser parser = lease.parser();
+      parser.removeErrorListeners();
+      parser.addErrorListener(new BaseErrorListener());
+      lease.lexer().removeErrorListeners();
+      parser.setBuildParseTree(false);
+      parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+      ruleOf(parser).getChildCount();
+      assertThat(parser.getNumberOfSyntaxErrors()).isPositive();
+      parser.setErrorHandler(new BailErrorStrategy());
+    }
+
+    try (var lease = pool.acquire(CharStreams.fromString("a = (1 + b) * 2;"))) {
+      Parser parser = lease.parser();
+      assertThat(parser.getNumberOfSyntaxErrors()).isZero();
+      assertThat(parser.getContext()).isNull();
+      assertThat(parser.getErrorHandler()).isNotInstanceOf(BailErrorStrategy.class);
+      assertThat(parser.getBuildParseTree()).isTrue();
+      assertThat(parser.getInterpreter().getPredictionMode()).isEqualTo(PredictionMode.LL);
+      assertThat(parser.getErrorListeners()).hasSize(1);
+      assertThat(lease.lexer().getErrorListeners()).hasSize(1);
+      assertThat(parse(parser)).isEqualTo(expected);
+    }
+  }
+
+  private static String parse(Parser parser) {
+    return ruleOf(parser).toStringTree(parser);
+  }
+
+  static ParserRuleContext ruleOf(Parser parser) {
+    try {
+      return (ParserRuleContext) parser.getClass().getMethod("file").invoke(parser);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  static <T, A> T newInstance(Class<? extends T> type, Class<A> argumentType, A argument) {
+    try {
+      return type.getConstructor(argumentType).newInstance(argument);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
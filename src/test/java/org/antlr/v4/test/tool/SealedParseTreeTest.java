@@ -0,0 +1,121 @@
+/*
+ * This file is a part of ANTLR.
+ *
+ * Copyright (c) 2012-2025 The ANTLR Project. All rights reserved.
+ * Copyright (c) 2025-2026 Valery Maximov <maximovvalery@gmail.com> and contributors
+ *
+ * Use of this file is governed by the BSD-3-Clause license that
+ * can be found in the LICENSE.txt file in the project root.
+ */
+package org.antlr.v4.test.tool;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonToken;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.IncrementalParserRuleContext;
+import org.antlr.v4.runtime.ParserInterpreter;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.misc.Interval;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNodeImpl;
+import org.antlr.v4.runtime.tree.Trees;
+import org.antlr.v4.tool.Grammar;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SealedParseTreeTest {
+  static final String GRAMMAR = """
+    grammar Expr;
+    file : statement* EOF ;
+    statement : ID '=' expression ';' ;
+    expression
+      : expression ('*' | '/') expression
+      | expression ('+' | '-') expression
+      | '(' expression ')'
+      | ID
+      | INT
+      ;
+    ID : [a-zA-Z_]+ ;
+    INT : [0-9]+ ;
+    WS : [ \\t\\r\\n]+ -> skip ;
+    """;
+
+  @Test
+  void testSealedTreeReadsTheSame() throws Exception {
+    Grammar g = new Grammar(GRAMMAR);
+    ParserInterpreter parser = parser(g, "a = (1 + b) * 2;\nc = a / 3;");
+    ParserRuleContext tree = parser.parse(g.getRule("file").index);
+    String stringTree = tree.toStringTree(parser);
+    ParserRuleContext statement = (ParserRuleContext) tree.getChild(0);
+    String text = statement.getText();
+    List<String> tokens = statement.getTokens().stream().map(Object::toString).toList();
+
+    tree.seal();
+
+    assertThat(tree.isSealed()).isTrue();
+    assertThat(statement.isSealed()).isTrue();
+    assertThat(tree.toStringTree(parser)).isEqualTo(stringTree);
+    assertThat(statement.getText()).isEqualTo(text);
+    assertThat(statement.getTokens().stream().map(Object::toString).toList()).isEqualTo(tokens);
+    for (ParseTree node : Trees.getDescendants(tree)) {
+      if (node instanceof ParserRuleContext ctx) {
+        assertThat(ctx.getChildren()).hasSize(ctx.getChildCount());
+      }
+    }
+  }
+
+  @Test
+  void testSealedTreeCannotBeChanged() throws Exception {
+    Grammar g = new Grammar(GRAMMAR);
+    ParserRuleContext tree = parser(g, "a = 1;").parse(g.getRule("file").index);
+    tree.seal();
+
+    ParserRuleContext statement = (ParserRuleContext) tree.getChild(0);
+    var terminal = new TerminalNodeImpl(new CommonToken(1, "x"));
+    assertThatThrownBy(() -> statement.addChild(terminal)).isInstanceOf(UnsupportedOperationException.class);
+    assertThatThrownBy(() -> statement.setChild(0, terminal)).isInstanceOf(UnsupportedOperationException.class);
+    assertThatThrownBy(statement::removeLastChild).isInstanceOf(UnsupportedOperationException.class);
+    assertThatThrownBy(() -> tree.getChildren().clear()).isInstanceOf(UnsupportedOperationException.class);
+  }
+
+  @Test
+  void testSealedTreeIsReadConcurrently() throws Exception {
+    Grammar g = new Grammar(GRAMMAR);
+    StringBuilder source = new StringBuilder();
+    for (int i = 0; i < 200; i++) {
+      source.append("x").append(i).append(" = (a + ").append(i).append(") * b;\n");
+    }
+
+    ParserRuleContext tree = parser(g, source.toString()).parse(g.getRule("file").index);
+    String text = tree.getText();
+    tree.seal();
+
+    List<String> texts = IntStream.range(0, 64).parallel()
+      .mapToObj(i -> tree.getText())
+      .toList();
+    assertThat(texts).containsOnly(text);
+  }
+
+  @Test
+  void testMinMaxTokenIndex() {
+    var ctx = new IncrementalParserRuleContext(null, -1);
+    ctx.unionMinMaxTokenIndex(Interval.of(5, 7));
+    ctx.unionMinMaxTokenIndex(Interval.of(3, 4));
+    assertThat(ctx.getMinTokenIndex()).isEqualTo(3);
+    assertThat(ctx.getMaxTokenIndex()).isEqualTo(7);
+    assertThat(ctx.getMinMaxTokenIndex()).isEqualTo(Interval.of(3, 7));
+
+    ctx.setMinMaxTokenIndex(Interval.of(1, 2));
+    assertThat(ctx.getMinMaxTokenIndex()).isEqualTo(Interval.of(1, 2));
+  }
+
+  static ParserInterpreter parser(Grammar g, String input) {
+    var lexer = g.createLexerInterpreter(CharStreams.fromString(input));
+    return g.createParserInterpreter(new CommonTokenStream(lexer));
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * This file is a part of ANTLR.
+ *
+ * Copyright (c) 2012-2025 The ANTLR Project. All rights reserved.
+ * Copyright (c) 2025-2026 Valery Maximov <maximovvalery@gmail.com> and contributors
+ *
+ * Use of this file is governed by the BSD-3-Clause license that
+ * can be found in the LICENSE.txt file in the project root.
+ */
+package org.antlr.v4.test.tool;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.TokenStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Many parsers of one generated grammar running at once share its static DFA.
+ */
+class SharedDFAConcurrencyTest extends AbstractBaseTest {
+  static final String GRAMMAR = """
+    grammar Expr;
+    file : statement* EOF ;
+    statement
+      : ID '=' expression ';'
+      | expression ';'
+      ;
+    expression
+      : expression ('*' | '/') expression
+      | expression ('+' | '-') expression
+      | ID '(' (expression (',' expression)*)? ')'
+      | '(' expression ')'
+      | ID
+      | INT
+      ;
+    ID : [a-zA-Z_] [a-zA-Z_0-9]* ;
+    INT : [0-9]+ ;
+    WS : [ \\t\\r\\n]+ -> skip ;
+    """;
+
+  private Class<? extends Lexer> lexerClass;
+  private Class<? extends Parser> parserClass;
+
+  @BeforeEach
+  void generateRecognizer() throws Exception {
+    assertThat(rawGenerateAndBuildRecognizer("Expr.g4", GRAMMAR, "ExprParser", "ExprLexer")).isTrue();
+    lexerClass = loadLexerClassFromTempDir("ExprLexer");
+    parserClass = loadParserClassFromTempDir("ExprParser");
+  }
+
+  @Test
+  void testVirtualThreadsBuildSharedDFA() throws Exception {
+    List<String> sources = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      sources.add(generateSource(i, 20));
+    }
+
+    // The DFA starts empty, so the concurrent parses race to add the same states and edges
+    List<String> trees = new ArrayList<>();
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      List<Future<String>> futures = new ArrayList<>();
+      for (String source : sources) {
+        futures.add(executor.submit(() -> parse(lexerClass, parserClass, source)));
+      }
+      for (Future<String> future : futures) {
+        trees.add(future.get());
+      }
+    }
+
+    for (int i = 0; i < sources.size(); i++) {
+      assertThat(trees.get(i)).isEqualTo(parse(lexerClass, parserClass, sources.get(i)));
+    }
+
+    Parser parser = newParser(lexerClass, parserClass, "");
+    assertThat(parser.getTokenTypeMap()).containsEntry("ID", parser.getTokenType("ID"));
+    assertThat(parser.getRuleIndexMap()).containsKey("expression");
+    assertThat(parser.getATNWithBypassAlts()).isSameAs(newParser(lexerClass, parserClass, "").getATNWithBypassAlts());
+  }
+
+  static String parse(Class<? extends Lexer> lexerClass, Class<? extends Parser> parserClass, String source)
+    throws Exception {
+    Parser parser = newParser(lexerClass, parserClass, source);
+    ParserRuleContext tree = (ParserRuleContext) parserClass.getMethod("file").invoke(parser);
+    parser.getTokenTypeMap();
+    parser.getRuleIndexMap();
+    return tree.toStringTree(parser);
+  }
+
+  static Parser newParser(Class<? extends Lexer> lexerClass, Class<? extends Parser> parserClass, String source)
+    throws Exception {
+    Lexer lexer = lexerClass.getConstructor(CharStream.class).newInstance(CharStreams.fromString(source));
+    Parser parser = parserClass.getConstructor(TokenStream.class).newInstance(new CommonTokenStream(lexer));
+    parser.removeErrorListeners();
+    return parser;
+  }
+
+  static String generateSource(int seed, int statements) {
+    StringBuilder source = new StringBuilder();
+    for (int i = 0; i < statements; i++) {
+      int n = seed * 31 + i;
+      switch (n % 4) {
+        case 0 -> source.append("a").append(n).append(" = b * (c + ").append(n).append(") - d / 2;\n");
+        case 1 -> source.append("f(x, g(y + 1), ").append(n).append(");\n");
+        case 2 -> source.append("v = (a + b) * (c - d) * e").append(n).append(";\n");
+        default -> source.append("h(").append(n).append(") + k * m - n;\n");
+      }
+    }
+    return source.toString();
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * This file is a part of ANTLR.
+ *
+ * Copyright (c) 2012-2025 The ANTLR Project. All rights reserved.
+ * Copyright (c) 2025-2026 Valery Maximov <maximovvalery@gmail.com> and contributors
+ *
+ * Use of this file is governed by the BSD-3-Clause license that
+ * can be found in the LICENSE.txt file in the project root.
+ */
+package org.antlr.v4.test.tool;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonToken;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.LexerInterpreter;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.tool.LexerGrammar;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenContentHashTest {
+  private static final String GRAMMAR = """
+    lexer grammar L;
+    ID : ~[ ]+ ;
+    WS : ' '+ -> skip ;
+    """;
+
+  @Test
+  void testContentHashMatchesTextHash() throws Exception {
+    LexerGrammar lg = new LexerGrammar(GRAMMAR);
+    // Latin-1, UTF-16 and supplementary code points are stored differently
+    for (String input : List.of("abc foo", "жук ёж", "x😀 😀😀")) {
+      for (Token token : tokenize(lg, input)) {
+        assertThat(((CommonToken) token).getContentHash()).isEqualTo(token.getText().hashCode());
+      }
+    }
+  }
+
+  @Test
+  void testContentEqualsAcrossStreams() throws Exception {
+    LexerGrammar lg = new LexerGrammar(GRAMMAR);
+    List<Token> latin = tokenize(lg, "abc def abc");
+    List<Token> unicode = tokenize(lg, "жук abc 😀");
+
+    assertThat(token(latin, 0).contentEquals(token(latin, 2))).isTrue();
+    assertThat(token(latin, 0).contentEquals(token(unicode, 1))).isTrue();
+    assertThat(token(latin, 0).contentEquals(token(latin, 1))).isFalse();
+    assertThat(token(latin, 3).contentEquals(token(unicode, 3))).isTrue();
+
+    CommonToken copy = new CommonToken(token(unicode, 2));
+    assertThat(copy.contentEquals(token(unicode, 2))).isTrue();
+    copy.setText("abc");
+    assertThat(copy.getContentHash()).isEqualTo("abc".hashCode());
+    assertThat(copy.contentEquals(token(latin, 0))).isTrue();
+  }
+
+  private static CommonToken token(List<Token> tokens, int index) {
+    return (CommonToken) tokens.get(index);
+  }
+
+  private static List<Token> tokenize(LexerGrammar lg, String input) {
+    LexerInterpreter lexer = lg.createLexerInterpreter(CharStreams.fromString(input));
+    CommonTokenStream tokens = new CommonTokenStream(lexer);
+    tokens.fill();
+    return tokens.getTokens();
+  }
+}
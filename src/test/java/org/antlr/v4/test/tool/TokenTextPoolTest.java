@@ -0,0 +1,92 @@
+/*
+ * This file is a part of ANTLR.
+ *
+ * Copyright (c) 2012-2025 The ANTLR Project. All rights reserved.
+ * Copyright (c) 2025-2026 Valery Maximov <maximovvalery@gmail.com> and contributors
+ *
+ * Use of this file is governed by the BSD-3-Clause license that
+ * can be found in the LICENSE.txt file in the project root.
+ */
+package org.antlr.v4.test.tool;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenFactory;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.LexerInterpreter;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenTextPool;
+import org.antlr.v4.tool.LexerGrammar;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenTextPoolTest {
+  @Test
+  void testTokensShareText() throws Exception {
+    LexerGrammar lg = new LexerGrammar(
+      """
+        lexer grammar L;
+        ID : [a-z]+ ;
+        WS : ' '+ -> skip ;
+        """);
+    TokenTextPool pool = new TokenTextPool();
+    LexerInterpreter lexer = lg.createLexerInterpreter(CharStreams.fromString("foo bar foo foo"));
+    lexer.setTokenFactory(new CommonTokenFactory(pool));
+    CommonTokenStream tokens = new CommonTokenStream(lexer);
+    tokens.fill();
+
+    List<Token> list = tokens.getTokens();
+    assertThat(list).extracting(Token::getText).containsExactly("foo", "bar", "foo", "foo", "<EOF>");
+    assertThat(list.get(2).getText()).isSameAs(list.get(0).getText());
+    assertThat(list.get(3).getText()).isSameAs(list.get(0).getText());
+    assertThat(list.get(0).getText()).isSameAs(list.get(0).getText());
+
+    // a second lexer sharing the pool gets the same instances
+    LexerInterpreter other = lg.createLexerInterpreter(CharStreams.fromString("bar"));
+    other.setTokenFactory(new CommonTokenFactory(pool));
+    assertThat(other.nextToken().getText()).isSameAs(list.get(1).getText());
+  }
+
+  @Test
+  void testTextOfEachStorage() {
+    TokenTextPool pool = new TokenTextPool();
+    assertSharedText(pool, CharStreams.fromString("abc abc"), 0, 2, 4, "abc");
+    assertSharedText(pool, CharStreams.fromString("жук жук"), 0, 2, 4, "жук");
+    assertSharedText(pool, CharStreams.fromString("x😀 x😀"), 0, 1, 3, "x😀");
+    assertThat(pool.intern(new String("x😀")))
+      .isSameAs(pool.getText(CharStreams.fromString("x😀"), 0, 1));
+  }
+
+  @Test
+  void testLongTextsAreNotPooled() {
+    TokenTextPool pool = new TokenTextPool(16, 3);
+    CharStream input = CharStreams.fromString("abcd abcd abc abc");
+    String first = pool.getText(input, 0, 3);
+    String second = pool.getText(input, 5, 8);
+    assertThat(second).isEqualTo(first).isEqualTo("abcd").isNotSameAs(first);
+    assertThat(pool.getText(input, 14, 16)).isSameAs(pool.getText(input, 10, 12));
+  }
+
+  @Test
+  void testCollidingTextsReplaceEachOther() {
+    TokenTextPool pool = new TokenTextPool(1, 8);
+    CharStream input = CharStreams.fromString("a b a b");
+    assertThat(pool.getText(input, 0, 0)).isEqualTo("a");
+    assertThat(pool.getText(input, 2, 2)).isEqualTo("b");
+    assertThat(pool.getText(input, 4, 4)).isEqualTo("a");
+    assertThat(pool.getText(input, 6, 6)).isEqualTo("b");
+
+    pool.clear();
+    assertThat(pool.getText(input, 0, 0)).isEqualTo("a");
+  }
+
+  private static void assertSharedText(TokenTextPool pool, CharStream input, int start, int stop, int repeat,
+                                       String expected) {
+    String text = pool.getText(input, start, stop);
+    assertThat(text).isEqualTo(expected);
+    assertThat(pool.getText(input, repeat, repeat + stop - start)).isSameAs(text);
+  }
+}
@@ -0,0 +1,253 @@
+/*
+ * This file is a part of ANTLR.
+ *
+ * Copyright (c) 2012-2025 The ANTLR Project. All rights reserved.
+ * Copyright (c) 2025-2026 Valery Maximov <maximovvalery@gmail.com> and contributors
+ *
+ * Use of this file is governed by the BSD-3-Clause license that
+ * can be found in the LICENSE.txt file in the project root.
+ */
+package org.antlr.v4.test.tool;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.ParseResultCache;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.Tokenizer;
+import org.antlr.v4.tool.Grammar;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenizerTest extends AbstractBaseTest {
+  static final String GRAMMAR = """
+    grammar Bsl;
+    file : (procedure | statement)* EOF ;
+    procedure : PROCEDURE ID '(' params? ')' EXPORT? statement* END_PROCEDURE ;
+    params : param (',' param)* ;
+    param : VAL? ID ('=' expression)? ;
+    statement
+      : ID ('.' ID)* '=' expression ';'
+      | call ';'
+      | IF expression THEN statement* (ELSIF expression THEN statement*)* (ELSE statement*)? END_IF ';'
+      | RETURN expression? ';'
+      ;
+    call : ID ('.' ID)* '(' (expression (',' expression)*)? ')' ;
+    expression
+      : expression ('*' | '/') expression
+      | expression ('+' | '-') expression
+      | expression ('=' | '<>' | '<' | '>') expression
+      | '(' expression ')'
+      | call
+      | ID ('.' ID)*
+      | NUMBER
+      | STRING
+      ;
+    PROCEDURE : 'Procedure' ;
+    END_PROCEDURE : 'EndProcedure' ;
+    EXPORT : 'Export' ;
+    VAL : 'Val' ;
+    IF : 'If' ;
+    THEN : 'Then' ;
+    ELSIF : 'ElsIf' ;
+    ELSE : 'Else' ;
+    END_IF : 'EndIf' ;
+    RETURN : 'Return' ;
+    ID : [a-zA-Z_] [a-zA-Z_0-9]* ;
+    NUMBER : [0-9]+ ('.' [0-9]+)? ;
+    STRING : '"' ~["\\r\\n]* '"' ;
+    LINE_COMMENT : '//' ~[\\r\\n]* -> channel(HIDDEN) ;
+    WS : [ \\t\\r\\n]+ -> channel(HIDDEN) ;
+    """;
+
+  private Class<? extends Lexer> lexerClass;
+  private Class<? extends Parser> parserClass;
+
+  @BeforeEach
+  void generateRecognizer() throws Exception {
+    assertThat(rawGenerateAndBuildRecognizer("Bsl.g4", GRAMMAR, "BslParser", "BslLexer")).isTrue();
+    lexerClass = loadLexerClassFromTempDir("BslLexer");
+    parserClass = loadParserClassFromTempDir("BslParser");
+  }
+
+  @Test
+  void testDecisionLocalMatchesTwoPassOnValidInput() throws Exception {
+    String source = generateSource(20, false);
+    TestTokenizer twoPass = newTokenizer(source, Tokenizer.PredictionStrategy.SLL_THEN_LL);
+    TestTokenizer decisionLocal = newTokenizer(source, Tokenizer.PredictionStrategy.DECISION_LOCAL);
+
+    String expected = twoPass.getAst().toStringTree(twoPass.getParser());
+    assertThat(decisionLocal.getAst().toStringTree(decisionLocal.getParser())).isEqualTo(expected);
+    assertThat(decisionLocal.getParser().getNumberOfSyntaxErrors()).isZero();
+  }
+
+  @Test
+  void testDecisionLocalReportsErrorsInSinglePass() throws Exception {
+    TestTokenizer tokenizer = newTokenizer(generateSource(20, true), Tokenizer.PredictionStrategy.DECISION_LOCAL);
+
+    ParserRuleContext ast = tokenizer.getAst();
+    assertThat(ast.getChildCount()).isPositive();
+    assertThat(tokenizer.getParser().getNumberOfSyntaxErrors()).isPositive();
+    assertThat(tokenizer.rootCalls).isEqualTo(1);
+  }
+
+  @Test
+  void testPipelineMatchesSynchronousParse() throws Exception {
+    String source = generateSource(200, true);
+    TestTokenizer sync = newTokenizer(source, Tokenizer.PredictionStrategy.SLL_THEN_LL);
+    TestTokenizer pipelined = newTokenizer(source, Tokenizer.PredictionStrategy.SLL_THEN_LL);
+
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      CompletableFuture<ParserRuleContext> ast = pipelined.getAstAsync(executor);
+      CompletableFuture<List<Token>> tokens = pipelined.getTokensAsync(executor);
+
+      assertThat(ast.get().toStringTree(pipelined.getParser()))
+        .isEqualTo(sync.getAst().toStringTree(sync.getParser()));
+      assertThat(tokens.get()).extracting(Token::getText)
+        .containsExactlyElementsOf(sync.getTokens().stream().map(Token::getText).toList());
+      assertThat(tokens.get()).extracting(Token::getTokenIndex)
+        .containsExactlyElementsOf(sync.getTokens().stream().map(Token::getTokenIndex).toList());
+      assertThat(pipelined.getAst()).isSameAs(ast.get());
+
+      // once computed, the results are reused
+      assertThat(pipelined.getAstAsync(executor).get()).isSameAs(ast.get());
+    }
+  }
+
+  @Test
+  void testInputStreamAndTextGiveSameTree() throws Exception {
+    String source = "\uFEFF" + generateSource(20, false).replace("big", "\u0431\u043e\u043b\u044c\u0448\u043e\u0435");
+    TestTokenizer fromText = newTokenizer(source, Tokenizer.PredictionStrategy.SLL_THEN_LL);
+    Lexer lexer = lexerClass.getConstructor(CharStream.class).newInstance((CharStream) null);
+    TestTokenizer fromStream = new TestTokenizer(
+      new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8)), lexer, parserClass);
+
+    assertThat(fromText.getAst().toStringTree(fromText.getParser()))
+      .isEqualTo(fromStream.getAst().toStringTree(fromStream.getParser()));
+    assertThat(fromText.getTokens()).extracting(Token::getText)
+      .containsExactlyElementsOf(fromStream.getTokens().stream().map(Token::getText).toList());
+  }
+
+  @Test
+  void testParseResultCacheRestoresTree(@TempDir Path directory) throws Exception {
+    String source = generateSource(50, false);
+    try (var cache = ParseResultCache.open(directory, 1 << 24)) {
+      TestTokenizer parsed = newTokenizer(source, Tokenizer.PredictionStrategy.SLL_THEN_LL);
+      parsed.setParseResultCache(cache);
+      String expected = parsed.getAst().toStringTree(parsed.getParser());
+      assertThat(cache.getMissCount()).isEqualTo(1);
+
+      TestTokenizer cached = newTokenizer(source, Tokenizer.PredictionStrategy.SLL_THEN_LL);
+      cached.setParseResultCache(cache);
+      ParserRuleContext ast = cached.getAst();
+      assertThat(cache.getHitCount()).isEqualTo(1);
+      assertThat(cached.rootCalls).isZero();
+      assertThat(ast.getClass()).isEqualTo(parsed.getAst().getClass());
+      assertThat(ast.toStringTree(cached.getParser())).isEqualTo(expected);
+      assertThat(cached.getTokens()).extracting(Token::getText)
+        .containsExactlyElementsOf(parsed.getTokens().stream().map(Token::getText).toList());
+      assertThat(cached.getTokens()).extracting(Token::getLine)
+        .containsExactlyElementsOf(parsed.getTokens().stream().map(Token::getLine).toList());
+    }
+  }
+
+  @Test
+  void testParseResultCacheSkipsSyntaxErrors(@TempDir Path directory) throws Exception {
+    String source = generateSource(10, true);
+    try (var cache = ParseResultCache.open(directory, 1 << 24)) {
+      for (int i = 0; i < 2; i++) {
+        TestTokenizer tokenizer = newTokenizer(source, Tokenizer.PredictionStrategy.SLL_THEN_LL);
+        tokenizer.setParseResultCache(cache);
+        tokenizer.getAst();
+        assertThat(tokenizer.rootCalls).isPositive();
+      }
+      assertThat(cache.getHitCount()).isZero();
+      assertThat(cache.size()).isZero();
+    }
+  }
+
+  @Test
+  void testParseResultCacheSkipsInterpretedLexer(@TempDir Path directory) throws Exception {
+    Lexer lexer = new Grammar(GRAMMAR).createLexerInterpreter(null);
+    try (var cache = ParseResultCache.open(directory, 1 << 24)) {
+      TestTokenizer tokenizer = new TestTokenizer(generateSource(5, false), lexer, parserClass);
+      tokenizer.setParseResultCache(cache);
+      tokenizer.getAst();
+
+      assertThat(tokenizer.rootCalls).isEqualTo(1);
+      assertThat(cache.getMissCount()).isZero();
+      assertThat(cache.size()).isZero();
+    }
+  }
+
+  private TestTokenizer newTokenizer(String source, Tokenizer.PredictionStrategy strategy) throws Exception {
+    Lexer lexer = lexerClass.getConstructor(CharStream.class).newInstance((CharStream) null);
+    TestTokenizer tokenizer = new TestTokenizer(source, lexer, parserClass);
+    tokenizer.setPredictionStrategy(strategy);
+    return tokenizer;
+  }
+
+  /**
+   * BSL-like module text; with {@code errors} every fifth procedure misses a semicolon or a closing parenthesis.
+   */
+  static String generateSource(int procedures, boolean errors) {
+    StringBuilder source = new StringBuilder();
+    for (int i = 0; i < procedures; i++) {
+      boolean broken = errors && i % 5 == 0;
+      source.append("// procedure ").append(i).append('\n');
+      source.append("Procedure Proc").append(i).append("(Val First, Second = 1) Export\n");
+      source.append("  Result = First + Second * ").append(i).append(broken ? "\n" : ";\n");
+      source.append("  If Result > 10 Then\n");
+      source.append("    Message(\"big\", Result").append(broken && i % 2 == 0 ? ";\n" : ");\n");
+      source.append("  ElsIf Result = 0 Then\n");
+      source.append("    Common.Log.Write(Result);\n");
+      source.append("  Else\n");
+      source.append("    Return;\n");
+      source.append("  EndIf;\n");
+      source.append("  Context.Value = (Result - 1) / 2;\n");
+      source.append("EndProcedure\n\n");
+    }
+    return source.toString();
+  }
+
+  static class TestTokenizer extends Tokenizer<ParserRuleContext, Parser> {
+    int rootCalls;
+
+    @SuppressWarnings("unchecked")
+    TestTokenizer(String content, Lexer lexer, Class<? extends Parser> parserClass) {
+      super(content, lexer, (Class<Parser>) parserClass);
+    }
+
+    @SuppressWarnings("unchecked")
+    TestTokenizer(InputStream content, Lexer lexer, Class<? extends Parser> parserClass) {
+      super(content, lexer, (Class<Parser>) parserClass);
+    }
+
+    Parser getParser() {
+      return parser;
+    }
+
+    @Override
+    protected ParserRuleContext rootAST() {
+      rootCalls++;
+      try {
+        return (ParserRuleContext) parser.getClass().getMethod("file").invoke(parser);
+      } catch (ReflectiveOperationException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+}
@@ -208,4 +208,15 @@ class UnicodeDataTest {
   void testPropertyDashSameAsUnderscore() {
     assertThat(UnicodeData.getPropertyCodePoints("InLatin-1").contains('ð')).isTrue();
   }
+
+  @Test
+  void testUnknownProperty() {
+    assertThat(UnicodeData.getPropertyCodePoints("NoSuchProperty")).isNull();
+  }
+
+  @Test
+  void testPropertyCodePointsAreShared() {
+    assertThat(UnicodeData.getPropertyCodePoints("Lu")).isSameAs(UnicodeData.getPropertyCodePoints("Uppercase_Letter"));
+    assertThat(UnicodeData.getPropertyCodePoints("Lu").isReadonly()).isTrue();
+  }
 }